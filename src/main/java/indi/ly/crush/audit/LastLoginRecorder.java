@@ -0,0 +1,245 @@
+package indi.ly.crush.audit;
+
+import indi.ly.crush.config.AppProperties;
+import org.hibernate.Session;
+import org.intellij.lang.annotations.Language;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <h2>最后登录信息记录器</h2>
+ * <p>
+ *     以写后({@code write-behind})的方式维护 {@code t_user} 的 {@code last_login_ip} 和 {@code last_login_time}, 登录请求不再等待数据库写入:
+ *     <ol>
+ *         <li>
+ *             登录成功后, 请求线程调用 {@link #record} 将登录事件放入无锁的 {@link MpscRingBuffer}, 缓冲区已满时直接丢弃并计数, 从不阻塞.
+ *         </li>
+ *         <li>
+ *             后台线程不断取出事件, 并按用户合并(同一用户只保留最后一次登录).
+ *         </li>
+ *         <li>
+ *             合并后的用户数量达到 {@code batchSize}, 或距离上次写入超过 {@code flushInterval} 时, 以 {@code JDBC} 批处理执行 {@code UPDATE}.
+ *         </li>
+ *     </ol>
+ *     关闭时会停止后台线程并写入所有剩余的事件. 写入失败的批次会被丢弃(最后登录信息只用于审计展示), 并记录在指标中.
+ * </p>
+ *
+ * @since 1.0
+ * @see AppProperties.LastLoginConfig
+ * @author 云上的云
+ * @formatter:off
+ */
+public class LastLoginRecorder
+        implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LastLoginRecorder.class);
+    @Language("MySQL")
+    private static final String UPDATE_SQL = "UPDATE t_user SET last_login_ip = ?, last_login_time = ? WHERE id = ?";
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final MpscRingBuffer<LoginEvent> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Thread flusher;
+    private final Map<Long, LoginEvent> pending = new LinkedHashMap<>();
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder flushedBatches = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private volatile long lastFlushLagMillis;
+    private volatile long maxFlushLagMillis;
+    private volatile boolean running = true;
+
+    public LastLoginRecorder(
+            @NonNull EntityManager entityManager,
+            @NonNull TransactionTemplate transactionTemplate,
+            @NonNull AppProperties.LastLoginConfig config
+    ) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.buffer = new MpscRingBuffer<>(config.getBufferSize());
+        this.batchSize = config.getBatchSize();
+        this.flushIntervalNanos = config.getFlushInterval().toNanos();
+
+        this.flusher = new Thread(this :: run, "last-login-flush");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * <p>
+     *     记录一次成功的登录, 可以被任意线程调用, 不会阻塞.
+     * </p>
+     *
+     * @param userId 用户的唯一标识符.
+     * @param host   客户端主机名或 {@code IP} 地址.
+     */
+    public void record(long userId, @Nullable String host) {
+        if (!this.running) {
+            this.dropped.increment();
+            return;
+        }
+        if (!this.buffer.offer(new LoginEvent(userId, host, System.currentTimeMillis()))) {
+            this.dropped.increment();
+            return;
+        }
+        this.recorded.increment();
+        // 积压的事件足够一个批次时提前唤醒后台线程.
+        if (this.buffer.size() >= this.batchSize) {
+            LockSupport.unpark(this.flusher);
+        }
+    }
+
+    /**
+     * <p>
+     *     获取记录器的指标快照.
+     * </p>
+     *
+     * @return 指标快照.
+     */
+    public @NonNull Metrics getMetrics() {
+        return new Metrics(
+                this.buffer.size(),
+                this.buffer.capacity(),
+                this.recorded.sum(),
+                this.dropped.sum(),
+                this.coalesced.sum(),
+                this.flushedRows.sum(),
+                this.flushedBatches.sum(),
+                this.failedBatches.sum(),
+                this.lastFlushLagMillis,
+                this.maxFlushLagMillis
+        );
+    }
+
+    @Override
+    public void close() {
+        this.running = false;
+        LockSupport.unpark(this.flusher);
+        try {
+            this.flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LOGGER.info("最后登录信息记录器已关闭, 指标 [{}].", this.getMetrics());
+    }
+
+    private void run() {
+        long lastFlush = System.nanoTime();
+        while (this.running) {
+            this.buffer.drain(this :: coalesce, Integer.MAX_VALUE);
+            long elapsed = System.nanoTime() - lastFlush;
+            if (this.pending.size() >= this.batchSize || (!this.pending.isEmpty() && elapsed >= this.flushIntervalNanos)) {
+                this.flush();
+                lastFlush = System.nanoTime();
+            } else if (this.pending.isEmpty()) {
+                lastFlush = System.nanoTime();
+                LockSupport.parkNanos(this, this.flushIntervalNanos);
+            } else {
+                LockSupport.parkNanos(this, this.flushIntervalNanos - elapsed);
+            }
+        }
+        // 关闭: 写入所有剩余的事件.
+        this.buffer.drain(this :: coalesce, Integer.MAX_VALUE);
+        this.flush();
+    }
+
+    private void coalesce(@NonNull LoginEvent event) {
+        // 同一用户只保留最后一次登录.
+        LoginEvent previous = this.pending.get(event.userId());
+        if (previous != null) {
+            this.coalesced.increment();
+            if (previous.timestamp() > event.timestamp()) {
+                return;
+            }
+        }
+        this.pending.put(event.userId(), event);
+    }
+
+    private void flush() {
+        while (!this.pending.isEmpty()) {
+            List<LoginEvent> batch = new ArrayList<>(Math.min(this.pending.size(), this.batchSize));
+            Iterator<LoginEvent> iterator = this.pending.values().iterator();
+            while (iterator.hasNext() && batch.size() < this.batchSize) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+
+            long oldest = Long.MAX_VALUE;
+            for (LoginEvent event : batch) {
+                oldest = Math.min(oldest, event.timestamp());
+            }
+            try {
+                this.transactionTemplate.executeWithoutResult(status -> this.entityManager.unwrap(Session.class).doWork(connection -> {
+                    try (PreparedStatement ps = connection.prepareStatement(UPDATE_SQL)) {
+                        for (LoginEvent event : batch) {
+                            ps.setString(1, event.host());
+                            ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.ofInstant(Instant.ofEpochMilli(event.timestamp()), ZoneId.systemDefault())));
+                            ps.setLong(3, event.userId());
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                }));
+                this.flushedRows.add(batch.size());
+                this.flushedBatches.increment();
+                long lag = System.currentTimeMillis() - oldest;
+                this.lastFlushLagMillis = lag;
+                this.maxFlushLagMillis = Math.max(this.maxFlushLagMillis, lag);
+            } catch (RuntimeException e) {
+                this.failedBatches.increment();
+                LOGGER.error("写入 [{}] 个用户的最后登录信息失败, 已丢弃.", batch.size(), e);
+            }
+        }
+    }
+
+    private record LoginEvent(long userId, String host, long timestamp) {
+    }
+
+    /**
+     * <h2>最后登录信息记录器的指标</h2>
+     *
+     * @param queueDepth         缓冲区中尚未取出的事件数量.
+     * @param queueCapacity      缓冲区的容量.
+     * @param recordedCount      放入缓冲区的事件数量.
+     * @param droppedCount       因缓冲区已满或已关闭而丢弃的事件数量.
+     * @param coalescedCount     被同一用户后续登录合并掉的事件数量.
+     * @param flushedRowCount    写入数据库的行数.
+     * @param flushedBatchCount  成功写入的批次数量.
+     * @param failedBatchCount   写入失败的批次数量.
+     * @param lastFlushLagMillis 最近一个批次中最早的事件从登录到写入完成的延迟.
+     * @param maxFlushLagMillis  上述延迟的最大值.
+     */
+    public record Metrics(
+            int queueDepth,
+            int queueCapacity,
+            long recordedCount,
+            long droppedCount,
+            long coalescedCount,
+            long flushedRowCount,
+            long flushedBatchCount,
+            long failedBatchCount,
+            long lastFlushLagMillis,
+            long maxFlushLagMillis
+    ) {
+    }
+}
@@ -0,0 +1,101 @@
+package indi.ly.crush.audit;
+
+import org.springframework.lang.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * <h2>多生产者单消费者环形缓冲区</h2>
+ * <p>
+ *     有界、无锁: <br />
+ *     1. 生产者通过 {@code CAS} 递增生产者序号来占用槽位, 然后写入元素; 缓冲区已满时 {@link #offer} 立即返回 {@code false}, 从不阻塞. <br />
+ *     2. 唯一的消费者按序号依次取出元素并清空槽位, 最后推进消费者序号以释放空间. <br />
+ *     生产者占用槽位与写入元素之间存在短暂的窗口, 消费者遇到已占用但尚未写入的槽位时自旋等待.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @param <E> 元素的类型.
+ * @formatter:off
+ */
+final class MpscRingBuffer<E> {
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final int capacity;
+    private final AtomicLong producerIndex = new AtomicLong();
+    /**
+     * <p>
+     *     消费者序号, 只由消费者线程写入.
+     * </p>
+     */
+    private volatile long consumerIndex;
+
+    MpscRingBuffer(int capacity) {
+        // 向上取整为 2 的幂, 以便用位运算定位槽位.
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.slots = new AtomicReferenceArray<>(this.capacity);
+    }
+
+    /**
+     * <p>
+     *     添加元素, 可以被任意线程调用.
+     * </p>
+     *
+     * @param element 元素.
+     * @return 缓冲区已满时返回 {@code false}.
+     */
+    boolean offer(@NonNull E element) {
+        long index;
+        do {
+            index = this.producerIndex.get();
+            if (index - this.consumerIndex >= this.capacity) {
+                return false;
+            }
+        } while (!this.producerIndex.compareAndSet(index, index + 1));
+        this.slots.lazySet((int) (index & this.mask), element);
+        return true;
+    }
+
+    /**
+     * <p>
+     *     取出最多 {@code limit} 个元素, 只能被消费者线程调用.
+     * </p>
+     *
+     * @param consumer 元素的接收者.
+     * @param limit    最多取出的元素数量.
+     * @return 取出的元素数量.
+     */
+    int drain(@NonNull Consumer<E> consumer, int limit) {
+        long index = this.consumerIndex;
+        int drained = 0;
+        while (drained < limit) {
+            int offset = (int) (index & this.mask);
+            E element = this.slots.get(offset);
+            if (element == null) {
+                if (index == this.producerIndex.get()) {
+                    break;
+                }
+                // 槽位已被占用但生产者尚未写入.
+                Thread.onSpinWait();
+                continue;
+            }
+            this.slots.lazySet(offset, null);
+            index++;
+            drained++;
+            consumer.accept(element);
+        }
+        this.consumerIndex = index;
+        return drained;
+    }
+
+    int size() {
+        return (int) Math.max(0, this.producerIndex.get() - this.consumerIndex);
+    }
+
+    int capacity() {
+        return this.capacity;
+    }
+}
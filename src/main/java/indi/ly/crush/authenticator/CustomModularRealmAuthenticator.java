@@ -1,18 +1,18 @@
 package indi.ly.crush.authenticator;
 
+import indi.ly.crush.ratelimit.LoginRateLimiter;
 import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
 import org.apache.shiro.authc.UnknownAccountException;
 import org.apache.shiro.authc.pam.AtLeastOneSuccessfulStrategy;
 import org.apache.shiro.authc.pam.ModularRealmAuthenticator;
-import org.apache.shiro.realm.AuthenticatingRealm;
 import org.apache.shiro.realm.Realm;
-import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedList;
-import java.util.stream.Collectors;
+import java.util.Collections;
 
 /**
  * <h2>自定义模块化{@link Realm 安全域}认证器</h2>
@@ -33,31 +33,72 @@ import java.util.stream.Collectors;
  *                      // 省略剩下代码......
  *                  }
  *     }</pre>
+ *     支持给定认证令牌的安全域由 {@link RealmSupportIndex} 按令牌类型缓存, 每次登录不再遍历所有安全域.
  * </p>
  *
  * @since 1.0
  * @see AtLeastOneSuccessfulStrategy
  * @see ModularRealmAuthenticator#doSingleRealmAuthentication
  * @see ModularRealmAuthenticator#doMultiRealmAuthentication 
+ * @see ParallelRealmAuthenticationExecutor
+ * @see RealmSupportIndex
  * @author 云上的云
  * @formatter:off
  */
 public class CustomModularRealmAuthenticator
         extends ModularRealmAuthenticator {
+    /**
+     * <p>
+     *     登录限流器, 为 {@code null} 时不限流.
+     * </p>
+     */
+    private LoginRateLimiter loginRateLimiter;
+    /**
+     * <p>
+     *     并行多安全域认证执行器, 为 {@code null} 时多个安全域按顺序认证.
+     * </p>
+     */
+    private ParallelRealmAuthenticationExecutor parallelRealmAuthenticationExecutor;
+    /**
+     * <p>
+     *     按认证令牌类型缓存的安全域支持索引, 在设置安全域时重建.
+     * </p>
+     */
+    private volatile RealmSupportIndex realmSupportIndex = new RealmSupportIndex(null);
+
+    public void setLoginRateLimiter(@Nullable LoginRateLimiter loginRateLimiter) {
+        this.loginRateLimiter = loginRateLimiter;
+    }
+
+    public void setParallelRealmAuthenticationExecutor(@Nullable ParallelRealmAuthenticationExecutor parallelRealmAuthenticationExecutor) {
+        this.parallelRealmAuthenticationExecutor = parallelRealmAuthenticationExecutor;
+    }
+
+    @Override
+    public void setRealms(Collection<Realm> realms) {
+        super.setRealms(realms);
+        this.realmSupportIndex = new RealmSupportIndex(realms);
+    }
+
     @Override
     protected AuthenticationInfo doAuthenticate(AuthenticationToken token) throws AuthenticationException {
         super.assertRealmsConfigured();
 
-        LinkedList<Realm> supportingRealms = this.getSupportedRealmsForToken(token);
-        if (supportingRealms.isEmpty()) {
+        // 在任何安全域查询数据库或计算密码哈希之前限流, 被拒绝的请求几乎不消耗 CPU.
+        if (this.loginRateLimiter != null) {
+            this.loginRateLimiter.acquire(token);
+        }
+
+        Realm[] supportingRealms = this.realmSupportIndex.supportingRealms(token);
+        if (supportingRealms.length == 0) {
             throw new AuthenticationException("找不到支持给定认证令牌 [%s] 的安全域.".formatted(token));
         }
 
-        if (supportingRealms.size() == 1) {
-            return this.doSingleRealmAuthentication(supportingRealms.get(0), token);
+        if (supportingRealms.length == 1) {
+            return this.doSingleRealmAuthentication(supportingRealms[0], token);
         }
 
-        return this.doMultiRealmAuthentication(supportingRealms, token);
+        return this.doMultiRealmAuthentication(Collections.unmodifiableList(Arrays.asList(supportingRealms)), token);
     }
 
     @Override
@@ -73,20 +114,15 @@ public class CustomModularRealmAuthenticator
 
     /**
      * <p>
-     *     根据传入的认证令牌返回所有支持该令牌的安全域.
+     *     设置了 {@link ParallelRealmAuthenticationExecutor} 时并发地尝试所有安全域并采用最先成功的认证信息,
+     *     此时不会调用 {@link org.apache.shiro.authc.pam.AuthenticationStrategy} 的回调; 否则按顺序尝试.
      * </p>
-     *
-     * @param token 认证令牌.
-     * @return 支持该令牌的所有安全域.
-     * @see AuthenticatingRealm#supports(AuthenticationToken)
      */
-    private @NonNull LinkedList<Realm> getSupportedRealmsForToken(@NonNull AuthenticationToken token) {
-        // 获取所有已配置的 Realm.
-        Collection<Realm> realms = super.getRealms();
-
-        return realms
-                    .stream()
-                    .filter(realm -> realm.supports(token))
-                    .collect(Collectors.toCollection(LinkedList :: new));
+    @Override
+    protected AuthenticationInfo doMultiRealmAuthentication(Collection<Realm> realms, AuthenticationToken token) {
+        if (this.parallelRealmAuthenticationExecutor != null) {
+            return this.parallelRealmAuthenticationExecutor.authenticate(realms, token);
+        }
+        return super.doMultiRealmAuthentication(realms, token);
     }
 }
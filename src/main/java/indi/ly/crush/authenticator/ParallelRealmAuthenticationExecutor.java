@@ -0,0 +1,156 @@
+package indi.ly.crush.authenticator;
+
+import indi.ly.crush.config.AppProperties;
+import indi.ly.crush.ex.ServiceOverloadedException;
+import org.apache.shiro.authc.AuthenticationException;
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.realm.Realm;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <h2>并行多安全域认证执行器</h2>
+ * <p>
+ *     在专用的有界线程池上并发地向所有支持认证令牌的安全域发起认证, 采用最先成功的认证信息, 并取消其余尚未开始的尝试. <br />
+ *     每个安全域都受同一个超时约束, 超时的安全域视为认证失败. <br /> <br />
+ *
+ *     已经开始的尝试不会被中断, 而是在后台执行完毕后丢弃结果: 中断正在执行 {@code JDBC} 查询的线程可能使连接池中的连接处于损坏状态. <br />
+ *     所有安全域都失败时, 按安全域的配置顺序抛出第一个 {@link AuthenticationException}, 而不是按完成顺序, 保证错误信息稳定. <br />
+ *     线程池已满时立即拒绝并抛出 {@link ServiceOverloadedException}(转换为 {@code 503} 和 {@code Retry-After}),
+ *     而不是由调用线程在超时约束之外直接执行. <br /> <br />
+ *
+ *     安全域在线程池的线程上执行, 当前线程绑定的 {@link Subject} 会被一同带过去.
+ * </p>
+ *
+ * @since 1.0
+ * @see CustomModularRealmAuthenticator
+ * @author 云上的云
+ * @formatter:off
+ */
+public class ParallelRealmAuthenticationExecutor
+        implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelRealmAuthenticationExecutor.class);
+    private final ThreadPoolExecutor executor;
+    private final long realmTimeoutNanos;
+    private final long retryAfterSeconds;
+
+    public ParallelRealmAuthenticationExecutor(@NonNull AppProperties.MultiRealmAuthenticationConfig config) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                config.getThreads(), config.getThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "realm-authentication-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.realmTimeoutNanos = config.getRealmTimeout().toNanos();
+        this.retryAfterSeconds = Math.max(1, config.getRetryAfter().toSeconds());
+    }
+
+    /**
+     * <p>
+     *     并发地向给定的安全域发起认证.
+     * </p>
+     *
+     * @param realms 支持该认证令牌的安全域.
+     * @param token  认证令牌.
+     * @return 最先成功的认证信息.
+     * @throws AuthenticationException    所有安全域都认证失败或超时.
+     * @throws ServiceOverloadedException 如果线程池的队列已满.
+     */
+    public @NonNull AuthenticationInfo authenticate(@NonNull Collection<Realm> realms, @NonNull AuthenticationToken token) {
+        CompletionService<AuthenticationInfo> completionService = new ExecutorCompletionService<>(this.executor);
+        Subject subject = ThreadContext.getSubject();
+        Map<Future<AuthenticationInfo>, Realm> pending = new LinkedHashMap<>();
+        Map<Realm, Throwable> failures = new LinkedHashMap<>();
+        long deadline = System.nanoTime() + this.realmTimeoutNanos;
+
+        try {
+            for (Realm realm : realms) {
+                Callable<AuthenticationInfo> task = () -> realm.getAuthenticationInfo(token);
+                try {
+                    pending.put(completionService.submit(subject == null ? task : subject.associateWith(task)), realm);
+                } catch (RejectedExecutionException e) {
+                    LOGGER.warn("安全域认证队列已满, 拒绝请求. 当前队列深度 [{}].", this.executor.getQueue().size());
+                    throw new ServiceOverloadedException("服务繁忙, 请稍后重试.", this.retryAfterSeconds, e);
+                }
+            }
+
+            while (!pending.isEmpty()) {
+                Future<AuthenticationInfo> future = completionService.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (future == null) {
+                    for (Realm realm : pending.values()) {
+                        failures.put(realm, new AuthenticationException("安全域 [%s] 认证超时.".formatted(realm.getName())));
+                    }
+                    break;
+                }
+                Realm realm = pending.remove(future);
+                try {
+                    AuthenticationInfo info = future.get();
+                    if (info != null) {
+                        LOGGER.debug("安全域 [{}] 最先认证成功, 取消其余 [{}] 个安全域的认证.", realm.getName(), pending.size());
+                        return info;
+                    }
+                    failures.put(realm, new AuthenticationException("安全域 [%s] 无法找到提交的认证令牌 [%s] 的帐户数据.".formatted(realm.getName(), token)));
+                } catch (ExecutionException e) {
+                    failures.put(realm, e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationException("等待安全域认证结果时线程被中断.", e);
+        } finally {
+            // 不中断已经开始的尝试, 只阻止尚未开始的尝试继续执行.
+            pending.keySet().forEach(future -> future.cancel(false));
+        }
+
+        throw this.firstFailure(realms, failures, token);
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    private @NonNull AuthenticationException firstFailure(Collection<Realm> realms, Map<Realm, Throwable> failures, AuthenticationToken token) {
+        List<Throwable> ordered = new ArrayList<>(failures.size());
+        for (Realm realm : realms) {
+            Throwable failure = failures.get(realm);
+            if (failure != null) {
+                ordered.add(failure);
+            }
+        }
+        for (Throwable failure : ordered) {
+            if (failure instanceof AuthenticationException authenticationException) {
+                return authenticationException;
+            }
+        }
+        return new AuthenticationException(
+                "认证令牌 [%s] 无法被任何支持它的安全域认证.".formatted(token.getClass().getName()), ordered.isEmpty() ? null : ordered.get(0)
+        );
+    }
+}
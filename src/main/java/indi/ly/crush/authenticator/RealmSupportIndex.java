@@ -0,0 +1,114 @@
+package indi.ly.crush.authenticator;
+
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.realm.AuthenticatingRealm;
+import org.apache.shiro.realm.Realm;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * <h2>安全域支持索引</h2>
+ * <p>
+ *     按认证令牌的类型缓存支持它的安全域, 每种令牌类型只计算一次, 之后每次登录只需查一次 {@link ClassValue} 并返回缓存的数组. <br /> <br />
+ *
+ *     只有没有重写 {@link AuthenticatingRealm#supports(AuthenticationToken)} 的 {@link AuthenticatingRealm} 才能按类型缓存,
+ *     因为它们是否支持令牌只取决于令牌的类型; 其它安全域是否支持令牌可能取决于令牌的内容, 仍在每次登录时调用 {@link Realm#supports}. <br />
+ *     返回的安全域保持配置顺序. <br /> <br />
+ *
+ *     索引创建之后不再修改, 安全域发生变化时创建新的索引. <br />
+ *     请你注意, 创建索引之后再调用 {@link AuthenticatingRealm#setAuthenticationTokenClass(Class)} 不会反映到索引中.
+ * </p>
+ *
+ * @since 1.0
+ * @see CustomModularRealmAuthenticator#setRealms(Collection)
+ * @author 云上的云
+ * @formatter:off
+ */
+final class RealmSupportIndex {
+    private static final Realm[] NO_REALMS = new Realm[0];
+    private final Realm[] realms;
+    private final boolean[] typeBased;
+    private final ClassValue<Candidates> candidates = new ClassValue<>() {
+        @Override
+        protected Candidates computeValue(Class<?> tokenClass) {
+            return RealmSupportIndex.this.computeCandidates(tokenClass);
+        }
+    };
+
+    RealmSupportIndex(@Nullable Collection<Realm> realms) {
+        this.realms = realms == null ? NO_REALMS : realms.toArray(NO_REALMS);
+        this.typeBased = new boolean[this.realms.length];
+        for (int i = 0; i < this.realms.length; i++) {
+            this.typeBased[i] = isTypeBased(this.realms[i]);
+        }
+    }
+
+    /**
+     * <p>
+     *     获取支持给定认证令牌的安全域.
+     * </p>
+     *
+     * @param token 认证令牌.
+     * @return 支持该令牌的安全域, 保持配置顺序. 调用方不得修改返回的数组.
+     */
+    @NonNull Realm[] supportingRealms(@NonNull AuthenticationToken token) {
+        Candidates c = this.candidates.get(token.getClass());
+        if (!c.needsCheck) {
+            return c.realms;
+        }
+        Realm[] supporting = new Realm[c.realms.length];
+        int size = 0;
+        for (int i = 0; i < c.realms.length; i++) {
+            if (!c.checked[i] || c.realms[i].supports(token)) {
+                supporting[size++] = c.realms[i];
+            }
+        }
+        return size == supporting.length ? supporting : Arrays.copyOf(supporting, size);
+    }
+
+    private @NonNull Candidates computeCandidates(@NonNull Class<?> tokenClass) {
+        List<Realm> realms = new ArrayList<>(this.realms.length);
+        List<Boolean> checked = new ArrayList<>(this.realms.length);
+        for (int i = 0; i < this.realms.length; i++) {
+            Realm realm = this.realms[i];
+            if (!this.typeBased[i]) {
+                realms.add(realm);
+                checked.add(true);
+            } else if (((AuthenticatingRealm) realm).getAuthenticationTokenClass().isAssignableFrom(tokenClass)) {
+                realms.add(realm);
+                checked.add(false);
+            }
+        }
+
+        boolean[] checkedArray = new boolean[checked.size()];
+        boolean needsCheck = false;
+        for (int i = 0; i < checkedArray.length; i++) {
+            checkedArray[i] = checked.get(i);
+            needsCheck |= checkedArray[i];
+        }
+        return new Candidates(realms.toArray(NO_REALMS), checkedArray, needsCheck);
+    }
+
+    private static boolean isTypeBased(@NonNull Realm realm) {
+        if (!(realm instanceof AuthenticatingRealm authenticatingRealm) || authenticatingRealm.getAuthenticationTokenClass() == null) {
+            return false;
+        }
+        try {
+            return realm.getClass().getMethod("supports", AuthenticationToken.class).getDeclaringClass() == AuthenticatingRealm.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param realms     可能支持该令牌类型的安全域, 保持配置顺序.
+     * @param checked    对应的安全域是否需要在每次登录时调用 {@link Realm#supports}.
+     * @param needsCheck 是否有任何安全域需要在每次登录时调用 {@link Realm#supports}.
+     */
+    private record Candidates(Realm[] realms, boolean[] checked, boolean needsCheck) {}
+}
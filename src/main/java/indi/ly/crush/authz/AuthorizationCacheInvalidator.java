@@ -0,0 +1,219 @@
+package indi.ly.crush.authz;
+
+import indi.ly.crush.enums.AuthorizationChangeKind;
+import indi.ly.crush.repository.IRoleRepository;
+import indi.ly.crush.repository.IUserRepository;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.cache.Cache;
+import org.apache.shiro.realm.AuthorizingRealm;
+import org.apache.shiro.realm.Realm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * <h2>授权缓存失效器</h2>
+ * <p>
+ *     角色、权限或用户的授权数据发生变更后, 只失效受影响用户的授权缓存, 其它用户的缓存保持不变. <br /> <br />
+ *
+ *     事件在事务提交之后才发布, 同一事务中重复的事件只发布一次: 先在当前节点同步失效, 保证发起变更的请求之后立即读到新的授权信息;
+ *     再标记上当前节点的标识符, 通过 {@link AuthorizationChangeTransport} 传递给所有节点. 当前节点收到自己发布的事件时直接跳过,
+ *     因此每次变更在每个节点上只刷新一次快照、只执行一次解析查询. 各节点按以下规则解析出受影响的用户并失效:
+ *     <ul>
+ *         <li>{@code USER}: 用户自身.</li>
+ *         <li>{@code ROLE}: 通过 {@link RoleMembershipIndex} 找到当前节点上拥有该角色的用户, 不查询数据库.</li>
+ *         <li>{@code PERMISSION}: 查询直接拥有该权限的用户, 以及包含该权限的角色, 再通过 {@link RoleMembershipIndex} 找到拥有这些角色的用户.</li>
+ *     </ul>
+ *     授权缓存以{@link indi.ly.crush.model.principal.UserPrincipal#id() 用户 ID} 为键, 请浏览 {@code AbstractCompiledAuthorizingRealm#getAuthorizationCacheKey}.
+ * </p>
+ *
+ * @since 1.0
+ * @see indi.ly.crush.listener.AuthorizationChangeEntityListener
+ * @author 云上的云
+ * @formatter:off
+ */
+public class AuthorizationCacheInvalidator
+        implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuthorizationCacheInvalidator.class);
+    /**
+     * <p>
+     *     {@code JPA} 实体监听器由 {@code Hibernate} 实例化, 通过该字段找到当前的失效器.
+     * </p>
+     */
+    private static volatile AuthorizationCacheInvalidator current;
+    /**
+     * <p>
+     *     当前事务中待发布的事件绑定在事务同步管理器中的键.
+     * </p>
+     */
+    private static final Object PENDING_EVENTS_KEY = new Object();
+    /**
+     * <p>
+     *     当前节点的标识符, 每次启动随机生成.
+     * </p>
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AuthorizationChangeTransport transport;
+    private final List<AuthorizingRealm> realms;
+    private final RoleMembershipIndex roleMembershipIndex;
+    private final IUserRepository userRepository;
+    private final IRoleRepository roleRepository;
+    private RolePermissionSnapshotHolder rolePermissionSnapshotHolder;
+    private PermissionHierarchyHolder permissionHierarchyHolder;
+
+    public AuthorizationCacheInvalidator(
+            @NonNull AuthorizationChangeTransport transport, @NonNull Collection<? extends Realm> realms, @NonNull RoleMembershipIndex roleMembershipIndex,
+            @NonNull IUserRepository userRepository, @NonNull IRoleRepository roleRepository
+    ) {
+        this.transport = transport;
+        this.realms = realms
+                            .stream()
+                            .filter(AuthorizingRealm.class :: isInstance)
+                            .map(AuthorizingRealm.class :: cast)
+                            .toList();
+        this.roleMembershipIndex = roleMembershipIndex;
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.transport.subscribe(this :: onEvent);
+        current = this;
+    }
+
+    /**
+     * <p>
+     *     设置角色权限快照持有者, 角色或权限变更后先刷新快照再失效授权缓存; 为 {@code null} 时不刷新.
+     * </p>
+     *
+     * @param rolePermissionSnapshotHolder 角色权限快照持有者.
+     */
+    public void setRolePermissionSnapshotHolder(@Nullable RolePermissionSnapshotHolder rolePermissionSnapshotHolder) {
+        this.rolePermissionSnapshotHolder = rolePermissionSnapshotHolder;
+    }
+
+    /**
+     * <p>
+     *     设置权限层级持有者, 权限变更后增量更新权限层级; 为 {@code null} 时不更新.
+     * </p>
+     *
+     * @param permissionHierarchyHolder 权限层级持有者.
+     */
+    public void setPermissionHierarchyHolder(@Nullable PermissionHierarchyHolder permissionHierarchyHolder) {
+        this.permissionHierarchyHolder = permissionHierarchyHolder;
+    }
+
+    /**
+     * <p>
+     *     发布授权变更事件. <br />
+     *     如果当前线程存在活动的事务, 则延迟到事务提交之后发布, 回滚的变更不会导致任何失效; 同一事务中相同的事件只发布一次.
+     * </p>
+     *
+     * @param event 授权变更事件.
+     */
+    public static void publish(@NonNull AuthorizationChangeEvent event) {
+        AuthorizationCacheInvalidator invalidator = current;
+        if (invalidator == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidator.publishNow(event);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<AuthorizationChangeEvent> pending = (Set<AuthorizationChangeEvent>) TransactionSynchronizationManager.getResource(PENDING_EVENTS_KEY);
+        if (pending == null) {
+            Set<AuthorizationChangeEvent> events = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(PENDING_EVENTS_KEY, events);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    events.forEach(invalidator :: publishNow);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_EVENTS_KEY);
+                }
+            });
+            pending = events;
+        }
+        pending.add(event);
+    }
+
+    /**
+     * <p>
+     *     失效受给定事件影响的用户的授权缓存.
+     * </p>
+     *
+     * @param event 授权变更事件.
+     */
+    public void evict(@NonNull AuthorizationChangeEvent event) {
+        // 先刷新快照, 被失效的用户重新加载授权信息时才能展开出新的角色权限.
+        if (this.rolePermissionSnapshotHolder != null && event.kind() != AuthorizationChangeKind.USER) {
+            this.rolePermissionSnapshotHolder.refresh();
+        }
+        // 用户隐含权限的位集与层级实例绑定, 层级更新后自动重新计算, 不需要因此额外失效授权缓存.
+        if (this.permissionHierarchyHolder != null && event.kind() == AuthorizationChangeKind.PERMISSION) {
+            this.permissionHierarchyHolder.apply(event.id());
+        }
+        Set<Long> userIds = this.resolve(event);
+        for (Long userId : userIds) {
+            // 先移除索引再失效缓存, 失效之后重新加载的授权信息会再次登记, 不会被这里的移除覆盖.
+            this.roleMembershipIndex.unregister(userId);
+            for (AuthorizingRealm realm : this.realms) {
+                Cache<Object, AuthorizationInfo> cache = realm.getAuthorizationCache();
+                if (cache != null) {
+                    cache.remove(userId);
+                }
+            }
+        }
+        LOGGER.debug("授权变更事件 [{}] 失效了 [{}] 个用户的授权缓存.", event, userIds.size());
+    }
+
+    @Override
+    public void close() {
+        if (current == this) {
+            current = null;
+        }
+    }
+
+    private void onEvent(@NonNull AuthorizationChangeEvent event) {
+        // 自己发布的事件已经在 publishNow 中同步处理过.
+        if (!this.nodeId.equals(event.origin())) {
+            this.evict(event);
+        }
+    }
+
+    private void publishNow(AuthorizationChangeEvent event) {
+        try {
+            this.evict(event);
+            this.transport.publish(event.withOrigin(this.nodeId));
+        } catch (RuntimeException e) {
+            // 事务已经提交, 失效失败只能等待缓存过期.
+            LOGGER.error("发布授权变更事件 [{}] 失败.", event, e);
+        }
+    }
+
+    private @NonNull Set<Long> resolve(@NonNull AuthorizationChangeEvent event) {
+        return switch (event.kind()) {
+            case USER -> Set.of(event.id());
+            case ROLE -> event.name() == null ? Set.of() : this.roleMembershipIndex.usersOf(event.name());
+            case PERMISSION -> {
+                Set<Long> userIds = new HashSet<>(this.userRepository.findUserIdsByPermissionId(event.id()));
+                for (String role : this.roleRepository.findRoleNamesByPermissionId(event.id())) {
+                    userIds.addAll(this.roleMembershipIndex.usersOf(role));
+                }
+                yield userIds;
+            }
+        };
+    }
+}
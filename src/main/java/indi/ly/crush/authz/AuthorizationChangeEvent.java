@@ -0,0 +1,65 @@
+package indi.ly.crush.authz;
+
+import indi.ly.crush.enums.AuthorizationChangeKind;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * <h2>授权变更事件</h2>
+ * <p>
+ *     在节点之间传递时编码为 {@code 类型:ID:来源节点[:名称]} 格式的字符串, 请浏览 {@link #encode()} 和 {@link #decode(String)}.
+ * </p>
+ *
+ * @param kind   变更类型.
+ * @param id     发生变更的用户、角色或权限的 {@code ID}.
+ * @param name   {@link AuthorizationChangeKind#ROLE} 事件携带发生变更的角色名称; 新注册用户的 {@link AuthorizationChangeKind#USER} 事件携带用户名,
+ *               以便其它节点更新用户名布隆过滤器; 其它事件为 {@code null}.
+ * @param origin 发布事件的节点的标识符, 节点据此跳过自己发布的事件; 尚未发布的事件为 {@code null}.
+ * @since 1.0
+ * @see AuthorizationCacheInvalidator
+ * @author 云上的云
+ * @formatter:off
+ */
+public record AuthorizationChangeEvent(
+        @NonNull AuthorizationChangeKind kind,
+        long id,
+        @Nullable String name,
+        @Nullable String origin
+) {
+    public static @NonNull AuthorizationChangeEvent ofUser(long userId) {
+        return new AuthorizationChangeEvent(AuthorizationChangeKind.USER, userId, null, null);
+    }
+
+    public static @NonNull AuthorizationChangeEvent ofRegisteredUser(long userId, @NonNull String username) {
+        return new AuthorizationChangeEvent(AuthorizationChangeKind.USER, userId, username, null);
+    }
+
+    public static @NonNull AuthorizationChangeEvent ofRole(long roleId, @NonNull String roleName) {
+        return new AuthorizationChangeEvent(AuthorizationChangeKind.ROLE, roleId, roleName, null);
+    }
+
+    public static @NonNull AuthorizationChangeEvent ofPermission(long permissionId) {
+        return new AuthorizationChangeEvent(AuthorizationChangeKind.PERMISSION, permissionId, null, null);
+    }
+
+    public @NonNull AuthorizationChangeEvent withOrigin(@NonNull String origin) {
+        return new AuthorizationChangeEvent(this.kind, this.id, this.name, origin);
+    }
+
+    public @NonNull String encode() {
+        String prefix = this.kind + ":" + this.id + ":" + (this.origin == null ? "" : this.origin);
+        return this.name == null ? prefix : prefix + ":" + this.name;
+    }
+
+    public static @NonNull AuthorizationChangeEvent decode(@NonNull String message) {
+        // 角色名称可能包含冒号, 因此最多只分割为 4 段; 来源节点的标识符不包含冒号.
+        String[] parts = message.split(":", 4);
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("不合法的授权变更事件: %s.".formatted(message));
+        }
+        return new AuthorizationChangeEvent(
+                AuthorizationChangeKind.valueOf(parts[0]), Long.parseLong(parts[1]),
+                parts.length == 4 ? parts[3] : null, parts[2].isEmpty() ? null : parts[2]
+        );
+    }
+}
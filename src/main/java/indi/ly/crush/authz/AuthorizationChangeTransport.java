@@ -0,0 +1,41 @@
+package indi.ly.crush.authz;
+
+import org.springframework.lang.NonNull;
+
+import java.util.function.Consumer;
+
+/**
+ * <h2>授权变更事件的传输</h2>
+ * <p>
+ *     发布订阅模型: 发布的事件会被传递给所有节点(包括发布者自己所在的节点)上的所有订阅者. <br />
+ *     订阅者在传输内部的线程上被调用, 不会阻塞发布者.
+ * </p>
+ *
+ * @since 1.0
+ * @see LocalAuthorizationChangeTransport
+ * @see RedisAuthorizationChangeTransport
+ * @author 云上的云
+ * @formatter:off
+ */
+public interface AuthorizationChangeTransport
+        extends AutoCloseable {
+    /**
+     * <p>
+     *     发布事件.
+     * </p>
+     *
+     * @param event 授权变更事件.
+     */
+    void publish(@NonNull AuthorizationChangeEvent event);
+    /**
+     * <p>
+     *     订阅事件.
+     * </p>
+     *
+     * @param subscriber 订阅者.
+     */
+    void subscribe(@NonNull Consumer<AuthorizationChangeEvent> subscriber);
+
+    @Override
+    void close();
+}
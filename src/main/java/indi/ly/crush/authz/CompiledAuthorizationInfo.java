@@ -0,0 +1,235 @@
+package indi.ly.crush.authz;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.apache.shiro.realm.AuthorizingRealm;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.Serial;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <h2>预编译授权信息</h2>
+ * <p>
+ *     在 {@link SimpleAuthorizationInfo} 的基础上, 将字符串权限预编译为 {@link PermissionTrie}. <br />
+ *     {@link AuthorizingRealm} 默认在每次权限检查时都会将 {@link #getStringPermissions() 字符串权限}重新解析为 {@link WildcardPermission} 并逐个比较,
+ *     而本类只在首次检查时编译一次, 之后随授权缓存一起被复用. <br /> <br />
+ *
+ *     {@link StringPermission#isSimple() 简单}的查询直接在前缀树上检查; 其它查询(多子部件或非 {@link StringPermission} 类型)
+ *     则退回到预先解析好的 {@link WildcardPermission} 列表上检查, 结果与 {@link AuthorizingRealm} 的默认实现保持一致.
+ * </p>
+ *
+ * @since 1.0
+ * @see AuthorizingRealm#isPermitted(Permission, org.apache.shiro.authz.AuthorizationInfo)
+ * @author 云上的云
+ * @formatter:off
+ */
+public class CompiledAuthorizationInfo
+        extends SimpleAuthorizationInfo {
+    @Serial
+    private static final long serialVersionUID = -1520869211622564327L;
+    private transient volatile Compiled compiled;
+    private transient volatile RoleMask roleMask;
+    private transient volatile Closure closure;
+    /**
+     * <p>
+     *     预先解析好的字符串权限, 编译时直接复用, 未包含的字符串权限仍在编译时解析.
+     * </p>
+     */
+    private transient Map<String, Permission> parsedPermissions;
+
+    public CompiledAuthorizationInfo(Set<String> roles, Set<String> stringPermissions) {
+        this(roles, stringPermissions, Map.of());
+    }
+
+    /**
+     * @param roles             角色名称.
+     * @param stringPermissions 字符串权限.
+     * @param parsedPermissions 预先解析好的字符串权限, 以字符串权限为键, 例如 {@link RolePermissionSnapshot#parsedPermissions()}.
+     */
+    public CompiledAuthorizationInfo(Set<String> roles, Set<String> stringPermissions, @NonNull Map<String, Permission> parsedPermissions) {
+        super(roles);
+        super.setStringPermissions(stringPermissions);
+        this.parsedPermissions = parsedPermissions;
+    }
+
+    /**
+     * <p>
+     *     判断本授权信息中的权限是否隐含给定的权限.
+     * </p>
+     *
+     * @param permission 待检查的权限.
+     * @return 如果隐含则返回 {@code true}.
+     */
+    public boolean implies(@NonNull Permission permission) {
+        Compiled c = this.compile();
+        if (permission instanceof StringPermission sp) {
+            if (sp.isSimple() && c.trie.implies(sp.getValue())) {
+                return true;
+            }
+            permission = sp.toWildcardPermission();
+            if (sp.isSimple()) {
+                // 前缀树已经覆盖了所有字符串权限, 只需再检查无法编译进前缀树的对象权限.
+                return anyImplies(c.objectPermissions, permission);
+            }
+        }
+        return anyImplies(c.stringPermissions, permission) || anyImplies(c.objectPermissions, permission);
+    }
+
+    /**
+     * <p>
+     *     判断本授权信息中的权限是否隐含给定的权限, 并考虑权限层级: 被授予的父权限隐含其所有的后代权限. <br />
+     *     被授予权限通过层级隐含的位集在首次检查时计算并随授权缓存一起被复用, 层级被替换后重新计算.
+     * </p>
+     *
+     * @param permission 待检查的权限.
+     * @param hierarchy  权限层级, 为 {@code null} 时等同于 {@link #implies(Permission)}.
+     * @return 如果隐含则返回 {@code true}.
+     */
+    public boolean implies(@NonNull Permission permission, @Nullable PermissionHierarchy hierarchy) {
+        if (hierarchy != null && permission instanceof StringPermission sp) {
+            int index = hierarchy.indexOf(sp.getValue());
+            if (index >= 0) {
+                Closure c = this.closure;
+                if (c == null || c.hierarchy != hierarchy) {
+                    this.closure = c = new Closure(hierarchy, hierarchy.closureOf(this.getStringPermissions()));
+                }
+                if (PermissionHierarchy.contains(c.bits, index)) {
+                    return true;
+                }
+            }
+        }
+        return this.implies(permission);
+    }
+
+    /**
+     * <p>
+     *     获取本授权信息中的角色的位掩码. <br />
+     *     位掩码在首次获取时计算并随授权缓存一起被复用, 角色注册表注册了新的角色后会重新计算.
+     * </p>
+     *
+     * @param registry 角色注册表.
+     * @return 位掩码.
+     */
+    public long getRoleMask(@NonNull RoleRegistry registry) {
+        RoleMask m = this.roleMask;
+        int version = registry.size();
+        if (m == null || m.registry != registry || m.version != version) {
+            this.roleMask = m = new RoleMask(registry, version, registry.maskOf(this.getRoles()));
+        }
+        return m.mask;
+    }
+
+    @Override
+    public void setRoles(Set<String> roles) {
+        super.setRoles(roles);
+        this.roleMask = null;
+    }
+
+    @Override
+    public void addRole(String role) {
+        super.addRole(role);
+        this.roleMask = null;
+    }
+
+    @Override
+    public void addRoles(Collection<String> roles) {
+        super.addRoles(roles);
+        this.roleMask = null;
+    }
+
+    @Override
+    public void setStringPermissions(Set<String> stringPermissions) {
+        super.setStringPermissions(stringPermissions);
+        this.compiled = null;
+        this.closure = null;
+    }
+
+    @Override
+    public void addStringPermission(String permission) {
+        super.addStringPermission(permission);
+        this.compiled = null;
+        this.closure = null;
+    }
+
+    @Override
+    public void addStringPermissions(Collection<String> permissions) {
+        super.addStringPermissions(permissions);
+        this.compiled = null;
+        this.closure = null;
+    }
+
+    @Override
+    public void setObjectPermissions(Set<Permission> objectPermissions) {
+        super.setObjectPermissions(objectPermissions);
+        this.compiled = null;
+    }
+
+    @Override
+    public void addObjectPermission(Permission permission) {
+        super.addObjectPermission(permission);
+        this.compiled = null;
+    }
+
+    @Override
+    public void addObjectPermissions(Collection<Permission> permissions) {
+        super.addObjectPermissions(permissions);
+        this.compiled = null;
+    }
+
+    private @NonNull Compiled compile() {
+        Compiled c = this.compiled;
+        if (c == null) {
+            Set<String> stringPermissions = this.getStringPermissions() == null ? Collections.emptySet() : this.getStringPermissions();
+            Set<Permission> objectPermissions = this.getObjectPermissions() == null ? Collections.emptySet() : this.getObjectPermissions();
+
+            this.compiled = c = new Compiled(
+                    PermissionTrie.compile(stringPermissions),
+                    stringPermissions.stream().map(this :: parse).toList(),
+                    List.copyOf(objectPermissions)
+            );
+        }
+        return c;
+    }
+
+    private @NonNull Permission parse(@NonNull String permission) {
+        // 反序列化之后瞬态字段为 null.
+        Permission parsed = this.parsedPermissions == null ? null : this.parsedPermissions.get(permission);
+        return parsed != null ? parsed : new WildcardPermission(permission);
+    }
+
+    private static boolean anyImplies(List<Permission> grantedPermissions, Permission permission) {
+        for (Permission granted : grantedPermissions) {
+            if (granted.implies(permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param trie              由字符串权限编译而成的前缀树.
+     * @param stringPermissions 由字符串权限解析而成的 {@link WildcardPermission} 列表, 用于检查非简单的查询.
+     * @param objectPermissions 对象权限列表.
+     */
+    private record Compiled(PermissionTrie trie, List<Permission> stringPermissions, List<Permission> objectPermissions) {}
+
+    /**
+     * @param registry 计算位掩码时使用的角色注册表.
+     * @param version  计算位掩码时角色注册表的版本号.
+     * @param mask     位掩码.
+     */
+    private record RoleMask(RoleRegistry registry, int version, long mask) {}
+
+    /**
+     * @param hierarchy 计算位集时使用的权限层级.
+     * @param bits      被授予权限通过层级隐含的所有权限的位集.
+     */
+    private record Closure(PermissionHierarchy hierarchy, long[] bits) {}
+}
@@ -0,0 +1,27 @@
+package indi.ly.crush.authz;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * <h2>预编译的角色集合</h2>
+ *
+ * @param names 角色名称, 在无法使用位掩码时按名称检查.
+ * @param mask  已注册的角色组成的位掩码.
+ * @param exact 是否所有角色都已注册, 即位掩码是否能完整地表示这组角色.
+ * @since 1.0
+ * @see RoleRegistry#compile(String[])
+ * @author 云上的云
+ * @formatter:off
+ */
+public record CompiledRoles(@NonNull String[] names, long mask, boolean exact) {
+    /**
+     * <p>
+     *     判断是否没有配置任何角色.
+     * </p>
+     *
+     * @return 如果没有配置任何角色则返回 {@code true}.
+     */
+    public boolean isEmpty() {
+        return this.names.length == 0;
+    }
+}
@@ -0,0 +1,56 @@
+package indi.ly.crush.authz;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * <h2>进程内授权变更事件传输</h2>
+ * <p>
+ *     在单个后台线程上按发布顺序依次调用订阅者, 只适用于单节点部署. <br />
+ *     此时订阅者收到的都是本节点发布的事件, {@link AuthorizationCacheInvalidator} 在发布时已经同步处理过, 收到后直接跳过.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public class LocalAuthorizationChangeTransport
+        implements AuthorizationChangeTransport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalAuthorizationChangeTransport.class);
+    private final List<Consumer<AuthorizationChangeEvent>> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "authorization-change-dispatch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public void publish(@NonNull AuthorizationChangeEvent event) {
+        this.dispatcher.execute(() -> {
+            for (Consumer<AuthorizationChangeEvent> subscriber : this.subscribers) {
+                try {
+                    subscriber.accept(event);
+                } catch (RuntimeException e) {
+                    LOGGER.error("处理授权变更事件 [{}] 失败.", event, e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void subscribe(@NonNull Consumer<AuthorizationChangeEvent> subscriber) {
+        this.subscribers.add(subscriber);
+    }
+
+    @Override
+    public void close() {
+        this.dispatcher.shutdown();
+    }
+}
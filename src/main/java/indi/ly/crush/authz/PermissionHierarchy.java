@@ -0,0 +1,500 @@
+package indi.ly.crush.authz;
+
+import indi.ly.crush.model.entity.Permission;
+import indi.ly.crush.model.projection.PermissionNodeRecord;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * <h2>权限层级</h2>
+ * <p>
+ *     由 {@link Permission#getPid() t_permission.pid} 构成的权限树的传递闭包: 被授予的父权限隐含其所有的后代权限. <br /> <br />
+ *
+ *     每个权限的资源标识符被驻留为一个稠密的整数编号, 每个权限保存一个位集, 记录它自身以及所有后代权限的编号. <br />
+ *     加载授权信息后, 将用户被授予的所有权限的位集按位或, 即得到该用户通过层级隐含的全部权限; 之后每次检查只需 {@code 1} 次位测试,
+ *     而不必像 {@link WildcardPermission#implies} 那样逐个比较被授予的权限. <br /> <br />
+ *
+ *     实例创建之后不再修改, 可以被任意线程无锁读取. 权限变更时通过 {@link #with} 和 {@link #without} 增量地得到新的实例:
+ *     只复制外层数组, 并只重新计算发生变化的权限的祖先链上的位集, 其它位集在新旧实例之间共享. <br />
+ *     编号用完或已删除的权限过多时才完整重建. <br /> <br />
+ *
+ *     位集的总大小约为权限数量的平方除以 {@code 8} 字节, 例如 {@code 10000} 个权限约占用 {@code 12 MB}. <br />
+ *     父权限 {@code ID} 构成环时, 环上的一条边会被忽略.
+ * </p>
+ *
+ * @since 1.0
+ * @see PermissionHierarchyHolder
+ * @see CompiledAuthorizationInfo#implies(org.apache.shiro.authz.Permission, PermissionHierarchy)
+ * @author 云上的云
+ * @formatter:off
+ */
+public final class PermissionHierarchy {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PermissionHierarchy.class);
+    private static final int NONE = -1;
+    private static final int[] NO_CHILDREN = new int[0];
+    private final long version;
+    /**
+     * <p>
+     *     已分配的编号数量, 包括已删除的权限.
+     * </p>
+     */
+    private final int size;
+    private final Map<String, Integer> indexByPermission;
+    private final Map<Long, Integer> indexById;
+    private final long[] ids;
+    private final long[] pids;
+    private final String[] permissions;
+    private final int[] parents;
+    private final int[][] children;
+    private final long[][] descendants;
+
+    private PermissionHierarchy(
+            long version, int size, Map<String, Integer> indexByPermission, Map<Long, Integer> indexById,
+            long[] ids, long[] pids, String[] permissions, int[] parents, int[][] children, long[][] descendants
+    ) {
+        this.version = version;
+        this.size = size;
+        this.indexByPermission = indexByPermission;
+        this.indexById = indexById;
+        this.ids = ids;
+        this.pids = pids;
+        this.permissions = permissions;
+        this.parents = parents;
+        this.children = children;
+        this.descendants = descendants;
+    }
+
+    /**
+     * <p>
+     *     根据权限节点记录完整构建权限层级.
+     * </p>
+     *
+     * @param version 版本号.
+     * @param records 权限节点记录.
+     * @return 权限层级.
+     */
+    public static @NonNull PermissionHierarchy build(long version, @NonNull Collection<? extends PermissionNodeRecord> records) {
+        List<Node> nodes = new ArrayList<>(records.size());
+        for (PermissionNodeRecord record : records) {
+            if (record.getId() != null && record.getPermission() != null) {
+                nodes.add(new Node(record.getId(), pidOf(record.getPid()), record.getPermission()));
+            }
+        }
+        return build(version, nodes);
+    }
+
+    /**
+     * <p>
+     *     获取版本号.
+     * </p>
+     *
+     * @return 版本号.
+     */
+    public long version() {
+        return this.version;
+    }
+
+    /**
+     * <p>
+     *     获取层级中的权限数量, 不包括已删除的权限.
+     * </p>
+     *
+     * @return 权限数量.
+     */
+    public int permissionCount() {
+        return this.indexById.size();
+    }
+
+    /**
+     * <p>
+     *     获取给定权限资源标识符的编号, 比较时忽略大小写, 与 {@link WildcardPermission} 的默认行为一致.
+     * </p>
+     *
+     * @param permission 权限资源标识符.
+     * @return 编号, 如果权限不在层级中则返回 {@code -1}.
+     */
+    public int indexOf(@NonNull String permission) {
+        Integer index = this.indexByPermission.get(normalize(permission));
+        return index == null ? NONE : index;
+    }
+
+    /**
+     * <p>
+     *     获取给定权限的资源标识符(已转为小写).
+     * </p>
+     *
+     * @param id 权限的唯一标识符.
+     * @return 权限资源标识符, 如果权限不在层级中则返回 {@code null}.
+     */
+    public @Nullable String permissionOf(long id) {
+        Integer index = this.indexById.get(id);
+        return index == null ? null : this.permissions[index];
+    }
+
+    /**
+     * <p>
+     *     计算给定的被授予权限通过层级隐含的所有权限的位集, 包括被授予的权限本身. <br />
+     *     不在层级中的被授予权限被忽略.
+     * </p>
+     *
+     * @param grantedPermissions 被授予的权限资源标识符.
+     * @return 位集, 使用 {@link #contains(long[], int)} 检查.
+     */
+    public @NonNull long[] closureOf(@Nullable Collection<String> grantedPermissions) {
+        long[] closure = new long[this.words()];
+        if (grantedPermissions != null) {
+            for (String permission : grantedPermissions) {
+                int index = this.indexOf(permission);
+                if (index != NONE) {
+                    or(closure, this.descendants[index]);
+                }
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * <p>
+     *     判断位集中是否包含给定的编号.
+     * </p>
+     *
+     * @param closure 由 {@link #closureOf(Collection)} 计算的位集.
+     * @param index   由 {@link #indexOf(String)} 获取的编号.
+     * @return 如果包含则返回 {@code true}.
+     */
+    public static boolean contains(@NonNull long[] closure, int index) {
+        return index >= 0 && (index >>> 6) < closure.length && (closure[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * <p>
+     *     新增或更新一个权限, 返回新的权限层级, 本实例不受影响.
+     * </p>
+     *
+     * @param id         权限的唯一标识符.
+     * @param pid        父权限的唯一标识符, 顶层权限为 {@code null} 或 {@code 0}.
+     * @param permission 权限资源标识符.
+     * @return 新的权限层级.
+     */
+    public @NonNull PermissionHierarchy with(long id, @Nullable Long pid, @NonNull String permission) {
+        Integer existing = this.indexById.get(id);
+        if (existing == null && this.size == this.capacity()) {
+            List<Node> nodes = this.liveNodes();
+            nodes.add(new Node(id, pidOf(pid), permission));
+            return build(this.version + 1, nodes);
+        }
+
+        Mutable m = new Mutable(this);
+        int index;
+        if (existing == null) {
+            index = m.size++;
+            m.ids[index] = id;
+            m.parents[index] = NONE;
+            m.children[index] = NO_CHILDREN;
+            m.descendants[index] = bit(index, this.words());
+            m.indexById.put(id, index);
+            // 父权限 ID 指向本权限、但此前找不到父权限的权限, 现在成为本权限的子权限.
+            for (int i = 0; i < this.size; i++) {
+                if (m.permissions[i] != null && m.parents[i] == NONE && m.pids[i] == id) {
+                    m.attach(i, index);
+                }
+            }
+            m.recompute(index);
+        } else {
+            index = existing;
+            String old = m.permissions[index];
+            if (Integer.valueOf(index).equals(m.indexByPermission.get(old))) {
+                m.indexByPermission.remove(old);
+            }
+        }
+        String normalized = normalize(permission);
+        m.permissions[index] = normalized;
+        m.indexByPermission.put(normalized, index);
+        m.pids[index] = pidOf(pid);
+
+        int newParent = m.resolveParent(index);
+        if (newParent != m.parents[index]) {
+            int oldParent = m.parents[index];
+            m.detach(index);
+            m.recompute(oldParent);
+            if (newParent != NONE) {
+                m.attach(index, newParent);
+                m.recompute(newParent);
+            }
+        }
+        return m.freeze(this.version + 1);
+    }
+
+    /**
+     * <p>
+     *     删除一个权限, 返回新的权限层级, 本实例不受影响. <br />
+     *     被删除权限的子权限成为顶层权限.
+     * </p>
+     *
+     * @param id 权限的唯一标识符.
+     * @return 新的权限层级; 如果权限不在层级中则返回本实例.
+     */
+    public @NonNull PermissionHierarchy without(long id) {
+        Integer existing = this.indexById.get(id);
+        if (existing == null) {
+            return this;
+        }
+        // 已删除的权限占用的编号超过一半时完整重建, 回收编号.
+        if ((this.indexById.size() - 1) * 2 < this.size) {
+            List<Node> nodes = this.liveNodes();
+            nodes.removeIf(node -> node.id == id);
+            return build(this.version + 1, nodes);
+        }
+
+        int index = existing;
+        Mutable m = new Mutable(this);
+        m.indexById.remove(id);
+        if (Integer.valueOf(index).equals(m.indexByPermission.get(m.permissions[index]))) {
+            m.indexByPermission.remove(m.permissions[index]);
+        }
+        m.permissions[index] = null;
+        for (int child : m.children[index]) {
+            m.parents[child] = NONE;
+        }
+        m.children[index] = NO_CHILDREN;
+        int oldParent = m.parents[index];
+        m.detach(index);
+        m.descendants[index] = new long[this.words()];
+        m.recompute(oldParent);
+        return m.freeze(this.version + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "PermissionHierarchy[version=%d, permissions=%d, capacity=%d]".formatted(this.version, this.indexById.size(), this.capacity());
+    }
+
+    private int capacity() {
+        return this.ids.length;
+    }
+
+    private int words() {
+        return this.ids.length >>> 6;
+    }
+
+    private @NonNull List<Node> liveNodes() {
+        List<Node> nodes = new ArrayList<>(this.indexById.size() + 1);
+        for (int i = 0; i < this.size; i++) {
+            if (this.permissions[i] != null) {
+                nodes.add(new Node(this.ids[i], this.pids[i], this.permissions[i]));
+            }
+        }
+        return nodes;
+    }
+
+    private static @NonNull PermissionHierarchy build(long version, @NonNull List<Node> nodes) {
+        int n = nodes.size();
+        // 预留一半的编号给之后新增的权限, 容量是 64 的倍数.
+        int capacity = Math.max(Long.SIZE, (n + (n >>> 1) + Long.SIZE - 1) & -Long.SIZE);
+        int words = capacity >>> 6;
+
+        long[] ids = new long[capacity];
+        long[] pids = new long[capacity];
+        String[] permissions = new String[capacity];
+        Map<Long, Integer> indexById = new HashMap<>(capacity);
+        Map<String, Integer> indexByPermission = new HashMap<>(capacity);
+        for (int i = 0; i < n; i++) {
+            Node node = nodes.get(i);
+            ids[i] = node.id;
+            pids[i] = node.pid;
+            permissions[i] = normalize(node.permission);
+            indexById.put(node.id, i);
+            indexByPermission.putIfAbsent(permissions[i], i);
+        }
+
+        int[] parents = new int[capacity];
+        Arrays.fill(parents, NONE);
+        for (int i = 0; i < n; i++) {
+            Integer parent = pids[i] == 0 || pids[i] == ids[i] ? null : indexById.get(pids[i]);
+            parents[i] = parent == null ? NONE : parent;
+        }
+        breakCycles(parents, ids, n);
+
+        int[] childCounts = new int[capacity];
+        for (int i = 0; i < n; i++) {
+            if (parents[i] != NONE) {
+                childCounts[parents[i]]++;
+            }
+        }
+        int[][] children = new int[capacity][];
+        for (int i = 0; i < capacity; i++) {
+            children[i] = childCounts[i] == 0 ? NO_CHILDREN : new int[childCounts[i]];
+            childCounts[i] = 0;
+        }
+        long[][] descendants = new long[capacity][];
+        for (int i = 0; i < n; i++) {
+            if (parents[i] != NONE) {
+                children[parents[i]][childCounts[parents[i]]++] = i;
+            }
+            descendants[i] = new long[words];
+        }
+        // 把每个权限的编号写入它自身以及所有祖先的位集.
+        for (int i = 0; i < n; i++) {
+            for (int a = i; a != NONE; a = parents[a]) {
+                descendants[a][i >>> 6] |= 1L << i;
+            }
+        }
+        return new PermissionHierarchy(
+                version, n, indexByPermission, indexById, ids, pids, permissions, parents, children, descendants
+        );
+    }
+
+    private static void breakCycles(int[] parents, long[] ids, int n) {
+        // 0: 未访问; 1: 在当前路径上; 2: 已确认能到达顶层权限.
+        byte[] state = new byte[n];
+        int[] path = new int[n];
+        for (int i = 0; i < n; i++) {
+            int length = 0;
+            int node = i;
+            while (node != NONE && state[node] == 0) {
+                state[node] = 1;
+                path[length++] = node;
+                node = parents[node];
+            }
+            if (node != NONE && state[node] == 1) {
+                int last = path[length - 1];
+                LOGGER.warn("权限 [{}] 的父权限 [{}] 构成了环, 已忽略该父子关系.", ids[last], ids[parents[last]]);
+                parents[last] = NONE;
+            }
+            for (int k = 0; k < length; k++) {
+                state[path[k]] = 2;
+            }
+        }
+    }
+
+    private static long[] bit(int index, int words) {
+        long[] bits = new long[words];
+        bits[index >>> 6] = 1L << index;
+        return bits;
+    }
+
+    private static void or(long[] target, long[] source) {
+        for (int i = 0; i < source.length; i++) {
+            target[i] |= source[i];
+        }
+    }
+
+    private static long pidOf(@Nullable Long pid) {
+        return pid == null ? 0L : pid;
+    }
+
+    private static @NonNull String normalize(@NonNull String permission) {
+        return permission.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param id         权限的唯一标识符.
+     * @param pid        父权限的唯一标识符, 没有父权限时为 {@code 0}.
+     * @param permission 权限资源标识符.
+     */
+    private record Node(long id, long pid, String permission) {}
+
+    /**
+     * <h2>增量更新时的可变副本</h2>
+     * <p>
+     *     复制外层数组和映射, 内层的子权限数组和位集与原实例共享, 需要修改时整体替换而不是原地修改.
+     * </p>
+     */
+    private static final class Mutable {
+        private final int words;
+        private int size;
+        private final Map<String, Integer> indexByPermission;
+        private final Map<Long, Integer> indexById;
+        private final long[] ids;
+        private final long[] pids;
+        private final String[] permissions;
+        private final int[] parents;
+        private final int[][] children;
+        private final long[][] descendants;
+
+        private Mutable(PermissionHierarchy source) {
+            this.words = source.words();
+            this.size = source.size;
+            this.indexByPermission = new HashMap<>(source.indexByPermission);
+            this.indexById = new HashMap<>(source.indexById);
+            this.ids = source.ids.clone();
+            this.pids = source.pids.clone();
+            this.permissions = source.permissions.clone();
+            this.parents = source.parents.clone();
+            this.children = source.children.clone();
+            this.descendants = source.descendants.clone();
+        }
+
+        private int resolveParent(int index) {
+            long pid = this.pids[index];
+            Integer parent = pid == 0 || pid == this.ids[index] ? null : this.indexById.get(pid);
+            if (parent == null) {
+                return NONE;
+            }
+            // 父权限是自己的后代时构成环.
+            if (contains(this.descendants[index], parent)) {
+                LOGGER.warn("权限 [{}] 的父权限 [{}] 构成了环, 已忽略该父子关系.", this.ids[index], pid);
+                return NONE;
+            }
+            return parent;
+        }
+
+        private void attach(int child, int parent) {
+            int[] siblings = this.children[parent];
+            int[] updated = Arrays.copyOf(siblings, siblings.length + 1);
+            updated[siblings.length] = child;
+            this.children[parent] = updated;
+            this.parents[child] = parent;
+        }
+
+        private void detach(int child) {
+            int parent = this.parents[child];
+            if (parent == NONE) {
+                return;
+            }
+            int[] siblings = this.children[parent];
+            int[] updated = new int[siblings.length - 1];
+            int k = 0;
+            for (int sibling : siblings) {
+                if (sibling != child) {
+                    updated[k++] = sibling;
+                }
+            }
+            this.children[parent] = updated.length == 0 ? NO_CHILDREN : updated;
+            this.parents[child] = NONE;
+        }
+
+        /**
+         * <p>
+         *     从给定的权限开始, 沿祖先链向上重新计算位集: 每个位集等于自身的编号并上所有子权限的位集.
+         * </p>
+         */
+        private void recompute(int from) {
+            for (int a = from; a != NONE; a = this.parents[a]) {
+                long[] bits = bit(a, this.words);
+                for (int child : this.children[a]) {
+                    or(bits, this.descendants[child]);
+                }
+                this.descendants[a] = bits;
+            }
+        }
+
+        private PermissionHierarchy freeze(long version) {
+            return new PermissionHierarchy(
+                    version, this.size, this.indexByPermission, this.indexById,
+                    this.ids, this.pids, this.permissions, this.parents, this.children, this.descendants
+            );
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package indi.ly.crush.authz;
+
+import indi.ly.crush.model.projection.PermissionNodeRecord;
+import indi.ly.crush.repository.IPermissionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+
+/**
+ * <h2>权限层级持有者</h2>
+ * <p>
+ *     通过 {@code volatile} 引用发布当前的 {@link PermissionHierarchy}: 读取无锁, 更新时在锁内得到新的实例后整体替换. <br /> <br />
+ *
+ *     首次使用时完整构建; 之后每当权限变更, 由 {@link AuthorizationCacheInvalidator} 调用 {@link #apply(long)},
+ *     只重新读取发生变更的那一个权限并增量更新. <br />
+ *     用户隐含权限的位集与层级实例绑定, 层级被替换后在下一次检查时重新计算, 因此层级的变更不需要失效授权缓存.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public class PermissionHierarchyHolder {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PermissionHierarchyHolder.class);
+    private final IPermissionRepository permissionRepository;
+    private volatile PermissionHierarchy current;
+
+    public PermissionHierarchyHolder(@NonNull IPermissionRepository permissionRepository) {
+        this.permissionRepository = permissionRepository;
+    }
+
+    /**
+     * <p>
+     *     获取当前的权限层级, 首次调用时构建.
+     * </p>
+     *
+     * @return 当前的权限层级.
+     */
+    public @NonNull PermissionHierarchy get() {
+        PermissionHierarchy hierarchy = this.current;
+        if (hierarchy != null) {
+            return hierarchy;
+        }
+        synchronized (this) {
+            return this.current != null ? this.current : this.rebuild();
+        }
+    }
+
+    /**
+     * <p>
+     *     从数据库完整重建权限层级.
+     * </p>
+     *
+     * @return 新的权限层级.
+     */
+    public synchronized @NonNull PermissionHierarchy rebuild() {
+        PermissionHierarchy old = this.current;
+        PermissionHierarchy hierarchy = PermissionHierarchy.build(
+                old == null ? 1L : old.version() + 1, this.permissionRepository.findAllPermissionNodes()
+        );
+        this.current = hierarchy;
+        LOGGER.info("权限层级已重建: {}.", hierarchy);
+        return hierarchy;
+    }
+
+    /**
+     * <p>
+     *     重新读取给定的权限并增量更新权限层级, 权限已被删除时将其从层级中移除.
+     * </p>
+     *
+     * @param permissionId 发生变更的权限的唯一标识符.
+     * @return 新的权限层级.
+     */
+    public synchronized @NonNull PermissionHierarchy apply(long permissionId) {
+        PermissionHierarchy old = this.current;
+        if (old == null) {
+            return this.rebuild();
+        }
+        PermissionNodeRecord record = this.permissionRepository.findPermissionNodeById(permissionId);
+        PermissionHierarchy hierarchy = record == null
+                ? old.without(permissionId)
+                : old.with(permissionId, record.getPid(), record.getPermission());
+        this.current = hierarchy;
+        LOGGER.debug("权限 [{}] 变更后权限层级已更新: {}.", permissionId, hierarchy);
+        return hierarchy;
+    }
+}
@@ -0,0 +1,239 @@
+package indi.ly.crush.authz;
+
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.springframework.lang.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * <h2>权限前缀树</h2>
+ * <p>
+ *     将用户拥有的所有权限字符串(如 {@code user:*}、{@code report:download})预编译为一棵按部件({@code part})划分的前缀树, 通配符部件单独作为一个分支. <br />
+ *     {@link WildcardPermission} 的做法是逐个遍历权限列表并比较每个部件的集合, 检查代价为 {@code O(权限数 × 部件数)};
+ *     而在前缀树上的检查只需沿着查询字符串的部件逐层下探, 代价为 {@code O(部件数)}, 且不产生任何对象分配. <br /> <br />
+ *
+ *     语义与 {@link WildcardPermission#implies} 保持一致(不区分大小写):
+ *     <ul>
+ *         <li>部件中含有 {@code *} 的已授予权限匹配该层的任意部件.</li>
+ *         <li>部件数少于查询的已授予权限隐含查询中剩余的所有部件, 例如 {@code user} 隐含 {@code user:delete}.</li>
+ *         <li>部件数多于查询的已授予权限, 只有当多出的部件全部为 {@code *} 时才隐含该查询.</li>
+ *         <li>形如 {@code user:create,delete} 的多子部件已授予权限在编译时展开为多条路径.</li>
+ *     </ul>
+ *     含有多子部件({@code ,})的查询不在本类的处理范围内, 请浏览 {@link StringPermission#isSimple()}.
+ * </p>
+ *
+ * @since 1.0
+ * @see CompiledAuthorizationInfo
+ * @author 云上的云
+ * @formatter:off
+ */
+public final class PermissionTrie {
+    private static final String WILDCARD_TOKEN = WildcardPermission.WILDCARD_TOKEN;
+    private static final String PART_DIVIDER = WildcardPermission.PART_DIVIDER_TOKEN;
+    private static final String SUBPART_DIVIDER = WildcardPermission.SUBPART_DIVIDER_TOKEN;
+    private final Node root;
+
+    private PermissionTrie(@NonNull Node root) {
+        this.root = root;
+    }
+
+    /**
+     * <p>
+     *     将给定的权限字符串编译为前缀树.
+     * </p>
+     *
+     * @param permissions 权限字符串集合, 语法与 {@link WildcardPermission} 相同.
+     * @return 编译后的前缀树.
+     * @throws IllegalArgumentException 如果某个权限字符串不是合法的通配符权限.
+     */
+    public static @NonNull PermissionTrie compile(@NonNull Collection<String> permissions) {
+        MutableNode root = new MutableNode();
+        for (String permission : permissions) {
+            root.insert(parse(permission), 0);
+        }
+        return new PermissionTrie(root.freeze());
+    }
+
+    /**
+     * <p>
+     *     判断前缀树中的已授予权限是否隐含给定的查询权限.
+     * </p>
+     *
+     * @param permission 查询权限, 必须满足 {@link StringPermission#isSimple(String)}.
+     * @return 如果隐含则返回 {@code true}.
+     */
+    public boolean implies(@NonNull String permission) {
+        return implies(this.root, permission, 0);
+    }
+
+    private static boolean implies(Node node, String permission, int from) {
+        // 查询的部件已全部匹配完毕.
+        if (from > permission.length()) {
+            return node.impliesRemainder;
+        }
+        // 已授予权限的部件数少于查询, 剩余部件被自动隐含.
+        if (node.granted) {
+            return true;
+        }
+
+        int end = permission.indexOf(PART_DIVIDER.charAt(0), from);
+        if (end < 0) {
+            end = permission.length();
+        }
+        int start = from, stop = end;
+        while (start < stop && Character.isWhitespace(permission.charAt(start))) {
+            start++;
+        }
+        while (stop > start && Character.isWhitespace(permission.charAt(stop - 1))) {
+            stop--;
+        }
+
+        Node child = node.find(permission, start, stop - start);
+        if (child != null && implies(child, permission, end + 1)) {
+            return true;
+        }
+        return node.wildcard != null && implies(node.wildcard, permission, end + 1);
+    }
+
+    /**
+     * <p>
+     *     按照 {@link WildcardPermission} 的规则将权限字符串拆分为部件以及子部件, 并统一转换为小写.
+     * </p>
+     */
+    private static List<List<String>> parse(String permission) {
+        if (permission == null || permission.isBlank()) {
+            throw new IllegalArgumentException("通配符权限字符串不能为空.");
+        }
+
+        String[] parts = permission.trim().split(PART_DIVIDER);
+        List<List<String>> result = new ArrayList<>(parts.length);
+        for (String part : parts) {
+            List<String> subparts = new ArrayList<>();
+            for (String subpart : part.split(SUBPART_DIVIDER)) {
+                String token = subpart.trim();
+                if (!token.isEmpty()) {
+                    subparts.add(token.toLowerCase(Locale.ROOT));
+                }
+            }
+            if (subparts.isEmpty()) {
+                throw new IllegalArgumentException("通配符权限字符串 [%s] 不能含有空的部件.".formatted(permission));
+            }
+            result.add(subparts);
+        }
+        return result;
+    }
+
+    /**
+     * <p>
+     *     与 {@link Node#find} 配套使用的大小写不敏感散列函数.
+     * </p>
+     */
+    private static int hash(CharSequence s, int offset, int length) {
+        int h = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = 31 * h + Character.toLowerCase(s.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * <h2>不可变节点</h2>
+     * <p>
+     *     精确匹配的子节点保存在开放寻址的散列表中, 查找时直接在查询字符串的区间上计算散列并比较, 无需截取子串.
+     * </p>
+     */
+    private static final class Node {
+        private final String[] keys;
+        private final Node[] children;
+        private final int mask;
+        private final Node wildcard;
+        /**
+         * <p>
+         *     是否有已授予权限恰好在此节点结束.
+         * </p>
+         */
+        private final boolean granted;
+        /**
+         * <p>
+         *     当查询在此节点结束时是否被隐含: 此节点有已授予权限结束, 或者沿着通配符分支可以到达已授予权限的结束节点.
+         * </p>
+         */
+        private final boolean impliesRemainder;
+
+        private Node(String[] keys, Node[] children, Node wildcard, boolean granted) {
+            this.keys = keys;
+            this.children = children;
+            this.mask = keys.length - 1;
+            this.wildcard = wildcard;
+            this.granted = granted;
+            this.impliesRemainder = granted || (wildcard != null && wildcard.impliesRemainder);
+        }
+
+        private Node find(String s, int offset, int length) {
+            if (this.keys.length == 0 || length == 0) {
+                return null;
+            }
+            for (int i = hash(s, offset, length) & this.mask; ; i = (i + 1) & this.mask) {
+                String key = this.keys[i];
+                if (key == null) {
+                    return null;
+                }
+                if (key.length() == length && key.regionMatches(true, 0, s, offset, length)) {
+                    return this.children[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * <h2>可变节点</h2>
+     * <p>
+     *     仅在编译期间使用, 编译完成后通过 {@link #freeze()} 转换为 {@link Node}.
+     * </p>
+     */
+    private static final class MutableNode {
+        private final Map<String, MutableNode> children = new HashMap<>();
+        private MutableNode wildcard;
+        private boolean granted;
+
+        private void insert(List<List<String>> parts, int index) {
+            if (index == parts.size()) {
+                this.granted = true;
+                return;
+            }
+
+            List<String> subparts = parts.get(index);
+            // 含有通配符的部件匹配该层的任意部件, 其它子部件已被其包含.
+            if (subparts.contains(WILDCARD_TOKEN)) {
+                if (this.wildcard == null) {
+                    this.wildcard = new MutableNode();
+                }
+                this.wildcard.insert(parts, index + 1);
+                return;
+            }
+            for (String subpart : subparts) {
+                this.children.computeIfAbsent(subpart, k -> new MutableNode()).insert(parts, index + 1);
+            }
+        }
+
+        private Node freeze() {
+            int capacity = this.children.isEmpty() ? 0 : Integer.highestOneBit(Math.max(this.children.size() * 2 - 1, 1)) << 1;
+            String[] keys = new String[capacity];
+            Node[] frozenChildren = new Node[capacity];
+            this.children.forEach((key, child) -> {
+                int i = hash(key, 0, key.length()) & (capacity - 1);
+                while (keys[i] != null) {
+                    i = (i + 1) & (capacity - 1);
+                }
+                keys[i] = key;
+                frozenChildren[i] = child.freeze();
+            });
+            return new Node(keys, frozenChildren, this.wildcard == null ? null : this.wildcard.freeze(), this.granted);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package indi.ly.crush.authz;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * <h2>{@code Redis} 授权变更事件传输</h2>
+ * <p>
+ *     通过 {@code Redis} 的 {@code PUBLISH}/{@code SUBSCRIBE} 将事件传递给所有节点, 适用于多节点部署. <br />
+ *     发布者所在的节点同样会收到自己发布的事件, 因此本地缓存的失效与其它节点走同一条路径. <br /> <br />
+ *
+ *     发布订阅不持久化消息, 节点与 {@code Redis} 断开期间的事件会丢失, 这些节点的授权缓存只能等待过期. <br />
+ *     只依赖 {@code PUBLISH} 和 {@code SUBSCRIBE} 命令, 因此也可以连接任何兼容 {@code Redis} 协议的服务(包括本地的替身服务).
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public class RedisAuthorizationChangeTransport
+        implements AuthorizationChangeTransport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisAuthorizationChangeTransport.class);
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final RedisMessageListenerContainer container;
+
+    public RedisAuthorizationChangeTransport(
+            @NonNull StringRedisTemplate redisTemplate, @NonNull RedisConnectionFactory connectionFactory, @NonNull String channel
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.container = new RedisMessageListenerContainer();
+        this.container.setConnectionFactory(connectionFactory);
+        this.container.afterPropertiesSet();
+        this.container.start();
+    }
+
+    @Override
+    public void publish(@NonNull AuthorizationChangeEvent event) {
+        this.redisTemplate.convertAndSend(this.channel, event.encode());
+    }
+
+    @Override
+    public void subscribe(@NonNull Consumer<AuthorizationChangeEvent> subscriber) {
+        this.container.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            try {
+                subscriber.accept(AuthorizationChangeEvent.decode(body));
+            } catch (RuntimeException e) {
+                LOGGER.error("处理授权变更事件 [{}] 失败.", body, e);
+            }
+        }, new ChannelTopic(this.channel));
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.container.destroy();
+        } catch (Exception e) {
+            LOGGER.warn("关闭授权变更事件的订阅失败.", e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package indi.ly.crush.authz;
+
+import org.apache.shiro.authz.Authorizer;
+import org.apache.shiro.authz.ModularRealmAuthorizer;
+import org.apache.shiro.realm.Realm;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * <h2>支持角色位掩码的模块化授权器</h2>
+ * <p>
+ *     在 {@link ModularRealmAuthorizer} 的基础上增加{@code 是否拥有任意一个角色}的检查: <br />
+ *     对于实现了 {@link RoleMaskAware} 的安全域, 只需 {@code 1} 次授权缓存查询和 {@code 1} 次按位与运算,
+ *     而不是对每个角色分别调用 {@link Authorizer#hasRole(PrincipalCollection, String)}; 其它安全域仍按名称逐个检查.
+ * </p>
+ *
+ * @since 1.0
+ * @see RoleRegistry
+ * @author 云上的云
+ * @formatter:off
+ */
+public class RoleMaskAuthorizer
+        extends ModularRealmAuthorizer {
+    private final RoleRegistry roleRegistry;
+
+    public RoleMaskAuthorizer(@NonNull RoleRegistry roleRegistry) {
+        this.roleRegistry = roleRegistry;
+    }
+
+    /**
+     * <p>
+     *     判断给定的主体是否拥有任意一个给定的角色.
+     * </p>
+     *
+     * @param principals 主体.
+     * @param roles      预编译的角色集合.
+     * @return 如果拥有任意一个角色则返回 {@code true}.
+     */
+    public boolean hasAnyRole(@Nullable PrincipalCollection principals, @NonNull CompiledRoles roles) {
+        if (principals == null || principals.isEmpty()) {
+            return false;
+        }
+        super.assertRealmsConfigured();
+
+        for (Realm realm : super.getRealms()) {
+            if (roles.exact() && realm instanceof RoleMaskAware roleMaskAware) {
+                if ((roleMaskAware.getRoleMask(principals, this.roleRegistry) & roles.mask()) != 0L) {
+                    return true;
+                }
+            } else if (realm instanceof Authorizer authorizer) {
+                for (String role : roles.names()) {
+                    if (authorizer.hasRole(principals, role)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>
+     *     获取给定的主体在所有支持角色位掩码的安全域中所拥有的角色的位掩码.
+     * </p>
+     *
+     * @param principals 主体.
+     * @return 位掩码.
+     */
+    public long getRoleMask(@NonNull PrincipalCollection principals) {
+        super.assertRealmsConfigured();
+
+        long mask = 0L;
+        for (Realm realm : super.getRealms()) {
+            if (realm instanceof RoleMaskAware roleMaskAware) {
+                mask |= roleMaskAware.getRoleMask(principals, this.roleRegistry);
+            }
+        }
+        return mask;
+    }
+
+    public @NonNull RoleRegistry getRoleRegistry() {
+        return roleRegistry;
+    }
+}
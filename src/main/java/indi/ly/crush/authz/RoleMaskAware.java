@@ -0,0 +1,25 @@
+package indi.ly.crush.authz;
+
+import org.apache.shiro.subject.PrincipalCollection;
+import org.springframework.lang.NonNull;
+
+/**
+ * <h2>支持角色位掩码的安全域</h2>
+ *
+ * @since 1.0
+ * @see RoleMaskAuthorizer
+ * @author 云上的云
+ * @formatter:off
+ */
+public interface RoleMaskAware {
+    /**
+     * <p>
+     *     获取给定主体所拥有的角色的位掩码.
+     * </p>
+     *
+     * @param principals 主体.
+     * @param registry   角色注册表.
+     * @return 位掩码, 未注册的角色不会出现在其中.
+     */
+    long getRoleMask(@NonNull PrincipalCollection principals, @NonNull RoleRegistry registry);
+}
@@ -0,0 +1,101 @@
+package indi.ly.crush.authz;
+
+import org.springframework.lang.NonNull;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h2>角色成员反向索引</h2>
+ * <p>
+ *     记录当前节点上已加载过授权信息的用户所拥有的角色, 使得角色发生变更时只需失效拥有该角色的用户的授权缓存, 而不是清空整个缓存. <br />
+ *     索引只覆盖当前节点加载过授权信息的用户, 因此不需要查询数据库. <br /> <br />
+ *
+ *     用户的授权缓存被失效时从索引中移除, 下次重新加载授权信息时再次登记. <br />
+ *     因过期而被缓存淘汰的用户仍会留在索引中, 直到下一次涉及它的失效, 此时多出的失效只是一次缓存未命中.
+ * </p>
+ *
+ * @since 1.0
+ * @see AuthorizationCacheInvalidator
+ * @author 云上的云
+ * @formatter:off
+ */
+public class RoleMembershipIndex {
+    private final Map<String, Set<Long>> usersByRole = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> rolesByUser = new ConcurrentHashMap<>();
+
+    /**
+     * <p>
+     *     登记用户当前拥有的角色, 替换之前登记的角色.
+     * </p>
+     *
+     * @param userId 用户的唯一标识符.
+     * @param roles  用户拥有的角色名称.
+     */
+    public void register(long userId, @NonNull Collection<String> roles) {
+        Set<String> newRoles = Set.copyOf(roles);
+        // 同一用户的登记和移除在 compute 中串行执行, 两张表不会出现交错的中间状态.
+        this.rolesByUser.compute(userId, (id, oldRoles) -> {
+            if (oldRoles != null) {
+                for (String role : oldRoles) {
+                    if (!newRoles.contains(role)) {
+                        this.removeMember(role, id);
+                    }
+                }
+            }
+            for (String role : newRoles) {
+                this.usersByRole.computeIfAbsent(role, key -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+            return newRoles.isEmpty() ? null : newRoles;
+        });
+    }
+
+    /**
+     * <p>
+     *     移除用户登记的所有角色.
+     * </p>
+     *
+     * @param userId 用户的唯一标识符.
+     */
+    public void unregister(long userId) {
+        this.rolesByUser.computeIfPresent(userId, (id, roles) -> {
+            for (String role : roles) {
+                this.removeMember(role, id);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * <p>
+     *     获取拥有给定角色的用户.
+     * </p>
+     *
+     * @param role 角色名称.
+     * @return 用户的唯一标识符的快照, 如果没有则返回空集合.
+     */
+    public @NonNull Set<Long> usersOf(@NonNull String role) {
+        Set<Long> users = this.usersByRole.get(role);
+        return users == null ? Set.of() : Set.copyOf(users);
+    }
+
+    /**
+     * <p>
+     *     获取已登记的用户数量.
+     * </p>
+     *
+     * @return 已登记的用户数量.
+     */
+    public int size() {
+        return this.rolesByUser.size();
+    }
+
+    private void removeMember(String role, Long userId) {
+        this.usersByRole.computeIfPresent(role, (key, users) -> {
+            users.remove(userId);
+            return users.isEmpty() ? null : users;
+        });
+    }
+}
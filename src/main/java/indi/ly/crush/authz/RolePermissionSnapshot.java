@@ -0,0 +1,146 @@
+package indi.ly.crush.authz;
+
+import indi.ly.crush.model.projection.RolePermissionRecord;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <h2>角色权限快照</h2>
+ * <p>
+ *     {@code t_role}、{@code t_role_permissions}、{@code t_permission} 三张表在某一时刻的不可变副本, 角色权限的字符串已预先解析为 {@link WildcardPermission}. <br />
+ *     角色与权限的关系很少变化, 却在每次加载授权信息时都要用到: 有了快照, 加载授权信息时只需查询用户的角色 {@code ID} 和直接权限,
+ *     角色名称和角色权限在内存中展开, 不再关联 {@code t_role_permissions} 表. <br /> <br />
+ *
+ *     快照创建之后不再修改, 可以被任意线程无锁读取; 角色权限变更后由 {@link RolePermissionSnapshotHolder} 构建新的快照并整体替换.
+ * </p>
+ *
+ * @since 1.0
+ * @see RolePermissionSnapshotHolder
+ * @author 云上的云
+ * @formatter:off
+ */
+public final class RolePermissionSnapshot {
+    private final long version;
+    private final Map<Long, String> roleNames;
+    private final Map<Long, Set<String>> permissionsByRole;
+    private final Map<String, Permission> parsedPermissions;
+
+    private RolePermissionSnapshot(
+            long version, Map<Long, String> roleNames, Map<Long, Set<String>> permissionsByRole, Map<String, Permission> parsedPermissions
+    ) {
+        this.version = version;
+        this.roleNames = roleNames;
+        this.permissionsByRole = permissionsByRole;
+        this.parsedPermissions = parsedPermissions;
+    }
+
+    /**
+     * <p>
+     *     根据角色权限记录构建快照.
+     * </p>
+     *
+     * @param version 快照的版本号.
+     * @param records 角色权限记录.
+     * @return 快照.
+     */
+    public static @NonNull RolePermissionSnapshot build(long version, @NonNull Collection<? extends RolePermissionRecord> records) {
+        Map<Long, String> roleNames = new HashMap<>();
+        Map<Long, Set<String>> permissionsByRole = new HashMap<>();
+        Map<String, Permission> parsedPermissions = new HashMap<>();
+        for (RolePermissionRecord record : records) {
+            roleNames.put(record.getRoleId(), record.getRoleName());
+            Set<String> permissions = permissionsByRole.computeIfAbsent(record.getRoleId(), id -> new HashSet<>());
+            String permission = record.getPermission();
+            if (permission != null) {
+                permissions.add(permission);
+                parsedPermissions.computeIfAbsent(permission, WildcardPermission :: new);
+            }
+        }
+
+        Map<Long, Set<String>> frozen = new HashMap<>(permissionsByRole.size());
+        permissionsByRole.forEach((id, permissions) -> frozen.put(id, Set.copyOf(permissions)));
+        return new RolePermissionSnapshot(version, Map.copyOf(roleNames), Map.copyOf(frozen), Map.copyOf(parsedPermissions));
+    }
+
+    /**
+     * <p>
+     *     获取快照的版本号, 每次刷新递增.
+     * </p>
+     *
+     * @return 快照的版本号.
+     */
+    public long version() {
+        return this.version;
+    }
+
+    /**
+     * <p>
+     *     判断快照中是否存在给定的角色.
+     * </p>
+     *
+     * @param roleId 角色的唯一标识符.
+     * @return 如果存在则返回 {@code true}.
+     */
+    public boolean containsRole(long roleId) {
+        return this.roleNames.containsKey(roleId);
+    }
+
+    /**
+     * <p>
+     *     获取给定角色的名称.
+     * </p>
+     *
+     * @param roleId 角色的唯一标识符.
+     * @return 角色名称, 如果角色不存在则返回 {@code null}.
+     */
+    public @Nullable String roleName(long roleId) {
+        return this.roleNames.get(roleId);
+    }
+
+    /**
+     * <p>
+     *     获取给定角色的权限资源标识符.
+     * </p>
+     *
+     * @param roleId 角色的唯一标识符.
+     * @return 不可变的权限资源标识符集合, 如果角色不存在或没有任何权限则返回空集合.
+     */
+    public @NonNull Set<String> permissionsOf(long roleId) {
+        return this.permissionsByRole.getOrDefault(roleId, Set.of());
+    }
+
+    /**
+     * <p>
+     *     获取所有角色权限预先解析好的 {@link WildcardPermission}, 以权限资源标识符为键.
+     * </p>
+     *
+     * @return 不可变的映射.
+     */
+    public @NonNull Map<String, Permission> parsedPermissions() {
+        return this.parsedPermissions;
+    }
+
+    /**
+     * <p>
+     *     获取快照中的角色数量.
+     * </p>
+     *
+     * @return 角色数量.
+     */
+    public int roleCount() {
+        return this.roleNames.size();
+    }
+
+    @Override
+    public String toString() {
+        return "RolePermissionSnapshot[version=%d, roles=%d, permissions=%d]".formatted(this.version, this.roleNames.size(), this.parsedPermissions.size());
+    }
+}
@@ -0,0 +1,73 @@
+package indi.ly.crush.authz;
+
+import indi.ly.crush.repository.IRoleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * <h2>角色权限快照持有者</h2>
+ * <p>
+ *     通过 {@code volatile} 引用发布当前的 {@link RolePermissionSnapshot}: 读取无锁, 刷新时在锁内构建新的快照后整体替换(写时复制),
+ *     正在使用旧快照的线程不受影响. <br /> <br />
+ *
+ *     角色或权限变更后由 {@link AuthorizationCacheInvalidator} 刷新; 加载授权信息时遇到快照中不存在的角色(例如刚刚创建的角色),
+ *     则通过 {@link #refreshIfStale(RolePermissionSnapshot)} 刷新, 多个线程同时遇到时只刷新一次.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public class RolePermissionSnapshotHolder {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RolePermissionSnapshotHolder.class);
+    private final IRoleRepository roleRepository;
+    private volatile RolePermissionSnapshot current;
+
+    public RolePermissionSnapshotHolder(@NonNull IRoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    /**
+     * <p>
+     *     获取当前的快照, 首次调用时构建.
+     * </p>
+     *
+     * @return 当前的快照.
+     */
+    public @NonNull RolePermissionSnapshot get() {
+        RolePermissionSnapshot snapshot = this.current;
+        return snapshot != null ? snapshot : this.refreshIfStale(null);
+    }
+
+    /**
+     * <p>
+     *     从数据库重新构建快照并替换当前的快照.
+     * </p>
+     *
+     * @return 新的快照.
+     */
+    public synchronized @NonNull RolePermissionSnapshot refresh() {
+        RolePermissionSnapshot old = this.current;
+        RolePermissionSnapshot snapshot = RolePermissionSnapshot.build(
+                old == null ? 1L : old.version() + 1, this.roleRepository.findAllRolePermissionRecords()
+        );
+        this.current = snapshot;
+        LOGGER.info("角色权限快照已刷新: {}.", snapshot);
+        return snapshot;
+    }
+
+    /**
+     * <p>
+     *     如果当前的快照仍是给定的快照, 则刷新; 否则说明其它线程已经刷新过, 直接返回当前的快照.
+     * </p>
+     *
+     * @param observed 调用方观察到的过期快照, 为 {@code null} 表示尚未构建.
+     * @return 当前的快照.
+     */
+    public synchronized @NonNull RolePermissionSnapshot refreshIfStale(@Nullable RolePermissionSnapshot observed) {
+        RolePermissionSnapshot snapshot = this.current;
+        return snapshot == null || snapshot == observed ? this.refresh() : snapshot;
+    }
+}
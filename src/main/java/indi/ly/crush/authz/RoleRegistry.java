@@ -0,0 +1,159 @@
+package indi.ly.crush.authz;
+
+import indi.ly.crush.enums.Role;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <h2>角色注册表</h2>
+ * <p>
+ *     将角色名称映射为 {@code 0 ~ 63} 的整数编号, 使得一组角色可以用 {@code 1} 个 {@code long} 类型的位掩码表示,
+ *     判断{@code 是否拥有任意一个角色}只需 {@code 1} 次按位与运算. <br /> <br />
+ *
+ *     启动时按 {@link Role} 枚举以及 {@code t_role} 表中的角色注册, 运行期间出现的新角色也可以继续注册, 直到编号用完为止. <br />
+ *     无法注册的角色不会出现在任何位掩码中, 使用方需要退回到按名称检查. <br /> <br />
+ *
+ *     编号由每个节点在启动时自行分配, 取决于注册的顺序, 因此位掩码只在本节点内有意义, 不能放入访问令牌等会被其它节点读取的数据中.
+ * </p>
+ *
+ * @since 1.0
+ * @see CompiledRoles
+ * @author 云上的云
+ * @formatter:off
+ */
+public class RoleRegistry {
+    /**
+     * <p>
+     *     可以注册的最大角色数量.
+     * </p>
+     */
+    public static final int CAPACITY = Long.SIZE;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>(CAPACITY);
+    private final AtomicReferenceArray<String> names = new AtomicReferenceArray<>(CAPACITY);
+    /**
+     * <p>
+     *     已注册的角色数量, 同时作为注册表的版本号: 它只会增加, 因此位掩码可以据此判断自己是否已经过期.
+     * </p>
+     */
+    private volatile int size;
+
+    /**
+     * <p>
+     *     注册给定的角色.
+     * </p>
+     *
+     * @param role 角色名称.
+     * @return 角色的编号; 如果编号已经用完则返回 {@code -1}.
+     */
+    public synchronized int register(@NonNull String role) {
+        Integer id = this.ids.get(role);
+        if (id != null) {
+            return id;
+        }
+        if (this.size == CAPACITY) {
+            return -1;
+        }
+        int newId = this.size;
+        this.names.set(newId, role);
+        this.ids.put(role, newId);
+        this.size = newId + 1;
+        return newId;
+    }
+
+    /**
+     * <p>
+     *     获取给定角色的编号.
+     * </p>
+     *
+     * @param role 角色名称.
+     * @return 角色的编号; 如果角色尚未注册则返回 {@code -1}.
+     */
+    public int idOf(@NonNull String role) {
+        Integer id = this.ids.get(role);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * <p>
+     *     计算给定的一组角色的位掩码, 未注册的角色会被忽略.
+     * </p>
+     *
+     * @param roles 角色名称.
+     * @return 位掩码.
+     */
+    public long maskOf(@Nullable Collection<String> roles) {
+        if (roles == null) {
+            return 0L;
+        }
+        long mask = 0L;
+        for (String role : roles) {
+            int id = this.idOf(role);
+            if (id >= 0) {
+                mask |= 1L << id;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * <p>
+     *     将位掩码还原为角色名称, 未注册的编号会被忽略.
+     * </p>
+     *
+     * @param mask 位掩码.
+     * @return 角色名称.
+     */
+    public @NonNull Set<String> namesOf(long mask) {
+        Set<String> roles = new HashSet<>(Long.bitCount(mask) * 2);
+        for (long remaining = mask; remaining != 0L; remaining &= remaining - 1) {
+            String role = this.names.get(Long.numberOfTrailingZeros(remaining));
+            if (role != null) {
+                roles.add(role);
+            }
+        }
+        return roles;
+    }
+
+    /**
+     * <p>
+     *     预编译过滤器链中配置的一组角色, 尚未注册的角色会在此时尝试注册.
+     * </p>
+     *
+     * @param roles 角色名称.
+     * @return 预编译的角色集合.
+     */
+    public @NonNull CompiledRoles compile(@Nullable String[] roles) {
+        if (roles == null || roles.length == 0) {
+            return new CompiledRoles(new String[0], 0L, true);
+        }
+        long mask = 0L;
+        boolean exact = true;
+        for (String role : roles) {
+            int id = this.register(role);
+            if (id < 0) {
+                exact = false;
+            } else {
+                mask |= 1L << id;
+            }
+        }
+        return new CompiledRoles(roles, mask, exact);
+    }
+
+    /**
+     * <p>
+     *     获取已注册的角色数量.
+     * </p>
+     *
+     * @return 已注册的角色数量.
+     */
+    public int size() {
+        return this.size;
+    }
+}
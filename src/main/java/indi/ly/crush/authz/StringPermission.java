@@ -0,0 +1,110 @@
+package indi.ly.crush.authz;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.springframework.lang.NonNull;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * <h2>字符串权限</h2>
+ * <p>
+ *     只保存原始权限字符串而不立即解析的 {@link Permission}. <br />
+ *     {@link WildcardPermission} 在创建时就会将字符串拆分为部件集合, 而本类在{@link #isSimple() 简单}的情况下直接交由 {@link PermissionTrie} 检查,
+ *     只有在需要与其它 {@link Permission} 比较时才会{@link #toWildcardPermission() 延迟解析}为 {@link WildcardPermission}.
+ * </p>
+ *
+ * @since 1.0
+ * @see StringPermissionResolver
+ * @author 云上的云
+ * @formatter:off
+ */
+public final class StringPermission
+        implements Permission, Serializable {
+    @Serial
+    private static final long serialVersionUID = -3380421416851337186L;
+    private final String value;
+    private final boolean simple;
+    private transient volatile WildcardPermission wildcardPermission;
+
+    public StringPermission(@NonNull String value) {
+        this.value = Objects.requireNonNull(value, "权限字符串不能为空.");
+        this.simple = isSimple(value);
+    }
+
+    /**
+     * <p>
+     *     判断给定的权限字符串是否为简单权限: 非空, 不含子部件分隔符 {@code ,}, 且不含空的部件. <br />
+     *     只有简单权限才能直接在 {@link PermissionTrie} 上检查.
+     * </p>
+     *
+     * @param value 权限字符串.
+     * @return 如果是简单权限则返回 {@code true}.
+     */
+    public static boolean isSimple(@NonNull String value) {
+        boolean partHasText = false;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (c == ',') {
+                return false;
+            }
+            if (c == ':') {
+                if (!partHasText) {
+                    return false;
+                }
+                partHasText = false;
+            } else if (!Character.isWhitespace(c)) {
+                partHasText = true;
+            }
+        }
+        return partHasText;
+    }
+
+    public boolean isSimple() {
+        return simple;
+    }
+
+    public @NonNull String getValue() {
+        return value;
+    }
+
+    /**
+     * <p>
+     *     将本权限解析为 {@link WildcardPermission}, 解析结果会被缓存.
+     * </p>
+     *
+     * @return 解析后的 {@link WildcardPermission}.
+     */
+    public @NonNull WildcardPermission toWildcardPermission() {
+        WildcardPermission wp = this.wildcardPermission;
+        if (wp == null) {
+            this.wildcardPermission = wp = new WildcardPermission(this.value);
+        }
+        return wp;
+    }
+
+    @Override
+    public boolean implies(Permission p) {
+        if (p instanceof StringPermission sp) {
+            p = sp.toWildcardPermission();
+        }
+        return this.toWildcardPermission().implies(p);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof StringPermission that && this.value.equals(that.value));
+    }
+
+    @Override
+    public int hashCode() {
+        return this.value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.value;
+    }
+}
@@ -0,0 +1,24 @@
+package indi.ly.crush.authz;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.PermissionResolver;
+import org.apache.shiro.authz.permission.WildcardPermissionResolver;
+
+/**
+ * <h2>字符串权限解析器</h2>
+ * <p>
+ *     用于替代 {@link WildcardPermissionResolver}, 将权限字符串解析为不立即拆分部件的 {@link StringPermission}.
+ * </p>
+ *
+ * @since 1.0
+ * @see StringPermission
+ * @author 云上的云
+ * @formatter:off
+ */
+public class StringPermissionResolver
+        implements PermissionResolver {
+    @Override
+    public Permission resolvePermission(String permissionString) {
+        return new StringPermission(permissionString);
+    }
+}
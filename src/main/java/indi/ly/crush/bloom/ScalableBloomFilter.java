@@ -0,0 +1,203 @@
+package indi.ly.crush.bloom;
+
+import org.springframework.lang.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h2>可扩展布隆过滤器</h2>
+ * <p>
+ *     由若干个普通布隆过滤器(阶段)组成, 元素只写入最后一个阶段, 查询时检查所有阶段: <br />
+ *     1. 当前阶段写满(元素数量达到容量)后追加一个新阶段, 容量翻倍, 误判率减半; <br />
+ *     2. 第一个阶段的误判率为目标误判率的一半, 因此无论扩展多少次, 总误判率都不超过目标误判率. <br /> <br />
+ *
+ *     每个阶段使用 {@code 64} 位哈希的双重散列({@code h1 + i * h2})定位 {@code k} 个位, 位数组是 {@link AtomicLongArray},
+ *     写入通过原子或操作完成, 查询与写入都不加锁; 只有追加阶段时需要同步. <br />
+ *     布隆过滤器不支持删除, 被删除的元素只能通过重建来清除.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public final class ScalableBloomFilter {
+    private static final double LN2 = Math.log(2);
+    private final double firstFpp;
+    /**
+     * <p>
+     *     所有阶段, 追加时整体替换(写时复制), 读取时无需加锁.
+     * </p>
+     */
+    private volatile Stage[] stages;
+
+    public ScalableBloomFilter(long initialCapacity, double fpp) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("布隆过滤器的初始容量必须是一个正整数: %d.".formatted(initialCapacity));
+        }
+        if (!(fpp > 0 && fpp < 1)) {
+            throw new IllegalArgumentException("布隆过滤器的误判率必须在 (0, 1) 之间: %s.".formatted(fpp));
+        }
+        // 各阶段误判率依次减半, 总和 fpp/2 + fpp/4 + ... < fpp.
+        this.firstFpp = fpp / 2;
+        this.stages = new Stage[] {new Stage(initialCapacity, this.firstFpp)};
+    }
+
+    public boolean mightContain(@NonNull String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1L;
+        for (Stage stage : this.stages) {
+            if (stage.mightContain(hash1, hash2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void put(@NonNull String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1L;
+        Stage[] current = this.stages;
+        Stage last = current[current.length - 1];
+        if (last.isFull()) {
+            last = this.grow(current);
+        }
+        last.put(hash1, hash2);
+    }
+
+    /**
+     * <p>
+     *     返回已写入的元素数量(重复写入的元素会被重复计数).
+     * </p>
+     */
+    public long approximateElementCount() {
+        long count = 0;
+        for (Stage stage : this.stages) {
+            count += stage.count.sum();
+        }
+        return count;
+    }
+
+    /**
+     * <p>
+     *     返回位数组占用的字节数.
+     * </p>
+     */
+    public long bitSizeInBytes() {
+        long bytes = 0;
+        for (Stage stage : this.stages) {
+            bytes += (long) stage.bits.length() * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    public int stageCount() {
+        return this.stages.length;
+    }
+
+    /**
+     * <p>
+     *     根据各阶段当前的元素数量估算总误判率: {@code 1 - ∏(1 - (1 - e^(-kn/m))^k)}.
+     * </p>
+     */
+    public double expectedFpp() {
+        double notFalsePositive = 1;
+        for (Stage stage : this.stages) {
+            double fill = 1 - Math.exp(-(double) stage.hashCount * stage.count.sum() / stage.bitCount);
+            notFalsePositive *= 1 - Math.pow(fill, stage.hashCount);
+        }
+        return 1 - notFalsePositive;
+    }
+
+    private synchronized @NonNull Stage grow(@NonNull Stage[] observed) {
+        Stage[] current = this.stages;
+        // 其它线程已经追加过阶段.
+        if (current != observed) {
+            return current[current.length - 1];
+        }
+        Stage last = current[current.length - 1];
+        Stage next = new Stage(last.capacity * 2, this.firstFpp / (1L << Math.min(current.length, 52)));
+        Stage[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = next;
+        this.stages = grown;
+        return next;
+    }
+
+    /**
+     * <p>
+     *     计算 {@code UTF-8} 编码的 {@code 64} 位 {@code FNV-1a} 哈希, 再经过 {@link #mix} 充分混合.
+     * </p>
+     */
+    private static long hash(@NonNull String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * <p>
+     *     {@code MurmurHash3} 的 {@code fmix64} 终结函数.
+     * </p>
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class Stage {
+        private final long capacity;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLongArray bits;
+        private final LongAdder count = new LongAdder();
+
+        private Stage(long capacity, double fpp) {
+            long words = Math.max(1, (long) Math.ceil(-capacity * Math.log(fpp) / (LN2 * LN2) / Long.SIZE));
+            if (words > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("布隆过滤器的容量过大: %d.".formatted(capacity));
+            }
+            this.capacity = capacity;
+            this.bits = new AtomicLongArray((int) words);
+            this.bitCount = words * Long.SIZE;
+            this.hashCount = Math.max(1, (int) Math.round((double) this.bitCount / capacity * LN2));
+        }
+
+        private boolean isFull() {
+            return this.count.sum() >= this.capacity;
+        }
+
+        private boolean mightContain(long hash1, long hash2) {
+            long combined = hash1;
+            for (int i = 0; i < this.hashCount; i++, combined += hash2) {
+                long bit = (combined & Long.MAX_VALUE) % this.bitCount;
+                if ((this.bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void put(long hash1, long hash2) {
+            long combined = hash1;
+            for (int i = 0; i < this.hashCount; i++, combined += hash2) {
+                long bit = (combined & Long.MAX_VALUE) % this.bitCount;
+                long mask = 1L << bit;
+                int index = (int) (bit >>> 6);
+                // 已经置位时跳过原子操作.
+                if ((this.bits.get(index) & mask) == 0) {
+                    this.bits.getAndAccumulate(index, mask, (previous, update) -> previous | update);
+                }
+            }
+            this.count.increment();
+        }
+    }
+}
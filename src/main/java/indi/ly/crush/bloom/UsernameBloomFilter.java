@@ -0,0 +1,256 @@
+package indi.ly.crush.bloom;
+
+import indi.ly.crush.authz.AuthorizationChangeEvent;
+import indi.ly.crush.config.AppProperties;
+import indi.ly.crush.enums.AuthorizationChangeKind;
+import indi.ly.crush.repository.IUserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * <h2>用户名布隆过滤器</h2>
+ * <p>
+ *     以 {@link ScalableBloomFilter} 保存所有已存在的用户名, 用于在查询数据库之前判断用户名是否可能已被占用:
+ *     <ul>
+ *         <li>
+ *             {@link #mightContain} 返回 {@code false} 时用户名一定未被占用, 无需查询数据库;
+ *             返回 {@code true} 时用户名可能已被占用, 仍需查询数据库确认.
+ *         </li>
+ *         <li>
+ *             启动后在后台线程中流式读取 {@code t_user} 表构建过滤器, 构建完成之前 {@link #mightContain} 始终返回 {@code true}.
+ *         </li>
+ *         <li>
+ *             新用户注册成功后通过 {@link #put} 写入过滤器. 布隆过滤器不支持删除, 被删除或改名的用户名会一直被判定为 "可能存在",
+ *             因此后台线程按 {@code rebuildInterval} 周期性地重建过滤器; 重建期间的写入会同时写入新旧过滤器, 重建完成后整体替换.
+ *         </li>
+ *         <li>
+ *             多节点部署时, 其它节点注册的用户名通过授权变更事件传递过来({@link #onAuthorizationChange}). <br />
+ *             事件丢失(例如与 {@code Redis} 断开)时本节点可能把已占用的用户名判定为一定未被占用, 直到下次重建;
+ *             此时注册由 {@code t_user} 上的唯一约束拒绝.
+ *         </li>
+ *     </ul>
+ * </p>
+ *
+ * @since 1.0
+ * @see AppProperties.UsernameFilterConfig
+ * @author 云上的云
+ * @formatter:off
+ */
+public class UsernameBloomFilter
+        implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UsernameBloomFilter.class);
+    private final IUserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long expectedInsertions;
+    private final double fpp;
+    private final ScheduledExecutorService rebuilder;
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder definiteNegatives = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    /**
+     * <p>
+     *     当前使用的过滤器, 首次构建完成之前为 {@code null}.
+     * </p>
+     */
+    private volatile ScalableBloomFilter current;
+    /**
+     * <p>
+     *     正在重建的过滤器, 不在重建时为 {@code null}.
+     * </p>
+     */
+    private volatile ScalableBloomFilter building;
+    private volatile Instant lastRebuiltAt;
+
+    public UsernameBloomFilter(
+            @NonNull IUserRepository userRepository,
+            @NonNull TransactionTemplate transactionTemplate,
+            @NonNull AppProperties.UsernameFilterConfig config
+    ) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.expectedInsertions = config.getExpectedInsertions();
+        this.fpp = config.getFpp();
+
+        this.rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "username-filter-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long rebuildMillis = config.getRebuildInterval().toMillis();
+        this.rebuilder.scheduleWithFixedDelay(this :: rebuildQuietly, 0, rebuildMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * <p>
+     *     判断用户名是否可能已被占用.
+     * </p>
+     *
+     * @param username 用户名.
+     * @return 如果用户名一定未被占用, 返回 {@code false}; 否则返回 {@code true}.
+     */
+    public boolean mightContain(@NonNull String username) {
+        ScalableBloomFilter filter = this.current;
+        if (filter == null) {
+            return true;
+        }
+        this.queries.increment();
+        if (filter.mightContain(username)) {
+            return true;
+        }
+        this.definiteNegatives.increment();
+        return false;
+    }
+
+    /**
+     * <p>
+     *     将新注册的用户名写入过滤器, 必须在用户记录提交之后调用, 以保证与重建时读取的快照之间不会遗漏.
+     * </p>
+     *
+     * @param username 用户名.
+     */
+    public void put(@NonNull String username) {
+        // 先写正在重建的过滤器, 再写当前的过滤器, 与 rebuild 中 "先替换 current, 再清空 building" 的顺序相对:
+        // 读到的 building 为 null 时, 要么重建尚未开始(其快照在用户记录提交之后读取, 已包含该用户名), 要么已经完成(此时读到的 current 就是新的过滤器).
+        ScalableBloomFilter next = this.building;
+        if (next != null) {
+            next.put(username);
+        }
+        ScalableBloomFilter filter = this.current;
+        if (filter != null && filter != next) {
+            filter.put(username);
+        }
+    }
+
+    /**
+     * <p>
+     *     接收授权变更事件, 将新注册用户(包括在其它节点上注册的用户)的用户名写入过滤器.
+     * </p>
+     *
+     * @param event 授权变更事件.
+     * @see AuthorizationChangeEvent#ofRegisteredUser(long, String)
+     */
+    public void onAuthorizationChange(@NonNull AuthorizationChangeEvent event) {
+        if (event.kind() == AuthorizationChangeKind.USER && event.name() != null) {
+            this.put(event.name());
+        }
+    }
+
+    /**
+     * <p>
+     *     记录一次误判: {@link #mightContain} 返回 {@code true}, 但数据库中并不存在该用户名. <br />
+     *     首次构建完成之前的查询不计入.
+     * </p>
+     */
+    public void recordFalsePositive() {
+        if (this.current != null) {
+            this.falsePositives.increment();
+        }
+    }
+
+    /**
+     * <p>
+     *     从 {@code t_user} 表重新构建过滤器并替换当前的过滤器.
+     * </p>
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        ScalableBloomFilter next = new ScalableBloomFilter(this.expectedInsertions, this.fpp);
+        // 先开启双写, 再读取快照, 保证读取期间提交的新用户名不会遗漏.
+        this.building = next;
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<String> usernames = this.userRepository.streamAllUsernames()) {
+                    usernames.forEach(next :: put);
+                }
+            });
+            this.current = next;
+            this.lastRebuiltAt = Instant.now();
+        } finally {
+            this.building = null;
+        }
+        LOGGER.info(
+                "用户名布隆过滤器重建完成, 耗时 [{}ms], 统计信息 [{}].",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), this.getStatistics()
+        );
+    }
+
+    /**
+     * <p>
+     *     获取过滤器的统计信息快照.
+     * </p>
+     *
+     * @return 统计信息快照.
+     */
+    public @NonNull Statistics getStatistics() {
+        ScalableBloomFilter filter = this.current;
+        return new Statistics(
+                filter == null ? 0 : filter.approximateElementCount(),
+                filter == null ? 0 : filter.bitSizeInBytes(),
+                filter == null ? 0 : filter.stageCount(),
+                filter == null ? 1 : filter.expectedFpp(),
+                this.queries.sum(),
+                this.definiteNegatives.sum(),
+                this.falsePositives.sum(),
+                this.lastRebuiltAt
+        );
+    }
+
+    @Override
+    public void close() {
+        this.rebuilder.shutdownNow();
+        LOGGER.info("用户名布隆过滤器的统计信息 [{}].", this.getStatistics());
+    }
+
+    private void rebuildQuietly() {
+        try {
+            this.rebuild();
+        } catch (RuntimeException e) {
+            // 重建失败时继续使用旧的过滤器(或在首次构建失败时继续查询数据库), 等待下一个周期.
+            LOGGER.error("用户名布隆过滤器重建失败.", e);
+        }
+    }
+
+    /**
+     * <h2>用户名布隆过滤器统计信息</h2>
+     *
+     * @param elementCount       已写入的元素数量.
+     * @param memoryBytes        位数组占用的字节数.
+     * @param stageCount         过滤器的阶段数量.
+     * @param expectedFpp        根据元素数量估算的误判率.
+     * @param queryCount         过滤器构建完成后的查询次数.
+     * @param negativeCount      判定为一定不存在(跳过数据库)的次数.
+     * @param falsePositiveCount 判定为可能存在但数据库中不存在的次数.
+     * @param lastRebuiltAt      最近一次重建完成的时间, 尚未构建时为 {@code null}.
+     */
+    public record Statistics(
+            long elementCount,
+            long memoryBytes,
+            int stageCount,
+            double expectedFpp,
+            long queryCount,
+            long negativeCount,
+            long falsePositiveCount,
+            Instant lastRebuiltAt
+    ) {
+        /**
+         * <p>
+         *     实际观测到的误判率, 即误判次数占所有不存在的用户名查询次数的比例.
+         * </p>
+         *
+         * @return 观测到的误判率, 没有查询时返回 {@code 0}.
+         */
+        public double observedFpp() {
+            long absent = this.negativeCount + this.falsePositiveCount;
+            return absent == 0 ? 0 : (double) this.falsePositiveCount / absent;
+        }
+    }
+}
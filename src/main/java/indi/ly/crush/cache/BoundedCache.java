@@ -0,0 +1,93 @@
+package indi.ly.crush.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.apache.shiro.cache.Cache;
+import org.apache.shiro.cache.CacheException;
+import org.springframework.lang.NonNull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <h2>有界缓存</h2>
+ * <p>
+ *     基于 {@code Caffeine}({@code W-TinyLFU} 淘汰策略)实现的 {@code Shiro} {@link Cache}. <br />
+ *     缓存条目的数量受 {@code maxEntries} 限制, 并在写入 {@code ttl} 时长后过期, 淘汰行为完全由容量和时间决定, 与 {@code GC} 无关.
+ * </p>
+ *
+ * @param <K> 键的类型.
+ * @param <V> 值的类型.
+ * @since 1.0
+ * @see BoundedCacheManager
+ * @author 云上的云
+ * @formatter:off
+ */
+public class BoundedCache<K, V>
+        implements Cache<K, V> {
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<K, V> delegate;
+
+    BoundedCache(@NonNull String name, @NonNull com.github.benmanes.caffeine.cache.Cache<K, V> delegate) {
+        this.name = name;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public V get(K key) throws CacheException {
+        return key == null ? null : this.delegate.getIfPresent(key);
+    }
+
+    @Override
+    public V put(K key, V value) throws CacheException {
+        return this.delegate.asMap().put(key, value);
+    }
+
+    @Override
+    public V remove(K key) throws CacheException {
+        return key == null ? null : this.delegate.asMap().remove(key);
+    }
+
+    @Override
+    public void clear() throws CacheException {
+        this.delegate.invalidateAll();
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(this.delegate.estimatedSize(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Set<K> keys() {
+        return Set.copyOf(this.delegate.asMap().keySet());
+    }
+
+    @Override
+    public Collection<V> values() {
+        return List.copyOf(this.delegate.asMap().values());
+    }
+
+    /**
+     * <p>
+     *     获取缓存的统计信息快照, 包含命中、未命中以及淘汰次数等.
+     * </p>
+     *
+     * @return 缓存的统计信息快照.
+     */
+    public @NonNull CacheStats getStatistics() {
+        return this.delegate.stats();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedCache{" +
+               "name='" + name + '\'' +
+               ", size=" + this.delegate.estimatedSize() +
+               '}';
+    }
+}
@@ -0,0 +1,88 @@
+package indi.ly.crush.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import indi.ly.crush.config.AppProperties;
+import org.apache.shiro.cache.Cache;
+import org.apache.shiro.cache.CacheException;
+import org.apache.shiro.cache.CacheManager;
+import org.apache.shiro.cache.MemoryConstrainedCacheManager;
+import org.apache.shiro.util.Destroyable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <h2>有界缓存管理器</h2>
+ * <p>
+ *     用于替代 {@link MemoryConstrainedCacheManager}. <br />
+ *     {@link MemoryConstrainedCacheManager} 基于软引用实现, 当堆内存紧张时 {@code GC} 会一次性清除所有用户的 {@code AuthorizationInfo},
+ *     随后的请求会同时回源数据库, 造成缓存雪崩. <br /> <br />
+ *
+ *     本缓存管理器创建的每个 {@link BoundedCache} 都具有固定的最大条目数以及写入后过期时间(请浏览 {@link AppProperties.CacheConfig}),
+ *     缓存的淘汰是可预测的, 并会记录命中、未命中以及淘汰次数.
+ * </p>
+ *
+ * @since 1.0
+ * @see AppProperties.CacheConfig
+ * @author 云上的云
+ * @formatter:off
+ */
+public class BoundedCacheManager
+        implements CacheManager, Destroyable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BoundedCacheManager.class);
+    private final AppProperties.CacheConfig cacheConfig;
+    private final ConcurrentMap<String, BoundedCache<?, ?>> caches = new ConcurrentHashMap<>();
+
+    public BoundedCacheManager(@NonNull AppProperties.CacheConfig cacheConfig) {
+        this.cacheConfig = cacheConfig;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> Cache<K, V> getCache(String name) throws CacheException {
+        if (name == null || name.isBlank()) {
+            throw new CacheException("缓存名称不能为空.");
+        }
+        return (Cache<K, V>) this.caches.computeIfAbsent(name, this :: createCache);
+    }
+
+    /**
+     * <p>
+     *     获取所有缓存的统计信息快照.
+     * </p>
+     *
+     * @return 缓存名称到统计信息快照的映射.
+     */
+    public @NonNull Map<String, CacheStats> getStatistics() {
+        Map<String, CacheStats> statistics = new LinkedHashMap<>(this.caches.size());
+        this.caches.forEach((name, cache) -> statistics.put(name, cache.getStatistics()));
+        return statistics;
+    }
+
+    @Override
+    public void destroy() {
+        this.caches.forEach((name, cache) -> {
+            LOGGER.info("缓存 [{}] 的统计信息 [{}].", name, cache.getStatistics());
+            cache.clear();
+        });
+        this.caches.clear();
+    }
+
+    private @NonNull BoundedCache<?, ?> createCache(@NonNull String name) {
+        AppProperties.CacheSpec spec = this.cacheConfig.getSpec(name);
+        LOGGER.debug("创建缓存 [{}], 最大条目数 [{}], 过期时间 [{}].", name, spec.getMaxEntries(), spec.getTtl());
+
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> delegate = Caffeine.newBuilder()
+                                                                                    .maximumSize(spec.getMaxEntries())
+                                                                                    .expireAfterWrite(spec.getTtl())
+                                                                                    .recordStats()
+                                                                                    .build();
+        return new BoundedCache<>(name, delegate);
+    }
+}
@@ -1,16 +1,47 @@
 package indi.ly.crush.config;
 
+import indi.ly.crush.audit.LastLoginRecorder;
+import indi.ly.crush.authenticator.ParallelRealmAuthenticationExecutor;
+import indi.ly.crush.authz.AuthorizationCacheInvalidator;
+import indi.ly.crush.bloom.UsernameBloomFilter;
+import indi.ly.crush.cache.BoundedCacheManager;
+import indi.ly.crush.constants.CacheNameConstants;
+import indi.ly.crush.encryp.Md5PasswordHasher;
+import indi.ly.crush.filter.mgt.TrieFilterChainResolver;
+import indi.ly.crush.mgt.CompactCookieRememberMeManager;
+import indi.ly.crush.token.AccessTokenCodec;
+import indi.ly.crush.encryp.PasswordHashCalibrator;
+import indi.ly.crush.encryp.PasswordHasher;
+import indi.ly.crush.encryp.PasswordHashingExecutor;
+import indi.ly.crush.encryp.Pbkdf2Sha256PasswordHasher;
+import indi.ly.crush.enums.AuthorizationChangeTransportType;
+import indi.ly.crush.enums.AuthorizationLoadingMode;
+import indi.ly.crush.enums.MultiRealmAuthenticationMode;
+import indi.ly.crush.enums.RateLimitAlgorithm;
+import indi.ly.crush.enums.SessionStoreType;
+import indi.ly.crush.enums.SmsCodeStoreType;
 import indi.ly.crush.model.entity.Permission;
 import indi.ly.crush.model.entity.Role;
+import indi.ly.crush.ratelimit.LoginRateLimiter;
+import indi.ly.crush.registration.BulkUserRegistrar;
+import indi.ly.crush.realm.UserRealm;
+import indi.ly.crush.session.NearCacheSessionDAO;
+import indi.ly.crush.session.OffHeapSessionDAO;
+import indi.ly.crush.session.TimingWheelSessionValidationScheduler;
+import indi.ly.crush.sms.SmsCodeStore;
 import indi.ly.crush.util.base.BaseStringUtil;
 import lombok.NonNull;
 import org.apache.shiro.web.servlet.SimpleCookie;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * <h2>应用程序属性</h2>
@@ -37,6 +68,32 @@ public class AppProperties {
 
     private RememberMeConfig rememberMe;
 
+    private AuthorizationConfig authorization = new AuthorizationConfig();
+
+    private CacheConfig cache = new CacheConfig();
+
+    private PasswordHashingConfig passwordHashing = new PasswordHashingConfig();
+
+    private SmsCodeConfig smsCode = new SmsCodeConfig();
+
+    private LoginRateLimitConfig loginRateLimit = new LoginRateLimitConfig();
+
+    private FilterChainConfig filterChain = new FilterChainConfig();
+
+    private AccessTokenConfig accessToken = new AccessTokenConfig();
+
+    private SessionConfig session = new SessionConfig();
+
+    private UsernameFilterConfig usernameFilter = new UsernameFilterConfig();
+
+    private BulkRegistrationConfig bulkRegistration = new BulkRegistrationConfig();
+
+    private LastLoginConfig lastLogin = new LastLoginConfig();
+
+    private AuthorizationInvalidationConfig authorizationInvalidation = new AuthorizationInvalidationConfig();
+
+    private MultiRealmAuthenticationConfig multiRealmAuthentication = new MultiRealmAuthenticationConfig();
+
     public List<PermissionConfig> getPermissions() {
         return permissions;
     }
@@ -61,6 +118,110 @@ public class AppProperties {
         this.rememberMe = rememberMe;
     }
 
+    public AuthorizationConfig getAuthorization() {
+        return authorization;
+    }
+
+    public void setAuthorization(AuthorizationConfig authorization) {
+        this.authorization = authorization;
+    }
+
+    public CacheConfig getCache() {
+        return cache;
+    }
+
+    public void setCache(CacheConfig cache) {
+        this.cache = cache;
+    }
+
+    public PasswordHashingConfig getPasswordHashing() {
+        return passwordHashing;
+    }
+
+    public void setPasswordHashing(PasswordHashingConfig passwordHashing) {
+        this.passwordHashing = passwordHashing;
+    }
+
+    public SmsCodeConfig getSmsCode() {
+        return smsCode;
+    }
+
+    public void setSmsCode(SmsCodeConfig smsCode) {
+        this.smsCode = smsCode;
+    }
+
+    public LoginRateLimitConfig getLoginRateLimit() {
+        return loginRateLimit;
+    }
+
+    public void setLoginRateLimit(LoginRateLimitConfig loginRateLimit) {
+        this.loginRateLimit = loginRateLimit;
+    }
+
+    public FilterChainConfig getFilterChain() {
+        return filterChain;
+    }
+
+    public void setFilterChain(FilterChainConfig filterChain) {
+        this.filterChain = filterChain;
+    }
+
+    public AccessTokenConfig getAccessToken() {
+        return accessToken;
+    }
+
+    public void setAccessToken(AccessTokenConfig accessToken) {
+        this.accessToken = accessToken;
+    }
+
+    public SessionConfig getSession() {
+        return session;
+    }
+
+    public void setSession(SessionConfig session) {
+        this.session = session;
+    }
+
+    public UsernameFilterConfig getUsernameFilter() {
+        return usernameFilter;
+    }
+
+    public void setUsernameFilter(UsernameFilterConfig usernameFilter) {
+        this.usernameFilter = usernameFilter;
+    }
+
+    public BulkRegistrationConfig getBulkRegistration() {
+        return bulkRegistration;
+    }
+
+    public void setBulkRegistration(BulkRegistrationConfig bulkRegistration) {
+        this.bulkRegistration = bulkRegistration;
+    }
+
+    public LastLoginConfig getLastLogin() {
+        return lastLogin;
+    }
+
+    public void setLastLogin(LastLoginConfig lastLogin) {
+        this.lastLogin = lastLogin;
+    }
+
+    public AuthorizationInvalidationConfig getAuthorizationInvalidation() {
+        return authorizationInvalidation;
+    }
+
+    public void setAuthorizationInvalidation(AuthorizationInvalidationConfig authorizationInvalidation) {
+        this.authorizationInvalidation = authorizationInvalidation;
+    }
+
+    public MultiRealmAuthenticationConfig getMultiRealmAuthentication() {
+        return multiRealmAuthentication;
+    }
+
+    public void setMultiRealmAuthentication(MultiRealmAuthenticationConfig multiRealmAuthentication) {
+        this.multiRealmAuthentication = multiRealmAuthentication;
+    }
+
     /**
      * <h2>权限配置类</h2>
      */
@@ -169,7 +330,7 @@ public class AppProperties {
      * <h2>记住我配置类</h2>
      *
      * @see SimpleCookie
-     * @see ShiroConfig#createCookieRememberMeManagerBean(AppProperties)
+     * @see ShiroConfig#createCompactCookieRememberMeManagerBean(AppProperties)
      */
     public static class RememberMeConfig {
         /**
@@ -194,6 +355,14 @@ public class AppProperties {
          * </p>
          */
         private TimeUnit timeUnit = TimeUnit.DAYS;
+        /**
+         * <p>
+         *     最多缓存的 {@code RememberMe Cookie} 解密结果数量, 默认为 {@code 10000}.
+         * </p>
+         *
+         * @see CompactCookieRememberMeManager
+         */
+        private long decryptCacheSize = 10_000;
 
         public String getCookieName() {
             return cookieName;
@@ -224,6 +393,1177 @@ public class AppProperties {
         public TimeUnit getTimeUnit() {
             return timeUnit;
         }
+
+        public long getDecryptCacheSize() {
+            return decryptCacheSize;
+        }
+
+        public void setDecryptCacheSize(long decryptCacheSize) {
+            if (decryptCacheSize <= 0) {
+                throw new IllegalArgumentException("RememberMe Cookie 解密结果的最大缓存数量必须是一个正整数: %d.".formatted(decryptCacheSize));
+            }
+            this.decryptCacheSize = decryptCacheSize;
+        }
+    }
+
+    /**
+     * <h2>授权配置类</h2>
+     *
+     * @see ShiroConfig#createUserRealmBean
+     */
+    public static class AuthorizationConfig {
+        /**
+         * <p>
+         *     授权信息的加载模式, 默认为 {@link AuthorizationLoadingMode#ROLE_SNAPSHOT}.
+         * </p>
+         *
+         * @see UserRealm#setAuthorizationLoadingMode(AuthorizationLoadingMode)
+         */
+        private AuthorizationLoadingMode loadingMode = AuthorizationLoadingMode.ROLE_SNAPSHOT;
+
+        public AuthorizationLoadingMode getLoadingMode() {
+            return loadingMode;
+        }
+
+        public void setLoadingMode(AuthorizationLoadingMode loadingMode) {
+            this.loadingMode = loadingMode;
+        }
+    }
+
+    /**
+     * <h2>缓存配置类</h2>
+     *
+     * @see BoundedCacheManager
+     */
+    public static class CacheConfig {
+        /**
+         * <p>
+         *     未单独配置的缓存所使用的默认规格.
+         * </p>
+         */
+        private CacheSpec defaults = new CacheSpec();
+        /**
+         * <p>
+         *     缓存名称到缓存规格的映射, 用于为特定的缓存单独配置规格.
+         * </p>
+         *
+         * @see CacheNameConstants
+         */
+        private Map<String, CacheSpec> caches = new LinkedHashMap<>();
+
+        public CacheSpec getDefaults() {
+            return defaults;
+        }
+
+        public void setDefaults(CacheSpec defaults) {
+            this.defaults = defaults;
+        }
+
+        public Map<String, CacheSpec> getCaches() {
+            return caches;
+        }
+
+        public void setCaches(Map<String, CacheSpec> caches) {
+            this.caches = caches;
+        }
+
+        /**
+         * <p>
+         *     获取指定缓存的规格, 如果该缓存没有单独配置, 则返回{@link #defaults 默认规格}.
+         * </p>
+         *
+         * @param cacheName 缓存名称.
+         * @return 缓存规格.
+         */
+        public @NonNull CacheSpec getSpec(String cacheName) {
+            return this.caches.getOrDefault(cacheName, this.defaults);
+        }
+    }
+
+    /**
+     * <h2>缓存规格类</h2>
+     *
+     * @see CacheConfig
+     */
+    public static class CacheSpec {
+        /**
+         * <p>
+         *     缓存的最大条目数, 默认为 {@code 10000}.
+         * </p>
+         */
+        private long maxEntries = 10_000;
+        /**
+         * <p>
+         *     缓存条目写入后的存活时间, 默认为 {@code 30} 分钟.
+         * </p>
+         */
+        private Duration ttl = Duration.ofMinutes(30);
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            if (maxEntries <= 0) {
+                throw new IllegalArgumentException("缓存的最大条目数必须是一个正整数: %d.".formatted(maxEntries));
+            }
+            this.maxEntries = maxEntries;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+                throw new IllegalArgumentException("缓存的存活时间必须是一个正数: %s.".formatted(ttl));
+            }
+            this.ttl = ttl;
+        }
+    }
+
+    /**
+     * <h2>密码哈希执行器配置类</h2>
+     *
+     * @see PasswordHashingExecutor
+     */
+    public static class PasswordHashingConfig {
+        /**
+         * <p>
+         *     执行哈希计算的线程数, 默认为可用的处理器数.
+         * </p>
+         */
+        private int threads = Runtime.getRuntime().availableProcessors();
+        /**
+         * <p>
+         *     等待执行的哈希任务的最大数量, 超出后新的请求将被拒绝, 默认为 {@code 256}.
+         * </p>
+         */
+        private int queueCapacity = 256;
+        /**
+         * <p>
+         *     调用方等待哈希结果的最长时间, 默认为 {@code 5} 秒.
+         * </p>
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+        /**
+         * <p>
+         *     被拒绝时通过 {@code Retry-After} 响应头建议客户端重试的间隔, 默认为 {@code 1} 秒.
+         * </p>
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+        /**
+         * <p>
+         *     新密码使用的目标算法, 默认为 {@code pbkdf2-sha256}.
+         * </p>
+         *
+         * @see PasswordHasher#getAlgorithm()
+         */
+        private String algorithm = Pbkdf2Sha256PasswordHasher.ALGORITHM;
+        /**
+         * <p>
+         *     目标算法的计算代价(迭代次数), 必须配置. <br />
+         *     所有节点必须使用相同的值, 否则密码哈希会在各节点之间被反复升级. 可以使用 {@link PasswordHashCalibrator} 在目标机器上获取建议值.
+         * </p>
+         *
+         * @see PasswordHashCalibrator
+         */
+        private Integer cost;
+        /**
+         * <p>
+         *     历史遗留(不带 {@code $算法$代价$} 前缀)的密码哈希所使用的算法, 默认为 {@code md5}.
+         * </p>
+         */
+        private String legacyAlgorithm = Md5PasswordHasher.ALGORITHM;
+        /**
+         * <p>
+         *     历史遗留的密码哈希所使用的计算代价, 默认为 {@code 1024}.
+         * </p>
+         */
+        private int legacyCost = 1024;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            if (threads <= 0) {
+                throw new IllegalArgumentException("密码哈希线程数必须是一个正整数: %d.".formatted(threads));
+            }
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException("密码哈希队列容量必须是一个正整数: %d.".formatted(queueCapacity));
+            }
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+        public void setAlgorithm(String algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        public Integer getCost() {
+            return cost;
+        }
+
+        public void setCost(Integer cost) {
+            if (cost == null || cost <= 0) {
+                throw new IllegalArgumentException("密码哈希的计算代价必须是一个正整数: %d.".formatted(cost));
+            }
+            this.cost = cost;
+        }
+
+        public String getLegacyAlgorithm() {
+            return legacyAlgorithm;
+        }
+
+        public void setLegacyAlgorithm(String legacyAlgorithm) {
+            this.legacyAlgorithm = legacyAlgorithm;
+        }
+
+        public int getLegacyCost() {
+            return legacyCost;
+        }
+
+        public void setLegacyCost(int legacyCost) {
+            this.legacyCost = legacyCost;
+        }
+    }
+
+    /**
+     * <h2>短信验证码配置类</h2>
+     *
+     * @see SmsCodeStore
+     */
+    public static class SmsCodeConfig {
+        /**
+         * <p>
+         *     验证码的存储类型, 默认为 {@link SmsCodeStoreType#LOCAL}.
+         * </p>
+         */
+        private SmsCodeStoreType store = SmsCodeStoreType.LOCAL;
+        /**
+         * <p>
+         *     验证码的有效期, 默认为 {@code 5} 分钟.
+         * </p>
+         */
+        private Duration ttl = Duration.ofMinutes(5);
+        /**
+         * <p>
+         *     验证码的长度, 默认为 {@code 6} 位.
+         * </p>
+         */
+        private int codeLength = 6;
+        /**
+         * <p>
+         *     同一个验证码允许输错的最大次数, 达到后验证码立即失效, 默认为 {@code 5} 次.
+         * </p>
+         */
+        private int maxAttempts = 5;
+        /**
+         * <p>
+         *     同一手机号码两次下发验证码之间的最短间隔, 默认为 {@code 1} 分钟.
+         * </p>
+         */
+        private Duration resendCooldown = Duration.ofMinutes(1);
+        /**
+         * <p>
+         *     按手机号码对下发验证码限流, 默认为每小时 {@code 10} 次.
+         * </p>
+         */
+        private RateLimitSpec phoneNumberRateLimit = new RateLimitSpec(10, Duration.ofHours(1));
+        /**
+         * <p>
+         *     按客户端 {@code IP} 对下发验证码限流, 默认为每小时 {@code 30} 次.
+         * </p>
+         */
+        private RateLimitSpec hostRateLimit = new RateLimitSpec(30, Duration.ofHours(1));
+        /**
+         * <p>
+         *     下发限流的每个维度最多保存的限流状态数量, 默认为 {@code 100000}.
+         * </p>
+         */
+        private long rateLimitMaxKeys = 100_000;
+        /**
+         * <p>
+         *     本地存储最多保存的验证码数量, 默认为 {@code 100000}.
+         * </p>
+         */
+        private int maxEntries = 100_000;
+        /**
+         * <p>
+         *     本地存储的分段数, 会向上取整为 {@code 2} 的幂, 默认为 {@code 64}.
+         * </p>
+         */
+        private int stripes = 64;
+        /**
+         * <p>
+         *     本地存储清理过期验证码的时间轮刻度, 默认为 {@code 1} 秒.
+         * </p>
+         */
+        private Duration tick = Duration.ofSeconds(1);
+
+        public SmsCodeStoreType getStore() {
+            return store;
+        }
+
+        public void setStore(SmsCodeStoreType store) {
+            this.store = store;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public int getCodeLength() {
+            return codeLength;
+        }
+
+        public void setCodeLength(int codeLength) {
+            if (codeLength < 4 || codeLength > 10) {
+                throw new IllegalArgumentException("短信验证码的长度必须在 4 到 10 之间: %d.".formatted(codeLength));
+            }
+            this.codeLength = codeLength;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            if (maxAttempts <= 0) {
+                throw new IllegalArgumentException("短信验证码的最大尝试次数必须是一个正整数: %d.".formatted(maxAttempts));
+            }
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getResendCooldown() {
+            return resendCooldown;
+        }
+
+        public void setResendCooldown(Duration resendCooldown) {
+            if (resendCooldown == null || resendCooldown.isNegative()) {
+                throw new IllegalArgumentException("短信验证码的重发冷却时间不能为负数: %s.".formatted(resendCooldown));
+            }
+            this.resendCooldown = resendCooldown;
+        }
+
+        public RateLimitSpec getPhoneNumberRateLimit() {
+            return phoneNumberRateLimit;
+        }
+
+        public void setPhoneNumberRateLimit(RateLimitSpec phoneNumberRateLimit) {
+            this.phoneNumberRateLimit = phoneNumberRateLimit;
+        }
+
+        public RateLimitSpec getHostRateLimit() {
+            return hostRateLimit;
+        }
+
+        public void setHostRateLimit(RateLimitSpec hostRateLimit) {
+            this.hostRateLimit = hostRateLimit;
+        }
+
+        public long getRateLimitMaxKeys() {
+            return rateLimitMaxKeys;
+        }
+
+        public void setRateLimitMaxKeys(long rateLimitMaxKeys) {
+            if (rateLimitMaxKeys <= 0) {
+                throw new IllegalArgumentException("限流状态的最大数量必须是一个正整数: %d.".formatted(rateLimitMaxKeys));
+            }
+            this.rateLimitMaxKeys = rateLimitMaxKeys;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            if (maxEntries <= 0) {
+                throw new IllegalArgumentException("短信验证码的最大数量必须是一个正整数: %d.".formatted(maxEntries));
+            }
+            this.maxEntries = maxEntries;
+        }
+
+        public int getStripes() {
+            return stripes;
+        }
+
+        public void setStripes(int stripes) {
+            if (stripes <= 0) {
+                throw new IllegalArgumentException("短信验证码存储的分段数必须是一个正整数: %d.".formatted(stripes));
+            }
+            this.stripes = stripes;
+        }
+
+        public Duration getTick() {
+            return tick;
+        }
+
+        public void setTick(Duration tick) {
+            this.tick = tick;
+        }
+    }
+
+    /**
+     * <h2>登录限流配置类</h2>
+     *
+     * @see LoginRateLimiter
+     */
+    public static class LoginRateLimitConfig {
+        /**
+         * <p>
+         *     是否启用登录限流, 默认为 {@code true}.
+         * </p>
+         */
+        private boolean enabled = true;
+        /**
+         * <p>
+         *     限流算法, 默认为 {@link RateLimitAlgorithm#TOKEN_BUCKET}.
+         * </p>
+         */
+        private RateLimitAlgorithm algorithm = RateLimitAlgorithm.TOKEN_BUCKET;
+        /**
+         * <p>
+         *     每个维度最多保存的限流状态数量, 超出后最少使用的状态将被淘汰, 默认为 {@code 100000}.
+         * </p>
+         */
+        private long maxKeys = 100_000;
+        /**
+         * <p>
+         *     按用户名限流, 默认为每分钟 {@code 5} 次.
+         * </p>
+         */
+        private RateLimitSpec username = new RateLimitSpec(5, Duration.ofMinutes(1));
+        /**
+         * <p>
+         *     按手机号码限流, 默认为每分钟 {@code 5} 次.
+         * </p>
+         */
+        private RateLimitSpec phoneNumber = new RateLimitSpec(5, Duration.ofMinutes(1));
+        /**
+         * <p>
+         *     按客户端 {@code IP} 限流, 默认为每分钟 {@code 30} 次.
+         * </p>
+         */
+        private RateLimitSpec host = new RateLimitSpec(30, Duration.ofMinutes(1));
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public RateLimitAlgorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public void setAlgorithm(RateLimitAlgorithm algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        public long getMaxKeys() {
+            return maxKeys;
+        }
+
+        public void setMaxKeys(long maxKeys) {
+            if (maxKeys <= 0) {
+                throw new IllegalArgumentException("限流状态的最大数量必须是一个正整数: %d.".formatted(maxKeys));
+            }
+            this.maxKeys = maxKeys;
+        }
+
+        public RateLimitSpec getUsername() {
+            return username;
+        }
+
+        public void setUsername(RateLimitSpec username) {
+            this.username = username;
+        }
+
+        public RateLimitSpec getPhoneNumber() {
+            return phoneNumber;
+        }
+
+        public void setPhoneNumber(RateLimitSpec phoneNumber) {
+            this.phoneNumber = phoneNumber;
+        }
+
+        public RateLimitSpec getHost() {
+            return host;
+        }
+
+        public void setHost(RateLimitSpec host) {
+            this.host = host;
+        }
+    }
+
+    /**
+     * <h2>限流规格类</h2>
+     * <p>
+     *     在任意长度为 {@code window} 的时间段内最多允许 {@code limit} 次请求.
+     * </p>
+     *
+     * @see LoginRateLimitConfig
+     */
+    public static class RateLimitSpec {
+        /**
+         * <p>
+         *     时间窗口内允许的最大请求次数.
+         * </p>
+         */
+        private int limit;
+        /**
+         * <p>
+         *     时间窗口的长度.
+         * </p>
+         */
+        private Duration window;
+
+        public RateLimitSpec() {
+        }
+
+        public RateLimitSpec(int limit, Duration window) {
+            this.limit = limit;
+            this.window = window;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public void setLimit(int limit) {
+            if (limit <= 0) {
+                throw new IllegalArgumentException("限流的许可数必须是一个正整数: %d.".formatted(limit));
+            }
+            this.limit = limit;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            if (window == null || window.isNegative() || window.isZero()) {
+                throw new IllegalArgumentException("限流的时间窗口必须是一个正数: %s.".formatted(window));
+            }
+            this.window = window;
+        }
+    }
+
+    /**
+     * <h2>过滤器链解析配置类</h2>
+     *
+     * @see TrieFilterChainResolver
+     */
+    public static class FilterChainConfig {
+        /**
+         * <p>
+         *     最多缓存的请求路径解析结果数量, 默认为 {@code 10000}.
+         * </p>
+         */
+        private long maxResolvedPaths = 10_000;
+
+        public long getMaxResolvedPaths() {
+            return maxResolvedPaths;
+        }
+
+        public void setMaxResolvedPaths(long maxResolvedPaths) {
+            if (maxResolvedPaths <= 0) {
+                throw new IllegalArgumentException("过滤器链解析结果的最大缓存数量必须是一个正整数: %d.".formatted(maxResolvedPaths));
+            }
+            this.maxResolvedPaths = maxResolvedPaths;
+        }
+    }
+
+    /**
+     * <h2>访问令牌(无状态认证模式)配置类</h2>
+     *
+     * @see AccessTokenCodec
+     */
+    public static class AccessTokenConfig {
+        /**
+         * <p>
+         *     是否启用无状态认证模式, 默认为 {@code false}. <br />
+         *     启用后, 登录成功时会签发访问令牌, {@code /api/v1/**} 下的请求不再创建会话.
+         * </p>
+         */
+        private boolean enabled = false;
+        /**
+         * <p>
+         *     {@code Base64} 编码的签名密钥, 至少 {@code 32} 字节, 同一集群中的所有节点必须一致.
+         * </p>
+         */
+        private String secret;
+        /**
+         * <p>
+         *     访问令牌的有效期, 默认为 {@code 15} 分钟.
+         * </p>
+         */
+        private Duration ttl = Duration.ofMinutes(15);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getSecret() {
+            return secret;
+        }
+
+        public void setSecret(String secret) {
+            this.secret = secret;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+                throw new IllegalArgumentException("访问令牌的有效期必须是一个正数: %s.".formatted(ttl));
+            }
+            this.ttl = ttl;
+        }
+    }
+
+    /**
+     * <h2>会话配置类</h2>
+     *
+     * @see NearCacheSessionDAO
+     * @see OffHeapSessionDAO
+     * @see TimingWheelSessionValidationScheduler
+     */
+    public static class SessionConfig {
+        /**
+         * <p>
+         *     会话存储类型, 默认为 {@link SessionStoreType#LOCAL}.
+         * </p>
+         */
+        private SessionStoreType store = SessionStoreType.LOCAL;
+        /**
+         * <p>
+         *     会话超时时间, 默认为 {@code 30} 分钟.
+         * </p>
+         */
+        private Duration timeout = Duration.ofMinutes(30);
+        /**
+         * <p>
+         *     远端存储中会话键的前缀, 默认为 {@code shiro:session:}.
+         * </p>
+         */
+        private String keyPrefix = "shiro:session:";
+        /**
+         * <p>
+         *     近端缓存的最大会话数量, 默认为 {@code 100000}.
+         * </p>
+         */
+        private long nearCacheMaxEntries = 100_000;
+        /**
+         * <p>
+         *     近端缓存的存活时间, 即多节点之间读取会话的最大陈旧度, 默认为 {@code 10} 秒.
+         * </p>
+         */
+        private Duration nearCacheTtl = Duration.ofSeconds(10);
+        /**
+         * <p>
+         *     合并写入的刷新周期, 默认为 {@code 1} 秒.
+         * </p>
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+        /**
+         * <p>
+         *     触碰(最后访问时间)写入的防抖间隔, 默认为 {@code 1} 分钟, 必须小于会话超时时间.
+         * </p>
+         */
+        private Duration touchInterval = Duration.ofMinutes(1);
+        /**
+         * <p>
+         *     堆外会话存储可申请的最大内存, 默认为 {@code 1GB}.
+         * </p>
+         */
+        private DataSize offHeapMaxSize = DataSize.ofGigabytes(1);
+        /**
+         * <p>
+         *     堆外会话索引的分段数量(向上取整为 {@code 2} 的幂), 默认为 {@code 64}.
+         * </p>
+         */
+        private int offHeapSegments = 64;
+        /**
+         * <p>
+         *     堆外会话存储清理过期会话的周期, 默认为 {@code 1} 分钟.
+         * </p>
+         */
+        private Duration sweepInterval = Duration.ofMinutes(1);
+        /**
+         * <p>
+         *     会话校验时间轮的刻度, 默认为 {@code 1} 秒, 即会话最多在超时后 {@code 2} 个刻度内被清理.
+         * </p>
+         */
+        private Duration validationTick = Duration.ofSeconds(1);
+        /**
+         * <p>
+         *     会话校验的并行度, 默认为可用处理器数量的一半(至少为 {@code 1}).
+         * </p>
+         */
+        private int validationParallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        public SessionStoreType getStore() {
+            return store;
+        }
+
+        public void setStore(SessionStoreType store) {
+            if (store == null) {
+                throw new IllegalArgumentException("会话存储类型不能为空.");
+            }
+            this.store = store;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("会话超时时间必须是一个正数: %s.".formatted(timeout));
+            }
+            this.timeout = timeout;
+        }
+
+        public String getKeyPrefix() {
+            return keyPrefix;
+        }
+
+        public void setKeyPrefix(String keyPrefix) {
+            if (!StringUtils.hasText(keyPrefix)) {
+                throw new IllegalArgumentException("会话键的前缀不能为空.");
+            }
+            this.keyPrefix = keyPrefix;
+        }
+
+        public long getNearCacheMaxEntries() {
+            return nearCacheMaxEntries;
+        }
+
+        public void setNearCacheMaxEntries(long nearCacheMaxEntries) {
+            if (nearCacheMaxEntries <= 0) {
+                throw new IllegalArgumentException("近端缓存的最大会话数量必须是一个正整数: %d.".formatted(nearCacheMaxEntries));
+            }
+            this.nearCacheMaxEntries = nearCacheMaxEntries;
+        }
+
+        public Duration getNearCacheTtl() {
+            return nearCacheTtl;
+        }
+
+        public void setNearCacheTtl(Duration nearCacheTtl) {
+            if (nearCacheTtl == null || nearCacheTtl.isNegative() || nearCacheTtl.isZero()) {
+                throw new IllegalArgumentException("近端缓存的存活时间必须是一个正数: %s.".formatted(nearCacheTtl));
+            }
+            this.nearCacheTtl = nearCacheTtl;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            if (flushInterval == null || flushInterval.isNegative() || flushInterval.isZero()) {
+                throw new IllegalArgumentException("合并写入的刷新周期必须是一个正数: %s.".formatted(flushInterval));
+            }
+            this.flushInterval = flushInterval;
+        }
+
+        public Duration getTouchInterval() {
+            return touchInterval;
+        }
+
+        public void setTouchInterval(Duration touchInterval) {
+            if (touchInterval == null || touchInterval.isNegative()) {
+                throw new IllegalArgumentException("触碰写入的防抖间隔不能为负数: %s.".formatted(touchInterval));
+            }
+            this.touchInterval = touchInterval;
+        }
+
+        public DataSize getOffHeapMaxSize() {
+            return offHeapMaxSize;
+        }
+
+        public void setOffHeapMaxSize(DataSize offHeapMaxSize) {
+            if (offHeapMaxSize == null || offHeapMaxSize.toMegabytes() < 1) {
+                throw new IllegalArgumentException("堆外会话存储的最大内存不能小于 1MB: %s.".formatted(offHeapMaxSize));
+            }
+            this.offHeapMaxSize = offHeapMaxSize;
+        }
+
+        public int getOffHeapSegments() {
+            return offHeapSegments;
+        }
+
+        public void setOffHeapSegments(int offHeapSegments) {
+            if (offHeapSegments <= 0 || offHeapSegments > (1 << 16)) {
+                throw new IllegalArgumentException("堆外会话索引的分段数量必须在 1 到 65536 之间: %d.".formatted(offHeapSegments));
+            }
+            this.offHeapSegments = offHeapSegments;
+        }
+
+        public Duration getSweepInterval() {
+            return sweepInterval;
+        }
+
+        public void setSweepInterval(Duration sweepInterval) {
+            if (sweepInterval == null || sweepInterval.isNegative() || sweepInterval.isZero()) {
+                throw new IllegalArgumentException("清理过期会话的周期必须是一个正数: %s.".formatted(sweepInterval));
+            }
+            this.sweepInterval = sweepInterval;
+        }
+
+        public Duration getValidationTick() {
+            return validationTick;
+        }
+
+        public void setValidationTick(Duration validationTick) {
+            if (validationTick == null || validationTick.toMillis() <= 0) {
+                throw new IllegalArgumentException("会话校验时间轮的刻度必须至少为 1 毫秒: %s.".formatted(validationTick));
+            }
+            this.validationTick = validationTick;
+        }
+
+        public int getValidationParallelism() {
+            return validationParallelism;
+        }
+
+        public void setValidationParallelism(int validationParallelism) {
+            if (validationParallelism <= 0 || validationParallelism > 256) {
+                throw new IllegalArgumentException("会话校验的并行度必须在 1 到 256 之间: %d.".formatted(validationParallelism));
+            }
+            this.validationParallelism = validationParallelism;
+        }
+    }
+
+    /**
+     * <h2>用户名布隆过滤器配置类</h2>
+     *
+     * @see UsernameBloomFilter
+     */
+    public static class UsernameFilterConfig {
+        /**
+         * <p>
+         *     过滤器第一阶段的容量, 用户名数量超过后过滤器自动扩展, 默认为 {@code 1000000}.
+         * </p>
+         */
+        private long expectedInsertions = 1_000_000;
+        /**
+         * <p>
+         *     目标误判率, 默认为 {@code 0.01}.
+         * </p>
+         */
+        private double fpp = 0.01;
+        /**
+         * <p>
+         *     重建过滤器的周期, 用于清除已被删除的用户名并收缩扩展出的阶段, 默认为 {@code 6} 小时.
+         * </p>
+         */
+        private Duration rebuildInterval = Duration.ofHours(6);
+
+        public long getExpectedInsertions() {
+            return expectedInsertions;
+        }
+
+        public void setExpectedInsertions(long expectedInsertions) {
+            if (expectedInsertions <= 0) {
+                throw new IllegalArgumentException("用户名布隆过滤器的容量必须是一个正整数: %d.".formatted(expectedInsertions));
+            }
+            this.expectedInsertions = expectedInsertions;
+        }
+
+        public double getFpp() {
+            return fpp;
+        }
+
+        public void setFpp(double fpp) {
+            if (!(fpp > 0 && fpp < 1)) {
+                throw new IllegalArgumentException("用户名布隆过滤器的误判率必须在 (0, 1) 之间: %s.".formatted(fpp));
+            }
+            this.fpp = fpp;
+        }
+
+        public Duration getRebuildInterval() {
+            return rebuildInterval;
+        }
+
+        public void setRebuildInterval(Duration rebuildInterval) {
+            if (rebuildInterval == null || rebuildInterval.isNegative() || rebuildInterval.isZero()) {
+                throw new IllegalArgumentException("用户名布隆过滤器的重建周期必须是一个正数: %s.".formatted(rebuildInterval));
+            }
+            this.rebuildInterval = rebuildInterval;
+        }
+    }
+
+    /**
+     * <h2>批量注册配置类</h2>
+     *
+     * @see BulkUserRegistrar
+     */
+    public static class BulkRegistrationConfig {
+        /**
+         * <p>
+         *     每个批次的行数, 即每次 {@code JDBC} 批处理插入的用户数量, 默认为 {@code 500}.
+         * </p>
+         */
+        private int batchSize = 500;
+        /**
+         * <p>
+         *     并行计算密码哈希的线程数, 默认为处理器数量的一半(至少 {@code 1} 个), 为交互式的登录请求保留处理器.
+         * </p>
+         */
+        private int hashingThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            if (batchSize <= 0 || batchSize > 10_000) {
+                throw new IllegalArgumentException("批量注册的批次大小必须在 1 到 10000 之间: %d.".formatted(batchSize));
+            }
+            this.batchSize = batchSize;
+        }
+
+        public int getHashingThreads() {
+            return hashingThreads;
+        }
+
+        public void setHashingThreads(int hashingThreads) {
+            if (hashingThreads <= 0) {
+                throw new IllegalArgumentException("批量注册的密码哈希线程数必须是一个正整数: %d.".formatted(hashingThreads));
+            }
+            this.hashingThreads = hashingThreads;
+        }
+    }
+
+    /**
+     * <h2>最后登录信息配置类</h2>
+     *
+     * @see LastLoginRecorder
+     */
+    public static class LastLoginConfig {
+        /**
+         * <p>
+         *     缓冲区的容量, 会向上取整为 {@code 2} 的幂, 已满时丢弃新的登录事件, 默认为 {@code 65536}.
+         * </p>
+         */
+        private int bufferSize = 65_536;
+        /**
+         * <p>
+         *     每个批次最多更新的用户数量, 积压达到该数量时立即写入, 默认为 {@code 500}.
+         * </p>
+         */
+        private int batchSize = 500;
+        /**
+         * <p>
+         *     写入周期, 即登录信息写入数据库的最大延迟, 默认为 {@code 1} 秒.
+         * </p>
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            if (bufferSize <= 0 || bufferSize > (1 << 24)) {
+                throw new IllegalArgumentException("最后登录信息缓冲区的容量必须在 1 到 16777216 之间: %d.".formatted(bufferSize));
+            }
+            this.bufferSize = bufferSize;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("最后登录信息的批次大小必须是一个正整数: %d.".formatted(batchSize));
+            }
+            this.batchSize = batchSize;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            if (flushInterval == null || flushInterval.isNegative() || flushInterval.isZero()) {
+                throw new IllegalArgumentException("最后登录信息的写入周期必须是一个正数: %s.".formatted(flushInterval));
+            }
+            this.flushInterval = flushInterval;
+        }
+    }
+
+    /**
+     * <h2>授权缓存失效配置类</h2>
+     *
+     * @see AuthorizationCacheInvalidator
+     */
+    public static class AuthorizationInvalidationConfig {
+        /**
+         * <p>
+         *     授权变更事件的传输类型, 默认为 {@link AuthorizationChangeTransportType#LOCAL}.
+         * </p>
+         */
+        private AuthorizationChangeTransportType transport = AuthorizationChangeTransportType.LOCAL;
+        /**
+         * <p>
+         *     {@code Redis} 传输使用的发布订阅频道, 默认为 {@code shiro-backend:authorization-changes}.
+         * </p>
+         */
+        private String channel = "shiro-backend:authorization-changes";
+
+        public AuthorizationChangeTransportType getTransport() {
+            return transport;
+        }
+
+        public void setTransport(AuthorizationChangeTransportType transport) {
+            this.transport = transport;
+        }
+
+        public String getChannel() {
+            return channel;
+        }
+
+        public void setChannel(String channel) {
+            if (!StringUtils.hasText(channel)) {
+                throw new IllegalArgumentException("授权变更事件的发布订阅频道不能为空: %s.".formatted(channel));
+            }
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * <h2>多安全域认证配置类</h2>
+     *
+     * @see ParallelRealmAuthenticationExecutor
+     */
+    public static class MultiRealmAuthenticationConfig {
+        /**
+         * <p>
+         *     多个安全域同时支持同一个认证令牌时的认证模式, 默认为 {@link MultiRealmAuthenticationMode#PARALLEL_FIRST_SUCCESS}.
+         * </p>
+         */
+        private MultiRealmAuthenticationMode mode = MultiRealmAuthenticationMode.PARALLEL_FIRST_SUCCESS;
+        /**
+         * <p>
+         *     并行认证的线程数, 安全域的认证以等待数据库或远程服务为主, 默认为处理器数量的 {@code 2} 倍(至少 {@code 4} 个).
+         * </p>
+         */
+        private int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        /**
+         * <p>
+         *     等待队列的容量, 已满时拒绝登录请求并返回 {@code 503}, 默认为 {@code 256}.
+         * </p>
+         */
+        private int queueCapacity = 256;
+        /**
+         * <p>
+         *     每个安全域的认证超时时间, 超时的安全域视为认证失败, 默认为 {@code 5} 秒.
+         * </p>
+         */
+        private Duration realmTimeout = Duration.ofSeconds(5);
+        /**
+         * <p>
+         *     被拒绝时通过 {@code Retry-After} 响应头建议客户端重试的间隔, 默认为 {@code 1} 秒.
+         * </p>
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        public MultiRealmAuthenticationMode getMode() {
+            return mode;
+        }
+
+        public void setMode(MultiRealmAuthenticationMode mode) {
+            this.mode = mode;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            if (threads <= 0) {
+                throw new IllegalArgumentException("并行认证的线程数必须是一个正整数: %d.".formatted(threads));
+            }
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException("并行认证的队列容量必须是一个正整数: %d.".formatted(queueCapacity));
+            }
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getRealmTimeout() {
+            return realmTimeout;
+        }
+
+        public void setRealmTimeout(Duration realmTimeout) {
+            if (realmTimeout == null || realmTimeout.isNegative() || realmTimeout.isZero()) {
+                throw new IllegalArgumentException("安全域的认证超时时间必须是一个正数: %s.".formatted(realmTimeout));
+            }
+            this.realmTimeout = realmTimeout;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            if (retryAfter == null || retryAfter.isNegative() || retryAfter.isZero()) {
+                throw new IllegalArgumentException("安全域认证的重试间隔必须是一个正数: %s.".formatted(retryAfter));
+            }
+            this.retryAfter = retryAfter;
+        }
     }
 
     /**
@@ -1,36 +1,89 @@
 package indi.ly.crush.config;
 
+import indi.ly.crush.audit.LastLoginRecorder;
 import indi.ly.crush.authenticator.CustomModularRealmAuthenticator;
+import indi.ly.crush.authenticator.ParallelRealmAuthenticationExecutor;
+import indi.ly.crush.authz.AuthorizationCacheInvalidator;
+import indi.ly.crush.authz.AuthorizationChangeTransport;
+import indi.ly.crush.authz.LocalAuthorizationChangeTransport;
+import indi.ly.crush.authz.PermissionHierarchyHolder;
+import indi.ly.crush.authz.RedisAuthorizationChangeTransport;
+import indi.ly.crush.authz.RoleMaskAuthorizer;
+import indi.ly.crush.authz.RoleMembershipIndex;
+import indi.ly.crush.authz.RolePermissionSnapshotHolder;
+import indi.ly.crush.authz.RoleRegistry;
+import indi.ly.crush.authz.StringPermissionResolver;
+import indi.ly.crush.bloom.UsernameBloomFilter;
+import indi.ly.crush.cache.BoundedCacheManager;
+import indi.ly.crush.encryp.Md5PasswordHasher;
+import indi.ly.crush.encryp.PasswordHashCalibrator;
+import indi.ly.crush.encryp.PasswordHasher;
+import indi.ly.crush.encryp.PasswordHashingExecutor;
+import indi.ly.crush.encryp.Pbkdf2Sha256PasswordHasher;
+import indi.ly.crush.encryp.VersionedCredentialsMatcher;
+import indi.ly.crush.encryp.VersionedPasswordService;
+import indi.ly.crush.enums.AuthorizationChangeTransportType;
+import indi.ly.crush.enums.MultiRealmAuthenticationMode;
+import indi.ly.crush.enums.SmsCodeStoreType;
+import indi.ly.crush.filter.AccessTokenAuthenticationFilter;
 import indi.ly.crush.filter.AnyOfRolesAuthorizationFilter;
 import indi.ly.crush.filter.CustomizableResponseFormAuthenticationFilter;
 import indi.ly.crush.filter.CustomizableResponseRolesAuthorizationFilter;
+import indi.ly.crush.filter.mgt.CustomShiroFilterFactoryBean;
+import indi.ly.crush.listener.AuthorizationCollectionChangeListener;
+import indi.ly.crush.mgt.CompactCookieRememberMeManager;
+import indi.ly.crush.ratelimit.LoginRateLimiter;
+import indi.ly.crush.realm.AccessTokenRealm;
 import indi.ly.crush.realm.SMSCodeRealm;
 import indi.ly.crush.realm.UserRealm;
+import indi.ly.crush.registration.BulkUserRegistrar;
+import indi.ly.crush.enums.Role;
+import indi.ly.crush.repository.IPermissionRepository;
+import indi.ly.crush.repository.IRoleRepository;
 import indi.ly.crush.repository.IUserRepository;
+import indi.ly.crush.session.DirtyTrackingSessionFactory;
+import indi.ly.crush.session.NearCacheSessionDAO;
+import indi.ly.crush.session.OffHeapSessionDAO;
+import indi.ly.crush.session.RedisSessionStore;
+import indi.ly.crush.session.TimingWheelSessionValidationScheduler;
+import indi.ly.crush.sms.LocalSmsCodeStore;
+import indi.ly.crush.sms.RedisSmsCodeStore;
+import indi.ly.crush.sms.SmsCodeStore;
+import indi.ly.crush.token.AccessTokenCodec;
 import org.apache.shiro.authc.Authenticator;
 import org.apache.shiro.authc.credential.CredentialsMatcher;
-import org.apache.shiro.authc.credential.HashedCredentialsMatcher;
 import org.apache.shiro.authz.Authorizer;
-import org.apache.shiro.cache.MemoryConstrainedCacheManager;
+import org.apache.shiro.cache.CacheManager;
 import org.apache.shiro.codec.Base64;
 import org.apache.shiro.mgt.RememberMeManager;
 import org.apache.shiro.realm.Realm;
 import org.apache.shiro.session.mgt.SessionManager;
+import org.apache.shiro.session.mgt.eis.MemorySessionDAO;
+import org.apache.shiro.session.mgt.eis.SessionDAO;
 import org.apache.shiro.spring.web.ShiroFilterFactoryBean;
 import org.apache.shiro.subject.Subject;
-import org.apache.shiro.web.mgt.CookieRememberMeManager;
 import org.apache.shiro.web.mgt.DefaultWebSecurityManager;
+import org.apache.shiro.web.session.mgt.DefaultWebSessionManager;
 import org.apache.shiro.web.servlet.SimpleCookie;
-import org.apache.tomcat.util.net.openssl.ciphers.MessageDigest;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.servlet.Filter;
+import javax.sql.DataSource;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import static indi.ly.crush.constants.CacheNameConstants.*;
 import static indi.ly.crush.constants.ShiroSecurityPolicyKeywordConstants.*;
 
 /**
@@ -55,74 +108,320 @@ public class ShiroConfig {
     private String cipherKeyBase64;
 
     @Bean
-    public CustomModularRealmAuthenticator createCustomModularRealmAuthenticatorBean() {
-        return new CustomModularRealmAuthenticator();
+    public CustomModularRealmAuthenticator createCustomModularRealmAuthenticatorBean(
+            AppProperties appProperties, ParallelRealmAuthenticationExecutor parallelRealmAuthenticationExecutor
+    ) {
+        CustomModularRealmAuthenticator authenticator = new CustomModularRealmAuthenticator();
+        // 按用户名、手机号码和客户端 IP 对登录尝试限流.
+        AppProperties.LoginRateLimitConfig loginRateLimitConfig = appProperties.getLoginRateLimit();
+        if (loginRateLimitConfig.isEnabled()) {
+            authenticator.setLoginRateLimiter(new LoginRateLimiter(loginRateLimitConfig));
+        }
+        // 多个安全域支持同一个认证令牌时并发认证, 登录耗时取决于最快成功的安全域.
+        if (appProperties.getMultiRealmAuthentication().getMode() == MultiRealmAuthenticationMode.PARALLEL_FIRST_SUCCESS) {
+            authenticator.setParallelRealmAuthenticationExecutor(parallelRealmAuthenticationExecutor);
+        }
+        return authenticator;
+    }
+
+    @Bean
+    public ParallelRealmAuthenticationExecutor createParallelRealmAuthenticationExecutorBean(AppProperties appProperties) {
+        // 线程按需创建, 串行模式下不会占用任何线程.
+        return new ParallelRealmAuthenticationExecutor(appProperties.getMultiRealmAuthentication());
+    }
+
+    @Bean
+    public PasswordHashingExecutor createPasswordHashingExecutorBean(AppProperties appProperties) {
+        return new PasswordHashingExecutor(appProperties.getPasswordHashing());
+    }
+
+    @Bean
+    public VersionedPasswordService createVersionedPasswordServiceBean(AppProperties appProperties) {
+        AppProperties.PasswordHashingConfig config = appProperties.getPasswordHashing();
+        List<PasswordHasher> hashers = List.of(new Md5PasswordHasher(), new Pbkdf2Sha256PasswordHasher());
+
+        // 计算代价必须显式配置且在所有节点上一致, 不在启动时校准, 否则各节点会选出不同的代价并反复升级彼此的密码哈希.
+        Integer cost = config.getCost();
+        if (cost == null) {
+            throw new IllegalArgumentException(
+                    "未配置密码哈希的计算代价 app.password-hashing.cost, 可以在目标机器上运行 %s 获取建议值.".formatted(PasswordHashCalibrator.class.getName())
+            );
+        }
+
+        return new VersionedPasswordService(hashers, config.getAlgorithm(), cost, config.getLegacyAlgorithm(), config.getLegacyCost());
     }
 
     @Bean
-    public HashedCredentialsMatcher createHashedCredentialsMatcherBean() {
-        HashedCredentialsMatcher h = new HashedCredentialsMatcher();
-        // 指定加密方法为 md5.
-        h.setHashAlgorithmName(MessageDigest.MD5.name());
-        // 指定哈希算法的散列(循环)次数.
-        h.setHashIterations(1024);
-        return h;
+    public VersionedCredentialsMatcher createVersionedCredentialsMatcherBean(
+            VersionedPasswordService passwordService, PasswordHashingExecutor passwordHashingExecutor
+    ) {
+        // 按照保存的哈希中的算法标识校验密码, 哈希计算在专用的有界执行器上进行, 不占用请求线程的 CPU.
+        return new VersionedCredentialsMatcher(passwordService, passwordHashingExecutor);
     }
 
     @Bean
-    public UserRealm createUserRealmBean(HashedCredentialsMatcher matcher, IUserRepository userRepository) {
+    public UserRealm createUserRealmBean(
+            VersionedCredentialsMatcher matcher, IUserRepository userRepository, AppProperties appProperties,
+            RoleMembershipIndex roleMembershipIndex, RolePermissionSnapshotHolder rolePermissionSnapshotHolder,
+            PermissionHierarchyHolder permissionHierarchyHolder
+    ) {
         UserRealm userRealm = new UserRealm(userRepository);
+        // 加载授权信息后登记用户的角色, 角色变更时只失效拥有该角色的用户的授权缓存.
+        userRealm.setRoleMembershipIndex(roleMembershipIndex);
         // 设置身份验证尝试中使用的凭证匹配器, 以验证提交的凭证(Token 中的密码, 先对其进行加密处理)与系统中存储的凭证(数据库 中的已加密密码)是否一致.
+        // 登录成功后, 落后于目标算法或代价的密码哈希会被透明地升级.
         userRealm.setCredentialsMatcher(matcher);
+        // 设置授权信息的加载模式(单条查询或多条查询).
+        userRealm.setAuthorizationLoadingMode(appProperties.getAuthorization().getLoadingMode());
+        // ROLE_SNAPSHOT 模式下角色名称和角色权限从内存中的快照展开.
+        userRealm.setRolePermissionSnapshotHolder(rolePermissionSnapshotHolder);
+        // 显式指定授权缓存名称, 以便在配置文件中为其单独配置缓存规格.
+        userRealm.setAuthorizationCacheName(USER_REALM_AUTHORIZATION_CACHE);
+        // 权限字符串延迟解析, 配合 CompiledAuthorizationInfo 在预编译的权限前缀树上检查.
+        userRealm.setPermissionResolver(new StringPermissionResolver());
+        // 被授予的父权限通过 t_permission.pid 构成的权限层级隐含其所有的后代权限.
+        userRealm.setPermissionHierarchyHolder(permissionHierarchyHolder);
         return userRealm;
     }
 
     @Bean
-    public SMSCodeRealm createSmsRealmBean(IUserRepository userRepository, UserRealm realm) {
-        return new SMSCodeRealm(userRepository, realm);
+    public SmsCodeStore createSmsCodeStoreBean(
+            AppProperties appProperties, ObjectProvider<StringRedisTemplate> redisTemplateProvider
+    ) {
+        AppProperties.SmsCodeConfig config = appProperties.getSmsCode();
+        // 单节点部署使用进程内的分段时间轮存储, 多节点部署使用 Redis 存储.
+        if (config.getStore() == SmsCodeStoreType.REDIS) {
+            return new RedisSmsCodeStore(redisTemplateProvider.getObject(), config.getMaxAttempts(), config.getResendCooldown());
+        }
+        return new LocalSmsCodeStore(config);
+    }
+
+    @Bean
+    public UsernameBloomFilter createUsernameBloomFilterBean(
+            IUserRepository userRepository, TransactionTemplate transactionTemplate, AuthorizationChangeTransport transport, AppProperties appProperties
+    ) {
+        // 在后台线程中流式读取 t_user 构建, 并周期性重建; 构建完成之前所有查询都回退到数据库.
+        UsernameBloomFilter usernameBloomFilter = new UsernameBloomFilter(userRepository, transactionTemplate, appProperties.getUsernameFilter());
+        // 其它节点注册的用户名通过授权变更事件写入本节点的过滤器.
+        transport.subscribe(usernameBloomFilter :: onAuthorizationChange);
+        return usernameBloomFilter;
     }
 
     @Bean
-    public CookieRememberMeManager createCookieRememberMeManagerBean(AppProperties appProperties) {
-        AppProperties.RememberMeConfig rememberMeConfig = appProperties.getRememberMe();
+    public BulkUserRegistrar createBulkUserRegistrarBean(
+            IUserRepository userRepository, EntityManager entityManager, DataSource dataSource, TransactionTemplate transactionTemplate,
+            VersionedPasswordService passwordService, UsernameBloomFilter usernameBloomFilter, AppProperties appProperties
+    ) {
+        // 在独立的有界线程池上并行计算密码哈希, 并以 JDBC 批处理写入 t_user 和 t_user_role.
+        return new BulkUserRegistrar(
+                userRepository, entityManager, dataSource, transactionTemplate, passwordService, usernameBloomFilter, appProperties.getBulkRegistration()
+        );
+    }
+
+    @Bean
+    public LastLoginRecorder createLastLoginRecorderBean(
+            EntityManager entityManager, TransactionTemplate transactionTemplate, AppProperties appProperties
+    ) {
+        // 登录成功后只把事件放入无锁缓冲区, 由后台线程按用户合并后批量写入最后登录 IP 和时间.
+        return new LastLoginRecorder(entityManager, transactionTemplate, appProperties.getLastLogin());
+    }
 
-        CookieRememberMeManager cookieRememberMeManager = new CookieRememberMeManager();
+    @Bean
+    public RolePermissionSnapshotHolder createRolePermissionSnapshotHolderBean(IRoleRepository roleRepository) {
+        // 快照在首次加载授权信息时构建, 角色或权限变更后由授权缓存失效器刷新.
+        return new RolePermissionSnapshotHolder(roleRepository);
+    }
 
-        SimpleCookie rememberMeCookie = new SimpleCookie(rememberMeConfig.getCookieName());
-        rememberMeCookie.setMaxAge(rememberMeConfig.getMaxAge());
-        cookieRememberMeManager.setCookie(rememberMeCookie);
+    @Bean
+    public PermissionHierarchyHolder createPermissionHierarchyHolderBean(IPermissionRepository permissionRepository) {
+        // 权限层级在首次权限检查时构建, 权限变更后由授权缓存失效器增量更新.
+        return new PermissionHierarchyHolder(permissionRepository);
+    }
+
+    @Bean
+    public RoleMembershipIndex createRoleMembershipIndexBean() {
+        return new RoleMembershipIndex();
+    }
+
+    @Bean
+    public AuthorizationChangeTransport createAuthorizationChangeTransportBean(
+            AppProperties appProperties, ObjectProvider<StringRedisTemplate> redisTemplateProvider,
+            ObjectProvider<RedisConnectionFactory> connectionFactoryProvider
+    ) {
+        AppProperties.AuthorizationInvalidationConfig config = appProperties.getAuthorizationInvalidation();
+        // 单节点部署在进程内传递授权变更事件, 多节点部署通过 Redis 的发布订阅传递给所有节点.
+        if (config.getTransport() == AuthorizationChangeTransportType.REDIS) {
+            return new RedisAuthorizationChangeTransport(
+                    redisTemplateProvider.getObject(), connectionFactoryProvider.getObject(), config.getChannel()
+            );
+        }
+        return new LocalAuthorizationChangeTransport();
+    }
+
+    @Bean
+    public AuthorizationCacheInvalidator createAuthorizationCacheInvalidatorBean(
+            AuthorizationChangeTransport transport, List<Realm> realms, RoleMembershipIndex roleMembershipIndex,
+            IUserRepository userRepository, IRoleRepository roleRepository, RolePermissionSnapshotHolder rolePermissionSnapshotHolder,
+            PermissionHierarchyHolder permissionHierarchyHolder
+    ) {
+        // 角色、权限或用户变更的事务提交之后, 只失效受影响用户的授权缓存.
+        AuthorizationCacheInvalidator invalidator = new AuthorizationCacheInvalidator(
+                transport, realms, roleMembershipIndex, userRepository, roleRepository
+        );
+        invalidator.setRolePermissionSnapshotHolder(rolePermissionSnapshotHolder);
+        invalidator.setPermissionHierarchyHolder(permissionHierarchyHolder);
+        return invalidator;
+    }
+
+    @Bean
+    public AuthorizationCollectionChangeListener createAuthorizationCollectionChangeListenerBean(EntityManagerFactory entityManagerFactory) {
+        // 只修改多对多集合时实体回调不会触发, 通过 Hibernate 的集合事件补发授权变更事件; 角色改名时补发携带旧名称的事件.
+        return AuthorizationCollectionChangeListener.register(entityManagerFactory);
+    }
+
+    @Bean
+    public SMSCodeRealm createSmsRealmBean(
+            IUserRepository userRepository, UserRealm realm, SmsCodeStore smsCodeStore, PermissionHierarchyHolder permissionHierarchyHolder
+    ) {
+        SMSCodeRealm smsCodeRealm = new SMSCodeRealm(userRepository, realm, smsCodeStore);
+        smsCodeRealm.setPermissionHierarchyHolder(permissionHierarchyHolder);
+        smsCodeRealm.setAuthorizationCacheName(SMS_CODE_REALM_AUTHORIZATION_CACHE);
+        smsCodeRealm.setPermissionResolver(new StringPermissionResolver());
+        return smsCodeRealm;
+    }
+
+    @Bean
+    public RoleRegistry createRoleRegistryBean(IRoleRepository roleRepository) {
+        RoleRegistry roleRegistry = new RoleRegistry();
+        // 先按枚举注册内置角色, 保证其编号稳定; 再注册 t_role 表中的其它角色.
+        for (Role role : Role.values()) {
+            roleRegistry.register(role.name());
+        }
+        roleRepository.findAllRoleNames().forEach(roleRegistry :: register);
+        return roleRegistry;
+    }
+
+    @Bean
+    public RoleMaskAuthorizer createRoleMaskAuthorizerBean(RoleRegistry roleRegistry) {
+        return new RoleMaskAuthorizer(roleRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.access-token", name = "enabled", havingValue = "true")
+    public AccessTokenCodec createAccessTokenCodecBean(AppProperties appProperties) {
+        String secret = appProperties.getAccessToken().getSecret();
+        if (!StringUtils.hasText(secret)) {
+            throw new IllegalArgumentException("启用无状态认证模式时必须配置访问令牌的签名密钥(app.access-token.secret).");
+        }
+        return new AccessTokenCodec(Base64.decode(secret));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.access-token", name = "enabled", havingValue = "true")
+    public AccessTokenRealm createAccessTokenRealmBean(
+            RolePermissionSnapshotHolder rolePermissionSnapshotHolder, PermissionHierarchyHolder permissionHierarchyHolder
+    ) {
+        // 根据访问令牌中的角色 ID 和直接权限 ID, 从内存中的角色权限快照和权限层级展开授权信息, 不访问数据库.
+        AccessTokenRealm accessTokenRealm = new AccessTokenRealm(rolePermissionSnapshotHolder, permissionHierarchyHolder);
+        accessTokenRealm.setPermissionResolver(new StringPermissionResolver());
+        return accessTokenRealm;
+    }
+
+    @Bean
+    public BoundedCacheManager createBoundedCacheManagerBean(AppProperties appProperties) {
+        return new BoundedCacheManager(appProperties.getCache());
+    }
+
+    @Bean
+    public CompactCookieRememberMeManager createCompactCookieRememberMeManagerBean(AppProperties appProperties) {
+        AppProperties.RememberMeConfig rememberMeConfig = appProperties.getRememberMe();
 
         /*
             使用强大的加密算法和密钥来保护 “记住我” cookie.
             确保使用安全的算法(如 AES)和足够长度的密钥（如 256 位), 并且密钥应该是随机生成的.
             密钥应该安全存储, 避免硬编码在配置文件或代码中. 考虑使用环境变量或安全的配置管理服务来存储密钥.
          */
-        cookieRememberMeManager.setCipherKey(Base64.decode(this.cipherKeyBase64));
-        return cookieRememberMeManager;
+        // 只保存用户 ID、用户名等固定布局的身份信息并使用 AES-GCM 认证加密, 不再对整个 PrincipalCollection 做 Java 序列化.
+        CompactCookieRememberMeManager rememberMeManager = new CompactCookieRememberMeManager(
+                Base64.decode(this.cipherKeyBase64), rememberMeConfig.getMaxAge(), rememberMeConfig.getDecryptCacheSize()
+        );
+
+        SimpleCookie rememberMeCookie = new SimpleCookie(rememberMeConfig.getCookieName());
+        rememberMeCookie.setMaxAge(rememberMeConfig.getMaxAge());
+        rememberMeManager.setCookie(rememberMeCookie);
+        return rememberMeManager;
+    }
+
+    @Bean
+    public SessionDAO createSessionDAOBean(
+            AppProperties appProperties, ObjectProvider<StringRedisTemplate> redisTemplateProvider
+    ) {
+        AppProperties.SessionConfig config = appProperties.getSession();
+        // 单节点部署使用进程内存储(堆内或堆外), 多节点部署使用 Redis 存储并在本地维护近端缓存, 合并写入并对触碰做防抖.
+        return switch (config.getStore()) {
+            case REDIS -> new NearCacheSessionDAO(new RedisSessionStore(redisTemplateProvider.getObject(), config.getKeyPrefix()), config);
+            // 单节点上的海量会话编码后保存在堆外内存, 不再占用老年代.
+            case OFF_HEAP -> new OffHeapSessionDAO(config);
+            case LOCAL -> new MemorySessionDAO();
+        };
+    }
+
+    @Bean
+    public DefaultWebSessionManager createDefaultWebSessionManagerBean(AppProperties appProperties, SessionDAO sessionDAO) {
+        AppProperties.SessionConfig config = appProperties.getSession();
+        DefaultWebSessionManager sessionManager = new DefaultWebSessionManager();
+        sessionManager.setSessionDAO(sessionDAO);
+        // 创建可追踪变更的会话, 使 NearCacheSessionDAO 和 OffHeapSessionDAO 能够区分实质性变更与单纯的触碰.
+        sessionManager.setSessionFactory(new DirtyTrackingSessionFactory());
+        sessionManager.setGlobalSessionTimeout(config.getTimeout().toMillis());
+        // 会话 ID 只通过 Cookie 传递, 避免出现在 URL 中.
+        sessionManager.setSessionIdUrlRewritingEnabled(false);
+        if (sessionDAO instanceof OffHeapSessionDAO) {
+            // 堆外会话存储自行按记录头部清理过期会话, 无需再逐个解码会话来校验.
+            sessionManager.setSessionValidationSchedulerEnabled(false);
+        } else {
+            // 按预计过期时间将会话登记到分片的时间轮, 每个刻度只并行校验到期的会话, 替换逐个校验全部会话的默认调度器.
+            TimingWheelSessionValidationScheduler validationScheduler = new TimingWheelSessionValidationScheduler(
+                    sessionManager, config.getValidationTick().toMillis(), config.getValidationParallelism()
+            );
+            sessionManager.setSessionValidationScheduler(validationScheduler);
+            sessionManager.setSessionListeners(List.of(validationScheduler));
+        }
+        return sessionManager;
     }
 
     @Bean
     public DefaultWebSecurityManager createDefaultWebSecurityManagerBean(
-            CustomModularRealmAuthenticator authenticator, List<Realm> realms, RememberMeManager rememberMeManager
+            CustomModularRealmAuthenticator authenticator, RoleMaskAuthorizer authorizer, List<Realm> realms,
+            RememberMeManager rememberMeManager, CacheManager cacheManager, SessionManager sessionManager
     ) {
         DefaultWebSecurityManager securityManager = new DefaultWebSecurityManager();
         // 设置自定义认证器, 替换 Shiro 默认使用的 ModularRealmAuthenticator 认证器. 请保证认证器的设置必须在 Realm 之前.
         securityManager.setAuthenticator(authenticator);
+        // 设置支持角色位掩码的授权器, 替换 Shiro 默认使用的 ModularRealmAuthorizer 授权器. 同样必须在 Realm 之前设置.
+        securityManager.setAuthorizer(authorizer);
         // 设置此 SecurityManager 实例管理的 Realm(SecurityManager 的认证器、授权器要完成校验, 需要 Realm 提供安全信息).
         securityManager.setRealms(realms);
         // 配置记住我管理器.
         securityManager.setRememberMeManager(rememberMeManager);
-        // 配置缓存管理器.
-        securityManager.setCacheManager(new MemoryConstrainedCacheManager());
+        // 配置缓存管理器(有界且带过期时间, 不受 GC 影响).
+        securityManager.setCacheManager(cacheManager);
+        // 使用 Shiro 原生会话管理器替换 Servlet 容器会话, 会话存储由 SessionDAO 决定.
+        securityManager.setSessionManager(sessionManager);
         return securityManager;
     }
 
     @Bean(name = "shiroFilterFactoryBean")
-    public ShiroFilterFactoryBean createShiroFilterFactoryBeanBean(DefaultWebSecurityManager defaultWebSecurityManager) {
-        ShiroFilterFactoryBean shiroFilter = new ShiroFilterFactoryBean();
+    public ShiroFilterFactoryBean createShiroFilterFactoryBeanBean(
+            DefaultWebSecurityManager defaultWebSecurityManager, RoleMaskAuthorizer roleMaskAuthorizer,
+            ObjectProvider<AccessTokenCodec> accessTokenCodecProvider, AppProperties appProperties
+    ) {
+        // 使用前缀树解析过滤器链, 并缓存最近解析过的请求路径, 避免每个请求都线性地匹配全部的路径模式.
+        CustomShiroFilterFactoryBean shiroFilter = new CustomShiroFilterFactoryBean();
+        shiroFilter.setMaxResolvedPaths(appProperties.getFilterChain().getMaxResolvedPaths());
         shiroFilter.setSecurityManager(defaultWebSecurityManager);
-        shiroFilter.setFilters(this.createFilters());
-        shiroFilter.setFilterChainDefinitionMap(this.createFilterChainDefinitionMap());
+        shiroFilter.setFilters(this.createFilters(roleMaskAuthorizer, accessTokenCodecProvider.getIfAvailable()));
+        shiroFilter.setFilterChainDefinitionMap(this.createFilterChainDefinitionMap(appProperties.getAccessToken().isEnabled()));
         return shiroFilter;
     }
 
@@ -135,16 +434,22 @@ public class ShiroConfig {
      *         <li>{@code roles}: 使用自定义响应角色授权过滤器.</li>
      *         <li>{@code anyOfRoles}: 使用自定义的任意角色授权过滤器, 允许基于多个角色进行授权.</li>
      *         <li>{@code authc}: 使用自定义响应表单认证过滤器.</li>
+     *         <li>{@code accessToken}: 无状态认证模式下使用的访问令牌认证过滤器.</li>
      *     </ul>
      * </p>
      *
+     * @param roleMaskAuthorizer 支持角色位掩码的授权器, {@code anyOfRoles} 过滤器通过它以位运算检查角色.
+     * @param accessTokenCodec   访问令牌编解码器, 未启用无状态认证模式时为 {@code null}.
      * @return 一个包含自定义过滤器配置的 {@link Map} 对象.
      */
-    private Map<String, Filter> createFilters() {
-        Map<String, Filter> filters = new LinkedHashMap<>(3);
+    private Map<String, Filter> createFilters(RoleMaskAuthorizer roleMaskAuthorizer, AccessTokenCodec accessTokenCodec) {
+        Map<String, Filter> filters = new LinkedHashMap<>(4);
         filters.put(ROLES, new CustomizableResponseRolesAuthorizationFilter());
-        filters.put(ANY_OF_ROLES, new AnyOfRolesAuthorizationFilter());
+        filters.put(ANY_OF_ROLES, new AnyOfRolesAuthorizationFilter(roleMaskAuthorizer));
         filters.put(AUTHC, new CustomizableResponseFormAuthenticationFilter());
+        if (accessTokenCodec != null) {
+            filters.put(ACCESS_TOKEN, new AccessTokenAuthenticationFilter(accessTokenCodec));
+        }
         return filters;
     }
 
@@ -162,6 +467,8 @@ public class ShiroConfig {
      *         <li>/api/v1/logout: 执行用户登出逻辑的 {@code API}.</li>
      *         <li>/api/v1/**: 默认情况下, 所有其它 {@code API} 路径都需要已认证后才能访问.</li>
      *     </ul>
+     *     启用无状态认证模式后, 登录以及 /api/v1/** 下的请求不再创建会话({@code noSessionCreation}), 并改由访问令牌认证({@code accessToken}).
+     *     <br /> <br />
      *
      *     在 {@code Apache Shiro} 框架中, 过滤器链定义({@code Filter Chain Definitions})是一个非常重要的概念, 用于指定如何对应用中的不同URL路径应用不同的安全策略. <br />
      *     这些安全策略包括认证({@code authc})、授权({@code roles}、{@code perms} 等)、匿名访问({@code anon})等. <br />
@@ -203,14 +510,21 @@ public class ShiroConfig {
      *     </ul>
      * </p>
      *
+     * @param stateless 是否启用了无状态认证模式.
      * @return 一个包含路径模式与安全策略映射的 {@link Map} 对象.
      */
-    private Map<String, String> createFilterChainDefinitionMap() {
-        Map<String, String> filterChain = new LinkedHashMap<>(5);
+    private Map<String, String> createFilterChainDefinitionMap(boolean stateless) {
+        Map<String, String> filterChain = new LinkedHashMap<>(8);
         filterChain.put("/api/v1/register", ANON);
-        filterChain.put("/api/v1/login", ANON);
+        filterChain.put("/api/v1/login", stateless ? NO_SESSION_CREATION + ", " + ANON : ANON);
+        filterChain.put("/api/v1/sms-code", ANON);
         filterChain.put("/api/v1/guest/**", ANON);
-        filterChain.put("/api/v1/**", AUTHC); // 配置所有 /api/** 路径下的请求都需要通过自定义的 authc 过滤器(即 AuthenticationFilter). 其它API需要认证(登录)后访问.
+        if (stateless) {
+            // 无状态认证模式: 不创建会话, 通过请求头中的访问令牌认证, 因此水平扩展时无需会话粘滞或共享的会话存储.
+            filterChain.put("/api/v1/**", NO_SESSION_CREATION + ", " + ACCESS_TOKEN);
+        } else {
+            filterChain.put("/api/v1/**", AUTHC); // 配置所有 /api/** 路径下的请求都需要通过自定义的 authc 过滤器(即 AuthenticationFilter). 其它API需要认证(登录)后访问.
+        }
         return filterChain;
     }
 }
@@ -0,0 +1,33 @@
+package indi.ly.crush.constants;
+
+import indi.ly.crush.config.AppProperties;
+import indi.ly.crush.config.ShiroConfig;
+
+/**
+ * <h2>缓存名称常量类</h2>
+ * <p>
+ *     {@code Shiro} 默认会为每个 {@code Realm} 实例生成形如 {@code indi.ly.crush.realm.UserRealm_0.authorizationCache} 的缓存名称,
+ *     其中的序号取决于 {@code Realm} 的创建顺序, 无法在配置文件中稳定地引用. <br />
+ *     因此在 {@link ShiroConfig} 中显式地为每个 {@code Realm} 指定下述缓存名称, 以便通过 {@link AppProperties.CacheConfig#getCaches()} 单独配置.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public final class CacheNameConstants {
+    /**
+     * <p>
+     *     {@code UserRealm} 的授权信息缓存.
+     * </p>
+     */
+    public static final String USER_REALM_AUTHORIZATION_CACHE = "userRealmAuthorizationCache";
+    /**
+     * <p>
+     *     {@code SMSCodeRealm} 的授权信息缓存.
+     * </p>
+     */
+    public static final String SMS_CODE_REALM_AUTHORIZATION_CACHE = "smsCodeRealmAuthorizationCache";
+
+    private CacheNameConstants() {}
+}
@@ -14,6 +14,12 @@ public final class PermissionNameConstants {
      * </p>
      */
     public static final String USER_ALL = "user:*";
+    /**
+     * <p>
+     *     表示创建用户的权限.
+     * </p>
+     */
+    public static final String USER_CREATE = "user:create";
     /**
      * <p>
      *     表示删除用户的权限.
@@ -1,5 +1,6 @@
 package indi.ly.crush.constants;
 
+import indi.ly.crush.filter.AccessTokenAuthenticationFilter;
 import indi.ly.crush.filter.AnyOfRolesAuthorizationFilter;
 import org.apache.shiro.web.filter.authc.*;
 import org.apache.shiro.web.filter.authz.HttpMethodPermissionFilter;
@@ -173,6 +174,14 @@ public final class ShiroSecurityPolicyKeywordConstants {
      * @see AnyOfRolesAuthorizationFilter
      */
     public static final String ANY_OF_ROLES = "anyOfRoles";
+    /**
+     * <p>
+     *     {@link AccessTokenAuthenticationFilter 访问令牌认证过滤器}
+     * </p>
+     *
+     * @see AccessTokenAuthenticationFilter
+     */
+    public static final String ACCESS_TOKEN = "accessToken";
 
     private ShiroSecurityPolicyKeywordConstants() {}
 }
@@ -1,16 +1,17 @@
 package indi.ly.crush.controller;
 
 import indi.ly.crush.model.vo.UserVO;
-import indi.ly.crush.model.entity.User;
 import indi.ly.crush.model.from.UserCredentials;
 import indi.ly.crush.model.from.UserRegistration;
+import indi.ly.crush.model.principal.UserPrincipal;
 import indi.ly.crush.response.ResponseResult;
 import indi.ly.crush.service.IAccountService;
-import indi.ly.crush.util.support.BaseSpringBeanUtil;
 import org.apache.shiro.SecurityUtils;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -36,13 +37,28 @@ public class AccountController {
         return ResponseResult.ok("注册成功");
     }
 
+    @GetMapping(value = "/v1/guest/username-available")
+    public ResponseResult<Boolean> goToCheckUsernameAvailable(@RequestParam String username) {
+        boolean available = this.userServiceImpl.isUsernameAvailable(username);
+        return ResponseResult.ok(available).message(available ? "用户名可用" : "用户名已占用");
+    }
+
     @PostMapping(value = "/v1/login")
     public ResponseResult<UserVO> goToLogin(@RequestBody UserCredentials userCredentials) {
-        User user = this.userServiceImpl.login(userCredentials);
-        UserVO userVO = BaseSpringBeanUtil.shallowCopyObject(user, new UserVO(), null, null);
+        UserPrincipal principal = this.userServiceImpl.login(userCredentials);
+        UserVO userVO = new UserVO();
+        userVO.setId(principal.id());
+        userVO.setUsername(principal.username());
+        userVO.setAccessToken(this.userServiceImpl.issueAccessToken());
         return ResponseResult.ok(userVO).message("登录成功");
     }
 
+    @PostMapping(value = "/v1/sms-code")
+    public ResponseResult<?> goToSendSmsCode(@RequestParam String phoneNumber) {
+        this.userServiceImpl.sendSmsCode(phoneNumber);
+        return ResponseResult.ok("短信验证码已发送");
+    }
+
     @PostMapping(value = "/v1/logout")
     public ResponseResult<?> goToLogout() {
         SecurityUtils.getSubject().logout();
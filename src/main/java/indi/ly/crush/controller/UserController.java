@@ -1,8 +1,13 @@
 package indi.ly.crush.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import indi.ly.crush.constants.PermissionNameConstants;
 import indi.ly.crush.constants.RoleNameConstants;
+import indi.ly.crush.model.from.UserRegistration;
 import indi.ly.crush.response.ResponseResult;
+import indi.ly.crush.service.IAccountService;
 import org.apache.shiro.authz.annotation.Logical;
 import org.apache.shiro.authz.annotation.RequiresPermissions;
 import org.apache.shiro.authz.annotation.RequiresRoles;
@@ -11,6 +16,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 /**
  * <h2>用户控制器</h2>
  *
@@ -21,6 +31,19 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @RequestMapping(value = "/api/v1/user/")
 public class UserController {
+    /**
+     * <p>
+     *     批量注册结果的媒体类型: 每行一个 {@code JSON} 对象.
+     * </p>
+     */
+    private static final String NDJSON = "application/x-ndjson";
+    private final IAccountService accountServiceImpl;
+    private final ObjectMapper objectMapper;
+
+    public UserController(IAccountService accountServiceImpl, ObjectMapper objectMapper) {
+        this.accountServiceImpl = accountServiceImpl;
+        this.objectMapper = objectMapper;
+    }
 
     /*
         在没有缓存的前提下, Shiro 每次权限检查都会触发新的授权信息获取过程(AuthorizingRealm#doGetAuthorizationInfo 方法会被调用).
@@ -45,4 +68,32 @@ public class UserController {
     public ResponseResult<?> goToDeleteUser(@RequestParam Long userId) {
         return ResponseResult.ok("编号为 [%d] 的用户删除成功".formatted(userId));
     }
+
+    /**
+     * <p>
+     *     批量注册用户. <br /> <br />
+     *
+     *     请求体是 {@link UserRegistration} 的 {@code JSON} 数组, 以流的方式逐个读取, 不会一次性读入内存; <br />
+     *     响应体是 {@code NDJSON}, 每一行是一个 {@link indi.ly.crush.model.vo.BulkRegistrationResult}, 每产生一个结果就立即写出到客户端.
+     * </p>
+     */
+    @RequiresRoles(value = RoleNameConstants.SYSTEM_ADMINISTRATOR)
+    @RequiresPermissions(value = {PermissionNameConstants.USER_ALL, PermissionNameConstants.USER_CREATE}, logical = Logical.OR)
+    @PostMapping(value = "bulk-register", produces = NDJSON)
+    public void goToRegisterUsersInBulk(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        try (
+                MappingIterator<UserRegistration> registrations = this.objectMapper.readerFor(UserRegistration.class).readValues(request.getInputStream());
+                SequenceWriter results = this.objectMapper.writer().withRootValueSeparator("\n").writeValues(response.getOutputStream())
+        ) {
+            this.accountServiceImpl.registerUsersInBulk(registrations, result -> {
+                try {
+                    results.write(result);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
 }
@@ -1,6 +1,9 @@
 package indi.ly.crush.domain;
 
+import indi.ly.crush.id.PooledIdGenerator;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import javax.persistence.*;
@@ -24,12 +27,22 @@ public abstract class AbstractJpaEntity<PK extends Serializable>
         implements Serializable {
     /**
      * <p>
-     *     主键.
+     *     主键. <br /> <br />
+     *
+     *     由 {@link PooledIdGenerator} 按号段预先分配, 而不是依赖数据库自增({@code IDENTITY}). <br />
+     *     {@code IDENTITY} 要求每插入一行就立即执行 {@code INSERT} 并回读主键, 使 {@code Hibernate} 无法对插入做批处理;
+     *     号段式分配在插入前就能得到主键, 插入语句可以按 {@code hibernate.jdbc.batch_size} 批量执行. <br />
+     *     生成的主键是 {@link Long}, 因此子类的 {@code PK} 必须是 {@link Long}.
      * </p>
      */
     @Id
     @Column(nullable = false)
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "pooled")
+    @GenericGenerator(
+            name = "pooled",
+            strategy = "indi.ly.crush.id.PooledIdGenerator",
+            parameters = @Parameter(name = PooledIdGenerator.BLOCK_SIZE, value = "50")
+    )
     private PK id;
     /**
      * <p>
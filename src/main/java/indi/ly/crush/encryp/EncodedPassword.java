@@ -0,0 +1,67 @@
+package indi.ly.crush.encryp;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * <h2>版本化的密码哈希</h2>
+ * <p>
+ *     保存在 {@code User#password} 中的密码哈希格式为 {@code $算法$代价$哈希值}, 例如:
+ *     <pre>{@code
+ *                  $pbkdf2-sha256$310000$5e884898da28047151d0e56f8dc6292773603d0d6aabbdd62a11ef721d1542d8
+ *     }</pre>
+ *     不带前缀的值被视为历史遗留的哈希, 其算法和代价由配置决定(请浏览 {@link VersionedPasswordService}).
+ * </p>
+ *
+ * @param algorithm 算法标识.
+ * @param cost      计算代价.
+ * @param hash      {@code 16} 进制字符串形式的哈希值.
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public record EncodedPassword(String algorithm, int cost, String hash) {
+    private static final char DELIMITER = '$';
+
+    /**
+     * <p>
+     *     解析保存的密码哈希.
+     * </p>
+     *
+     * @param stored          保存的密码哈希.
+     * @param legacyAlgorithm 不带前缀时使用的算法标识.
+     * @param legacyCost      不带前缀时使用的计算代价.
+     * @return 解析结果.
+     * @throws IllegalArgumentException 如果带前缀的格式不合法.
+     */
+    public static @NonNull EncodedPassword parse(@NonNull String stored, @NonNull String legacyAlgorithm, int legacyCost) {
+        if (stored.isEmpty() || stored.charAt(0) != DELIMITER) {
+            return new EncodedPassword(legacyAlgorithm, legacyCost, stored);
+        }
+
+        int algorithmEnd = stored.indexOf(DELIMITER, 1);
+        int costEnd = algorithmEnd < 0 ? -1 : stored.indexOf(DELIMITER, algorithmEnd + 1);
+        if (costEnd < 0) {
+            throw new IllegalArgumentException("密码哈希的格式不合法.");
+        }
+        try {
+            return new EncodedPassword(
+                    stored.substring(1, algorithmEnd),
+                    Integer.parseInt(stored, algorithmEnd + 1, costEnd, 10),
+                    stored.substring(costEnd + 1)
+            );
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("密码哈希的计算代价不合法.", e);
+        }
+    }
+
+    /**
+     * <p>
+     *     格式化为 {@code $算法$代价$哈希值}.
+     * </p>
+     *
+     * @return 格式化后的密码哈希.
+     */
+    public @NonNull String format() {
+        return DELIMITER + this.algorithm + DELIMITER + this.cost + DELIMITER + this.hash;
+    }
+}
@@ -0,0 +1,30 @@
+package indi.ly.crush.encryp;
+
+import org.apache.shiro.crypto.hash.Md5Hash;
+import org.apache.shiro.util.SimpleByteSource;
+import org.springframework.lang.NonNull;
+
+/**
+ * <h2>{@code MD5} 密码哈希算法</h2>
+ * <p>
+ *     与 {@link PasswordEncryption#encryptPassword} 以及 {@code HashedCredentialsMatcher} 的计算方式一致, 用于校验历史遗留的密码哈希.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public class Md5PasswordHasher
+        implements PasswordHasher {
+    public static final String ALGORITHM = "md5";
+
+    @Override
+    public @NonNull String getAlgorithm() {
+        return ALGORITHM;
+    }
+
+    @Override
+    public @NonNull String hash(@NonNull char[] password, @NonNull byte[] salt, int cost) {
+        return new Md5Hash(password, new SimpleByteSource(salt), cost).toHex();
+    }
+}
@@ -0,0 +1,102 @@
+package indi.ly.crush.encryp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+import java.util.stream.Stream;
+
+/**
+ * <h2>密码哈希代价校准工具</h2>
+ * <p>
+ *     在目标机器上实际测量 {@link PasswordHasher} 的耗时, 并据此推荐使单次哈希接近给定延迟预算的计算代价(迭代次数). <br />
+ *     这样可以用实测数据在安全性和 {@code CPU} 开销之间做取舍, 而不是凭经验写死迭代次数. <br /> <br />
+ *
+ *     本工具只输出建议值, 不会在应用启动时运行: 计算代价必须写入 {@code app.password-hashing.cost} 并在所有节点上保持一致,
+ *     否则各节点会选出不同的代价, 并在每次登录时反复升级彼此的密码哈希. <br />
+ *     用法(参数依次为算法和延迟预算, 均可省略):
+ *     <pre>{@code
+ *                  java -cp shiro_backend.jar -Dloader.main=indi.ly.crush.encryp.PasswordHashCalibrator \
+ *                       org.springframework.boot.loader.PropertiesLauncher pbkdf2-sha256 50ms
+ *     }</pre>
+ *
+ *     哈希的耗时与迭代次数近似成正比, 因此先在基准代价下多次测量取最小值, 再按比例换算并验证一次.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public final class PasswordHashCalibrator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PasswordHashCalibrator.class);
+    private static final Duration DEFAULT_LATENCY_BUDGET = Duration.ofMillis(50);
+    /**
+     * <p>
+     *     建议值的下限, 与历史遗留密码哈希的计算代价相同.
+     * </p>
+     */
+    private static final int MINIMUM_COST = 1024;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURE_ROUNDS = 5;
+    /**
+     * <p>
+     *     用于测量的基准代价.
+     * </p>
+     */
+    private static final int BASE_COST = 10_000;
+    private static final char[] SAMPLE_PASSWORD = "calibration-password".toCharArray();
+    private static final byte[] SAMPLE_SALT = VersionedPasswordService.toBytes(PasswordEncryption.generateSalt());
+
+    private PasswordHashCalibrator() {}
+
+    public static void main(String[] args) {
+        String algorithm = args.length > 0 ? args[0] : Pbkdf2Sha256PasswordHasher.ALGORITHM;
+        Duration latencyBudget = args.length > 1 ? DurationStyle.detectAndParse(args[1]) : DEFAULT_LATENCY_BUDGET;
+        PasswordHasher hasher = Stream.of(new Md5PasswordHasher(), new Pbkdf2Sha256PasswordHasher())
+                                      .filter(candidate -> candidate.getAlgorithm().equals(algorithm))
+                                      .findFirst()
+                                      .orElseThrow(() -> new IllegalArgumentException("不支持的密码哈希算法: %s.".formatted(algorithm)));
+        int cost = calibrate(hasher, latencyBudget, MINIMUM_COST);
+        LOGGER.info("建议配置: app.password-hashing.algorithm={}, app.password-hashing.cost={}.", algorithm, cost);
+    }
+
+    /**
+     * <p>
+     *     在当前机器上测量并推荐计算代价.
+     * </p>
+     *
+     * @param hasher        待校准的密码哈希算法.
+     * @param latencyBudget 单次哈希的延迟预算.
+     * @param minimumCost   计算代价的下限.
+     * @return 推荐的计算代价.
+     */
+    public static int calibrate(@NonNull PasswordHasher hasher, @NonNull Duration latencyBudget, int minimumCost) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            hasher.hash(SAMPLE_PASSWORD, SAMPLE_SALT, BASE_COST);
+        }
+        long baseNanos = measure(hasher, BASE_COST);
+
+        long estimated = (long) ((double) latencyBudget.toNanos() * BASE_COST / Math.max(baseNanos, 1));
+        // 取整到 1000, 便于阅读和比较.
+        int cost = (int) Math.max(minimumCost, Math.min(Integer.MAX_VALUE, estimated / 1000 * 1000));
+        long actualNanos = measure(hasher, cost);
+
+        LOGGER.info(
+                "校准密码哈希算法 [{}]: 延迟预算 [{}], 计算代价 [{}], 实测耗时 [{} ms].",
+                hasher.getAlgorithm(), latencyBudget, cost, Duration.ofNanos(actualNanos).toMillis()
+        );
+        return cost;
+    }
+
+    private static long measure(PasswordHasher hasher, int cost) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            long start = System.nanoTime();
+            hasher.hash(SAMPLE_PASSWORD, SAMPLE_SALT, cost);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,37 @@
+package indi.ly.crush.encryp;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * <h2>密码哈希算法</h2>
+ * <p>
+ *     对密码进行键拉伸({@code key stretching})的可插拔算法, 由 {@link VersionedPasswordService} 按照{@link #getAlgorithm() 算法标识}进行查找.
+ * </p>
+ *
+ * @since 1.0
+ * @see Md5PasswordHasher
+ * @see Pbkdf2Sha256PasswordHasher
+ * @author 云上的云
+ * @formatter:off
+ */
+public interface PasswordHasher {
+    /**
+     * <p>
+     *     获取算法标识, 它会被写入到{@link EncodedPassword 版本化的密码哈希}中, 例如 {@code pbkdf2-sha256}.
+     * </p>
+     *
+     * @return 算法标识.
+     */
+    @NonNull String getAlgorithm();
+    /**
+     * <p>
+     *     计算密码的哈希值.
+     * </p>
+     *
+     * @param password 原始密码.
+     * @param salt     盐值.
+     * @param cost     计算代价, 如散列迭代次数.
+     * @return {@code 16} 进制字符串形式的哈希值.
+     */
+    @NonNull String hash(@NonNull char[] password, @NonNull byte[] salt, int cost);
+}
@@ -0,0 +1,170 @@
+package indi.ly.crush.encryp;
+
+import indi.ly.crush.config.AppProperties;
+import indi.ly.crush.ex.ServiceOverloadedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h2>密码哈希执行器</h2>
+ * <p>
+ *     密码的键拉伸({@code key stretching}, 如 {@code MD5} 散列 {@code 1024} 次)是一项 {@code CPU} 密集型操作. <br />
+ *     如果直接在 {@code Tomcat} 的请求线程上执行, 一波集中的登录或注册请求就会占满所有 {@code CPU}, 使其它廉价的已认证请求也得不到响应. <br /> <br />
+ *
+ *     本执行器使用固定数量的专用线程和有界队列来执行哈希计算:
+ *     <ul>
+ *         <li>同一时刻最多只有 {@code threads} 个哈希计算在进行, 其余的在队列中等待.</li>
+ *         <li>当队列已满时立即拒绝并抛出 {@link ServiceOverloadedException}(转换为 {@code 503} 和 {@code Retry-After}), 而不是无限制地堆积请求.</li>
+ *         <li>调用方等待超过 {@code timeout} 时同样以 {@link ServiceOverloadedException} 失败.</li>
+ *     </ul>
+ *     队列深度、拒绝次数以及排队和计算耗时可以通过 {@link #getMetrics()} 获取.
+ * </p>
+ *
+ * @since 1.0
+ * @see AppProperties.PasswordHashingConfig
+ * @author 云上的云
+ * @formatter:off
+ */
+public class PasswordHashingExecutor
+        implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PasswordHashingExecutor.class);
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final long retryAfterSeconds;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder totalQueueNanos = new LongAdder();
+    private final LongAdder totalExecutionNanos = new LongAdder();
+
+    public PasswordHashingExecutor(@NonNull AppProperties.PasswordHashingConfig config) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                config.getThreads(), config.getThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.executor.prestartAllCoreThreads();
+        this.timeoutMillis = config.getTimeout().toMillis();
+        this.retryAfterSeconds = Math.max(1, config.getRetryAfter().toSeconds());
+    }
+
+    /**
+     * <p>
+     *     在专用线程上执行给定的哈希任务, 并等待其结果.
+     * </p>
+     *
+     * @param task 哈希任务.
+     * @param <T>  结果的类型.
+     * @return 哈希任务的结果.
+     * @throws ServiceOverloadedException 如果队列已满或等待超时.
+     */
+    public <T> T execute(@NonNull Callable<T> task) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = this.executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                this.totalQueueNanos.add(startedAt - enqueuedAt);
+                try {
+                    return task.call();
+                } finally {
+                    this.totalExecutionNanos.add(System.nanoTime() - startedAt);
+                    this.completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            this.rejected.increment();
+            LOGGER.warn("密码哈希队列已满, 拒绝请求. 当前队列深度 [{}].", this.executor.getQueue().size());
+            throw new ServiceOverloadedException("服务繁忙, 请稍后重试.", this.retryAfterSeconds, e);
+        }
+        this.submitted.increment();
+
+        try {
+            return future.get(this.timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            this.timedOut.increment();
+            throw new ServiceOverloadedException("服务繁忙, 请稍后重试.", this.retryAfterSeconds, e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待密码哈希结果时线程被中断.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("密码哈希失败.", cause);
+        }
+    }
+
+    /**
+     * <p>
+     *     获取执行器的指标快照.
+     * </p>
+     *
+     * @return 指标快照.
+     */
+    public @NonNull Metrics getMetrics() {
+        long completedCount = this.completed.sum();
+        return new Metrics(
+                this.executor.getQueue().size(),
+                this.executor.getQueue().remainingCapacity(),
+                this.executor.getActiveCount(),
+                this.submitted.sum(),
+                completedCount,
+                this.rejected.sum(),
+                this.timedOut.sum(),
+                completedCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(this.totalQueueNanos.sum() / completedCount),
+                completedCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(this.totalExecutionNanos.sum() / completedCount)
+        );
+    }
+
+    @Override
+    public void close() {
+        LOGGER.info("关闭密码哈希执行器, 指标 [{}].", this.getMetrics());
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * <h2>密码哈希执行器指标</h2>
+     *
+     * @param queueDepth                 当前排队中的任务数.
+     * @param queueRemainingCapacity     队列的剩余容量.
+     * @param activeThreads              正在执行哈希计算的线程数.
+     * @param submitted                  已接受的任务总数.
+     * @param completed                  已完成的任务总数.
+     * @param rejected                   因队列已满而被拒绝的任务总数.
+     * @param timedOut                   调用方等待超时的任务总数.
+     * @param averageQueueWaitMicros     任务的平均排队耗时(微秒).
+     * @param averageExecutionMicros     任务的平均计算耗时(微秒).
+     */
+    public record Metrics(
+            int queueDepth, int queueRemainingCapacity, int activeThreads,
+            long submitted, long completed, long rejected, long timedOut,
+            long averageQueueWaitMicros, long averageExecutionMicros
+    ) {}
+}
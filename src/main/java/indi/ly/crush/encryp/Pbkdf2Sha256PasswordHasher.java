@@ -0,0 +1,42 @@
+package indi.ly.crush.encryp;
+
+import org.apache.shiro.codec.Hex;
+import org.springframework.lang.NonNull;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+
+/**
+ * <h2>{@code PBKDF2-HMAC-SHA256} 密码哈希算法</h2>
+ * <p>
+ *     基于 {@code JDK} 内置的 {@code PBKDF2WithHmacSHA256} 实现, 输出 {@code 256} 位的派生密钥.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public class Pbkdf2Sha256PasswordHasher
+        implements PasswordHasher {
+    public static final String ALGORITHM = "pbkdf2-sha256";
+    private static final String JCA_ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int KEY_LENGTH_BITS = 256;
+
+    @Override
+    public @NonNull String getAlgorithm() {
+        return ALGORITHM;
+    }
+
+    @Override
+    public @NonNull String hash(@NonNull char[] password, @NonNull byte[] salt, int cost) {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, cost, KEY_LENGTH_BITS);
+        try {
+            return Hex.encodeToString(SecretKeyFactory.getInstance(JCA_ALGORITHM).generateSecret(spec).getEncoded());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("无法使用 %s 计算密码哈希.".formatted(JCA_ALGORITHM), e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package indi.ly.crush.encryp;
+
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.SaltedAuthenticationInfo;
+import org.apache.shiro.authc.credential.CredentialsMatcher;
+import org.apache.shiro.authc.credential.HashedCredentialsMatcher;
+import org.apache.shiro.codec.CodecSupport;
+import org.springframework.lang.NonNull;
+
+import java.util.Optional;
+
+/**
+ * <h2>版本化凭证匹配器</h2>
+ * <p>
+ *     用于替代 {@link HashedCredentialsMatcher}, 可以校验任何受支持算法的{@link EncodedPassword 版本化密码哈希}(包括历史遗留的 {@code MD5} 哈希). <br />
+ *     所有哈希计算都在 {@link PasswordHashingExecutor} 的专用线程上执行, 使登录请求的 {@code CPU} 开销受到执行器的并发度和队列容量的约束. <br /> <br />
+ *
+ *     登录成功后, 安全域可以调用 {@link #rehashIfNeeded} 将落后于当前目标的哈希升级为当前的目标算法和代价.
+ * </p>
+ *
+ * @since 1.0
+ * @see VersionedPasswordService
+ * @author 云上的云
+ * @formatter:off
+ */
+public class VersionedCredentialsMatcher
+        extends CodecSupport
+        implements CredentialsMatcher {
+    private final VersionedPasswordService passwordService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+
+    public VersionedCredentialsMatcher(
+            @NonNull VersionedPasswordService passwordService, @NonNull PasswordHashingExecutor passwordHashingExecutor
+    ) {
+        this.passwordService = passwordService;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+    }
+
+    @Override
+    public boolean doCredentialsMatch(AuthenticationToken token, AuthenticationInfo info) {
+        char[] password = this.getSubmittedPassword(token);
+        byte[] salt = getSalt(info);
+        String stored = this.getStoredPassword(info);
+        return this.passwordHashingExecutor.execute(() -> this.passwordService.matches(password, salt, stored));
+    }
+
+    /**
+     * <p>
+     *     如果保存的密码哈希落后于当前的目标算法或代价, 则使用提交的密码计算新的哈希. <br />
+     *     调用方必须保证 {@link #doCredentialsMatch} 已经返回了 {@code true}.
+     * </p>
+     *
+     * @param token 认证令牌.
+     * @param info  认证信息.
+     * @param salt  盐值.
+     * @return 新的版本化密码哈希, 如果不需要升级则返回空.
+     */
+    public @NonNull Optional<String> rehashIfNeeded(AuthenticationToken token, AuthenticationInfo info, @NonNull String salt) {
+        if (!this.passwordService.needsRehash(this.getStoredPassword(info))) {
+            return Optional.empty();
+        }
+        char[] password = this.getSubmittedPassword(token);
+        return Optional.of(this.passwordHashingExecutor.execute(() -> this.passwordService.encode(password, salt)));
+    }
+
+    public @NonNull VersionedPasswordService getPasswordService() {
+        return passwordService;
+    }
+
+    private @NonNull char[] getSubmittedPassword(AuthenticationToken token) {
+        Object credentials = token.getCredentials();
+        // UsernamePasswordToken 的密码本身就是 char[], 避免转换为不可清除的 String.
+        return credentials instanceof char[] chars ? chars : super.toString(credentials).toCharArray();
+    }
+
+    private @NonNull String getStoredPassword(AuthenticationInfo info) {
+        return super.toString(info.getCredentials());
+    }
+
+    private static @NonNull byte[] getSalt(AuthenticationInfo info) {
+        if (info instanceof SaltedAuthenticationInfo saltedInfo && saltedInfo.getCredentialsSalt() != null) {
+            return saltedInfo.getCredentialsSalt().getBytes();
+        }
+        return new byte[0];
+    }
+}
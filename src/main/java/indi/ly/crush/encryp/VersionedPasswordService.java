@@ -0,0 +1,122 @@
+package indi.ly.crush.encryp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * <h2>版本化密码服务</h2>
+ * <p>
+ *     负责生成和校验{@link EncodedPassword 版本化的密码哈希}:
+ *     <ul>
+ *         <li>新密码始终使用当前的目标算法和目标代价进行哈希.</li>
+ *         <li>校验时根据保存的哈希中的算法标识选择对应的 {@link PasswordHasher}, 因此旧算法的哈希仍然可以被校验.</li>
+ *         <li>{@link #needsRehash(String)} 用于判断保存的哈希是否落后于当前目标, 以便在用户登录成功后透明地升级.</li>
+ *     </ul>
+ * </p>
+ *
+ * @since 1.0
+ * @see VersionedCredentialsMatcher
+ * @author 云上的云
+ * @formatter:off
+ */
+public class VersionedPasswordService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VersionedPasswordService.class);
+    private final Map<String, PasswordHasher> hashers;
+    private final String targetAlgorithm;
+    private final int targetCost;
+    private final String legacyAlgorithm;
+    private final int legacyCost;
+
+    public VersionedPasswordService(
+            @NonNull Collection<PasswordHasher> hashers,
+            @NonNull String targetAlgorithm, int targetCost,
+            @NonNull String legacyAlgorithm, int legacyCost
+    ) {
+        this.hashers = hashers.stream().collect(Collectors.toUnmodifiableMap(PasswordHasher :: getAlgorithm, Function.identity()));
+        this.targetAlgorithm = targetAlgorithm;
+        this.targetCost = targetCost;
+        this.legacyAlgorithm = legacyAlgorithm;
+        this.legacyCost = legacyCost;
+        // 提前校验算法是否受支持.
+        this.getHasher(targetAlgorithm);
+        this.getHasher(legacyAlgorithm);
+        LOGGER.info("密码哈希目标算法 [{}], 目标代价 [{}].", targetAlgorithm, targetCost);
+    }
+
+    /**
+     * <p>
+     *     使用当前的目标算法和目标代价对密码进行哈希.
+     * </p>
+     *
+     * @param password 原始密码.
+     * @param salt     盐值.
+     * @return 版本化的密码哈希.
+     */
+    public @NonNull String encode(@NonNull char[] password, @NonNull String salt) {
+        String hash = this.getHasher(this.targetAlgorithm).hash(password, toBytes(salt), this.targetCost);
+        return new EncodedPassword(this.targetAlgorithm, this.targetCost, hash).format();
+    }
+
+    /**
+     * <p>
+     *     校验密码是否与保存的密码哈希匹配.
+     * </p>
+     *
+     * @param password 提交的密码.
+     * @param salt     盐值.
+     * @param stored   保存的密码哈希(版本化或历史遗留格式).
+     * @return 如果匹配则返回 {@code true}.
+     */
+    public boolean matches(@NonNull char[] password, @NonNull byte[] salt, @NonNull String stored) {
+        EncodedPassword encoded = EncodedPassword.parse(stored, this.legacyAlgorithm, this.legacyCost);
+        String actual = this.getHasher(encoded.algorithm()).hash(password, salt, encoded.cost());
+        // 使用常量时间比较, 避免时序攻击.
+        return MessageDigest.isEqual(
+                actual.getBytes(StandardCharsets.US_ASCII),
+                encoded.hash().getBytes(StandardCharsets.US_ASCII)
+        );
+    }
+
+    /**
+     * <p>
+     *     判断保存的密码哈希是否需要升级到当前的目标算法和目标代价.
+     * </p>
+     *
+     * @param stored 保存的密码哈希.
+     * @return 如果需要升级则返回 {@code true}.
+     */
+    public boolean needsRehash(@NonNull String stored) {
+        EncodedPassword encoded = EncodedPassword.parse(stored, this.legacyAlgorithm, this.legacyCost);
+        return stored.charAt(0) != '$'
+               || !encoded.algorithm().equals(this.targetAlgorithm)
+               || encoded.cost() < this.targetCost;
+    }
+
+    public String getTargetAlgorithm() {
+        return targetAlgorithm;
+    }
+
+    public int getTargetCost() {
+        return targetCost;
+    }
+
+    static @NonNull byte[] toBytes(@NonNull String salt) {
+        return salt.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private @NonNull PasswordHasher getHasher(String algorithm) {
+        PasswordHasher hasher = this.hashers.get(algorithm);
+        if (hasher == null) {
+            throw new IllegalArgumentException("不支持的密码哈希算法: %s.".formatted(algorithm));
+        }
+        return hasher;
+    }
+}
@@ -0,0 +1,32 @@
+package indi.ly.crush.enums;
+
+import indi.ly.crush.authz.AuthorizationChangeEvent;
+
+/**
+ * <h2>授权变更类型</h2>
+ *
+ * @since 1.0
+ * @see AuthorizationChangeEvent#kind()
+ * @author 云上的云
+ * @formatter:off
+ */
+public enum AuthorizationChangeKind {
+    /**
+     * <p>
+     *     用户的角色或直接权限发生变更, 或用户被删除. 只影响该用户.
+     * </p>
+     */
+    USER,
+    /**
+     * <p>
+     *     角色的权限发生变更, 或角色被删除. 影响拥有该角色的所有用户.
+     * </p>
+     */
+    ROLE,
+    /**
+     * <p>
+     *     权限的资源标识符发生变更, 或权限被删除. 影响直接拥有该权限的用户, 以及拥有包含该权限的角色的用户.
+     * </p>
+     */
+    PERMISSION
+}
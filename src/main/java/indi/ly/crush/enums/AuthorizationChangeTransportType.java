@@ -0,0 +1,30 @@
+package indi.ly.crush.enums;
+
+import indi.ly.crush.authz.LocalAuthorizationChangeTransport;
+import indi.ly.crush.authz.RedisAuthorizationChangeTransport;
+
+/**
+ * <h2>授权变更事件的传输类型</h2>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public enum AuthorizationChangeTransportType {
+    /**
+     * <p>
+     *     只在当前进程内传递, 只适用于单节点部署.
+     * </p>
+     *
+     * @see LocalAuthorizationChangeTransport
+     */
+    LOCAL,
+    /**
+     * <p>
+     *     通过 {@code Redis} 的发布订阅传递给所有节点, 适用于多节点部署.
+     * </p>
+     *
+     * @see RedisAuthorizationChangeTransport
+     */
+    REDIS
+}
@@ -0,0 +1,44 @@
+package indi.ly.crush.enums;
+
+import indi.ly.crush.model.projection.AuthorizationRecord;
+
+/**
+ * <h2>授权记录类型</h2>
+ *
+ * @since 1.0
+ * @see AuthorizationRecord#getKind()
+ * @author 云上的云
+ * @formatter:off
+ */
+public enum AuthorizationKind {
+    /**
+     * <p>
+     *     用户拥有的角色.
+     * </p>
+     */
+    ROLE,
+    /**
+     * <p>
+     *     用户的直接权限.
+     * </p>
+     */
+    PERMISSION,
+    /**
+     * <p>
+     *     用户通过角色获得的间接权限.
+     * </p>
+     */
+    ROLE_PERMISSION,
+    /**
+     * <p>
+     *     用户拥有的角色的 {@code ID}, 角色名称和角色权限从 {@link indi.ly.crush.authz.RolePermissionSnapshot} 中展开.
+     * </p>
+     */
+    ROLE_ID,
+    /**
+     * <p>
+     *     用户的直接权限的 {@code ID}, 权限资源标识符从 {@link indi.ly.crush.authz.PermissionHierarchy} 中展开.
+     * </p>
+     */
+    PERMISSION_ID
+}
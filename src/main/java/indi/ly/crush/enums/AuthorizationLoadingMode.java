@@ -0,0 +1,33 @@
+package indi.ly.crush.enums;
+
+import indi.ly.crush.realm.UserRealm;
+
+/**
+ * <h2>授权信息加载模式</h2>
+ *
+ * @since 1.0
+ * @see UserRealm#setAuthorizationLoadingMode(AuthorizationLoadingMode)
+ * @author 云上的云
+ * @formatter:off
+ */
+public enum AuthorizationLoadingMode {
+    /**
+     * <p>
+     *     分别执行角色、直接权限、角色权限 {@code 3} 条查询, 每条查询都会根据用户名回表关联 {@code t_user}.
+     * </p>
+     */
+    MULTI_QUERY,
+    /**
+     * <p>
+     *     根据用户 {@code ID} 通过 {@code 1} 条 {@code UNION ALL} 查询一次性加载角色、直接权限和角色权限.
+     * </p>
+     */
+    SINGLE_QUERY,
+    /**
+     * <p>
+     *     根据用户 {@code ID} 只加载角色 {@code ID} 和直接权限, 角色名称和角色权限在内存中通过 {@link indi.ly.crush.authz.RolePermissionSnapshot} 展开,
+     *     不再关联 {@code t_role_permissions} 表.
+     * </p>
+     */
+    ROLE_SNAPSHOT
+}
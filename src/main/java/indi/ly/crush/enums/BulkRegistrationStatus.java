@@ -0,0 +1,38 @@
+package indi.ly.crush.enums;
+
+import indi.ly.crush.model.vo.BulkRegistrationResult;
+
+/**
+ * <h2>批量注册结果状态</h2>
+ *
+ * @since 1.0
+ * @see BulkRegistrationResult#status()
+ * @author 云上的云
+ * @formatter:off
+ */
+public enum BulkRegistrationStatus {
+    /**
+     * <p>
+     *     注册成功.
+     * </p>
+     */
+    CREATED,
+    /**
+     * <p>
+     *     用户名已被占用, 或与同一批次中前面的行重复.
+     * </p>
+     */
+    DUPLICATE,
+    /**
+     * <p>
+     *     注册信息不完整或不合法.
+     * </p>
+     */
+    INVALID,
+    /**
+     * <p>
+     *     写入数据库失败.
+     * </p>
+     */
+    FAILED
+}
@@ -0,0 +1,34 @@
+package indi.ly.crush.enums;
+
+import indi.ly.crush.authenticator.CustomModularRealmAuthenticator;
+import indi.ly.crush.authenticator.ParallelRealmAuthenticationExecutor;
+import org.apache.shiro.authc.pam.AtLeastOneSuccessfulStrategy;
+
+/**
+ * <h2>多安全域认证模式</h2>
+ * <p>
+ *     只在多个安全域同时支持同一个认证令牌时生效.
+ * </p>
+ *
+ * @since 1.0
+ * @see CustomModularRealmAuthenticator#setParallelRealmAuthenticationExecutor(ParallelRealmAuthenticationExecutor)
+ * @author 云上的云
+ * @formatter:off
+ */
+public enum MultiRealmAuthenticationMode {
+    /**
+     * <p>
+     *     按配置顺序依次尝试每个安全域, 由 {@link AtLeastOneSuccessfulStrategy} 合并所有成功的认证信息. <br />
+     *     即使某个安全域已经认证成功, 其余安全域仍会被尝试, 登录耗时为所有安全域耗时之和.
+     * </p>
+     */
+    SEQUENTIAL,
+    /**
+     * <p>
+     *     并发尝试所有安全域, 采用最先成功的认证信息并取消其余的尝试, 登录耗时取决于最快成功的安全域.
+     * </p>
+     *
+     * @see ParallelRealmAuthenticationExecutor
+     */
+    PARALLEL_FIRST_SUCCESS
+}
@@ -0,0 +1,30 @@
+package indi.ly.crush.enums;
+
+import indi.ly.crush.ratelimit.SlidingWindowLogRateLimiter;
+import indi.ly.crush.ratelimit.TokenBucketRateLimiter;
+
+/**
+ * <h2>限流算法</h2>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public enum RateLimitAlgorithm {
+    /**
+     * <p>
+     *     令牌桶: 允许一次性突发 {@code limit} 次请求, 之后按 {@code window / limit} 的间隔匀速补充.
+     * </p>
+     *
+     * @see TokenBucketRateLimiter
+     */
+    TOKEN_BUCKET,
+    /**
+     * <p>
+     *     滑动窗口日志: 任意长度为 {@code window} 的时间段内最多允许 {@code limit} 次请求.
+     * </p>
+     *
+     * @see SlidingWindowLogRateLimiter
+     */
+    SLIDING_WINDOW_LOG
+}
@@ -0,0 +1,34 @@
+package indi.ly.crush.enums;
+
+import indi.ly.crush.session.NearCacheSessionDAO;
+import indi.ly.crush.session.OffHeapSessionDAO;
+import indi.ly.crush.session.RedisSessionStore;
+import org.apache.shiro.session.mgt.eis.MemorySessionDAO;
+
+/**
+ * <h2>会话存储类型</h2>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public enum SessionStoreType {
+    /**
+     * <p>
+     *     保存在当前进程的内存中({@link MemorySessionDAO}), 重启后会话丢失, 多节点部署时需要会话粘滞.
+     * </p>
+     */
+    LOCAL,
+    /**
+     * <p>
+     *     保存在 {@code Redis} 中({@link RedisSessionStore}), 并在本地维护近端缓存({@link NearCacheSessionDAO}), 适用于多节点部署.
+     * </p>
+     */
+    REDIS,
+    /**
+     * <p>
+     *     编码后保存在当前进程的堆外内存中({@link OffHeapSessionDAO}), 适用于单节点上数百万量级的并发会话.
+     * </p>
+     */
+    OFF_HEAP
+}
@@ -0,0 +1,30 @@
+package indi.ly.crush.enums;
+
+import indi.ly.crush.sms.LocalSmsCodeStore;
+import indi.ly.crush.sms.RedisSmsCodeStore;
+
+/**
+ * <h2>短信验证码存储类型</h2>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public enum SmsCodeStoreType {
+    /**
+     * <p>
+     *     保存在当前进程的内存中, 只适用于单节点部署.
+     * </p>
+     *
+     * @see LocalSmsCodeStore
+     */
+    LOCAL,
+    /**
+     * <p>
+     *     保存在 {@code Redis} 中, 适用于多节点部署.
+     * </p>
+     *
+     * @see RedisSmsCodeStore
+     */
+    REDIS
+}
@@ -0,0 +1,41 @@
+package indi.ly.crush.ex;
+
+import indi.ly.crush.handler.LoginRateLimitedExceptionHandler;
+import indi.ly.crush.ratelimit.LoginRateLimiter;
+import org.apache.shiro.authc.ExcessiveAttemptsException;
+
+import java.io.Serial;
+
+/**
+ * <h2>登录限流异常</h2>
+ * <p>
+ *     当 {@link LoginRateLimiter} 拒绝本次登录尝试时抛出此异常. <br />
+ *     它继承自 {@link ExcessiveAttemptsException}, 因此会原样穿过 {@code Shiro} 的认证流程,
+ *     最终被 {@link LoginRateLimitedExceptionHandler} 转换为 {@code HTTP 429} 响应.
+ * </p>
+ *
+ * @since 1.0
+ * @see LoginRateLimitedExceptionHandler
+ * @author 云上的云
+ * @formatter:off
+ */
+public class LoginRateLimitedException
+        extends ExcessiveAttemptsException {
+    @Serial
+    private static final long serialVersionUID = -2826013496137752041L;
+    /**
+     * <p>
+     *     建议客户端在多少秒后重试.
+     * </p>
+     */
+    private final long retryAfterSeconds;
+
+    public LoginRateLimitedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,42 @@
+package indi.ly.crush.ex;
+
+import indi.ly.crush.handler.ServiceOverloadedExceptionHandler;
+
+import java.io.Serial;
+
+/**
+ * <h2>服务过载异常</h2>
+ * <p>
+ *     当某个有界资源(如密码哈希执行器)已饱和、无法在合理的时间内处理请求时抛出此异常. <br />
+ *     该异常会被 {@link ServiceOverloadedExceptionHandler} 转换为 {@code HTTP 503} 响应, 并通过 {@code Retry-After} 响应头告知客户端何时重试.
+ * </p>
+ *
+ * @since 1.0
+ * @see ServiceOverloadedExceptionHandler
+ * @author 云上的云
+ * @formatter:off
+ */
+public class ServiceOverloadedException
+        extends RuntimeException {
+    @Serial
+    private static final long serialVersionUID = 4469517163358290321L;
+    /**
+     * <p>
+     *     建议客户端在多少秒后重试.
+     * </p>
+     */
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        this(message, retryAfterSeconds, null);
+    }
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
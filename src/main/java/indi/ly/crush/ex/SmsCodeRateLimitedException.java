@@ -0,0 +1,54 @@
+package indi.ly.crush.ex;
+
+import indi.ly.crush.handler.SmsCodeRateLimitedExceptionHandler;
+import indi.ly.crush.ratelimit.SmsCodeRateLimiter;
+import indi.ly.crush.sms.SmsCodeStore;
+
+import java.io.Serial;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>短信验证码下发限流异常</h2>
+ * <p>
+ *     当 {@link SmsCodeRateLimiter} 拒绝本次下发, 或 {@link SmsCodeStore} 判定手机号码仍在冷却时间内或已被锁定时抛出此异常. <br />
+ *     该异常会被 {@link SmsCodeRateLimitedExceptionHandler} 转换为 {@code HTTP 429} 响应.
+ * </p>
+ *
+ * @since 1.0
+ * @see SmsCodeRateLimitedExceptionHandler
+ * @author 云上的云
+ * @formatter:off
+ */
+public class SmsCodeRateLimitedException
+        extends RuntimeException {
+    @Serial
+    private static final long serialVersionUID = 7311962905831542870L;
+    /**
+     * <p>
+     *     建议客户端在多少秒后重试.
+     * </p>
+     */
+    private final long retryAfterSeconds;
+
+    public SmsCodeRateLimitedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * <p>
+     *     根据距离可以重新下发的毫秒数创建异常, 秒数向上取整.
+     * </p>
+     *
+     * @param waitMillis 距离可以重新下发的毫秒数.
+     * @return 异常.
+     */
+    public static SmsCodeRateLimitedException retryAfterMillis(long waitMillis) {
+        long retryAfterSeconds = Math.max(1, (waitMillis + TimeUnit.SECONDS.toMillis(1) - 1) / TimeUnit.SECONDS.toMillis(1));
+        return new SmsCodeRateLimitedException("获取短信验证码过于频繁, 请在 %d 秒后重试.".formatted(retryAfterSeconds), retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
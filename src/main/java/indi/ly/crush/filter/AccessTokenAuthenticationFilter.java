@@ -0,0 +1,100 @@
+package indi.ly.crush.filter;
+
+import indi.ly.crush.realm.AccessTokenRealm;
+import indi.ly.crush.token.AccessTokenClaims;
+import indi.ly.crush.token.AccessTokenCodec;
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.subject.ExecutionException;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.web.filter.AccessControlFilter;
+import org.apache.shiro.web.filter.session.NoSessionCreationFilter;
+import org.apache.shiro.web.subject.WebSubject;
+import org.apache.shiro.web.util.WebUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+
+/**
+ * <h2>访问令牌认证过滤器</h2>
+ * <p>
+ *     无状态认证模式下, 从 {@code Authorization: Bearer <访问令牌>} 请求头中读取访问令牌, 由 {@link AccessTokenCodec} 校验签名和有效期. <br />
+ *     校验通过后, 以令牌中的声明({@link AccessTokenClaims})为主体构建 {@code 1} 个已认证且不创建会话的 {@link Subject},
+ *     并在该主体下继续执行过滤器链, 后续的角色、权限检查由 {@link AccessTokenRealm} 根据令牌中的角色 {@code ID} 和直接权限 {@code ID} 完成. <br />
+ *     整个过程不访问数据库和会话, 因此服务可以水平扩展, 而不需要会话粘滞或共享的会话存储. <br /> <br />
+ *
+ *     请求没有携带访问令牌时, 已经通过会话认证的主体依然可以访问, 以便两种认证模式共存. <br />
+ *     配合 {@link NoSessionCreationFilter}({@code noSessionCreation})使用, 可以保证这些请求不会创建新的会话.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public class AccessTokenAuthenticationFilter
+        extends AccessControlFilter {
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String CLAIMS_ATTRIBUTE = AccessTokenAuthenticationFilter.class.getName() + ".CLAIMS";
+    private final AccessTokenCodec accessTokenCodec;
+
+    public AccessTokenAuthenticationFilter(@NonNull AccessTokenCodec accessTokenCodec) {
+        this.accessTokenCodec = accessTokenCodec;
+    }
+
+    @Override
+    protected boolean isAccessAllowed(ServletRequest request, ServletResponse response, Object mappedValue) {
+        String authorization = WebUtils.toHttp(request).getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return super.getSubject(request, response).isAuthenticated();
+        }
+
+        AccessTokenClaims claims = this.accessTokenCodec.verify(
+                authorization.substring(BEARER_PREFIX.length()).trim(),
+                System.currentTimeMillis() / 1000
+        );
+        if (claims == null) {
+            return false;
+        }
+        request.setAttribute(CLAIMS_ATTRIBUTE, claims);
+        return true;
+    }
+
+    @Override
+    protected boolean onAccessDenied(ServletRequest request, ServletResponse response) throws IOException {
+        JsonResponseBuilder.buildUnauthorizedResponse(WebUtils.toHttp(response));
+        return false; // 阻止 Shiro 继续处理该请求, 这意味着请求将在此过滤器中终止.
+    }
+
+    @Override
+    protected void executeChain(ServletRequest request, ServletResponse response, FilterChain chain) throws Exception {
+        if (!(request.getAttribute(CLAIMS_ATTRIBUTE) instanceof AccessTokenClaims claims)) {
+            super.executeChain(request, response, chain);
+            return;
+        }
+
+        Subject subject = new WebSubject.Builder(SecurityUtils.getSecurityManager(), request, response)
+                                            .principals(new SimplePrincipalCollection(claims, AccessTokenRealm.NAME))
+                                            .authenticated(true)
+                                            .sessionCreationEnabled(false)
+                                            .buildWebSubject();
+        try {
+            subject.execute(() -> {
+                super.executeChain(request, response, chain);
+                return null;
+            });
+        } catch (ExecutionException e) {
+            // 还原过滤器链中抛出的原始异常.
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -1,17 +1,19 @@
 package indi.ly.crush.filter;
 
-import indi.ly.crush.response.ResponseResult;
-import indi.ly.crush.response.ResponseResultEnum;
+import indi.ly.crush.authz.CompiledRoles;
+import indi.ly.crush.authz.RoleMaskAuthorizer;
+import indi.ly.crush.authz.RoleRegistry;
 import org.apache.shiro.authz.annotation.Logical;
 import org.apache.shiro.authz.annotation.RequiresPermissions;
 import org.apache.shiro.subject.Subject;
 import org.apache.shiro.web.filter.authz.AuthorizationFilter;
 import org.apache.shiro.web.filter.authz.RolesAuthorizationFilter;
 import org.apache.shiro.web.util.WebUtils;
+import org.springframework.lang.Nullable;
 
+import javax.servlet.Filter;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
-import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.Arrays;
 
@@ -72,9 +74,43 @@ import java.util.Arrays;
  */
 public class AnyOfRolesAuthorizationFilter
 		extends AuthorizationFilter {
+	private final RoleMaskAuthorizer roleMaskAuthorizer;
+
+	public AnyOfRolesAuthorizationFilter() {
+		this(null);
+	}
+
+	/**
+	 * @param roleMaskAuthorizer 支持角色位掩码的授权器, 为 {@code null} 时按名称逐个检查角色.
+	 */
+	public AnyOfRolesAuthorizationFilter(@Nullable RoleMaskAuthorizer roleMaskAuthorizer) {
+		this.roleMaskAuthorizer = roleMaskAuthorizer;
+	}
+
+	/**
+	 * <p>
+	 *     在创建过滤器链时将 {@code anyOfRoles[...]} 中配置的角色预编译为 {@link CompiledRoles 位掩码}, 请求时无需再解析.
+	 * </p>
+	 */
+	@Override
+	public Filter processPathConfig(String path, String config) {
+		super.processPathConfig(path, config);
+		if (this.roleMaskAuthorizer != null) {
+			RoleRegistry roleRegistry = this.roleMaskAuthorizer.getRoleRegistry();
+			super.appliedPaths.put(path, roleRegistry.compile((String[]) super.appliedPaths.get(path)));
+		}
+		return this;
+	}
+
 	@Override
 	protected boolean isAccessAllowed(ServletRequest request, ServletResponse response, Object mappedValue) {
 		Subject subject = super.getSubject(request, response);
+
+		if (mappedValue instanceof CompiledRoles compiledRoles) {
+			// 默认没有角色限制, 允许访问; 否则只需将主体的角色位掩码与预编译的位掩码按位与.
+			return compiledRoles.isEmpty() || this.roleMaskAuthorizer.hasAnyRole(subject.getPrincipals(), compiledRoles);
+		}
+
 		String[] rolesArray = (String[]) mappedValue;
 
 		if (rolesArray == null || rolesArray.length == 0) {
@@ -89,11 +125,8 @@ public class AnyOfRolesAuthorizationFilter
 	@Override
     protected boolean onAccessDenied(ServletRequest request, ServletResponse response)
 		    throws IOException {
-		JsonResponseBuilder.buildJsonResponse(
-				WebUtils.toHttp(response),
-				HttpServletResponse.SC_FORBIDDEN,
-				ResponseResult.set(ResponseResultEnum.FORBIDDEN)
-		);
+		// 响应体只序列化一次, 此处直接写入预先序列化的字节.
+		JsonResponseBuilder.buildForbiddenResponse(WebUtils.toHttp(response));
         return false; // 阻止 Shiro 继续处理该请求, 这意味着请求将在此过滤器中终止.
     }
 }
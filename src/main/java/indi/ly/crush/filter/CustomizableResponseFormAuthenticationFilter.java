@@ -1,7 +1,5 @@
 package indi.ly.crush.filter;
 
-import indi.ly.crush.response.ResponseResult;
-import indi.ly.crush.response.ResponseResultEnum;
 import org.apache.shiro.spring.web.ShiroFilterFactoryBean;
 import org.apache.shiro.web.filter.AccessControlFilter;
 import org.apache.shiro.web.filter.authc.FormAuthenticationFilter;
@@ -9,7 +7,6 @@ import org.apache.shiro.web.util.WebUtils;
 
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
-import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 /**
@@ -43,11 +40,8 @@ public class CustomizableResponseFormAuthenticationFilter
         extends FormAuthenticationFilter {
     @Override
     protected boolean onAccessDenied(ServletRequest request, ServletResponse response) throws IOException {
-        JsonResponseBuilder.buildJsonResponse(
-                WebUtils.toHttp(response),
-                HttpServletResponse.SC_UNAUTHORIZED,
-                ResponseResult.set(ResponseResultEnum.UNAUTHORIZED)
-        );
+        // 响应体只序列化一次, 此处直接写入预先序列化的字节.
+        JsonResponseBuilder.buildUnauthorizedResponse(WebUtils.toHttp(response));
         return false; // 阻止 Shiro 继续处理该请求, 这意味着请求将在此过滤器中终止.
     }
 }
@@ -1,13 +1,10 @@
 package indi.ly.crush.filter;
 
-import indi.ly.crush.response.ResponseResult;
-import indi.ly.crush.response.ResponseResultEnum;
 import org.apache.shiro.web.filter.authz.RolesAuthorizationFilter;
 import org.apache.shiro.web.util.WebUtils;
 
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
-import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 /**
@@ -25,11 +22,8 @@ public class CustomizableResponseRolesAuthorizationFilter
         extends RolesAuthorizationFilter {
     @Override
     protected boolean onAccessDenied(ServletRequest request, ServletResponse response) throws IOException {
-        JsonResponseBuilder.buildJsonResponse(
-                WebUtils.toHttp(response),
-                HttpServletResponse.SC_FORBIDDEN,
-                ResponseResult.set(ResponseResultEnum.FORBIDDEN)
-        );
+        // 响应体只序列化一次, 此处直接写入预先序列化的字节.
+        JsonResponseBuilder.buildForbiddenResponse(WebUtils.toHttp(response));
         return false; // 阻止 Shiro 继续处理该请求, 这意味着请求将在此过滤器中终止.
     }
 }
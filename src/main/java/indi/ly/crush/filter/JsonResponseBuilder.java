@@ -1,5 +1,7 @@
 package indi.ly.crush.filter;
 
+import indi.ly.crush.response.ResponseResult;
+import indi.ly.crush.response.ResponseResultEnum;
 import indi.ly.crush.util.support.BaseJacksonUtil;
 import lombok.NonNull;
 import org.springframework.http.MediaType;
@@ -11,12 +13,63 @@ import java.nio.charset.StandardCharsets;
 
 /**
  * <h2>{@code JSON} 响应构建器</h2>
+ * <p>
+ *     {@code 401} 和 {@code 403} 响应的内容是固定的, 并且在遭受爬虫或撞库攻击时会被大量返回. <br />
+ *     因此它们只在本类加载时序列化 {@code 1} 次, 之后直接将 {@code UTF-8} 字节写入 {@link ServletResponse#getOutputStream()},
+ *     每次响应既不需要序列化, 也不需要经过 {@link ServletResponse#getWriter()} 进行字符编码.
+ * </p>
  *
  * @since 1.0
  * @author 云上的云
  * @formatter:off
  */
 final class JsonResponseBuilder {
+    private static final byte[] UNAUTHORIZED_BODY = BaseJacksonUtil.wrap(om -> om.writeValueAsBytes(ResponseResult.set(ResponseResultEnum.UNAUTHORIZED)));
+    private static final byte[] FORBIDDEN_BODY = BaseJacksonUtil.wrap(om -> om.writeValueAsBytes(ResponseResult.set(ResponseResultEnum.FORBIDDEN)));
+
+    /**
+     * <p>
+     *     写入预先序列化的 {@code HTTP 401} 响应.
+     * </p>
+     *
+     * @param response {@code HTTP} 响应.
+     * @throws IOException {@link ServletResponse#getOutputStream()} 如果出现输入或输出异常.
+     */
+    public static void buildUnauthorizedResponse(@NonNull HttpServletResponse response) throws IOException {
+        buildJsonResponse(response, HttpServletResponse.SC_UNAUTHORIZED, UNAUTHORIZED_BODY);
+    }
+
+    /**
+     * <p>
+     *     写入预先序列化的 {@code HTTP 403} 响应.
+     * </p>
+     *
+     * @param response {@code HTTP} 响应.
+     * @throws IOException {@link ServletResponse#getOutputStream()} 如果出现输入或输出异常.
+     */
+    public static void buildForbiddenResponse(@NonNull HttpServletResponse response) throws IOException {
+        buildJsonResponse(response, HttpServletResponse.SC_FORBIDDEN, FORBIDDEN_BODY);
+    }
+
+    /**
+     * <p>
+     *     将已经序列化为 {@code UTF-8} 字节的 {@code JSON} 写入 {@code HTTP} 响应中, 并设置固定的 {@code Content-Length}.
+     * </p>
+     *
+     * @param response   {@code HTTP} 响应.
+     * @param httpStatus {@code HTTP} 状态码.
+     * @param body       {@code UTF-8} 编码的 {@code JSON} 字节, 调用方不得修改.
+     * @throws IOException {@link ServletResponse#getOutputStream()} 如果出现输入或输出异常.
+     */
+    public static void buildJsonResponse(@NonNull HttpServletResponse response, int httpStatus, @NonNull byte[] body) throws IOException {
+        response.setStatus(httpStatus);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentLength(body.length);
+
+        response.getOutputStream().write(body);
+    }
+
     /**
      * <p>
      *     允许将给定的结果对象以 {@code JSON} 格式写入 {@code HTTP} 响应中. <br />
@@ -0,0 +1,45 @@
+package indi.ly.crush.filter.mgt;
+
+import org.apache.shiro.spring.web.ShiroFilterFactoryBean;
+import org.apache.shiro.web.filter.mgt.FilterChainResolver;
+import org.apache.shiro.web.filter.mgt.PathMatchingFilterChainResolver;
+import org.apache.shiro.web.servlet.AbstractShiroFilter;
+
+/**
+ * <h2>自定义 {@code Shiro} 过滤器工厂</h2>
+ * <p>
+ *     {@link ShiroFilterFactoryBean#createInstance()} 固定使用 {@link PathMatchingFilterChainResolver} 解析过滤器链,
+ *     本类在其创建完成后, 将解析器替换为语义相同的 {@link TrieFilterChainResolver}.
+ * </p>
+ *
+ * @since 1.0
+ * @see TrieFilterChainResolver
+ * @author 云上的云
+ * @formatter:off
+ */
+public class CustomShiroFilterFactoryBean
+        extends ShiroFilterFactoryBean {
+    /**
+     * <p>
+     *     最多缓存的请求路径解析结果数量.
+     * </p>
+     */
+    private long maxResolvedPaths = 10_000;
+
+    public void setMaxResolvedPaths(long maxResolvedPaths) {
+        this.maxResolvedPaths = maxResolvedPaths;
+    }
+
+    @Override
+    protected AbstractShiroFilter createInstance() throws Exception {
+        AbstractShiroFilter shiroFilter = super.createInstance();
+
+        FilterChainResolver filterChainResolver = shiroFilter.getFilterChainResolver();
+        if (filterChainResolver instanceof PathMatchingFilterChainResolver pathMatchingFilterChainResolver) {
+            shiroFilter.setFilterChainResolver(
+                    new TrieFilterChainResolver(pathMatchingFilterChainResolver.getFilterChainManager(), this.maxResolvedPaths)
+            );
+        }
+        return shiroFilter;
+    }
+}
@@ -0,0 +1,150 @@
+package indi.ly.crush.filter.mgt;
+
+import org.springframework.lang.NonNull;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+/**
+ * <h2>路径模式前缀树</h2>
+ * <p>
+ *     将一组按优先级排列的 {@code Ant} 风格路径模式按 {@code /} 分段编译为 {@code 1} 棵前缀树, 每个节点有 {@code 3} 类子节点:
+ *     <ul>
+ *         <li>字面量分段: 以分段内容为键的散列表, 查找的代价为 {@code O(1)}.</li>
+ *         <li>通配分段(包含 {@code *} 或 {@code ?}): 可以匹配任意 {@code 1} 个分段.</li>
+ *         <li>{@code **} 分段: 可以匹配任意个(包括 {@code 0} 个)分段.</li>
+ *     </ul>
+ *     {@link #candidates(String)} 返回所有<em>可能</em>匹配给定路径的模式下标, 结果是真实匹配集合的超集
+ *     (通配分段的内部细节以及末尾的 {@code /} 不参与筛选), 因此调用方需要再用真正的路径匹配器按下标从小到大确认, 第一个确认匹配的即为结果. <br />
+ *     这样既保留了{@code 先定义先匹配}的语义, 又不需要对每个请求线性地尝试全部模式.
+ * </p>
+ *
+ * @since 1.0
+ * @see TrieFilterChainResolver
+ * @author 云上的云
+ * @formatter:off
+ */
+public final class PathPatternTrie {
+    private static final String PATH_SEPARATOR = "/";
+    private static final String ANY_PATH = "**";
+    private final Node root;
+    private final int size;
+
+    private PathPatternTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * <p>
+     *     将给定的路径模式编译为前缀树, 模式在列表中的下标即为它的优先级(越小越优先).
+     * </p>
+     *
+     * @param patterns 按优先级排列的路径模式.
+     * @return 编译后的前缀树.
+     */
+    public static @NonNull PathPatternTrie compile(@NonNull List<String> patterns) {
+        Node root = new Node();
+        for (int index = 0; index < patterns.size(); index++) {
+            Node node = root;
+            for (String segment : tokenize(patterns.get(index))) {
+                if (ANY_PATH.equals(segment)) {
+                    if (node.anyPathChild == null) {
+                        node.anyPathChild = new Node();
+                    }
+                    node = node.anyPathChild;
+                } else if (isWildcard(segment)) {
+                    if (node.wildcardChild == null) {
+                        node.wildcardChild = new Node();
+                    }
+                    node = node.wildcardChild;
+                } else {
+                    node = node.literalChildren.computeIfAbsent(segment, ignored -> new Node());
+                }
+            }
+            node.terminals.add(index);
+        }
+        return new PathPatternTrie(root, patterns.size());
+    }
+
+    /**
+     * <p>
+     *     获取可能匹配给定路径的全部模式下标.
+     * </p>
+     *
+     * @param path 请求路径.
+     * @return 候选模式的下标集合, 按 {@link BitSet#nextSetBit(int)} 的顺序即为优先级顺序.
+     */
+    public @NonNull BitSet candidates(@NonNull String path) {
+        BitSet candidates = new BitSet(this.size);
+        collect(this.root, tokenize(path), 0, candidates);
+        return candidates;
+    }
+
+    /**
+     * <p>
+     *     获取前缀树中的模式数量.
+     * </p>
+     *
+     * @return 模式数量.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    private static void collect(@NonNull Node node, @NonNull String[] segments, int position, @NonNull BitSet candidates) {
+        if (node.anyPathChild != null) {
+            // ** 可以吞掉剩下的任意个分段.
+            for (int next = position; next <= segments.length; next++) {
+                collect(node.anyPathChild, segments, next, candidates);
+            }
+        }
+
+        if (position == segments.length) {
+            for (int i = 0, n = node.terminals.size(); i < n; i++) {
+                candidates.set(node.terminals.get(i));
+            }
+            return;
+        }
+
+        Node literalChild = node.literalChildren.get(segments[position]);
+        if (literalChild != null) {
+            collect(literalChild, segments, position + 1, candidates);
+        }
+        if (node.wildcardChild != null) {
+            collect(node.wildcardChild, segments, position + 1, candidates);
+        }
+    }
+
+    /**
+     * <p>
+     *     与 {@code Shiro} 的 {@code AntPathMatcher} 一致: 按 {@code /} 分段, 去除首尾空白并忽略空分段.
+     * </p>
+     */
+    private static @NonNull String[] tokenize(@NonNull String path) {
+        StringTokenizer tokenizer = new StringTokenizer(path, PATH_SEPARATOR);
+        List<String> segments = new ArrayList<>(8);
+        while (tokenizer.hasMoreTokens()) {
+            String segment = tokenizer.nextToken().trim();
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments.toArray(String[] :: new);
+    }
+
+    private static boolean isWildcard(@NonNull String segment) {
+        return segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0;
+    }
+
+    private static final class Node {
+        private final Map<String, Node> literalChildren = new HashMap<>(4);
+        private final List<Integer> terminals = new ArrayList<>(1);
+        private Node wildcardChild;
+        private Node anyPathChild;
+    }
+}
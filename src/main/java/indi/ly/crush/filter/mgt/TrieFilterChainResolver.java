@@ -0,0 +1,116 @@
+package indi.ly.crush.filter.mgt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.shiro.util.AntPathMatcher;
+import org.apache.shiro.util.PatternMatcher;
+import org.apache.shiro.web.filter.mgt.FilterChainManager;
+import org.apache.shiro.web.filter.mgt.FilterChainResolver;
+import org.apache.shiro.web.filter.mgt.PathMatchingFilterChainResolver;
+import org.apache.shiro.web.util.WebUtils;
+import org.springframework.lang.NonNull;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * <h2>基于前缀树的过滤器链解析器</h2>
+ * <p>
+ *     {@link PathMatchingFilterChainResolver} 对每个请求都按定义顺序用 {@link AntPathMatcher} 逐个尝试全部的路径模式,
+ *     代价随过滤器链定义的数量线性增长. <br /> <br />
+ *
+ *     本解析器的匹配语义与其完全一致(包括{@code 先定义先匹配}以及忽略末尾 {@code /} 的二次匹配), 但做了两点优化:
+ *     <ol>
+ *         <li>
+ *             前缀树筛选: <br />
+ *             将全部的路径模式编译为 {@link PathPatternTrie}, 每个请求只需用 {@link AntPathMatcher} 确认少量的候选模式.
+ *         </li>
+ *         <li>
+ *             解析结果缓存: <br />
+ *             最近解析过的请求路径与过滤器链名称的对应关系保存在有界缓存中, 热点路径命中缓存后不再进行任何模式匹配.
+ *         </li>
+ *     </ol>
+ *     如果运行期间向 {@link FilterChainManager} 中添加了新的过滤器链, 前缀树会在下一个请求时重新编译, 并清空解析结果缓存.
+ * </p>
+ *
+ * @since 1.0
+ * @see CustomShiroFilterFactoryBean
+ * @author 云上的云
+ * @formatter:off
+ */
+public class TrieFilterChainResolver
+        implements FilterChainResolver {
+    private static final String PATH_SEPARATOR = "/";
+    /**
+     * <p>
+     *     缓存中表示{@code 没有匹配的过滤器链}的值.
+     * </p>
+     */
+    private static final String NO_MATCH = "";
+    private final FilterChainManager filterChainManager;
+    private final PatternMatcher pathMatcher = new AntPathMatcher();
+    private final Cache<String, String> resolvedChainNames;
+    private volatile CompiledChains compiledChains;
+
+    public TrieFilterChainResolver(@NonNull FilterChainManager filterChainManager, long maxResolvedPaths) {
+        this.filterChainManager = filterChainManager;
+        this.resolvedChainNames = Caffeine.newBuilder()
+                                            .maximumSize(maxResolvedPaths)
+                                            .build();
+    }
+
+    @Override
+    public FilterChain getChain(ServletRequest request, ServletResponse response, FilterChain originalChain) {
+        if (!this.filterChainManager.hasChains()) {
+            return null;
+        }
+
+        CompiledChains chains = this.getCompiledChains();
+        String requestURI = WebUtils.getPathWithinApplication(WebUtils.toHttp(request));
+        String chainName = this.resolvedChainNames.get(requestURI, path -> this.resolve(chains, path));
+        return NO_MATCH.equals(chainName) ? null : this.filterChainManager.proxy(originalChain, chainName);
+    }
+
+    private @NonNull String resolve(@NonNull CompiledChains chains, @NonNull String requestURI) {
+        String requestURINoTrailingSlash = removeTrailingSlash(requestURI);
+        BitSet candidates = chains.trie().candidates(requestURI);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            String pathPattern = chains.chainNames().get(i);
+            if (this.pathMatcher.matches(pathPattern, requestURI)
+                    || this.pathMatcher.matches(removeTrailingSlash(pathPattern), requestURINoTrailingSlash)) {
+                return pathPattern;
+            }
+        }
+        return NO_MATCH;
+    }
+
+    private @NonNull CompiledChains getCompiledChains() {
+        CompiledChains chains = this.compiledChains;
+        if (chains == null || chains.chainNames().size() != this.filterChainManager.getChainNames().size()) {
+            synchronized (this) {
+                chains = this.compiledChains;
+                if (chains == null || chains.chainNames().size() != this.filterChainManager.getChainNames().size()) {
+                    // 过滤器链名称的迭代顺序即为定义顺序.
+                    List<String> chainNames = List.copyOf(this.filterChainManager.getChainNames());
+                    chains = new CompiledChains(chainNames, PathPatternTrie.compile(chainNames));
+                    this.compiledChains = chains;
+                    this.resolvedChainNames.invalidateAll();
+                }
+            }
+        }
+        return chains;
+    }
+
+    private static @NonNull String removeTrailingSlash(@NonNull String path) {
+        if (path.length() > 1 && path.endsWith(PATH_SEPARATOR)) {
+            return path.substring(0, path.length() - 1);
+        }
+        return path;
+    }
+
+    private record CompiledChains(List<String> chainNames, PathPatternTrie trie) {
+    }
+}
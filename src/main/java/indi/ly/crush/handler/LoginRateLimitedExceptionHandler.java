@@ -0,0 +1,36 @@
+package indi.ly.crush.handler;
+
+import indi.ly.crush.ex.LoginRateLimitedException;
+import indi.ly.crush.response.ResponseResult;
+import indi.ly.crush.response.ResponseResultEnum;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * <h2>登录限流异常处理器</h2>
+ * <p>
+ *     将 {@link LoginRateLimitedException} 转换为带有 {@code Retry-After} 响应头的 {@code HTTP 429} 响应. <br />
+ *     优先级高于其它全局异常处理器, 以免被当作普通的认证失败处理.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+@RestControllerAdvice
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class LoginRateLimitedExceptionHandler {
+
+    @ExceptionHandler(LoginRateLimitedException.class)
+    public ResponseEntity<ResponseResult<?>> handleLoginRateLimitedException(LoginRateLimitedException e) {
+        return ResponseEntity
+                        .status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                        .body(ResponseResult.set(ResponseResultEnum.TOO_MANY_REQUESTS).message(e.getMessage()));
+    }
+}
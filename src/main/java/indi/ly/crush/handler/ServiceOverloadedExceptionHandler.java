@@ -0,0 +1,36 @@
+package indi.ly.crush.handler;
+
+import indi.ly.crush.ex.ServiceOverloadedException;
+import indi.ly.crush.response.ResponseResult;
+import indi.ly.crush.response.ResponseResultEnum;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * <h2>服务过载异常处理器</h2>
+ * <p>
+ *     将 {@link ServiceOverloadedException} 转换为带有 {@code Retry-After} 响应头的 {@code HTTP 503} 响应. <br />
+ *     优先级高于其它全局异常处理器, 以保证过载时返回的是可重试的状态码.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+@RestControllerAdvice
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServiceOverloadedExceptionHandler {
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ResponseResult<?>> handleServiceOverloadedException(ServiceOverloadedException e) {
+        return ResponseEntity
+                        .status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                        .body(ResponseResult.set(ResponseResultEnum.SERVICE_UNAVAILABLE).message(e.getMessage()));
+    }
+}
@@ -0,0 +1,248 @@
+package indi.ly.crush.id;
+
+import org.intellij.lang.annotations.Language;
+import org.springframework.lang.NonNull;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * <h2>号段式主键分配器</h2>
+ * <p>
+ *     每张表在 {@code t_id_block} 中有一行记录, 保存该表下一个未分配的主键. <br />
+ *     分配器每次从数据库预留一整段连续的主键({@code blockSize} 个), 之后在内存中逐个发放, 直到该段用完才再次访问数据库. <br />
+ *     因此在插入前就能得到主键, {@code Hibernate} 不必像 {@code IDENTITY} 那样每插入一行就立即执行并回读主键, 插入语句可以按 {@code JDBC} 批处理执行. <br /> <br />
+ *
+ *     预留号段在独立的事务中通过一条 {@code INSERT ... ON DUPLICATE KEY UPDATE} 完成, 并借助 {@code LAST_INSERT_ID(expr)} 取回更新后的值. <br />
+ *     多个节点同时预留时由该行的行锁串行化, 各节点得到的号段互不重叠. 预留前不执行任何加锁读, 因此记录还不存在时也不会因间隙锁与并发的插入死锁. <br />
+ *     业务事务回滚不会归还号段, 因此主键可能不连续. <br /> <br />
+ *
+ *     迁移: 某张表第一次预留号段时, {@code t_id_block} 中还没有它的记录, 分配器会以该表现有的 {@code MAX(id) + 1}(不加锁的一致性读) 作为起点插入记录,
+ *     因此已有的自增主键数据无需任何处理. 多个节点同时插入时只有一个生效, 其余节点走更新分支. 请注意, 切换期间不能再有节点使用数据库自增主键插入该表.
+ * </p>
+ *
+ * @since 1.0
+ * @see PooledIdGenerator
+ * @author 云上的云
+ * @formatter:off
+ */
+public final class HiLoIdAllocator {
+    @Language("MySQL")
+    private static final String CREATE_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS t_id_block (
+                table_name VARCHAR(64) NOT NULL PRIMARY KEY,
+                next_value BIGINT NOT NULL
+            )
+            """;
+    @Language("MySQL")
+    private static final String UPSERT_SQL = """
+            INSERT INTO t_id_block(table_name, next_value) VALUES (?, LAST_INSERT_ID(?))
+            ON DUPLICATE KEY UPDATE next_value = LAST_INSERT_ID(next_value + ?)
+            """;
+    @Language("MySQL")
+    private static final String SELECT_LAST_INSERT_ID_SQL = "SELECT LAST_INSERT_ID()";
+    /**
+     * <p>
+     *     {@code INSERT ... ON DUPLICATE KEY UPDATE} 走更新分支时的影响行数.
+     * </p>
+     */
+    private static final int UPDATED_ROW_COUNT = 2;
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]{0,63}");
+    private static final ConcurrentMap<String, HiLoIdAllocator> ALLOCATORS = new ConcurrentHashMap<>();
+    /**
+     * <p>
+     *     已确认在 {@code t_id_block} 中存在记录的表, 记录一旦提交就不会被删除, 预留时不必再计算起点.
+     * </p>
+     */
+    private static final Set<String> SEEDED_TABLES = ConcurrentHashMap.newKeySet();
+    private static volatile boolean tableCreated;
+    private final String tableName;
+    private final int blockSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long next;
+    private long limit;
+
+    private HiLoIdAllocator(@NonNull String tableName, int blockSize) {
+        this.tableName = tableName;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * <p>
+     *     获取给定表的主键分配器. 同一张表在进程内只有一个分配器, 由 {@code Hibernate} 和直接使用 {@code JDBC} 的代码共享.
+     * </p>
+     *
+     * @param tableName 表名.
+     * @param blockSize 每次预留的主键数量, 只在第一次获取时生效.
+     * @return 主键分配器.
+     */
+    public static @NonNull HiLoIdAllocator of(@NonNull String tableName, int blockSize) {
+        if (!TABLE_NAME.matcher(tableName).matches()) {
+            throw new IllegalArgumentException("不合法的表名: %s.".formatted(tableName));
+        }
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("号段大小必须是一个正整数: %d.".formatted(blockSize));
+        }
+        return ALLOCATORS.computeIfAbsent(tableName, name -> new HiLoIdAllocator(name, blockSize));
+    }
+
+    /**
+     * <p>
+     *     分配一个主键.
+     * </p>
+     *
+     * @param reserver 当前号段用完时用于预留新号段.
+     * @return 主键.
+     */
+    public long nextId(@NonNull BlockReserver reserver) {
+        this.lock.lock();
+        try {
+            if (this.next == this.limit) {
+                this.next = reserver.reserve(this.tableName, this.blockSize);
+                this.limit = this.next + this.blockSize;
+            }
+            return this.next++;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * <p>
+     *     一次分配多个主键. 当前号段不够时, 一次性预留足够的主键, 而不是逐段预留.
+     * </p>
+     *
+     * @param count    主键数量.
+     * @param reserver 当前号段不够时用于预留新号段.
+     * @return 主键, 同一号段内的主键连续递增.
+     */
+    public @NonNull long[] nextIds(int count, @NonNull BlockReserver reserver) {
+        long[] ids = new long[count];
+        this.lock.lock();
+        try {
+            int filled = 0;
+            while (filled < count) {
+                if (this.next == this.limit) {
+                    // 预留的大小向上取整为号段大小的整数倍.
+                    int remaining = count - filled;
+                    int size = (int) Math.min(Integer.MAX_VALUE, ((long) remaining + this.blockSize - 1) / this.blockSize * this.blockSize);
+                    this.next = reserver.reserve(this.tableName, size);
+                    this.limit = this.next + size;
+                }
+                ids[filled++] = this.next++;
+            }
+            return ids;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * <p>
+     *     使用给定的连接预留号段. 调用方负责事务: 连接必须处于手动提交模式, 并在返回后提交.
+     * </p>
+     *
+     * @param connection 数据库连接.
+     * @param tableName  表名.
+     * @param size       预留的主键数量.
+     * @return 号段中的第一个主键.
+     * @throws SQLException 访问数据库失败.
+     */
+    public static long reserveBlock(@NonNull Connection connection, @NonNull String tableName, int size) throws SQLException {
+        if (!tableCreated) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_TABLE_SQL);
+            }
+            tableCreated = true;
+        }
+
+        // 第一次为该表预留号段时的起点: 从现有数据的最大主键之后开始, 兼容原有的自增主键数据. 记录已存在时该值不会被使用.
+        long seed = 1;
+        boolean seeded = SEEDED_TABLES.contains(tableName);
+        if (!seeded) {
+            try (
+                    Statement statement = connection.createStatement();
+                    ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM " + tableName)
+            ) {
+                resultSet.next();
+                seed = resultSet.getLong(1);
+            }
+        }
+
+        int affectedRows;
+        try (PreparedStatement upsert = connection.prepareStatement(UPSERT_SQL)) {
+            upsert.setString(1, tableName);
+            upsert.setLong(2, seed + size);
+            upsert.setLong(3, size);
+            affectedRows = upsert.executeUpdate();
+        }
+        long end;
+        try (
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery(SELECT_LAST_INSERT_ID_SQL)
+        ) {
+            resultSet.next();
+            end = resultSet.getLong(1);
+        }
+        // 只有走更新分支才说明记录已被提交; 本次插入的记录可能随调用方的事务回滚.
+        if (!seeded && affectedRows == UPDATED_ROW_COUNT) {
+            SEEDED_TABLES.add(tableName);
+        }
+        return end - size;
+    }
+
+    /**
+     * <p>
+     *     创建一个从数据源获取独立连接并在独立事务中预留号段的预留器.
+     * </p>
+     *
+     * @param dataSource 数据源.
+     * @return 号段预留器.
+     */
+    public static @NonNull BlockReserver reserverOf(@NonNull DataSource dataSource) {
+        return (tableName, size) -> {
+            try (Connection connection = dataSource.getConnection()) {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    long start = reserveBlock(connection, tableName, size);
+                    connection.commit();
+                    return start;
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("为表 [%s] 预留主键号段失败.".formatted(tableName), e);
+            }
+        };
+    }
+
+    /**
+     * <h2>号段预留器</h2>
+     */
+    @FunctionalInterface
+    public interface BlockReserver {
+        /**
+         * <p>
+         *     在独立的事务中为给定的表预留一段连续的主键.
+         * </p>
+         *
+         * @param tableName 表名.
+         * @param size      预留的主键数量.
+         * @return 号段中的第一个主键.
+         */
+        long reserve(@NonNull String tableName, int size);
+    }
+}
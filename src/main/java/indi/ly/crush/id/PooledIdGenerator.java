@@ -0,0 +1,73 @@
+package indi.ly.crush.id;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.jdbc.AbstractReturningWork;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * <h2>号段式主键生成器</h2>
+ * <p>
+ *     将 {@link HiLoIdAllocator} 接入 {@code Hibernate}, 替换 {@code GenerationType.IDENTITY}:
+ *     <pre>{@code
+ *                  @Id
+ *                  @GeneratedValue(generator = "pooled")
+ *                  @GenericGenerator(
+ *                          name = "pooled",
+ *                          strategy = "indi.ly.crush.id.PooledIdGenerator",
+ *                          parameters = @Parameter(name = PooledIdGenerator.BLOCK_SIZE, value = "50")
+ *                  )
+ *                  private PK id;
+ *     }</pre>
+ *     表名取自实体的 {@code @Table}, 同一张表的所有实体以及直接使用 {@code JDBC} 插入的代码共享同一个分配器. <br />
+ *     号段在 {@code Hibernate} 的隔离事务中预留, 不受当前业务事务回滚的影响.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public class PooledIdGenerator
+        implements IdentifierGenerator {
+    /**
+     * <p>
+     *     每次预留的主键数量, 默认为 {@code 50}.
+     * </p>
+     */
+    public static final String BLOCK_SIZE = "block_size";
+    private HiLoIdAllocator allocator;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        String tableName = params.getProperty(PersistentIdentifierGenerator.TABLE);
+        if (tableName == null) {
+            throw new MappingException("号段式主键生成器只能用于映射到表的实体.");
+        }
+        this.allocator = HiLoIdAllocator.of(tableName, ConfigurationHelper.getInt(BLOCK_SIZE, params, 50));
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        return this.allocator.nextId((tableName, size) ->
+                session.getTransactionCoordinator().createIsolationDelegate().delegateWork(
+                        new AbstractReturningWork<Long>() {
+                            @Override
+                            public Long execute(Connection connection) throws SQLException {
+                                return HiLoIdAllocator.reserveBlock(connection, tableName, size);
+                            }
+                        },
+                        true
+                )
+        );
+    }
+}
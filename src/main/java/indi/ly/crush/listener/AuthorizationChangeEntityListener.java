@@ -0,0 +1,49 @@
+package indi.ly.crush.listener;
+
+import indi.ly.crush.authz.AuthorizationCacheInvalidator;
+import indi.ly.crush.authz.AuthorizationChangeEvent;
+import indi.ly.crush.model.entity.Permission;
+import indi.ly.crush.model.entity.Role;
+import indi.ly.crush.model.entity.User;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * <h2>授权变更 {@code JPA} 实体监听器</h2>
+ * <p>
+ *     在 {@link Role}、{@link Permission}、{@link User} 被更新或删除后, 以及 {@link Permission} 被新增后发布授权变更事件, 事件在事务提交之后才真正发布. <br /> <br />
+ *
+ *     实体没有版本字段, 只修改多对多集合(例如只给角色增减权限)时 {@code Hibernate} 不会触发实体的更新回调,
+ *     这类变更由 {@link AuthorizationCollectionChangeListener} 发布事件; 角色改名时携带旧名称的事件同样由它发布. <br />
+ *     原生 {@code SQL} 和 {@code JPQL} 批量更新不会触发任何回调, 需要调用方自行通过 {@link AuthorizationCacheInvalidator#publish(AuthorizationChangeEvent)} 发布事件.
+ * </p>
+ *
+ * @since 1.0
+ * @see AuthorizationCacheInvalidator
+ * @see AuthorizationCollectionChangeListener
+ * @author 云上的云
+ * @formatter:off
+ */
+public class AuthorizationChangeEntityListener {
+    @PostUpdate
+    @PostRemove
+    public void postChange(Object object) {
+        if (object instanceof Role role) {
+            AuthorizationCacheInvalidator.publish(AuthorizationChangeEvent.ofRole(role.getId(), role.getName()));
+        } else if (object instanceof Permission permission) {
+            AuthorizationCacheInvalidator.publish(AuthorizationChangeEvent.ofPermission(permission.getId()));
+        } else if (object instanceof User user) {
+            AuthorizationCacheInvalidator.publish(AuthorizationChangeEvent.ofUser(user.getId()));
+        }
+    }
+
+    @PostPersist
+    public void postPersist(Object object) {
+        // 新的权限需要加入权限层级, 新的角色和用户还没有被任何授权缓存引用.
+        if (object instanceof Permission permission) {
+            AuthorizationCacheInvalidator.publish(AuthorizationChangeEvent.ofPermission(permission.getId()));
+        }
+    }
+}
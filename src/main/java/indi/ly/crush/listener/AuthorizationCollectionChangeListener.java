@@ -0,0 +1,116 @@
+package indi.ly.crush.listener;
+
+import indi.ly.crush.authz.AuthorizationCacheInvalidator;
+import indi.ly.crush.authz.AuthorizationChangeEvent;
+import indi.ly.crush.authz.RoleMembershipIndex;
+import indi.ly.crush.model.entity.Role;
+import indi.ly.crush.model.entity.User;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.lang.NonNull;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * <h2>授权变更 {@code Hibernate} 集合监听器</h2>
+ * <p>
+ *     实体没有版本字段, 只修改多对多集合时 {@code Hibernate} 不会触发 {@link AuthorizationChangeEntityListener} 的实体回调,
+ *     本类在集合被重建、更新或删除后补发授权变更事件:
+ *     <ul>
+ *         <li>{@link Role#getPermissions()}({@code t_role_permissions}): 角色变更事件.</li>
+ *         <li>{@link User#getRoles()}({@code t_user_role})和 {@link User#getPermissions()}({@code t_user_permission}): 用户变更事件.</li>
+ *     </ul>
+ *     此外, 角色改名时 {@link AuthorizationChangeEntityListener} 发布的事件只携带新名称, 而 {@link RoleMembershipIndex} 按名称登记用户,
+ *     因此本类在实体更新后根据 {@code Hibernate} 保存的旧状态补发一个携带旧名称的角色变更事件. <br />
+ *     与实体回调一样, 事件在事务提交之后才真正发布, 同一事务中重复的事件只发布一次. <br />
+ *     原生 {@code SQL} 和 {@code JPQL} 批量更新同样不会触发回调, 需要调用方自行通过 {@link AuthorizationCacheInvalidator#publish(AuthorizationChangeEvent)} 发布事件.
+ * </p>
+ *
+ * @since 1.0
+ * @see AuthorizationChangeEntityListener
+ * @author 云上的云
+ * @formatter:off
+ */
+public class AuthorizationCollectionChangeListener
+        implements PostCollectionRecreateEventListener, PostCollectionUpdateEventListener, PostCollectionRemoveEventListener, PostUpdateEventListener {
+    private static final String ROLE_NAME_PROPERTY = "name";
+
+    /**
+     * <p>
+     *     将监听器注册到给定的 {@link EntityManagerFactory} 的 {@code Hibernate} 事件监听器注册表中.
+     * </p>
+     *
+     * @param entityManagerFactory 实体管理器工厂.
+     * @return 已注册的监听器.
+     */
+    public static @NonNull AuthorizationCollectionChangeListener register(@NonNull EntityManagerFactory entityManagerFactory) {
+        AuthorizationCollectionChangeListener listener = new AuthorizationCollectionChangeListener();
+        EventListenerRegistry registry = entityManagerFactory
+                                                .unwrap(SessionFactoryImplementor.class)
+                                                .getServiceRegistry()
+                                                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        return listener;
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        this.publish(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        this.publish(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        this.publish(event);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        // 更新分离的实体(没有加载快照)时旧状态为 null, 无法得知旧名称.
+        Object[] oldState = event.getOldState();
+        if (!(event.getEntity() instanceof Role role) || oldState == null) {
+            return;
+        }
+        String[] propertyNames = event.getPersister().getPropertyNames();
+        for (int i = 0; i < propertyNames.length; i++) {
+            if (ROLE_NAME_PROPERTY.equals(propertyNames[i])) {
+                if (oldState[i] instanceof String oldName && !oldName.equals(role.getName())) {
+                    AuthorizationCacheInvalidator.publish(AuthorizationChangeEvent.ofRole(role.getId(), oldName));
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void publish(@NonNull AbstractCollectionEvent event) {
+        Object owner = event.getAffectedOwnerOrNull();
+        if (owner instanceof Role role && role.getId() != null) {
+            AuthorizationCacheInvalidator.publish(AuthorizationChangeEvent.ofRole(role.getId(), role.getName()));
+        } else if (owner instanceof User user && user.getId() != null) {
+            AuthorizationCacheInvalidator.publish(AuthorizationChangeEvent.ofUser(user.getId()));
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package indi.ly.crush.mgt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import indi.ly.crush.model.principal.UserPrincipal;
+import org.apache.shiro.crypto.CryptoException;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.subject.SubjectContext;
+import org.apache.shiro.web.mgt.CookieRememberMeManager;
+import org.springframework.lang.NonNull;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+/**
+ * <h2>紧凑的 {@code RememberMe Cookie} 管理器</h2>
+ * <p>
+ *     {@link CookieRememberMeManager} 默认对整个 {@link PrincipalCollection} 做 {@code Java} 序列化后再加密,
+ *     每个携带该 {@code Cookie} 的未认证请求都要付出解密和反序列化的代价, 而反序列化本身也是一个攻击面. <br />
+ *     本类只保存固定布局的身份信息, 并使用 {@code AES-GCM} 同时保证机密性和完整性:
+ *     <ul>
+ *         <li>
+ *             明文: <br />
+ *             {@code 1} 字节版本号、{@code 8} 字节用户 {@code ID}、{@code 8} 字节过期时间(秒)、{@code 1} 字节安全域名称长度及 {@code UTF-8} 编码的安全域名称, 以及 {@code UTF-8} 编码的用户名.
+ *         </li>
+ *         <li>
+ *             {@code Cookie}: <br />
+ *             {@code 1} 字节版本号、{@code 12} 字节随机数以及密文(含 {@code 16} 字节认证标签), 版本号同时作为附加认证数据.
+ *         </li>
+ *     </ul>
+ *     解密结果保存在有界缓存中, 同一 {@code Cookie} 的重复请求不再解密. <br />
+ *     旧格式的 {@code Cookie} 无法通过认证, 会被当作无效身份删除, 用户需要重新登录一次.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public class CompactCookieRememberMeManager
+        extends CookieRememberMeManager {
+    private static final String ALGORITHM = "AES/GCM/NoPadding";
+    private static final byte VERSION = 1;
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final int FIXED_PLAINTEXT_LENGTH = 1 + Long.BYTES * 2 + 1;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private final SecretKeySpec key;
+    private final ThreadLocal<Cipher> ciphers;
+    private final long maxAgeSeconds;
+    private final Cache<ByteBuffer, RememberedIdentity> decrypted;
+
+    public CompactCookieRememberMeManager(@NonNull byte[] cipherKey, long maxAgeSeconds, long decryptCacheSize) {
+        if (cipherKey.length != 16 && cipherKey.length != 24 && cipherKey.length != 32) {
+            throw new IllegalArgumentException("AES 密钥必须是 16、24 或 32 字节: %d.".formatted(cipherKey.length));
+        }
+        this.key = new SecretKeySpec(cipherKey, "AES");
+        this.ciphers = ThreadLocal.withInitial(() -> {
+            try {
+                return Cipher.getInstance(ALGORITHM);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("无法初始化 RememberMe Cookie 的加密算法 [%s].".formatted(ALGORITHM), e);
+            }
+        });
+        this.maxAgeSeconds = maxAgeSeconds;
+        this.decrypted = Caffeine.newBuilder()
+                                 .maximumSize(decryptCacheSize)
+                                 .build();
+    }
+
+    /**
+     * <p>
+     *     只记住主身份为 {@link UserPrincipal} 的主体, 其它主体(如访问令牌)不写入 {@code Cookie}.
+     * </p>
+     */
+    @Override
+    protected void rememberIdentity(Subject subject, PrincipalCollection accountPrincipals) {
+        if (accountPrincipals != null && accountPrincipals.getPrimaryPrincipal() instanceof UserPrincipal) {
+            super.rememberIdentity(subject, accountPrincipals);
+        }
+    }
+
+    @Override
+    protected byte[] convertPrincipalsToBytes(PrincipalCollection principals) {
+        UserPrincipal user = (UserPrincipal) principals.getPrimaryPrincipal();
+        byte[] realmName = principals.getRealmNames().iterator().next().getBytes(StandardCharsets.UTF_8);
+        byte[] username = user.username().getBytes(StandardCharsets.UTF_8);
+        if (realmName.length > 0xFF) {
+            throw new IllegalArgumentException("安全域名称过长: %d 字节.".formatted(realmName.length));
+        }
+        byte[] plaintext = ByteBuffer.allocate(FIXED_PLAINTEXT_LENGTH + realmName.length + username.length)
+                                     .put(VERSION)
+                                     .putLong(user.id())
+                                     .putLong(System.currentTimeMillis() / 1000 + this.maxAgeSeconds)
+                                     .put((byte) realmName.length)
+                                     .put(realmName)
+                                     .put(username)
+                                     .array();
+
+        byte[] nonce = new byte[NONCE_LENGTH];
+        RANDOM.nextBytes(nonce);
+        try {
+            Cipher cipher = this.ciphers.get();
+            cipher.init(Cipher.ENCRYPT_MODE, this.key, new GCMParameterSpec(TAG_BITS, nonce));
+            cipher.updateAAD(new byte[] {VERSION});
+            byte[] ciphertext = cipher.doFinal(plaintext);
+            return ByteBuffer.allocate(1 + NONCE_LENGTH + ciphertext.length)
+                             .put(VERSION)
+                             .put(nonce)
+                             .put(ciphertext)
+                             .array();
+        } catch (GeneralSecurityException e) {
+            throw new CryptoException("加密 RememberMe Cookie 失败.", e);
+        }
+    }
+
+    @Override
+    protected PrincipalCollection convertBytesToPrincipals(byte[] bytes, SubjectContext subjectContext) {
+        // 认证失败的 Cookie 会抛出异常, 不会被缓存.
+        RememberedIdentity identity = this.decrypted.get(ByteBuffer.wrap(bytes), key -> this.decrypt(bytes));
+        // 服务端同样校验过期时间, 防止被窃取的 Cookie 在客户端有效期之外被重放.
+        if (identity.expiresAt() <= System.currentTimeMillis() / 1000) {
+            return null;
+        }
+        // 角色位掩码不写入 Cookie, 授权检查以重新加载的授权信息为准.
+        return new SimplePrincipalCollection(new UserPrincipal(identity.userId(), identity.username()), identity.realmName());
+    }
+
+    private @NonNull RememberedIdentity decrypt(@NonNull byte[] bytes) {
+        if (bytes.length < 1 + NONCE_LENGTH + TAG_BITS / 8 + FIXED_PLAINTEXT_LENGTH || bytes[0] != VERSION) {
+            throw new CryptoException("不支持的 RememberMe Cookie 格式.");
+        }
+        byte[] plaintext;
+        try {
+            Cipher cipher = this.ciphers.get();
+            cipher.init(Cipher.DECRYPT_MODE, this.key, new GCMParameterSpec(TAG_BITS, bytes, 1, NONCE_LENGTH));
+            cipher.updateAAD(bytes, 0, 1);
+            plaintext = cipher.doFinal(bytes, 1 + NONCE_LENGTH, bytes.length - 1 - NONCE_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new CryptoException("RememberMe Cookie 认证失败.", e);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(plaintext);
+        if (buffer.get() != VERSION) {
+            throw new CryptoException("不支持的 RememberMe Cookie 版本.");
+        }
+        long userId = buffer.getLong();
+        long expiresAt = buffer.getLong();
+        int realmNameLength = buffer.get() & 0xFF;
+        if (buffer.remaining() < realmNameLength) {
+            throw new CryptoException("RememberMe Cookie 的内容不完整.");
+        }
+        String realmName = new String(plaintext, buffer.position(), realmNameLength, StandardCharsets.UTF_8);
+        int usernameOffset = buffer.position() + realmNameLength;
+        String username = new String(plaintext, usernameOffset, plaintext.length - usernameOffset, StandardCharsets.UTF_8);
+        return new RememberedIdentity(userId, username, realmName, expiresAt);
+    }
+
+    /**
+     * <h2>解密后的身份信息</h2>
+     *
+     * @param userId    用户 {@code ID}.
+     * @param username  用户名.
+     * @param realmName 认证该用户的安全域名称.
+     * @param expiresAt 过期时间(秒).
+     */
+    private record RememberedIdentity(long userId, @NonNull String username, @NonNull String realmName, long expiresAt) {}
+}
@@ -1,11 +1,13 @@
 package indi.ly.crush.model.entity;
 
 import indi.ly.crush.domain.AbstractJpaExpansionEntity;
+import indi.ly.crush.listener.AuthorizationChangeEntityListener;
 import lombok.Getter;
 import lombok.Setter;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Table;
 import java.io.Serial;
 
@@ -173,6 +175,7 @@ import java.io.Serial;
 @Setter
 
 @Entity
+@EntityListeners(value = AuthorizationChangeEntityListener.class)
 @Table(name = "t_permission", schema = "shiro_backend")
 public class Permission
         extends AbstractJpaExpansionEntity<Long> {
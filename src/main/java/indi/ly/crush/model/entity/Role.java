@@ -1,6 +1,7 @@
 package indi.ly.crush.model.entity;
 
 import indi.ly.crush.domain.AbstractJpaExpansionEntity;
+import indi.ly.crush.listener.AuthorizationChangeEntityListener;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -189,6 +190,7 @@ import java.util.List;
 @Setter
 
 @Entity
+@EntityListeners(value = AuthorizationChangeEntityListener.class)
 @Table(name = "t_role", schema = "shiro_backend")
 public class Role
 		extends AbstractJpaExpansionEntity<Long> {
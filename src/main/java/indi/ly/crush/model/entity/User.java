@@ -1,6 +1,7 @@
 package indi.ly.crush.model.entity;
 
 import indi.ly.crush.domain.AbstractJpaExpansionEntity;
+import indi.ly.crush.listener.AuthorizationChangeEntityListener;
 import indi.ly.crush.enums.Gender;
 import lombok.Getter;
 import lombok.Setter;
@@ -71,6 +72,7 @@ import java.util.List;
 @Setter
 
 @Entity
+@EntityListeners(value = AuthorizationChangeEntityListener.class)
 @Table(name = "t_user", schema = "shiro_backend")
 public class User
 		extends AbstractJpaExpansionEntity<Long> {
@@ -85,10 +87,15 @@ public class User
 	private String username;
 	/**
 	 * <p>
-	 *     用户密码.
+	 *     用户密码. <br /> <br />
+	 *
+	 *     保存的是版本化的密码哈希 {@code $算法$代价$哈希值}, 不带前缀的值是历史遗留的 {@code MD5} 哈希, 会在用户下次登录成功后被升级. <br />
+	 *     已有的数据库需要手动放宽列长度: {@code ALTER TABLE t_user MODIFY password VARCHAR(128) NOT NULL}.
 	 * </p>
+	 *
+	 * @see indi.ly.crush.encryp.EncodedPassword
 	 */
-	@Column(nullable = false, length = 64)
+	@Column(nullable = false, length = 128)
 	private String password;
 	/**
 	 * <p>
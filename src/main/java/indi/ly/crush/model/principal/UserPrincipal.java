@@ -0,0 +1,54 @@
+package indi.ly.crush.model.principal;
+
+import indi.ly.crush.authz.RoleRegistry;
+import indi.ly.crush.model.entity.User;
+import indi.ly.crush.provider.ShiroBasedUsernameProvider;
+import org.springframework.lang.NonNull;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * <h2>用户主体</h2>
+ * <p>
+ *     认证成功后作为主体({@code principal})保存在 {@code PrincipalCollection} 中, 替代完整的 {@link User} 实体. <br />
+ *     它只包含用户 {@code ID} 和用户名, 不含密码、盐、审计字段以及延迟加载的关联集合,
+ *     因此会话、{@code RememberMe Cookie} 和授权缓存的键都只需保存几十个字节. <br />
+ *     主体会随会话保存到其它节点也能读取的存储中, 因此不携带 {@link RoleRegistry} 分配的角色位编号等节点本地的数据. <br /> <br />
+ *
+ *     {@link #equals(Object)} 和 {@link #hashCode()} 只比较用户 {@code ID}, 因此可以稳定地作为授权缓存的键. <br />
+ *     {@link #toString()} 返回用户名, 因此 {@link ShiroBasedUsernameProvider} 等依赖主体字符串形式的代码无需改动.
+ * </p>
+ *
+ * @param id       用户 {@code ID}.
+ * @param username 用户名.
+ * @since 1.0
+ * @see RoleRegistry
+ * @author 云上的云
+ * @formatter:off
+ */
+public record UserPrincipal(long id, @NonNull String username)
+        implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 6816187546934281950L;
+
+    public static @NonNull UserPrincipal of(@NonNull User user) {
+        return new UserPrincipal(user.getId(), user.getUsername());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof UserPrincipal other && this.id == other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        // 连续的用户 ID 经过乘法散列后分布更均匀.
+        return Long.hashCode(this.id * 0x9E3779B97F4A7C15L);
+    }
+
+    @Override
+    public String toString() {
+        return this.username;
+    }
+}
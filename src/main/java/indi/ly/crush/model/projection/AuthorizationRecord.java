@@ -0,0 +1,35 @@
+package indi.ly.crush.model.projection;
+
+import indi.ly.crush.enums.AuthorizationKind;
+import indi.ly.crush.repository.IUserRepository;
+
+/**
+ * <h2>授权记录(带标签的投影)</h2>
+ * <p>
+ *     {@link IUserRepository#findAuthorizationRecordsByUserId(Long)} 查询结果中的一行. <br />
+ *     每一行通过 {@link #getKind() kind} 列标记其含义(角色、直接权限或角色权限), 并在 {@link #getAuthority() authority} 列中携带对应的角色名称或权限资源标识符.
+ * </p>
+ *
+ * @since 1.0
+ * @see AuthorizationKind
+ * @author 云上的云
+ * @formatter:off
+ */
+public interface AuthorizationRecord {
+    /**
+     * <p>
+     *     记录的类型标签, 取值为 {@link AuthorizationKind} 的名称.
+     * </p>
+     *
+     * @return 记录的类型标签.
+     */
+    String getKind();
+    /**
+     * <p>
+     *     角色名称或权限资源标识符.
+     * </p>
+     *
+     * @return 角色名称或权限资源标识符.
+     */
+    String getAuthority();
+}
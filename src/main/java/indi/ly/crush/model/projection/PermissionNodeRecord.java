@@ -0,0 +1,43 @@
+package indi.ly.crush.model.projection;
+
+import indi.ly.crush.authz.PermissionHierarchy;
+import indi.ly.crush.model.entity.Permission;
+
+/**
+ * <h2>权限节点记录(投影)</h2>
+ * <p>
+ *     权限树中的一个节点, 只包含构建 {@link PermissionHierarchy} 所需的列.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public interface PermissionNodeRecord {
+    /**
+     * <p>
+     *     权限的唯一标识符.
+     * </p>
+     *
+     * @return 权限的唯一标识符.
+     */
+    Long getId();
+    /**
+     * <p>
+     *     父权限的唯一标识符.
+     * </p>
+     *
+     * @return 父权限的唯一标识符, 顶层权限为 {@code null} 或 {@code 0}.
+     * @see Permission#getPid()
+     */
+    Long getPid();
+    /**
+     * <p>
+     *     权限资源标识符.
+     * </p>
+     *
+     * @return 权限资源标识符.
+     * @see Permission#getPermission()
+     */
+    String getPermission();
+}
@@ -0,0 +1,42 @@
+package indi.ly.crush.model.projection;
+
+import indi.ly.crush.authz.RolePermissionSnapshot;
+import indi.ly.crush.repository.IRoleRepository;
+
+/**
+ * <h2>角色权限记录(投影)</h2>
+ * <p>
+ *     {@link IRoleRepository#findAllRolePermissionRecords()} 查询结果中的一行, 用于构建 {@link RolePermissionSnapshot}. <br />
+ *     没有任何权限的角色也会返回一行, 此时 {@link #getPermission() permission} 列为 {@code null}.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public interface RolePermissionRecord {
+    /**
+     * <p>
+     *     角色的唯一标识符.
+     * </p>
+     *
+     * @return 角色的唯一标识符.
+     */
+    Long getRoleId();
+    /**
+     * <p>
+     *     角色名称.
+     * </p>
+     *
+     * @return 角色名称.
+     */
+    String getRoleName();
+    /**
+     * <p>
+     *     权限资源标识符.
+     * </p>
+     *
+     * @return 权限资源标识符, 角色没有任何权限时为 {@code null}.
+     */
+    String getPermission();
+}
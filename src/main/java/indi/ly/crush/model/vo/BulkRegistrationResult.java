@@ -0,0 +1,33 @@
+package indi.ly.crush.model.vo;
+
+import indi.ly.crush.enums.BulkRegistrationStatus;
+import indi.ly.crush.model.from.UserRegistration;
+
+/**
+ * <h2>批量注册中单行的结果</h2>
+ *
+ * @param index    该行在请求中的序号, 从 {@code 0} 开始.
+ * @param username 该行的用户名.
+ * @param status   注册结果状态.
+ * @param userId   注册成功时新用户的 {@code ID}, 否则为 {@code null}.
+ * @param message  注册失败的原因, 注册成功时为 {@code null}.
+ * @since 1.0
+ * @see UserRegistration
+ * @author 云上的云
+ * @formatter:off
+ */
+public record BulkRegistrationResult(
+        long index,
+        String username,
+        BulkRegistrationStatus status,
+        Long userId,
+        String message
+) {
+    public static BulkRegistrationResult created(long index, String username, long userId) {
+        return new BulkRegistrationResult(index, username, BulkRegistrationStatus.CREATED, userId, null);
+    }
+
+    public static BulkRegistrationResult rejected(long index, String username, BulkRegistrationStatus status, String message) {
+        return new BulkRegistrationResult(index, username, status, null, message);
+    }
+}
@@ -33,4 +33,11 @@ public class UserVO
      * @see User#getGender() User#gender
      */
     private Gender gender;
+    /**
+     * <p>
+     *     无状态认证模式下签发的访问令牌, 后续请求通过 {@code Authorization: Bearer <访问令牌>} 请求头携带. <br />
+     *     未启用无状态认证模式时为 {@code null}.
+     * </p>
+     */
+    private String accessToken;
 }
@@ -1,6 +1,7 @@
 package indi.ly.crush.provider;
 
 import indi.ly.crush.config.ShiroConfig;
+import indi.ly.crush.model.principal.UserPrincipal;
 import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.UnavailableSecurityManagerException;
 import org.apache.shiro.mgt.SecurityManager;
@@ -58,6 +59,9 @@ public class ShiroBasedUsernameProvider
         if (subject != null) {
             // getPrincipal(): 当前用户的主要信息. 通常, 这个主要信息是一个用户名字符串, 但实际值取决于你的应用如何在 Shiro 中配置身份验证.
             Object principal = subject.getPrincipal();
+            if (principal instanceof UserPrincipal userPrincipal) {
+                return userPrincipal.username();
+            }
             if (principal != null) {
                 return principal.toString();
             }
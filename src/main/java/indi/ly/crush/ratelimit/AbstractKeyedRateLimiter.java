@@ -0,0 +1,82 @@
+package indi.ly.crush.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+
+/**
+ * <h2>按键限流器的抽象实现</h2>
+ * <p>
+ *     每个键的限流状态保存在 {@code Caffeine} 缓存中, 状态的数量受 {@code maxKeys} 限制, 并在 {@code window} 时长内未被访问后过期. <br />
+ *     闲置超过 {@code window} 的状态与新建的状态等价, 因此按时间过期不会放宽限流; 只有在键的数量超出上限而被提前淘汰时, 被淘汰的键才会重新获得完整的配额. <br /> <br />
+ *
+ *     缓存命中时只有 {@code 1} 次无锁的散列表读取, 状态的更新由子类通过 {@code CAS} 完成, 整个获取许可的过程不持有任何锁.
+ * </p>
+ *
+ * @param <S> 每个键的限流状态的类型.
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public abstract class AbstractKeyedRateLimiter<S>
+        implements RateLimiter {
+    protected final int limit;
+    protected final long windowNanos;
+    private final Cache<String, S> states;
+
+    protected AbstractKeyedRateLimiter(int limit, @NonNull Duration window, long maxKeys) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("限流的许可数必须是一个正整数: %d.".formatted(limit));
+        }
+        if (window.isZero() || window.isNegative()) {
+            throw new IllegalArgumentException("限流的时间窗口必须大于 0: %s.".formatted(window));
+        }
+        this.limit = limit;
+        this.windowNanos = window.toNanos();
+        this.states = Caffeine.newBuilder()
+                                .maximumSize(maxKeys)
+                                .expireAfterAccess(window)
+                                .build();
+    }
+
+    @Override
+    public long tryAcquire(@NonNull String key) {
+        long now = System.nanoTime();
+        S state = this.states.get(key, ignored -> this.newState(now));
+        return this.tryAcquire(state, now);
+    }
+
+    /**
+     * <p>
+     *     获取当前保存的限流状态的估计数量.
+     * </p>
+     *
+     * @return 限流状态的估计数量.
+     */
+    public long estimatedSize() {
+        return this.states.estimatedSize();
+    }
+
+    /**
+     * <p>
+     *     为首次出现的键创建拥有完整配额的限流状态.
+     * </p>
+     *
+     * @param nowNanos 当前时间({@link System#nanoTime()}).
+     * @return 新的限流状态.
+     */
+    protected abstract @NonNull S newState(long nowNanos);
+
+    /**
+     * <p>
+     *     在给定的限流状态上尝试获取 {@code 1} 个许可.
+     * </p>
+     *
+     * @param state    限流状态.
+     * @param nowNanos 当前时间({@link System#nanoTime()}).
+     * @return 获取成功时返回 {@code 0}, 否则返回距离下一个许可可用的纳秒数.
+     */
+    protected abstract long tryAcquire(@NonNull S state, long nowNanos);
+}
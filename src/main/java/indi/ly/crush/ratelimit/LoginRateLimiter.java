@@ -0,0 +1,73 @@
+package indi.ly.crush.ratelimit;
+
+import indi.ly.crush.authenticator.CustomModularRealmAuthenticator;
+import indi.ly.crush.config.AppProperties;
+import indi.ly.crush.ex.LoginRateLimitedException;
+import indi.ly.crush.token.SMSCodeToken;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.HostAuthenticationToken;
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.springframework.lang.NonNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>登录限流器</h2>
+ * <p>
+ *     分别按用户名、手机号码和客户端 {@code IP} 对登录尝试限流, 任意一个维度的配额耗尽都会拒绝本次登录. <br />
+ *     它在 {@link CustomModularRealmAuthenticator#doAuthenticate} 中、任何安全域查询数据库或计算密码哈希之前执行,
+ *     因此被拒绝的请求几乎不消耗 {@code CPU}.
+ * </p>
+ *
+ * @since 1.0
+ * @see AppProperties.LoginRateLimitConfig
+ * @author 云上的云
+ * @formatter:off
+ */
+public class LoginRateLimiter {
+    private final RateLimiter usernameLimiter;
+    private final RateLimiter phoneNumberLimiter;
+    private final RateLimiter hostLimiter;
+
+    public LoginRateLimiter(@NonNull AppProperties.LoginRateLimitConfig config) {
+        this.usernameLimiter = createRateLimiter(config, config.getUsername());
+        this.phoneNumberLimiter = createRateLimiter(config, config.getPhoneNumber());
+        this.hostLimiter = createRateLimiter(config, config.getHost());
+    }
+
+    /**
+     * <p>
+     *     为给定的认证令牌获取登录许可.
+     * </p>
+     *
+     * @param token 认证令牌.
+     * @throws LoginRateLimitedException 如果任意一个维度的配额已经耗尽.
+     */
+    public void acquire(@NonNull AuthenticationToken token) throws LoginRateLimitedException {
+        long waitNanos = 0;
+
+        if (token instanceof HostAuthenticationToken hostToken && hostToken.getHost() != null) {
+            waitNanos = this.hostLimiter.tryAcquire(hostToken.getHost());
+        }
+
+        if (token instanceof UsernamePasswordToken usernamePasswordToken && usernamePasswordToken.getUsername() != null) {
+            waitNanos = Math.max(waitNanos, this.usernameLimiter.tryAcquire(usernamePasswordToken.getUsername()));
+        } else if (token instanceof SMSCodeToken smsCodeToken && smsCodeToken.phoneNumber() != null) {
+            waitNanos = Math.max(waitNanos, this.phoneNumberLimiter.tryAcquire(smsCodeToken.phoneNumber()));
+        }
+
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            throw new LoginRateLimitedException("登录尝试过于频繁, 请在 %d 秒后重试.".formatted(retryAfterSeconds), retryAfterSeconds);
+        }
+    }
+
+    private static @NonNull RateLimiter createRateLimiter(
+            @NonNull AppProperties.LoginRateLimitConfig config, @NonNull AppProperties.RateLimitSpec spec
+    ) {
+        return switch (config.getAlgorithm()) {
+            case TOKEN_BUCKET -> new TokenBucketRateLimiter(spec.getLimit(), spec.getWindow(), config.getMaxKeys());
+            case SLIDING_WINDOW_LOG -> new SlidingWindowLogRateLimiter(spec.getLimit(), spec.getWindow(), config.getMaxKeys());
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package indi.ly.crush.ratelimit;
+
+import org.springframework.lang.NonNull;
+
+/**
+ * <h2>按键限流器</h2>
+ * <p>
+ *     每个键(如用户名、手机号码、客户端 {@code IP})拥有独立的配额, 实现类必须是线程安全的.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public interface RateLimiter {
+    /**
+     * <p>
+     *     尝试为给定的键获取 {@code 1} 个许可.
+     * </p>
+     *
+     * @param key 限流的键.
+     * @return 获取成功时返回 {@code 0}, 否则返回距离下一个许可可用的纳秒数(总是大于 {@code 0}).
+     */
+    long tryAcquire(@NonNull String key);
+}
@@ -0,0 +1,66 @@
+package indi.ly.crush.ratelimit;
+
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <h2>滑动窗口日志限流器</h2>
+ * <p>
+ *     每个键用 {@code 1} 个长度为 {@code limit} 的环形数组记录最近 {@code limit} 次被接受的请求时间. <br />
+ *     下一个待写入的槽位保存的正是其中最早的时间, 只要它已经滑出窗口, 就可以接受新的请求:
+ *     <pre>{@code
+ *                  oldest = log[head % limit]
+ *                  now - oldest < window ? 拒绝 : CAS(head, head + 1) 并写入 now
+ *     }</pre>
+ *     与按固定窗口计数相比, 它不会在窗口边界处放过 {@code 2 × limit} 次突发请求; 每个键的内存固定为 {@code limit + 1} 个 {@code long}.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public class SlidingWindowLogRateLimiter
+        extends AbstractKeyedRateLimiter<SlidingWindowLogRateLimiter.Log> {
+
+    public SlidingWindowLogRateLimiter(int limit, @NonNull Duration window, long maxKeys) {
+        super(limit, window, maxKeys);
+    }
+
+    @Override
+    protected @NonNull Log newState(long nowNanos) {
+        return new Log(this.limit, nowNanos - this.windowNanos);
+    }
+
+    @Override
+    protected long tryAcquire(@NonNull Log log, long nowNanos) {
+        while (true) {
+            long head = log.head.get();
+            int slot = (int) (head % this.limit);
+            long oldest = log.timestamps.get(slot);
+            long remaining = oldest + this.windowNanos - nowNanos;
+            if (remaining > 0) {
+                return remaining;
+            }
+            if (log.head.compareAndSet(head, head + 1)) {
+                // 赢得 CAS 的线程独占该槽位, 直到其它线程再接受 limit 次请求后才会再次读到它.
+                log.timestamps.set(slot, nowNanos);
+                return 0;
+            }
+        }
+    }
+
+    static final class Log {
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLongArray timestamps;
+
+        private Log(int limit, long initialTimestamp) {
+            this.timestamps = new AtomicLongArray(limit);
+            for (int i = 0; i < limit; i++) {
+                this.timestamps.set(i, initialTimestamp);
+            }
+        }
+    }
+}
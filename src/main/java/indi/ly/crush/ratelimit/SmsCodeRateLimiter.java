@@ -0,0 +1,55 @@
+package indi.ly.crush.ratelimit;
+
+import indi.ly.crush.config.AppProperties;
+import indi.ly.crush.ex.SmsCodeRateLimitedException;
+import indi.ly.crush.service.IAccountService;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>短信验证码下发限流器</h2>
+ * <p>
+ *     分别按手机号码和客户端 {@code IP} 对下发短信验证码限流, 任意一个维度的配额耗尽都会拒绝本次下发. <br />
+ *     它在 {@link IAccountService#sendSmsCode(String)} 生成和保存验证码之前执行, 防止匿名请求消耗短信费用、
+ *     为任意手机号码占满验证码存储的容量. 同一手机号码的重发冷却时间由验证码存储负责.
+ * </p>
+ *
+ * @since 1.0
+ * @see AppProperties.SmsCodeConfig
+ * @author 云上的云
+ * @formatter:off
+ */
+public class SmsCodeRateLimiter {
+    private final RateLimiter phoneNumberLimiter;
+    private final RateLimiter hostLimiter;
+
+    public SmsCodeRateLimiter(@NonNull AppProperties.SmsCodeConfig config) {
+        AppProperties.RateLimitSpec phoneNumber = config.getPhoneNumberRateLimit();
+        AppProperties.RateLimitSpec host = config.getHostRateLimit();
+        this.phoneNumberLimiter = new TokenBucketRateLimiter(phoneNumber.getLimit(), phoneNumber.getWindow(), config.getRateLimitMaxKeys());
+        this.hostLimiter = new TokenBucketRateLimiter(host.getLimit(), host.getWindow(), config.getRateLimitMaxKeys());
+    }
+
+    /**
+     * <p>
+     *     为给定的手机号码和客户端获取下发许可.
+     * </p>
+     *
+     * @param phoneNumber 手机号码.
+     * @param host        客户端主机名或 {@code IP} 地址, 为 {@code null} 时不按客户端限流.
+     * @throws SmsCodeRateLimitedException 如果任意一个维度的配额已经耗尽.
+     */
+    public void acquire(@NonNull String phoneNumber, @Nullable String host) throws SmsCodeRateLimitedException {
+        long waitNanos = 0;
+        if (host != null) {
+            waitNanos = this.hostLimiter.tryAcquire(host);
+        }
+        waitNanos = Math.max(waitNanos, this.phoneNumberLimiter.tryAcquire(phoneNumber));
+
+        if (waitNanos > 0) {
+            throw SmsCodeRateLimitedException.retryAfterMillis(TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1);
+        }
+    }
+}
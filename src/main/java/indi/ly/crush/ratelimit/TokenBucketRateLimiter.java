@@ -0,0 +1,53 @@
+package indi.ly.crush.ratelimit;
+
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <h2>令牌桶限流器</h2>
+ * <p>
+ *     以通用信元速率算法({@code GCRA})实现的令牌桶: 桶容量为 {@code limit}, 每隔 {@code window / limit} 补充 {@code 1} 个令牌. <br />
+ *     每个键只保存 {@code 1} 个 {@code long} 类型的理论到达时间({@code TAT}), 获取许可时通过 {@code 1} 次 {@code CAS} 将其推进 {@code 1} 个间隔:
+ *     <pre>{@code
+ *                  newTat = max(tat, now) + interval
+ *                  newTat - now > window ? 拒绝 : 接受
+ *     }</pre>
+ *     不需要后台线程补充令牌, 也不需要为每个令牌分配任何对象.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public class TokenBucketRateLimiter
+        extends AbstractKeyedRateLimiter<AtomicLong> {
+    private final long intervalNanos;
+
+    public TokenBucketRateLimiter(int limit, @NonNull Duration window, long maxKeys) {
+        super(limit, window, maxKeys);
+        this.intervalNanos = Math.max(1, this.windowNanos / limit);
+    }
+
+    @Override
+    protected @NonNull AtomicLong newState(long nowNanos) {
+        // TAT 不晚于当前时间即表示桶是满的.
+        return new AtomicLong(nowNanos);
+    }
+
+    @Override
+    protected long tryAcquire(@NonNull AtomicLong state, long nowNanos) {
+        while (true) {
+            long tat = state.get();
+            long newTat = (tat - nowNanos > 0 ? tat : nowNanos) + this.intervalNanos;
+            long excess = newTat - nowNanos - this.windowNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (state.compareAndSet(tat, newTat)) {
+                return 0;
+            }
+        }
+    }
+}
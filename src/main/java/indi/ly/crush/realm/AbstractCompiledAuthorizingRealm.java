@@ -0,0 +1,94 @@
+package indi.ly.crush.realm;
+
+import indi.ly.crush.authz.AuthorizationCacheInvalidator;
+import indi.ly.crush.authz.CompiledAuthorizationInfo;
+import indi.ly.crush.authz.PermissionHierarchyHolder;
+import indi.ly.crush.authz.RoleMaskAware;
+import indi.ly.crush.authz.RoleRegistry;
+import indi.ly.crush.model.principal.UserPrincipal;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.realm.AuthorizingRealm;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * <h2>使用预编译授权信息的安全域的抽象实现</h2>
+ * <p>
+ *     子类提供的授权信息如果是 {@link CompiledAuthorizationInfo}, 则角色位掩码和权限检查都直接使用其中预编译的结构,
+ *     否则退回到 {@link AuthorizingRealm} 的默认实现. <br />
+ *     授权缓存以{@link UserPrincipal#id() 用户 ID} 为键, 其它类型的主体沿用默认的缓存键.
+ * </p>
+ *
+ * @since 1.0
+ * @see UserRealm
+ * @see SMSCodeRealm
+ * @see AccessTokenRealm
+ * @author 云上的云
+ * @formatter:off
+ */
+public abstract class AbstractCompiledAuthorizingRealm
+        extends AuthorizingRealm
+        implements RoleMaskAware {
+    private PermissionHierarchyHolder permissionHierarchyHolder;
+
+    /**
+     * <p>
+     *     设置权限层级持有者, 权限检查时被授予的父权限隐含其所有的后代权限; 为 {@code null} 时只按通配符匹配.
+     * </p>
+     *
+     * @param permissionHierarchyHolder 权限层级持有者.
+     */
+    public void setPermissionHierarchyHolder(@Nullable PermissionHierarchyHolder permissionHierarchyHolder) {
+        this.permissionHierarchyHolder = permissionHierarchyHolder;
+    }
+
+    protected @Nullable PermissionHierarchyHolder getPermissionHierarchyHolder() {
+        return this.permissionHierarchyHolder;
+    }
+
+    /**
+     * <p>
+     *     以{@link UserPrincipal#id() 用户 ID} 作为授权缓存的键, 使得授权变更后可以只凭用户 {@code ID} 失效缓存.
+     * </p>
+     *
+     * @see AuthorizationCacheInvalidator
+     */
+    @Override
+    protected Object getAuthorizationCacheKey(PrincipalCollection principals) {
+        if (principals.getPrimaryPrincipal() instanceof UserPrincipal user) {
+            return user.id();
+        }
+        return super.getAuthorizationCacheKey(principals);
+    }
+
+    /**
+     * <p>
+     *     经过授权缓存获取授权信息, 由本节点的角色注册表计算位掩码.
+     * </p>
+     */
+    @Override
+    public long getRoleMask(@NonNull PrincipalCollection principals, @NonNull RoleRegistry registry) {
+        AuthorizationInfo info = super.getAuthorizationInfo(principals);
+        if (info instanceof CompiledAuthorizationInfo compiledAuthorizationInfo) {
+            return compiledAuthorizationInfo.getRoleMask(registry);
+        }
+        return info == null ? 0L : registry.maskOf(info.getRoles());
+    }
+
+    /**
+     * <p>
+     *     如果授权信息是 {@link CompiledAuthorizationInfo}, 则直接在其预编译的权限前缀树上检查, 避免每次检查都重新解析所有的字符串权限.
+     * </p>
+     */
+    @Override
+    protected boolean isPermitted(Permission permission, AuthorizationInfo info) {
+        if (info instanceof CompiledAuthorizationInfo compiledAuthorizationInfo) {
+            return compiledAuthorizationInfo.implies(
+                    permission, this.permissionHierarchyHolder == null ? null : this.permissionHierarchyHolder.get()
+            );
+        }
+        return super.isPermitted(permission, info);
+    }
+}
@@ -0,0 +1,145 @@
+package indi.ly.crush.realm;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import indi.ly.crush.authz.CompiledAuthorizationInfo;
+import indi.ly.crush.authz.PermissionHierarchy;
+import indi.ly.crush.authz.PermissionHierarchyHolder;
+import indi.ly.crush.authz.RolePermissionSnapshot;
+import indi.ly.crush.authz.RolePermissionSnapshotHolder;
+import indi.ly.crush.filter.AccessTokenAuthenticationFilter;
+import indi.ly.crush.token.AccessTokenClaims;
+import org.apache.shiro.authc.AuthenticationInfo;
+import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * <h2>访问令牌安全域</h2>
+ * <p>
+ *     为 {@link AccessTokenAuthenticationFilter} 构建的无状态主体({@link AccessTokenClaims})提供授权信息, 不参与登录认证. <br />
+ *     令牌中的角色 {@code ID} 通过 {@link RolePermissionSnapshot} 展开为角色名称和角色权限, 直接权限的 {@code ID} 通过 {@link PermissionHierarchy}
+ *     展开为权限资源标识符, 二者都是内存中的副本, 整个过程不访问数据库和会话. <br /> <br />
+ *
+ *     授予相同的令牌共享同一个授权信息, 缓存的条目数量有上限; 快照或权限层级被替换后, 条目会在下次使用时重新构建.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public class AccessTokenRealm
+        extends AbstractCompiledAuthorizingRealm {
+    public static final String NAME = "accessTokenRealm";
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccessTokenRealm.class);
+    private static final int MAX_CACHED_GRANTS = 10_000;
+    private final RolePermissionSnapshotHolder rolePermissionSnapshotHolder;
+    private final PermissionHierarchyHolder permissionHierarchyHolder;
+    private final Cache<Grants, Entry> authorizationInfos = Caffeine.newBuilder().maximumSize(MAX_CACHED_GRANTS).build();
+
+    public AccessTokenRealm(
+            @NonNull RolePermissionSnapshotHolder rolePermissionSnapshotHolder, @NonNull PermissionHierarchyHolder permissionHierarchyHolder
+    ) {
+        super.setName(NAME);
+        this.rolePermissionSnapshotHolder = rolePermissionSnapshotHolder;
+        this.permissionHierarchyHolder = permissionHierarchyHolder;
+        // 权限检查同样使用该权限层级.
+        super.setPermissionHierarchyHolder(permissionHierarchyHolder);
+        // 授权信息按令牌中的授予缓存在本类中, 无需再经过缓存管理器.
+        super.setAuthorizationCachingEnabled(false);
+    }
+
+    @Override
+    public boolean supports(AuthenticationToken token) {
+        return false;
+    }
+
+    @Override
+    protected AuthenticationInfo doGetAuthenticationInfo(AuthenticationToken token) {
+        return null;
+    }
+
+    @Override
+    protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
+        if (!(principals.getPrimaryPrincipal() instanceof AccessTokenClaims claims)) {
+            return null;
+        }
+
+        Grants grants = new Grants(claims.roleIds(), claims.permissionIds());
+        RolePermissionSnapshot snapshot = this.rolePermissionSnapshotHolder.get();
+        PermissionHierarchy hierarchy = this.permissionHierarchyHolder.get();
+        Entry entry = this.authorizationInfos.getIfPresent(grants);
+        if (entry == null || entry.snapshot != snapshot || entry.hierarchy != hierarchy) {
+            entry = this.createEntry(grants, snapshot, hierarchy);
+            this.authorizationInfos.put(grants, entry);
+        }
+        return entry.info;
+    }
+
+    private @NonNull Entry createEntry(@NonNull Grants grants, @NonNull RolePermissionSnapshot snapshot, @NonNull PermissionHierarchy hierarchy) {
+        for (long roleId : grants.roleIds) {
+            if (!snapshot.containsRole(roleId)) {
+                // 角色可能刚刚在其它节点上创建, 本节点的快照尚未刷新.
+                snapshot = this.rolePermissionSnapshotHolder.refreshIfStale(snapshot);
+                break;
+            }
+        }
+
+        Set<String> roles = new HashSet<>();
+        Set<String> permissions = new HashSet<>();
+        for (long roleId : grants.roleIds) {
+            String role = snapshot.roleName(roleId);
+            if (role == null) {
+                LOGGER.warn("访问令牌中的角色 [{}] 不在角色权限快照中, 已忽略.", roleId);
+                continue;
+            }
+            roles.add(role);
+            permissions.addAll(snapshot.permissionsOf(roleId));
+        }
+        for (long permissionId : grants.permissionIds) {
+            String permission = hierarchy.permissionOf(permissionId);
+            if (permission == null) {
+                LOGGER.warn("访问令牌中的权限 [{}] 不在权限层级中, 已忽略.", permissionId);
+                continue;
+            }
+            permissions.add(permission);
+        }
+        return new Entry(snapshot, hierarchy, new CompiledAuthorizationInfo(roles, permissions, snapshot.parsedPermissions()));
+    }
+
+    /**
+     * <p>
+     *     令牌中的授予, 作为授权信息的缓存键. {@link AccessTokenClaims} 保证两个数组都已排序.
+     * </p>
+     *
+     * @param roleIds       角色的 {@code ID}.
+     * @param permissionIds 直接权限的 {@code ID}.
+     */
+    private record Grants(long[] roleIds, long[] permissionIds) {
+        @Override
+        public boolean equals(Object o) {
+            return this == o || (o instanceof Grants other
+                    && Arrays.equals(this.roleIds, other.roleIds)
+                    && Arrays.equals(this.permissionIds, other.permissionIds));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(this.roleIds) + Arrays.hashCode(this.permissionIds);
+        }
+    }
+
+    /**
+     * @param snapshot  构建授权信息时使用的角色权限快照.
+     * @param hierarchy 构建授权信息时使用的权限层级.
+     * @param info      授权信息.
+     */
+    private record Entry(RolePermissionSnapshot snapshot, PermissionHierarchy hierarchy, CompiledAuthorizationInfo info) {}
+}
@@ -2,18 +2,16 @@ package indi.ly.crush.realm;
 
 import indi.ly.crush.json.jaskson.desensitize.DesensitizeStrategyEnum;
 import indi.ly.crush.model.entity.User;
+import indi.ly.crush.model.principal.UserPrincipal;
 import indi.ly.crush.repository.IUserRepository;
+import indi.ly.crush.sms.SmsCodeStore;
 import indi.ly.crush.token.SMSCodeToken;
-import indi.ly.crush.util.base.BaseStringUtil;
 import org.apache.shiro.authc.*;
 import org.apache.shiro.authz.AuthorizationInfo;
-import org.apache.shiro.realm.AuthorizingRealm;
 import org.apache.shiro.realm.Realm;
 import org.apache.shiro.subject.PrincipalCollection;
-import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.lang.NonNull;
 
 /**
  * <h2>短信验证码安全域(短信验证码认证授权域)</h2>
@@ -45,14 +43,16 @@ import org.springframework.lang.NonNull;
  * @formatter:off
  */
 public class SMSCodeRealm
-        extends AuthorizingRealm {
+        extends AbstractCompiledAuthorizingRealm {
     private static final Logger LOGGER = LoggerFactory.getLogger(SMSCodeRealm.class);
     private final IUserRepository userRepository;
     private final UserRealm userRealm;
+    private final SmsCodeStore smsCodeStore;
 
-    public SMSCodeRealm(IUserRepository userRepository, UserRealm userRealm) {
+    public SMSCodeRealm(IUserRepository userRepository, UserRealm userRealm, SmsCodeStore smsCodeStore) {
         this.userRepository = userRepository;
         this.userRealm = userRealm;
+        this.smsCodeStore = smsCodeStore;
         // AuthenticatingRealm 162 行代码.
         super.setAuthenticationTokenClass(SMSCodeToken.class);
     }
@@ -70,35 +70,21 @@ public class SMSCodeRealm
 
         LOGGER.debug("正在认证用户 [{}].", DesensitizeStrategyEnum.maskPhoneNumber(phoneNumber));
 
-        String cachedSmsCode = getSmsCodeFromCache(phoneNumber);
-
-        if (cachedSmsCode == null) {
-            throw new ExpiredCredentialsException("短信验证码已过期.");
-        }
-
-        if (BaseStringUtil.notEquals(smsCode, cachedSmsCode)) {
-            throw new IncorrectCredentialsException("输入的短信验证码错误.");
+        // 校验成功的验证码会被立即消费, 输错次数达到上限的验证码会被立即作废.
+        switch (this.smsCodeStore.verifyAndConsume(phoneNumber, smsCode)) {
+            case EXPIRED -> throw new ExpiredCredentialsException("短信验证码已过期.");
+            case MISMATCHED -> throw new IncorrectCredentialsException("输入的短信验证码错误.");
+            case TOO_MANY_ATTEMPTS -> throw new ExcessiveAttemptsException("短信验证码错误次数过多, 请重新获取.");
+            case MATCHED -> { }
         }
 
         User user = this.userRepository.findByPhoneNumber(phoneNumber);
         UserInfoValidator.validate(user);
 
         return new SimpleAuthenticationInfo(
-                user,
+                UserPrincipal.of(user),
                 smsCode,
                 getName()
         );
     }
-
-    /**
-     * <p>
-     *     从缓存(如 {@code Redis})中获取与指定手机号关联的短信验证码.
-     * </p>
-     *
-     * @param phoneNumber 用户的手机号码.
-     * @return 缓存中的短信验证码, 如果没有找到则返回 {@code null}.
-     */
-    protected @Nullable String getSmsCodeFromCache(@NonNull String phoneNumber) {
-        return null;
-    }
 }
@@ -1,18 +1,33 @@
 package indi.ly.crush.realm;
 
+import indi.ly.crush.authz.CompiledAuthorizationInfo;
+import indi.ly.crush.authz.RoleMembershipIndex;
+import indi.ly.crush.authz.RolePermissionSnapshot;
+import indi.ly.crush.authz.RolePermissionSnapshotHolder;
+import indi.ly.crush.encryp.VersionedCredentialsMatcher;
+import indi.ly.crush.enums.AuthorizationKind;
+import indi.ly.crush.enums.AuthorizationLoadingMode;
 import indi.ly.crush.json.jaskson.desensitize.DesensitizeStrategyEnum;
 import indi.ly.crush.model.entity.User;
+import indi.ly.crush.model.principal.UserPrincipal;
+import indi.ly.crush.model.projection.AuthorizationRecord;
 import indi.ly.crush.repository.IUserRepository;
 import org.apache.shiro.authc.*;
 import org.apache.shiro.authz.AuthorizationInfo;
-import org.apache.shiro.authz.SimpleAuthorizationInfo;
 import org.apache.shiro.realm.AuthorizingRealm;
 import org.apache.shiro.realm.jdbc.JdbcRealm;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.apache.shiro.util.SimpleByteSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -42,31 +57,117 @@ import java.util.Set;
  * @since 1.0
  * @see JdbcRealm
  * @see AuthorizingRealm#getAuthorizationInfo(PrincipalCollection)
+ * @see CompiledAuthorizationInfo
  * @author 云上的云
  * @formatter:off
  */
 public class UserRealm
-        extends AuthorizingRealm {
+        extends AbstractCompiledAuthorizingRealm {
     private static final Logger LOGGER = LoggerFactory.getLogger(UserRealm.class);
     private final IUserRepository userRepository;
+    private AuthorizationLoadingMode authorizationLoadingMode = AuthorizationLoadingMode.SINGLE_QUERY;
+    private RoleMembershipIndex roleMembershipIndex;
+    private RolePermissionSnapshotHolder rolePermissionSnapshotHolder;
 
     public UserRealm(IUserRepository userRepository) {
         this.userRepository = userRepository;
     }
 
+    /**
+     * <p>
+     *     设置授权信息的加载模式, 默认为 {@link AuthorizationLoadingMode#SINGLE_QUERY}.
+     * </p>
+     *
+     * @param authorizationLoadingMode 授权信息的加载模式.
+     */
+    public void setAuthorizationLoadingMode(@NonNull AuthorizationLoadingMode authorizationLoadingMode) {
+        this.authorizationLoadingMode = authorizationLoadingMode;
+    }
+
+    /**
+     * <p>
+     *     设置角色成员反向索引, 加载授权信息后在其中登记用户的角色, 用于角色变更后只失效受影响用户的授权缓存; 为 {@code null} 时不登记.
+     * </p>
+     *
+     * @param roleMembershipIndex 角色成员反向索引.
+     */
+    public void setRoleMembershipIndex(@Nullable RoleMembershipIndex roleMembershipIndex) {
+        this.roleMembershipIndex = roleMembershipIndex;
+    }
+
+    /**
+     * <p>
+     *     设置角色权限快照持有者, {@link AuthorizationLoadingMode#ROLE_SNAPSHOT} 模式下必须设置.
+     * </p>
+     *
+     * @param rolePermissionSnapshotHolder 角色权限快照持有者.
+     */
+    public void setRolePermissionSnapshotHolder(@Nullable RolePermissionSnapshotHolder rolePermissionSnapshotHolder) {
+        this.rolePermissionSnapshotHolder = rolePermissionSnapshotHolder;
+    }
+
     @Override
     protected AuthorizationInfo doGetAuthorizationInfo(PrincipalCollection principals) {
-        User user = (User) principals.getPrimaryPrincipal();
-        String username = user.getUsername();
-        String desensitizedUsername = DesensitizeStrategyEnum.maskUsername(user.getUsername());
+        // 无状态访问令牌的主体由 AccessTokenRealm 提供授权信息.
+        if (!(principals.getPrimaryPrincipal() instanceof UserPrincipal user)) {
+            return null;
+        }
+        String desensitizedUsername = DesensitizeStrategyEnum.maskUsername(user.username());
         LOGGER.debug("为用户 [{}] 加载角色和权限.", desensitizedUsername);
 
+        AuthorizationInfo info = switch (this.authorizationLoadingMode) {
+            case SINGLE_QUERY -> this.loadAuthorizationInfoInSingleQuery(user, desensitizedUsername);
+            case MULTI_QUERY -> this.loadAuthorizationInfoInMultiQuery(user, desensitizedUsername);
+            case ROLE_SNAPSHOT -> this.loadAuthorizationInfoFromSnapshot(user, desensitizedUsername);
+        };
+        if (this.roleMembershipIndex != null) {
+            this.roleMembershipIndex.register(user.id(), info.getRoles());
+        }
+        return info;
+    }
+
+    /**
+     * <p>
+     *     通过 {@code 1} 条查询加载用户的角色、直接权限以及角色权限.
+     * </p>
+     *
+     * @param user                 用户.
+     * @param desensitizedUsername 脱敏后的用户名, 仅用于日志输出.
+     * @return 用户的授权信息.
+     * @see IUserRepository#findAuthorizationRecordsByUserId(Long)
+     */
+    private @NonNull AuthorizationInfo loadAuthorizationInfoInSingleQuery(@NonNull UserPrincipal user, String desensitizedUsername) {
+        List<AuthorizationRecord> records = this.userRepository.findAuthorizationRecordsByUserId(user.id());
+
+        Set<String> roles = new HashSet<>();
+        Set<String> permissions = new HashSet<>();
+        for (AuthorizationRecord record : records) {
+            switch (AuthorizationKind.valueOf(record.getKind())) {
+                case ROLE -> roles.add(record.getAuthority());
+                case PERMISSION, ROLE_PERMISSION -> permissions.add(record.getAuthority());
+            }
+        }
+        LOGGER.info("用户 [{}] 加载的角色 [{}], 权限(含角色权限) [{}].", desensitizedUsername, roles, permissions);
+
+        return new CompiledAuthorizationInfo(roles, permissions);
+    }
+
+    /**
+     * <p>
+     *     通过 {@code 3} 条查询分别加载用户的角色、直接权限以及角色权限.
+     * </p>
+     *
+     * @param user                 用户.
+     * @param desensitizedUsername 脱敏后的用户名, 仅用于日志输出.
+     * @return 用户的授权信息.
+     */
+    private @NonNull AuthorizationInfo loadAuthorizationInfoInMultiQuery(@NonNull UserPrincipal user, String desensitizedUsername) {
+        String username = user.username();
+
         // 加载用户的角色.
         Set<String> roles = this.userRepository.findRolesByUsername(username);
         LOGGER.info("用户 [{}] 加载的角色 [{}].", desensitizedUsername, roles);
 
-        SimpleAuthorizationInfo authorizationInfo = new SimpleAuthorizationInfo(roles);
-
         // 加载用户的直接权限.
         Set<String> permissions = this.userRepository.findPermissionsByUsername(username);
         LOGGER.info("用户 [{}] 加载的直接权限 [{}].", desensitizedUsername, permissions);
@@ -77,9 +178,85 @@ public class UserRealm
 
         // 合并直接权限和角色权限.
         permissions.addAll(rolePermissions);
-        authorizationInfo.setStringPermissions(permissions);
 
-        return authorizationInfo;
+        return new CompiledAuthorizationInfo(roles, permissions);
+    }
+
+    /**
+     * <p>
+     *     通过 {@code 1} 条查询加载用户的角色 {@code ID} 和直接权限, 再从 {@link RolePermissionSnapshot} 中展开角色名称和角色权限. <br />
+     *     遇到快照中不存在的角色(例如快照构建之后新建的角色)时刷新一次快照, 仍不存在的角色被忽略.
+     * </p>
+     *
+     * @param user                 用户.
+     * @param desensitizedUsername 脱敏后的用户名, 仅用于日志输出.
+     * @return 用户的授权信息.
+     * @see IUserRepository#findRoleIdsAndPermissionsByUserId(Long)
+     */
+    private @NonNull AuthorizationInfo loadAuthorizationInfoFromSnapshot(@NonNull UserPrincipal user, String desensitizedUsername) {
+        if (this.rolePermissionSnapshotHolder == null) {
+            throw new IllegalStateException("授权信息加载模式为 ROLE_SNAPSHOT 时必须设置角色权限快照持有者.");
+        }
+        List<AuthorizationRecord> records = this.userRepository.findRoleIdsAndPermissionsByUserId(user.id());
+
+        List<Long> roleIds = new ArrayList<>();
+        Set<String> permissions = new HashSet<>();
+        for (AuthorizationRecord record : records) {
+            switch (AuthorizationKind.valueOf(record.getKind())) {
+                case ROLE_ID -> roleIds.add(Long.valueOf(record.getAuthority()));
+                case PERMISSION -> permissions.add(record.getAuthority());
+                default -> { }
+            }
+        }
+
+        RolePermissionSnapshot snapshot = this.rolePermissionSnapshotHolder.get();
+        for (Long roleId : roleIds) {
+            if (!snapshot.containsRole(roleId)) {
+                snapshot = this.rolePermissionSnapshotHolder.refreshIfStale(snapshot);
+                break;
+            }
+        }
+
+        Set<String> roles = new HashSet<>();
+        for (Long roleId : roleIds) {
+            String role = snapshot.roleName(roleId);
+            if (role == null) {
+                LOGGER.warn("用户 [{}] 的角色 [{}] 不在角色权限快照中, 已忽略.", desensitizedUsername, roleId);
+                continue;
+            }
+            roles.add(role);
+            permissions.addAll(snapshot.permissionsOf(roleId));
+        }
+        LOGGER.info("用户 [{}] 加载的角色 [{}], 权限(含角色权限) [{}].", desensitizedUsername, roles, permissions);
+
+        return new CompiledAuthorizationInfo(roles, permissions, snapshot.parsedPermissions());
+    }
+
+    /**
+     * <p>
+     *     在凭证匹配成功后, 如果用户保存的密码哈希落后于当前的目标算法或代价, 则使用提交的密码重新哈希并保存. <br />
+     *     升级失败不会影响本次登录.
+     * </p>
+     *
+     * @see VersionedCredentialsMatcher#rehashIfNeeded
+     */
+    @Override
+    protected void assertCredentialsMatch(AuthenticationToken token, AuthenticationInfo info) throws AuthenticationException {
+        super.assertCredentialsMatch(token, info);
+
+        UserPrincipal user = (UserPrincipal) info.getPrincipals().getPrimaryPrincipal();
+        if (super.getCredentialsMatcher() instanceof VersionedCredentialsMatcher matcher && info instanceof SaltedAuthenticationInfo saltedInfo) {
+            // 盐值由 doGetAuthenticationInfo 以 UTF-8 编码保存在认证信息中, 主体本身不再携带盐值.
+            String salt = new String(saltedInfo.getCredentialsSalt().getBytes(), StandardCharsets.UTF_8);
+            try {
+                matcher.rehashIfNeeded(token, info, salt).ifPresent(newPassword -> {
+                    this.userRepository.updatePassword(user.id(), newPassword);
+                    LOGGER.info("用户 [{}] 的密码哈希已升级.", DesensitizeStrategyEnum.maskUsername(user.username()));
+                });
+            } catch (RuntimeException e) {
+                LOGGER.warn("升级用户 [{}] 的密码哈希失败.", DesensitizeStrategyEnum.maskUsername(user.username()), e);
+            }
+        }
     }
 
     @Override
@@ -98,8 +275,9 @@ public class UserRealm
         UserInfoValidator.validate(user);
 
         // Shiro 会自动验证密码是否匹配, 若不匹配会抛出 IncorrectCredentialsException 异常.
+        // 主体只保存轻量的 UserPrincipal, 不再把 JPA 实体放入会话和缓存.
         return new SimpleAuthenticationInfo(
-                user,
+                UserPrincipal.of(user),
                 user.getPassword(), // 数据库中的加密密码.
                 new SimpleByteSource(user.getSalt()),
                 getName() // 当前 Realm 的名称.
@@ -0,0 +1,351 @@
+package indi.ly.crush.registration;
+
+import indi.ly.crush.authz.AuthorizationCacheInvalidator;
+import indi.ly.crush.authz.AuthorizationChangeEvent;
+import indi.ly.crush.bloom.UsernameBloomFilter;
+import indi.ly.crush.config.AppProperties;
+import indi.ly.crush.encryp.PasswordEncryption;
+import indi.ly.crush.encryp.VersionedPasswordService;
+import indi.ly.crush.enums.BulkRegistrationStatus;
+import indi.ly.crush.enums.Gender;
+import indi.ly.crush.id.HiLoIdAllocator;
+import indi.ly.crush.model.from.UserRegistration;
+import indi.ly.crush.model.vo.BulkRegistrationResult;
+import indi.ly.crush.provider.ShiroBasedUsernameProvider;
+import indi.ly.crush.repository.IUserRepository;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
+import org.intellij.lang.annotations.Language;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * <h2>批量用户注册器</h2>
+ * <p>
+ *     逐行读取注册信息, 每凑满 {@code batchSize} 行处理一个批次:
+ *     <ol>
+ *         <li>
+ *             查重: <br />
+ *             先查询{@link UsernameBloomFilter 用户名布隆过滤器}, 只对可能已被占用的用户名执行 {@code 1} 次 {@code IN} 查询.
+ *         </li>
+ *         <li>
+ *             并行哈希: <br />
+ *             在专用的有界线程池上并行计算密码哈希. 队列已满时由调用线程自己计算(而不是拒绝), 以此对调用方施加背压. <br />
+ *             该线程池与交互式登录、注册使用的 {@link indi.ly.crush.encryp.PasswordHashingExecutor} 相互独立, 导入大量账户时不会挤占登录请求.
+ *         </li>
+ *         <li>
+ *             批量写入: <br />
+ *             主键由与 {@code User} 实体共享的 {@link HiLoIdAllocator} 预先分配, 然后在同一个事务中以 {@code JDBC} 批处理插入 {@code t_user} 和 {@code t_user_role},
+ *             配合 {@code rewriteBatchedStatements=true} 每个批次只需少量往返. <br />
+ *             如果整个批次写入失败(例如并发注册了相同的用户名), 则逐行重试, 只有真正冲突的行会失败.
+ *         </li>
+ *     </ol>
+ *     每一行都会产生一个 {@link BulkRegistrationResult}. 不合法的行会立即产生结果, 其它行在所在批次处理完成后产生结果,
+ *     因此结果的顺序与请求的顺序不一定相同, 请通过 {@link BulkRegistrationResult#index()} 对应.
+ * </p>
+ *
+ * @since 1.0
+ * @see AppProperties.BulkRegistrationConfig
+ * @author 云上的云
+ * @formatter:off
+ */
+public class BulkUserRegistrar
+        implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkUserRegistrar.class);
+    @Language("MySQL")
+    private static final String INSERT_USER_SQL = """
+            INSERT INTO t_user(id, username, password, phone_number, salt, gender, locked, enabled, create_time, last_modified_time, created_by, last_modified_by)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+    @Language("MySQL")
+    private static final String ASSIGN_ROLE_SQL = "INSERT INTO t_user_role(user_id, role_id) VALUES (?, ?)";
+    private final IUserRepository userRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final VersionedPasswordService passwordService;
+    private final UsernameBloomFilter usernameBloomFilter;
+    private final ShiroBasedUsernameProvider usernameProvider = new ShiroBasedUsernameProvider();
+    private final int batchSize;
+    private final ThreadPoolExecutor hashingPool;
+    private final HiLoIdAllocator idAllocator;
+    private final HiLoIdAllocator.BlockReserver idBlockReserver;
+
+    public BulkUserRegistrar(
+            @NonNull IUserRepository userRepository,
+            @NonNull EntityManager entityManager,
+            @NonNull DataSource dataSource,
+            @NonNull TransactionTemplate transactionTemplate,
+            @NonNull VersionedPasswordService passwordService,
+            @NonNull UsernameBloomFilter usernameBloomFilter,
+            @NonNull AppProperties.BulkRegistrationConfig config
+    ) {
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordService = passwordService;
+        this.usernameBloomFilter = usernameBloomFilter;
+        this.batchSize = config.getBatchSize();
+        // 与 User 实体共享同一个号段分配器, 主键在插入前分配.
+        this.idAllocator = HiLoIdAllocator.of("t_user", 50);
+        this.idBlockReserver = HiLoIdAllocator.reserverOf(dataSource);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.hashingPool = new ThreadPoolExecutor(
+                config.getHashingThreads(), config.getHashingThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.batchSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bulk-password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    /**
+     * <p>
+     *     注册给定的所有用户, 并为每一行产生一个结果.
+     * </p>
+     *
+     * @param registrations  注册信息, 逐行读取.
+     * @param resultConsumer 结果的接收者, 在调用线程上被调用.
+     */
+    public void register(@NonNull Iterator<UserRegistration> registrations, @NonNull Consumer<BulkRegistrationResult> resultConsumer) {
+        // 在请求线程上获取当前用户, 作为新用户的创建者.
+        String operator = this.usernameProvider.getCurrentUsername();
+        long start = System.nanoTime();
+        long index = 0;
+        List<Row> chunk = new ArrayList<>(this.batchSize);
+        Set<String> chunkUsernames = new HashSet<>(this.batchSize * 2);
+
+        while (registrations.hasNext()) {
+            UserRegistration registration = registrations.next();
+            long rowIndex = index++;
+            String username = registration == null ? null : registration.getUsername();
+
+            String invalidReason = validate(registration);
+            if (invalidReason != null) {
+                resultConsumer.accept(BulkRegistrationResult.rejected(rowIndex, username, BulkRegistrationStatus.INVALID, invalidReason));
+                continue;
+            }
+            // 前面批次中的用户名已经提交并写入布隆过滤器, 由查重步骤发现; 此处只需排除同一批次内的重复.
+            if (!chunkUsernames.add(username)) {
+                resultConsumer.accept(BulkRegistrationResult.rejected(rowIndex, username, BulkRegistrationStatus.DUPLICATE, "与同一批次中前面的行重复."));
+                continue;
+            }
+
+            chunk.add(new Row(rowIndex, registration));
+            if (chunk.size() == this.batchSize) {
+                this.registerChunk(chunk, operator, resultConsumer);
+                chunk.clear();
+                chunkUsernames.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            this.registerChunk(chunk, operator, resultConsumer);
+        }
+
+        LOGGER.info("批量注册处理完毕, 共 [{}] 行, 耗时 [{}ms].", index, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @Override
+    public void close() {
+        this.hashingPool.shutdownNow();
+    }
+
+    private void registerChunk(@NonNull List<Row> chunk, @NonNull String operator, @NonNull Consumer<BulkRegistrationResult> resultConsumer) {
+        // 1. 查重: 布隆过滤器判定一定未被占用的用户名不查询数据库.
+        List<String> candidates = new ArrayList<>();
+        for (Row row : chunk) {
+            if (this.usernameBloomFilter.mightContain(row.username())) {
+                candidates.add(row.username());
+            }
+        }
+        Set<String> existing = candidates.isEmpty() ? Set.of() : this.userRepository.findExistingUsernames(candidates);
+        if (existing.size() < candidates.size()) {
+            for (String candidate : candidates) {
+                if (!existing.contains(candidate)) {
+                    this.usernameBloomFilter.recordFalsePositive();
+                }
+            }
+        }
+
+        // 2. 并行哈希.
+        List<Row> accepted = new ArrayList<>(chunk.size());
+        List<Future<String[]>> hashes = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (existing.contains(row.username())) {
+                resultConsumer.accept(BulkRegistrationResult.rejected(row.index(), row.username(), BulkRegistrationStatus.DUPLICATE, "用户名已占用."));
+                continue;
+            }
+            accepted.add(row);
+            hashes.add(this.hashingPool.submit(() -> {
+                String salt = PasswordEncryption.generateSalt();
+                return new String[] {salt, this.passwordService.encode(row.registration().getPassword().toCharArray(), salt)};
+            }));
+        }
+
+        List<PreparedUser> prepared = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            Row row = accepted.get(i);
+            try {
+                String[] saltAndPassword = hashes.get(i).get();
+                prepared.add(new PreparedUser(row, saltAndPassword[0], saltAndPassword[1]));
+            } catch (ExecutionException e) {
+                LOGGER.error("批量注册第 [{}] 行计算密码哈希失败.", row.index(), e.getCause());
+                resultConsumer.accept(BulkRegistrationResult.rejected(row.index(), row.username(), BulkRegistrationStatus.FAILED, "计算密码哈希失败."));
+            } catch (InterruptedException e) {
+                hashes.forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待密码哈希结果时线程被中断.", e);
+            }
+        }
+        if (prepared.isEmpty()) {
+            return;
+        }
+
+        // 3. 批量写入, 整批失败时逐行重试.
+        long[] ids;
+        try {
+            ids = this.insert(prepared, operator);
+        } catch (RuntimeException e) {
+            LOGGER.warn("批量写入 [{}] 个用户失败, 改为逐行写入. {}", prepared.size(), e.getMessage());
+            for (PreparedUser user : prepared) {
+                resultConsumer.accept(this.insertOne(user, operator));
+            }
+            return;
+        }
+        for (int i = 0; i < prepared.size(); i++) {
+            Row row = prepared.get(i).row();
+            // 事务已提交, 写入过滤器.
+            this.usernameBloomFilter.put(row.username());
+            resultConsumer.accept(BulkRegistrationResult.created(row.index(), row.username(), ids[i]));
+        }
+    }
+
+    private @NonNull BulkRegistrationResult insertOne(@NonNull PreparedUser user, @NonNull String operator) {
+        Row row = user.row();
+        try {
+            long id = this.insert(List.of(user), operator)[0];
+            this.usernameBloomFilter.put(row.username());
+            return BulkRegistrationResult.created(row.index(), row.username(), id);
+        } catch (ConstraintViolationException e) {
+            return BulkRegistrationResult.rejected(row.index(), row.username(), BulkRegistrationStatus.DUPLICATE, "用户名已占用.");
+        } catch (RuntimeException e) {
+            LOGGER.error("批量注册第 [{}] 行写入失败.", row.index(), e);
+            return BulkRegistrationResult.rejected(row.index(), row.username(), BulkRegistrationStatus.FAILED, "写入数据库失败.");
+        }
+    }
+
+    /**
+     * <p>
+     *     在同一个事务中批量插入用户及其角色.
+     * </p>
+     *
+     * @param users    已计算密码哈希的用户.
+     * @param operator 创建者.
+     * @return 与 {@code users} 一一对应的用户 {@code ID}.
+     */
+    private @NonNull long[] insert(@NonNull List<PreparedUser> users, @NonNull String operator) {
+        // 在事务之外分配主键: 号段在独立的事务中预留, 本事务回滚不会归还号段.
+        long[] ids = this.idAllocator.nextIds(users.size(), this.idBlockReserver);
+        return this.transactionTemplate.execute(status -> this.entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_USER_SQL)) {
+                for (int i = 0; i < ids.length; i++) {
+                    PreparedUser user = users.get(i);
+                    UserRegistration registration = user.row().registration();
+                    ps.setLong(1, ids[i]);
+                    ps.setString(2, registration.getUsername());
+                    ps.setString(3, user.password());
+                    ps.setString(4, registration.getPhoneNumber());
+                    ps.setString(5, user.salt());
+                    ps.setInt(6, Gender.UNKNOWN.ordinal());
+                    ps.setBoolean(7, false);
+                    ps.setBoolean(8, true);
+                    ps.setTimestamp(9, now);
+                    ps.setTimestamp(10, now);
+                    ps.setString(11, operator);
+                    ps.setString(12, operator);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+
+            try (PreparedStatement ps = connection.prepareStatement(ASSIGN_ROLE_SQL)) {
+                for (int i = 0; i < ids.length; i++) {
+                    ps.setLong(1, ids[i]);
+                    ps.setLong(2, (long) users.get(i).row().registration().getRole().ordinal() + 1);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+
+            // 事务提交之后发布, 其它节点据此将用户名写入各自的布隆过滤器.
+            for (int i = 0; i < ids.length; i++) {
+                AuthorizationCacheInvalidator.publish(AuthorizationChangeEvent.ofRegisteredUser(ids[i], users.get(i).row().username()));
+            }
+            return ids;
+        }));
+    }
+
+    /**
+     * <p>
+     *     校验注册信息.
+     * </p>
+     *
+     * @param registration 注册信息.
+     * @return 不合法的原因; 合法时返回 {@code null}.
+     */
+    private static @Nullable String validate(@Nullable UserRegistration registration) {
+        if (registration == null) {
+            return "注册信息为空.";
+        }
+        if (!StringUtils.hasText(registration.getUsername()) || registration.getUsername().length() > 64) {
+            return "用户名不能为空, 且长度不能超过 64.";
+        }
+        if (!StringUtils.hasText(registration.getPassword())) {
+            return "密码不能为空.";
+        }
+        if (!StringUtils.hasText(registration.getPhoneNumber()) || registration.getPhoneNumber().length() > 11) {
+            return "手机号码不能为空, 且长度不能超过 11.";
+        }
+        if (registration.getRole() == null) {
+            return "角色不能为空.";
+        }
+        return null;
+    }
+
+    private record Row(long index, @NonNull UserRegistration registration) {
+        private @NonNull String username() {
+            return this.registration.getUsername();
+        }
+    }
+
+    private record PreparedUser(@NonNull Row row, @NonNull String salt, @NonNull String password) {
+    }
+}
@@ -1,7 +1,13 @@
 package indi.ly.crush.repository;
 
+import indi.ly.crush.authz.PermissionHierarchy;
 import indi.ly.crush.model.entity.Permission;
+import indi.ly.crush.model.projection.PermissionNodeRecord;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 /**
  * <h2>权限存储库</h2>
@@ -12,5 +18,24 @@ import org.springframework.data.jpa.repository.JpaRepository;
  */
 public interface IPermissionRepository
 		extends JpaRepository<Permission, Long> {
+	/**
+	 * <p>
+	 *     获取所有权限的 {@code ID}、父权限 {@code ID} 以及资源标识符, 用于构建 {@link PermissionHierarchy}.
+	 * </p>
+	 *
+	 * @return 权限节点记录列表.
+	 */
+	@Query(value = " SELECT p.id AS id, p.pid AS pid, p.permission AS permission FROM Permission p ORDER BY p.id ")
+	List<PermissionNodeRecord> findAllPermissionNodes();
 
-}
\ No newline at end of file
+	/**
+	 * <p>
+	 *     获取给定权限的 {@code ID}、父权限 {@code ID} 以及资源标识符, 用于增量更新 {@link PermissionHierarchy}.
+	 * </p>
+	 *
+	 * @param id 权限的唯一标识符.
+	 * @return 权限节点记录, 如果权限不存在则返回 {@code null}.
+	 */
+	@Query(value = " SELECT p.id AS id, p.pid AS pid, p.permission AS permission FROM Permission p WHERE p.id = :id ")
+	PermissionNodeRecord findPermissionNodeById(@Param("id") Long id);
+}
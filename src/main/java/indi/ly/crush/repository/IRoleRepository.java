@@ -1,9 +1,17 @@
 package indi.ly.crush.repository;
 
+import indi.ly.crush.authz.AuthorizationCacheInvalidator;
+import indi.ly.crush.authz.AuthorizationChangeEvent;
+import indi.ly.crush.authz.RolePermissionSnapshot;
 import indi.ly.crush.model.entity.Role;
+import indi.ly.crush.model.projection.RolePermissionRecord;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Set;
 
 /**
  * <h2>角色存储库</h2>
@@ -19,7 +27,9 @@ public interface IRoleRepository
 	 *     将指定的角色分配给用户. <br /> <br />
 	 *
 	 *     使用原生 {@code SQL} 插入命令来在 {@code t_user_role} 表中创建一个新的用户角色关系. <br />
-	 *     这个表链接用户和角色, 每一行表示一个用户被分配了一个特定的角色.
+	 *     这个表链接用户和角色, 每一行表示一个用户被分配了一个特定的角色. <br /> <br />
+	 *
+	 *     原生 {@code SQL} 不会触发 {@code JPA} 实体监听器, 因此插入之后总是发布该用户的授权变更事件, 事件在事务提交之后才真正发布.
 	 * </p>
 	 *
 	 * @param userId 用户的唯一标识符, 指代具体的用户.
@@ -29,7 +39,59 @@ public interface IRoleRepository
 	 * 			如果 {@code userId} 或 {@code roleId} 所表示的用户或角色不存在,
 	 * 			在插入过程中可能会抛出 {@code SQL} 异常或产生冗余数据(取决数据库表有没有设置外键).
 	 */
+	default void assignRoleToUser(Long userId, Long roleId) {
+		this.insertUserRole(userId, roleId);
+		AuthorizationCacheInvalidator.publish(AuthorizationChangeEvent.ofUser(userId));
+	}
+
+	/**
+	 * <p>
+	 *     在 {@code t_user_role} 表中插入一个用户角色关系, 不发布授权变更事件. <br />
+	 *     仅供 {@link #assignRoleToUser(Long, Long)} 使用, 请不要直接调用.
+	 * </p>
+	 *
+	 * @param userId 用户的唯一标识符.
+	 * @param roleId 角色的唯一标识符.
+	 */
 	@Modifying
 	@Query(value = " INSERT INTO t_user_role (user_id, role_id) VALUES (?1, ?2) ", nativeQuery = true)
-	void assignRoleToUser(Long userId, Long roleId);
-}
\ No newline at end of file
+	void insertUserRole(Long userId, Long roleId);
+
+	/**
+	 * <p>
+	 *     按 {@code ID} 升序获取 {@code t_role} 表中全部角色的名称.
+	 * </p>
+	 *
+	 * @return 角色名称列表.
+	 */
+	@Query(value = " SELECT r.name FROM Role r ORDER BY r.id ")
+	List<String> findAllRoleNames();
+
+	/**
+	 * <p>
+	 *     获取包含给定权限的所有角色的名称, 用于权限变更后找出受影响的角色.
+	 * </p>
+	 *
+	 * @param permissionId 权限的唯一标识符.
+	 * @return 角色名称集合. 如果没有角色包含该权限, 返回空集合.
+	 */
+	@Query(value = " SELECT r.name FROM Role r JOIN r.permissions p WHERE p.id = :permissionId ")
+	Set<String> findRoleNamesByPermissionId(@Param("permissionId") Long permissionId);
+
+	/**
+	 * <p>
+	 *     使用原生 {@code SQL} 一次性获取所有角色及其权限的资源标识符, 用于构建 {@link RolePermissionSnapshot}.
+	 * </p>
+	 *
+	 * @return 角色权限记录列表, 没有任何权限的角色也会返回一行.
+	 */
+	@Query(
+			value = """
+					SELECT r.id AS roleId, r.name AS roleName, p.shiro_permission AS permission FROM t_role r
+					LEFT JOIN t_role_permissions rp ON r.id = rp.role_id
+					LEFT JOIN t_permission p ON rp.permissions_id = p.id
+					""",
+			nativeQuery = true
+	)
+	List<RolePermissionRecord> findAllRolePermissionRecords();
+}
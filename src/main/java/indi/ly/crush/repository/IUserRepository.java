@@ -1,11 +1,23 @@
 package indi.ly.crush.repository;
 
+import indi.ly.crush.enums.AuthorizationKind;
 import indi.ly.crush.model.entity.User;
+import indi.ly.crush.model.projection.AuthorizationRecord;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 /**
  * <h2>用户存储库</h2>
@@ -26,6 +38,45 @@ public interface IUserRepository
      */
     @Query(value = "SELECT new User(u.id, u.username, u.password, u.salt) FROM User u WHERE u.username = :username")
     User findUserByUsername(@Param("username") String username);
+
+    /**
+     * <p>
+     *     使用 {@code JPQL} 判断给定的{@link User#getUsername() 用户名}是否已被占用.
+     * </p>
+     *
+     * @param username 用户名.
+     * @return 如果存在该用户名的用户, 返回 {@code true}.
+     */
+    @Query(value = "SELECT COUNT(u) > 0 FROM User u WHERE u.username = :username")
+    boolean existsUsername(@Param("username") String username);
+
+    /**
+     * <p>
+     *     使用 {@code JPQL} 从给定的{@link User#getUsername() 用户名}中找出已被占用的用户名, 用于批量注册时一次性查重.
+     * </p>
+     *
+     * @param usernames 待检查的用户名.
+     * @return 已被占用的用户名. 如果都未被占用, 返回空集合.
+     */
+    @Query(value = "SELECT u.username FROM User u WHERE u.username IN :usernames")
+    Set<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * <p>
+     *     使用 {@code JPQL} 流式读取所有用户的{@link User#getUsername() 用户名}, 用于构建用户名布隆过滤器. <br /> <br />
+     *
+     *     抓取大小为 {@link Integer#MIN_VALUE} 时 {@code MySQL} 驱动逐行返回结果, 而不是将整个结果集读入内存. <br />
+     *     请你注意, 必须在事务中调用, 并在使用完毕后关闭返回的 {@link Stream}.
+     * </p>
+     *
+     * @return 所有用户名的流.
+     */
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query(value = "SELECT u.username FROM User u")
+    Stream<String> streamAllUsernames();
     /**
      * <p>
      *     使用原生 {@code SQL} 根据给定的{@link User#getUsername() 用户名}查找与之关联的所有角色名称.
@@ -87,6 +138,97 @@ public interface IUserRepository
     )
     Set<String> findRolePermissionsByUsername(@Param("username") String username);
 
+    /**
+     * <p>
+     *     使用原生 {@code SQL} 根据给定的{@link User#getId() 用户 ID} 一次性查询用户的角色、直接权限以及角色权限(间接权限). <br /> <br />
+     *
+     *     与分别调用 {@link #findRolesByUsername(String)}、{@link #findPermissionsByUsername(String)}、{@link #findRolePermissionsByUsername(String)} 相比,
+     *     本方法只需要 {@code 1} 次数据库往返, 且直接以关联表中的 {@code user_id} 作为条件, 无需回表关联 {@code t_user}. <br />
+     *     每一行结果都通过 {@code kind} 列标记其类型, 请浏览 {@link AuthorizationKind}.
+     * </p>
+     *
+     * @param userId 用户的唯一标识符.
+     * @return 带类型标签的授权记录列表. 如果用户不存在或没有任何角色和权限, 返回空列表.
+     */
+    @Query(
+            value = """
+                    SELECT 'ROLE' AS kind, r.name AS authority FROM t_role r
+                    JOIN t_user_role ur ON r.id = ur.role_id
+                    WHERE ur.user_id = :userId
+                    UNION ALL
+                    SELECT 'PERMISSION' AS kind, p.shiro_permission AS authority FROM t_permission p
+                    JOIN t_user_permission up ON p.id = up.permission_id
+                    WHERE up.user_id = :userId
+                    UNION ALL
+                    SELECT 'ROLE_PERMISSION' AS kind, p.shiro_permission AS authority FROM t_permission p
+                    JOIN t_role_permissions rp ON p.id = rp.permissions_id
+                    JOIN t_user_role ur ON rp.role_id = ur.role_id
+                    WHERE ur.user_id = :userId
+                    """,
+            nativeQuery = true
+    )
+    List<AuthorizationRecord> findAuthorizationRecordsByUserId(@Param("userId") Long userId);
+
+    /**
+     * <p>
+     *     使用原生 {@code SQL} 根据给定的{@link User#getId() 用户 ID} 一次性查询用户的角色 {@code ID} 以及直接权限. <br /> <br />
+     *
+     *     与 {@link #findAuthorizationRecordsByUserId(Long)} 相比, 本方法只读取 {@code t_user_role} 和 {@code t_user_permission},
+     *     角色名称和角色权限由调用方通过 {@link indi.ly.crush.authz.RolePermissionSnapshot} 在内存中展开.
+     *     角色 {@code ID} 以字符串形式放在 {@code authority} 列中, 类型标签为 {@link AuthorizationKind#ROLE_ID}.
+     * </p>
+     *
+     * @param userId 用户的唯一标识符.
+     * @return 带类型标签的授权记录列表. 如果用户不存在或没有任何角色和直接权限, 返回空列表.
+     */
+    @Query(
+            value = """
+                    SELECT 'ROLE_ID' AS kind, CAST(ur.role_id AS CHAR) AS authority FROM t_user_role ur
+                    WHERE ur.user_id = :userId
+                    UNION ALL
+                    SELECT 'PERMISSION' AS kind, p.shiro_permission AS authority FROM t_permission p
+                    JOIN t_user_permission up ON p.id = up.permission_id
+                    WHERE up.user_id = :userId
+                    """,
+            nativeQuery = true
+    )
+    List<AuthorizationRecord> findRoleIdsAndPermissionsByUserId(@Param("userId") Long userId);
+
+    /**
+     * <p>
+     *     使用原生 {@code SQL} 根据给定的{@link User#getId() 用户 ID} 一次性查询用户的角色 {@code ID} 以及直接权限的 {@code ID}, 用于签发访问令牌. <br /> <br />
+     *
+     *     访问令牌只携带这些稳定的 {@code ID}, 由各个节点在校验时通过 {@link indi.ly.crush.authz.RolePermissionSnapshot}
+     *     和 {@link indi.ly.crush.authz.PermissionHierarchy} 展开为角色名称和权限资源标识符.
+     *     {@code ID} 以字符串形式放在 {@code authority} 列中, 类型标签为 {@link AuthorizationKind#ROLE_ID} 或 {@link AuthorizationKind#PERMISSION_ID}.
+     * </p>
+     *
+     * @param userId 用户的唯一标识符.
+     * @return 带类型标签的授权记录列表. 如果用户不存在或没有任何角色和直接权限, 返回空列表.
+     */
+    @Query(
+            value = """
+                    SELECT 'ROLE_ID' AS kind, CAST(ur.role_id AS CHAR) AS authority FROM t_user_role ur
+                    WHERE ur.user_id = :userId
+                    UNION ALL
+                    SELECT 'PERMISSION_ID' AS kind, CAST(up.permission_id AS CHAR) AS authority FROM t_user_permission up
+                    WHERE up.user_id = :userId
+                    """,
+            nativeQuery = true
+    )
+    List<AuthorizationRecord> findRoleIdsAndPermissionIdsByUserId(@Param("userId") Long userId);
+
+    /**
+     * <p>
+     *     使用 {@code JPQL} 查找直接拥有给定权限的所有用户的 {@code ID}, 用于权限变更后失效这些用户的授权缓存.
+     * </p>
+     *
+     * @param permissionId 权限的唯一标识符.
+     * @return 用户的唯一标识符集合. 如果没有用户直接拥有该权限, 返回空集合.
+     */
+    @Query(value = "SELECT u.id FROM User u JOIN u.permissions p WHERE p.id = :permissionId")
+    Set<Long> findUserIdsByPermissionId(@Param("permissionId") Long permissionId);
+
     /**
      * <p>
      *     使用 {@code JPQL} 根据给定的{@link User#getPhoneNumber() 手机号码}查找与之关联的用户.
@@ -97,4 +239,20 @@ public interface IUserRepository
      */
     @Query(value = "SELECT new User(u.id, u.username, u.password, u.salt) FROM User u WHERE u.phoneNumber = :phoneNumber")
     User findByPhoneNumber(@Param("phoneNumber") String phoneNumber);
+
+    /**
+     * <p>
+     *     使用 {@code JPQL} 更新指定用户的{@link User#getPassword() 密码哈希}. <br /> <br />
+     *
+     *     用于在用户登录成功后, 将落后于当前目标算法或代价的密码哈希透明地升级.
+     * </p>
+     *
+     * @param userId   用户的唯一标识符.
+     * @param password 新的版本化密码哈希.
+     * @return 受影响的行数.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE User u SET u.password = :password WHERE u.id = :userId")
+    int updatePassword(@Param("userId") Long userId, @Param("password") String password);
 }
\ No newline at end of file
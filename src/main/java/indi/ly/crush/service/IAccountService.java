@@ -1,10 +1,14 @@
 package indi.ly.crush.service;
 
-import indi.ly.crush.model.entity.User;
+import indi.ly.crush.model.principal.UserPrincipal;
+import indi.ly.crush.model.vo.BulkRegistrationResult;
 import indi.ly.crush.model.from.UserCredentials;
 import indi.ly.crush.model.from.UserRegistration;
 import lombok.NonNull;
 
+import java.util.Iterator;
+import java.util.function.Consumer;
+
 /**
  * <h2>账户服务接口定义</h2>
  *
@@ -23,19 +27,61 @@ public interface IAccountService {
      * @param userRegistration 包含注册信息的的实例.
      */
     void registerUserAndAssignDefaultRole(@NonNull UserRegistration userRegistration);
+    /**
+     * <p>
+     *     判断用户名是否可用(未被占用). <br />
+     *     先查询用户名布隆过滤器, 只有在过滤器判定用户名可能已被占用时才查询数据库.
+     * </p>
+     *
+     * @param username 用户名.
+     * @return 如果用户名未被占用, 返回 {@code true}.
+     */
+    boolean isUsernameAvailable(@NonNull String username);
+    /**
+     * <p>
+     *     批量注册用户并分配各自的角色. <br /> <br />
+     *
+     *     注册信息被逐行读取并按批次处理: 密码哈希在有界线程池上并行计算, 用户和角色以 {@code JDBC} 批处理写入. <br />
+     *     每一行都会产生一个结果, 单行失败不影响其它行.
+     * </p>
+     *
+     * @param registrations  注册信息.
+     * @param resultConsumer 每一行的注册结果的接收者.
+     */
+    void registerUsersInBulk(@NonNull Iterator<UserRegistration> registrations, @NonNull Consumer<BulkRegistrationResult> resultConsumer);
     /**
      * <p>
      *     用户登录操作. <br /> <br />
      *
      *     该方法接受用户凭证作为参数, 进行身份认证. <br />
-     *     如果认证成功, 返回一个包含用户信息的 {@link User} 对象. <br /> <br />
+     *     如果认证成功, 返回当前用户的 {@link UserPrincipal 主体}. <br /> <br />
      *
      *     请你注意,
      *     用户登录进行密码验证时所使用到的算法和盐值、以及散列次数要与用户注册时所使用到的算法和盐值、以及散列次数保持一致.
      * </p>
      *
      * @param userCredentials 包含用户登录信息的实例.
-     * @return 一个 {@link User} 对象, 包含用户的详细信息.
+     * @return 当前用户的主体, 包含用户 {@code ID}、用户名以及角色位掩码.
+     */
+    @NonNull UserPrincipal login(@NonNull UserCredentials userCredentials);
+    /**
+     * <p>
+     *     生成短信验证码并保存到 {@link indi.ly.crush.sms.SmsCodeStore 短信验证码存储}中, 供短信验证码登录时校验. <br />
+     *     同一手机号码重复获取时, 新的验证码会覆盖旧的验证码, 但不会重置尝试次数. <br />
+     *     下发按手机号码和客户端 {@code IP} 限流, 同一手机号码两次下发之间至少间隔冷却时间.
+     * </p>
+     *
+     * @param phoneNumber 手机号码.
+     * @throws indi.ly.crush.ex.SmsCodeRateLimitedException 如果下发过于频繁、仍在冷却时间内或手机号码已被锁定.
+     */
+    void sendSmsCode(@NonNull String phoneNumber);
+    /**
+     * <p>
+     *     为当前已登录的用户签发无状态认证模式下使用的访问令牌. <br />
+     *     令牌中携带用户 {@code ID}、用户名、角色 {@code ID}、直接权限 {@code ID} 以及过期时间, 并使用 {@code HMAC} 签名.
+     * </p>
+     *
+     * @return 访问令牌; 如果未启用无状态认证模式则返回 {@code null}.
      */
-    @NonNull User login(@NonNull UserCredentials userCredentials);
+    String issueAccessToken();
 }
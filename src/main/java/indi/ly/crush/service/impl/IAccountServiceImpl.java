@@ -1,29 +1,53 @@
 package indi.ly.crush.service.impl;
 
+import indi.ly.crush.audit.LastLoginRecorder;
+import indi.ly.crush.authz.AuthorizationCacheInvalidator;
+import indi.ly.crush.authz.AuthorizationChangeEvent;
+import indi.ly.crush.bloom.UsernameBloomFilter;
+import indi.ly.crush.config.AppProperties;
 import indi.ly.crush.encryp.PasswordEncryption;
+import indi.ly.crush.encryp.PasswordHashingExecutor;
+import indi.ly.crush.encryp.VersionedPasswordService;
+import indi.ly.crush.enums.AuthorizationKind;
 import indi.ly.crush.ex.RegistrationFailedException;
+import indi.ly.crush.ex.ServiceOverloadedException;
+import indi.ly.crush.ex.SmsCodeRateLimitedException;
 import indi.ly.crush.model.entity.User;
 import indi.ly.crush.model.from.UserCredentials;
 import indi.ly.crush.model.from.UserRegistration;
+import indi.ly.crush.model.principal.UserPrincipal;
+import indi.ly.crush.model.projection.AuthorizationRecord;
+import indi.ly.crush.model.vo.BulkRegistrationResult;
+import indi.ly.crush.ratelimit.SmsCodeRateLimiter;
+import indi.ly.crush.registration.BulkUserRegistrar;
 import indi.ly.crush.repository.IRoleRepository;
 import indi.ly.crush.repository.IUserRepository;
+import indi.ly.crush.json.jaskson.desensitize.DesensitizeStrategyEnum;
 import indi.ly.crush.service.IAccountService;
+import indi.ly.crush.sms.SmsCodeStore;
+import indi.ly.crush.token.AccessTokenClaims;
+import indi.ly.crush.token.AccessTokenCodec;
 import indi.ly.crush.token.SMSCodeToken;
 import lombok.NonNull;
 import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationToken;
 import org.apache.shiro.authc.IncorrectCredentialsException;
 import org.apache.shiro.authc.RememberMeAuthenticationToken;
 import org.apache.shiro.authc.UsernamePasswordToken;
-import org.apache.shiro.authc.credential.HashedCredentialsMatcher;
 import org.apache.shiro.subject.Subject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Example;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Optional;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * <h2>账户服务实现</h2>
@@ -83,53 +107,108 @@ import java.util.Optional;
 public class IAccountServiceImpl
         implements IAccountService {
     private static final Logger LOGGER = LoggerFactory.getLogger(IAccountServiceImpl.class);
+    private static final SecureRandom SMS_CODE_RANDOM = new SecureRandom();
     private final IUserRepository userRepositoryImpl;
     private final IRoleRepository roleRepositoryImpl;
-    private final HashedCredentialsMatcher hashedCredentialsMatcher;
+    private final VersionedPasswordService passwordService;
     private final TransactionTemplate transactionTemplate;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final SmsCodeStore smsCodeStore;
+    private final AppProperties.SmsCodeConfig smsCodeConfig;
+    private final SmsCodeRateLimiter smsCodeRateLimiter;
+    private final ObjectProvider<AccessTokenCodec> accessTokenCodecProvider;
+    private final AppProperties.AccessTokenConfig accessTokenConfig;
+    private final UsernameBloomFilter usernameBloomFilter;
+    private final BulkUserRegistrar bulkUserRegistrar;
+    private final LastLoginRecorder lastLoginRecorder;
 
     public IAccountServiceImpl(
             IUserRepository userRepositoryImpl,
             IRoleRepository roleRepositoryImpl,
-            HashedCredentialsMatcher hashedCredentialsMatcher,
-            TransactionTemplate transactionTemplate
+            VersionedPasswordService passwordService,
+            TransactionTemplate transactionTemplate,
+            PasswordHashingExecutor passwordHashingExecutor,
+            SmsCodeStore smsCodeStore,
+            AppProperties appProperties,
+            ObjectProvider<AccessTokenCodec> accessTokenCodecProvider,
+            UsernameBloomFilter usernameBloomFilter,
+            BulkUserRegistrar bulkUserRegistrar,
+            LastLoginRecorder lastLoginRecorder
     ) {
         this.userRepositoryImpl = userRepositoryImpl;
         this.roleRepositoryImpl = roleRepositoryImpl;
-        this.hashedCredentialsMatcher = hashedCredentialsMatcher;
+        this.passwordService = passwordService;
         this.transactionTemplate = transactionTemplate;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.smsCodeStore = smsCodeStore;
+        this.smsCodeConfig = appProperties.getSmsCode();
+        this.smsCodeRateLimiter = new SmsCodeRateLimiter(this.smsCodeConfig);
+        this.accessTokenCodecProvider = accessTokenCodecProvider;
+        this.accessTokenConfig = appProperties.getAccessToken();
+        this.usernameBloomFilter = usernameBloomFilter;
+        this.bulkUserRegistrar = bulkUserRegistrar;
+        this.lastLoginRecorder = lastLoginRecorder;
     }
 
     @Override
     public void registerUserAndAssignDefaultRole(@NonNull UserRegistration userRegistration) {
         User user = new User(userRegistration.getUsername());
 
-        Optional<User> userOptional = this.userRepositoryImpl.findOne(Example.of(user));
-        if (userOptional.isPresent()) {
+        // 用户名布隆过滤器判定一定未被占用时不查询数据库; 并发注册同一用户名, 或其它节点注册的用户名尚未传递到本节点时, 由 t_user 上的唯一约束兜底.
+        if (!this.isUsernameAvailable(userRegistration.getUsername())) {
             throw new RegistrationFailedException("注册失败, 用户名已占用.");
         }
 
         String salt = PasswordEncryption.generateSalt();
         user.setSalt(salt); // 保存盐值到用户记录中.
 
-        String hashAlgorithmName = this.hashedCredentialsMatcher.getHashAlgorithmName();
-        int hashIterations = this.hashedCredentialsMatcher.getHashIterations();
-
-        String newPassword = PasswordEncryption.encryptPassword(hashAlgorithmName, userRegistration.getPassword(), salt, hashIterations);
+        // 使用当前的目标算法和代价生成版本化的密码哈希($算法$代价$哈希值).
+        // 在专用的有界执行器上进行键拉伸, 队列已满时以 503 拒绝注册请求.
+        String newPassword = this.passwordHashingExecutor.execute(
+                () -> this.passwordService.encode(userRegistration.getPassword().toCharArray(), salt)
+        );
         user.setPassword(newPassword); // 保存加密之后的密码到用户记录中.
         user.setPhoneNumber(userRegistration.getPhoneNumber());
 
-        this.transactionTemplate.execute(status -> {
-            long userId = this.userRepositoryImpl.saveAndFlush(user).getId();                                            // 添加用户.
-            this.roleRepositoryImpl.assignRoleToUser(userId, (long) userRegistration.getRole().ordinal() + 1);               // 为用户分配角色.
-            return null;
-        });
+        try {
+            this.transactionTemplate.execute(status -> {
+                long userId = this.userRepositoryImpl.saveAndFlush(user).getId();                                        // 添加用户.
+                this.roleRepositoryImpl.assignRoleToUser(userId, (long) userRegistration.getRole().ordinal() + 1);           // 为用户分配角色.
+                // 分配角色时已发布授权变更事件; 此处再发布携带用户名的事件, 其它节点据此更新用户名布隆过滤器.
+                AuthorizationCacheInvalidator.publish(AuthorizationChangeEvent.ofRegisteredUser(userId, user.getUsername()));
+                return null;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // t_user 上只有用户名的唯一约束.
+            LOGGER.debug("用户名 [{}] 违反唯一约束. {}", user.getUsername(), e.getMessage());
+            throw new RegistrationFailedException("注册失败, 用户名已占用.", e);
+        }
+        // 事务提交之后再写入过滤器, 保证与重建时读取的快照之间不会遗漏.
+        this.usernameBloomFilter.put(user.getUsername());
     }
 
     @Override
-    public @NonNull User login(@NonNull UserCredentials userCredentials) {
-        AuthenticationToken token = this.createAuthenticationToken(userCredentials);
+    public boolean isUsernameAvailable(@NonNull String username) {
+        if (!this.usernameBloomFilter.mightContain(username)) {
+            return true;
+        }
+        boolean exists = this.userRepositoryImpl.existsUsername(username);
+        if (!exists) {
+            this.usernameBloomFilter.recordFalsePositive();
+        }
+        return !exists;
+    }
+
+    @Override
+    public void registerUsersInBulk(@NonNull Iterator<UserRegistration> registrations, @NonNull Consumer<BulkRegistrationResult> resultConsumer) {
+        this.bulkUserRegistrar.register(registrations, resultConsumer);
+    }
+
+    @Override
+    public @NonNull UserPrincipal login(@NonNull UserCredentials userCredentials) {
         Subject subject = SecurityUtils.getSubject();
+        // 携带客户端地址, 以便登录限流器按 IP 限流.
+        AuthenticationToken token = this.createAuthenticationToken(userCredentials, subject.getHost());
         try {
             /*
                 当调用 Subject.login() 进行登录时, Shiro 会使用配置的 Realm 执行认证逻辑.
@@ -139,14 +218,23 @@ public class IAccountServiceImpl
             subject.login(token);
 
             LOGGER.trace("用户认证成功.");
-            // 确保 Realm doGetAuthenticationInfo 方法返回的是 User 类型.
-            return (User) subject.getPrincipal();
+            // UserRealm 与 SMSCodeRealm 的主体都是 UserPrincipal.
+            UserPrincipal principal = (UserPrincipal) subject.getPrincipal();
+            // 最后登录信息由后台线程批量写入, 登录请求不等待数据库.
+            this.lastLoginRecorder.record(principal.id(), subject.getHost());
+            return principal;
         } catch (IncorrectCredentialsException e) { // 用户提供的凭证(比如说密码、短信验证码)不一致.
             LOGGER.error("用户认证失败. {}", e.getMessage());
             if (token instanceof UsernamePasswordToken) {
                 throw new IncorrectCredentialsException("密码错误, 登录失败.");
             }
             throw e;
+        } catch (AuthenticationException e) {
+            // Shiro 会将 Realm 中抛出的非 AuthenticationException 异常包装起来, 此处还原密码哈希执行器的过载异常, 以便返回 503.
+            if (e.getCause() instanceof ServiceOverloadedException serviceOverloadedException) {
+                throw serviceOverloadedException;
+            }
+            throw e;
         } finally {
             if (token instanceof RememberMeAuthenticationToken rememberMeToken) {
                 if (!rememberMeToken.isRememberMe()) {
@@ -159,22 +247,66 @@ public class IAccountServiceImpl
         }
     }
 
+    @Override
+    public void sendSmsCode(@NonNull String phoneNumber) {
+        // 接口允许匿名访问, 在生成和保存验证码之前按手机号码和客户端 IP 限流.
+        this.smsCodeRateLimiter.acquire(phoneNumber, SecurityUtils.getSubject().getHost());
+
+        int codeLength = this.smsCodeConfig.getCodeLength();
+        StringBuilder code = new StringBuilder(codeLength);
+        for (int i = 0; i < codeLength; i++) {
+            code.append(SMS_CODE_RANDOM.nextInt(10));
+        }
+
+        long waitMillis = this.smsCodeStore.save(phoneNumber, code.toString(), this.smsCodeConfig.getTtl());
+        if (waitMillis > 0) {
+            throw SmsCodeRateLimitedException.retryAfterMillis(waitMillis);
+        }
+
+        // 尚未接入短信网关. 验证码属于凭证, 不得写入日志.
+        LOGGER.debug("已为用户 [{}] 生成短信验证码.", DesensitizeStrategyEnum.maskPhoneNumber(phoneNumber));
+    }
+
+    @Override
+    public String issueAccessToken() {
+        AccessTokenCodec accessTokenCodec = this.accessTokenCodecProvider.getIfAvailable();
+        if (accessTokenCodec == null) {
+            return null;
+        }
+
+        Subject subject = SecurityUtils.getSubject();
+        UserPrincipal principal = (UserPrincipal) subject.getPrincipal();
+        // 令牌只携带在所有节点上含义相同的角色 ID 和直接权限 ID, 不携带本节点分配的角色位编号.
+        List<AuthorizationRecord> records = this.userRepositoryImpl.findRoleIdsAndPermissionIdsByUserId(principal.id());
+        long[] roleIds = records.stream()
+                                .filter(record -> AuthorizationKind.ROLE_ID.name().equals(record.getKind()))
+                                .mapToLong(record -> Long.parseLong(record.getAuthority()))
+                                .toArray();
+        long[] permissionIds = records.stream()
+                                      .filter(record -> AuthorizationKind.PERMISSION_ID.name().equals(record.getKind()))
+                                      .mapToLong(record -> Long.parseLong(record.getAuthority()))
+                                      .toArray();
+        long expiresAt = Instant.now().plus(this.accessTokenConfig.getTtl()).getEpochSecond();
+        return accessTokenCodec.issue(new AccessTokenClaims(principal.id(), principal.username(), roleIds, permissionIds, expiresAt));
+    }
+
     /**
      * <p>
      *     创建 {@link AuthenticationToken} 实例.
      * </p>
      *
      * @param userCredentials 用户凭证信息.
+     * @param host            客户端主机名或 {@code IP} 地址.
      * @return {@link AuthenticationToken} 实例.
      */
-    private @NonNull AuthenticationToken createAuthenticationToken(@NonNull UserCredentials userCredentials) {
+    private @NonNull AuthenticationToken createAuthenticationToken(@NonNull UserCredentials userCredentials, String host) {
         AuthenticationToken token;
 
         switch (userCredentials.getLoginType()) {
             case USERNAME_PASSWORD ->
-                    token = new UsernamePasswordToken(userCredentials.getUsername(), userCredentials.getPassword(), userCredentials.isRememberMe());
+                    token = new UsernamePasswordToken(userCredentials.getUsername(), userCredentials.getPassword(), userCredentials.isRememberMe(), host);
             case SMS_CODE ->
-                    token = new SMSCodeToken(userCredentials.getPhoneNumber(), userCredentials.getCode(), userCredentials.isRememberMe());
+                    token = new SMSCodeToken(userCredentials.getPhoneNumber(), userCredentials.getCode(), userCredentials.isRememberMe(), host);
             default ->
                     throw new IllegalArgumentException("不支持的登录类型: %s.".formatted(userCredentials.getLoginType()));
         }
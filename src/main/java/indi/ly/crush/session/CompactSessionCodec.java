@@ -0,0 +1,199 @@
+package indi.ly.crush.session;
+
+import org.apache.shiro.io.ClassResolvingObjectInputStream;
+import org.apache.shiro.io.SerializationException;
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.mgt.SimpleSession;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <h2>紧凑的会话编解码器</h2>
+ * <p>
+ *     将 {@link SimpleSession} 编码为紧凑的二进制格式, 字段按固定顺序写入, 不包含类描述信息. <br />
+ *     会话属性中的字符串、布尔值和整数直接编码, 其它类型(如身份集合)退化为 {@code Java} 序列化. <br /> <br />
+ *
+ *     编码结果的前 {@value #ID_OFFSET} 字节位置固定:
+ *     <pre>{@code
+ *                  0  long   最后访问时间(毫秒)
+ *                  8  long   超时时间(毫秒, 负数表示永不过期)
+ *                  16 byte   状态(第 0 位: 已停止, 第 1 位: 已过期)
+ *                  17 short  会话 ID 的字节数, 随后是 UTF-8 编码的会话 ID
+ *     }</pre>
+ *     {@link OffHeapSessionDAO} 依赖这一布局, 在不解码整个会话的情况下比较会话 {@code ID}、刷新最后访问时间以及判断会话是否过期.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+final class CompactSessionCodec {
+    static final int LAST_ACCESS_TIME_OFFSET = 0;
+    static final int TIMEOUT_OFFSET = 8;
+    static final int STATE_OFFSET = 16;
+    static final int ID_LENGTH_OFFSET = 17;
+    static final int ID_OFFSET = 19;
+    static final byte STATE_STOPPED = 1;
+    static final byte STATE_EXPIRED = 1 << 1;
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_BOOLEAN = 2;
+    private static final byte TYPE_INTEGER = 3;
+    private static final byte TYPE_LONG = 4;
+    private static final byte TYPE_SERIALIZED = 5;
+    private static final int MAX_INLINE_STRING_LENGTH = 0xFFFF / 3;
+
+    private CompactSessionCodec() {}
+
+    static @NonNull byte[] idBytes(@NonNull Object sessionId) {
+        byte[] idBytes = sessionId.toString().getBytes(StandardCharsets.UTF_8);
+        if (idBytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("会话 ID 过长: %d 字节.".formatted(idBytes.length));
+        }
+        return idBytes;
+    }
+
+    static @NonNull byte[] encode(@NonNull Session session) {
+        if (!(session instanceof SimpleSession simpleSession)) {
+            throw new IllegalArgumentException("仅支持编码 SimpleSession: %s.".formatted(session.getClass().getName()));
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeLong(timeOf(simpleSession.getLastAccessTime()));
+            out.writeLong(simpleSession.getTimeout());
+            Date stopTimestamp = simpleSession.getStopTimestamp();
+            out.writeByte((stopTimestamp != null ? STATE_STOPPED : 0) | (simpleSession.isExpired() ? STATE_EXPIRED : 0));
+            byte[] idBytes = idBytes(simpleSession.getId());
+            out.writeShort(idBytes.length);
+            out.write(idBytes);
+
+            out.writeLong(timeOf(simpleSession.getStartTimestamp()));
+            if (stopTimestamp != null) {
+                out.writeLong(stopTimestamp.getTime());
+            }
+            writeNullableString(out, simpleSession.getHost());
+
+            Map<Object, Object> attributes = simpleSession.getAttributes();
+            if (attributes == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(attributes.size());
+                for (Map.Entry<Object, Object> entry : attributes.entrySet()) {
+                    writeValue(out, entry.getKey());
+                    writeValue(out, entry.getValue());
+                }
+            }
+        } catch (IOException e) {
+            throw new SerializationException("编码会话 [%s] 失败.".formatted(session.getId()), e);
+        }
+        return buffer.toByteArray();
+    }
+
+    static @NonNull DirtyTrackingSession decode(@NonNull byte[] data) {
+        DirtyTrackingSession session = new DirtyTrackingSession();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            long lastAccessTime = in.readLong();
+            long timeout = in.readLong();
+            byte state = in.readByte();
+            byte[] idBytes = new byte[in.readShort()];
+            in.readFully(idBytes);
+
+            session.setId(new String(idBytes, StandardCharsets.UTF_8));
+            session.setLastAccessTime(new Date(lastAccessTime));
+            session.setTimeout(timeout);
+            session.setExpired((state & STATE_EXPIRED) != 0);
+            session.setStartTimestamp(new Date(in.readLong()));
+            if ((state & STATE_STOPPED) != 0) {
+                session.setStopTimestamp(new Date(in.readLong()));
+            }
+            session.setHost(readNullableString(in));
+
+            int attributeCount = in.readInt();
+            if (attributeCount >= 0) {
+                Map<Object, Object> attributes = new HashMap<>(Math.max(16, attributeCount * 2));
+                for (int i = 0; i < attributeCount; i++) {
+                    attributes.put(readValue(in), readValue(in));
+                }
+                session.setAttributes(attributes);
+            }
+        } catch (IOException e) {
+            throw new SerializationException("解码会话失败.", e);
+        }
+        // 刚解码的会话与存储中的内容一致.
+        session.markPersisted();
+        return session;
+    }
+
+    private static long timeOf(@Nullable Date date) {
+        return date == null ? 0L : date.getTime();
+    }
+
+    private static void writeNullableString(@NonNull DataOutputStream out, @Nullable String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static @Nullable String readNullableString(@NonNull DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeValue(@NonNull DataOutputStream out, @Nullable Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof String string && string.length() <= MAX_INLINE_STRING_LENGTH) {
+            out.writeByte(TYPE_STRING);
+            out.writeUTF(string);
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean(bool);
+        } else if (value instanceof Integer integer) {
+            out.writeByte(TYPE_INTEGER);
+            out.writeInt(integer);
+        } else if (value instanceof Long longValue) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong(longValue);
+        } else {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+            try (ObjectOutputStream objectOut = new ObjectOutputStream(buffer)) {
+                objectOut.writeObject(value);
+            }
+            out.writeByte(TYPE_SERIALIZED);
+            out.writeInt(buffer.size());
+            buffer.writeTo(out);
+        }
+    }
+
+    private static @Nullable Object readValue(@NonNull DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case TYPE_NULL -> null;
+            case TYPE_STRING -> in.readUTF();
+            case TYPE_BOOLEAN -> in.readBoolean();
+            case TYPE_INTEGER -> in.readInt();
+            case TYPE_LONG -> in.readLong();
+            case TYPE_SERIALIZED -> {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                try (ClassResolvingObjectInputStream objectIn = new ClassResolvingObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    yield objectIn.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new SerializationException("无法解析会话属性的类型.", e);
+                }
+            }
+            default -> throw new SerializationException("未知的会话属性类型: %d.".formatted(type));
+        };
+    }
+}
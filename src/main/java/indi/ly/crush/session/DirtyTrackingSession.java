@@ -0,0 +1,122 @@
+package indi.ly.crush.session;
+
+import org.apache.shiro.session.mgt.SimpleSession;
+
+import java.io.Serial;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * <h2>可追踪变更的会话</h2>
+ * <p>
+ *     在 {@link SimpleSession} 的基础上区分两类变更: <br />
+ *     1. 属性、超时时间、停止或过期状态等实质性变更, 记录为 {@link #isChanged() 已变更}; <br />
+ *     2. 仅刷新最后访问时间的 {@link #touch() 触碰}, 不记录为已变更. <br /> <br />
+ *
+ *     {@link NearCacheSessionDAO} 据此合并实质性变更的写入, 并对触碰做防抖处理. <br />
+ *     追踪状态均为瞬态字段, 不会被序列化到远端存储.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public class DirtyTrackingSession
+        extends SimpleSession {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private transient volatile boolean changed;
+    /**
+     * <p>
+     *     最近一次写入远端存储时的最后访问时间(毫秒).
+     * </p>
+     */
+    private transient volatile long persistedAccessTime;
+
+    public DirtyTrackingSession() {
+        super();
+    }
+
+    public DirtyTrackingSession(String host) {
+        super(host);
+    }
+
+    public boolean isChanged() {
+        return this.changed;
+    }
+
+    /**
+     * <p>
+     *     在序列化之前调用, 清除变更标记并记录本次写入的最后访问时间. <br />
+     *     序列化期间发生的变更会重新标记, 并由会话管理器再次提交给 {@link NearCacheSessionDAO}.
+     * </p>
+     */
+    void markPersisted() {
+        this.changed = false;
+        Date lastAccessTime = super.getLastAccessTime();
+        this.persistedAccessTime = lastAccessTime == null ? 0L : lastAccessTime.getTime();
+    }
+
+    /**
+     * <p>
+     *     返回自最近一次写入以来, 最后访问时间推进了多少毫秒.
+     * </p>
+     *
+     * @return 未持久化的访问时间跨度(毫秒).
+     */
+    long unpersistedAccessMillis() {
+        Date lastAccessTime = super.getLastAccessTime();
+        return lastAccessTime == null ? 0L : lastAccessTime.getTime() - this.persistedAccessTime;
+    }
+
+    @Override
+    public void setAttribute(Object key, Object value) {
+        super.setAttribute(key, value);
+        this.changed = true;
+    }
+
+    @Override
+    public Object removeAttribute(Object key) {
+        Object removed = super.removeAttribute(key);
+        if (removed != null) {
+            this.changed = true;
+        }
+        return removed;
+    }
+
+    @Override
+    public void setAttributes(Map<Object, Object> attributes) {
+        super.setAttributes(attributes);
+        this.changed = true;
+    }
+
+    @Override
+    public void setTimeout(long timeout) {
+        super.setTimeout(timeout);
+        this.changed = true;
+    }
+
+    @Override
+    public void setHost(String host) {
+        super.setHost(host);
+        this.changed = true;
+    }
+
+    @Override
+    public void setStopTimestamp(Date stopTimestamp) {
+        super.setStopTimestamp(stopTimestamp);
+        this.changed = true;
+    }
+
+    @Override
+    public void setExpired(boolean expired) {
+        super.setExpired(expired);
+        this.changed = true;
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        this.changed = true;
+    }
+}
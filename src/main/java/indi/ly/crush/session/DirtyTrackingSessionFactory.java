@@ -0,0 +1,27 @@
+package indi.ly.crush.session;
+
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.mgt.SessionContext;
+import org.apache.shiro.session.mgt.SessionFactory;
+
+/**
+ * <h2>可追踪变更的会话工厂</h2>
+ *
+ * @since 1.0
+ * @see DirtyTrackingSession
+ * @author 云上的云
+ * @formatter:off
+ */
+public class DirtyTrackingSessionFactory
+        implements SessionFactory {
+    @Override
+    public Session createSession(SessionContext initData) {
+        if (initData != null) {
+            String host = initData.getHost();
+            if (host != null) {
+                return new DirtyTrackingSession(host);
+            }
+        }
+        return new DirtyTrackingSession();
+    }
+}
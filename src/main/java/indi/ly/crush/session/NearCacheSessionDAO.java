@@ -0,0 +1,254 @@
+package indi.ly.crush.session;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import indi.ly.crush.config.AppProperties;
+import org.apache.shiro.io.DefaultSerializer;
+import org.apache.shiro.io.Serializer;
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.session.mgt.eis.AbstractSessionDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>带近端缓存的分布式会话 {@code DAO}</h2>
+ * <p>
+ *     会话保存在可插拔的远端 {@link SessionStore} 中, 并在本地维护 {@code Caffeine} 近端缓存, 使远端往返次数与请求速率无关: <br />
+ *     1. 读取: 依次查找待写入队列、近端缓存和远端存储, 近端缓存按 {@code near-cache-ttl} 过期, 以此限定多节点之间的读取陈旧度; <br />
+ *     2. 实质性变更(属性、超时时间、停止或过期状态): 按会话合并到待写入队列, 每 {@code flush-interval} 通过 {@link SessionStore#writeAll} 批量写入 {@code 1} 次; <br />
+ *     3. 触碰(仅刷新最后访问时间): 距离上次写入不足 {@code touch-interval} 时直接忽略, 否则与实质性变更一样排队写入. <br /> <br />
+ *
+ *     因此每个会话每个刷新周期至多写入 {@code 1} 次, 仅被访问的会话每 {@code touch-interval} 至多写入 {@code 1} 次. <br />
+ *     远端存储中的存活时间为会话超时时间加上 {@code touch-interval}, 以覆盖触碰防抖造成的续期延迟. <br /> <br />
+ *
+ *     创建和删除会话会立即同步到远端存储, 保证其它节点能马上看到新会话, 且注销后会话不会被其它节点复活. <br />
+ *     删除的会话会留下墓碑, 直到下一次批量写入结束: 批量写入不会写入带有墓碑的会话, 写入期间被删除的会话会在写入完成后再次从远端存储删除. <br />
+ *     另一节点删除的会话在本节点的近端缓存中最多残留 {@code near-cache-ttl}.
+ * </p>
+ *
+ * @since 1.0
+ * @see DirtyTrackingSession
+ * @author 云上的云
+ * @formatter:off
+ */
+public class NearCacheSessionDAO
+        extends AbstractSessionDAO
+        implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NearCacheSessionDAO.class);
+    private final SessionStore sessionStore;
+    private final Serializer<Session> serializer = new DefaultSerializer<>();
+    private final Cache<Serializable, Session> nearCache;
+    /**
+     * <p>
+     *     待写入队列, 同一会话的多次变更只保留 {@code 1} 个条目.
+     * </p>
+     */
+    private final Map<Serializable, Session> pendingWrites = new ConcurrentHashMap<>();
+    /**
+     * <p>
+     *     墓碑: 上一次批量写入结束之后被删除的会话.
+     * </p>
+     */
+    private final Set<Serializable> deletedSessionIds = ConcurrentHashMap.newKeySet();
+    private final long touchIntervalMillis;
+    private final ScheduledExecutorService flusher;
+
+    public NearCacheSessionDAO(@NonNull SessionStore sessionStore, @NonNull AppProperties.SessionConfig config) {
+        this.sessionStore = sessionStore;
+        this.nearCache = Caffeine.newBuilder()
+                                 .maximumSize(config.getNearCacheMaxEntries())
+                                 .expireAfterWrite(config.getNearCacheTtl())
+                                 .build();
+        this.touchIntervalMillis = config.getTouchInterval().toMillis();
+
+        long flushMillis = config.getFlushInterval().toMillis();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this :: flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Serializable doCreate(Session session) {
+        Serializable sessionId = super.generateSessionId(session);
+        super.assignSessionId(session, sessionId);
+        this.nearCache.put(sessionId, session);
+        this.sessionStore.writeAll(List.of(this.toStoredSession(session)));
+        return sessionId;
+    }
+
+    @Override
+    protected Session doReadSession(Serializable sessionId) {
+        Session session = this.pendingWrites.get(sessionId);
+        if (session != null) {
+            return session;
+        }
+        // 未命中时由 Caffeine 保证同一会话的并发读取只访问 1 次远端存储, 返回 null 时不缓存.
+        return this.nearCache.get(sessionId, this :: load);
+    }
+
+    @Override
+    public void update(Session session) throws UnknownSessionException {
+        Serializable sessionId = session.getId();
+        if (sessionId == null) {
+            throw new NullPointerException("会话 ID 不能为 null.");
+        }
+        // 不重置近端缓存的写入时间, 使热点会话也会按 near-cache-ttl 重新从远端加载.
+        this.nearCache.asMap().putIfAbsent(sessionId, session);
+
+        if (session instanceof DirtyTrackingSession trackingSession
+                && !trackingSession.isChanged()
+                && trackingSession.unpersistedAccessMillis() < this.touchIntervalMillis) {
+            return;
+        }
+        this.pendingWrites.put(sessionId, session);
+    }
+
+    @Override
+    public void delete(Session session) {
+        Serializable sessionId = session.getId();
+        if (sessionId == null) {
+            throw new NullPointerException("会话 ID 不能为 null.");
+        }
+        // 先留下墓碑, 再从远端存储删除, 使正在进行的批量写入能够发现并撤销对该会话的写入.
+        this.deletedSessionIds.add(sessionId);
+        this.pendingWrites.remove(sessionId);
+        this.nearCache.invalidate(sessionId);
+        this.sessionStore.delete(sessionId.toString());
+    }
+
+    /**
+     * <p>
+     *     返回本节点近端缓存中的会话, 供会话校验调度器清理本地已过期的会话. <br />
+     *     其它节点上的会话由远端存储的键过期机制负责清理.
+     * </p>
+     */
+    @Override
+    public Collection<Session> getActiveSessions() {
+        return Collections.unmodifiableList(new ArrayList<>(this.nearCache.asMap().values()));
+    }
+
+    /**
+     * <p>
+     *     将待写入队列中的会话批量写入远端存储. <br />
+     *     写入完成前会话仍留在队列中, 以免并发读取在此期间从远端加载到旧数据; 写入失败的会话会在下一个周期重试.
+     * </p>
+     */
+    public void flush() {
+        if (this.pendingWrites.isEmpty()) {
+            // 没有写入, 墓碑可以直接清除.
+            this.deleteWrittenTombstones(List.of());
+            return;
+        }
+        List<Session> sessions = new ArrayList<>(this.pendingWrites.values());
+        List<SessionStore.StoredSession> storedSessions = new ArrayList<>(sessions.size());
+        List<Session> written = new ArrayList<>(sessions.size());
+        for (Session session : sessions) {
+            if (this.deletedSessionIds.contains(session.getId())) {
+                // 已被删除的会话不再写入, 也不再留在队列中.
+                this.pendingWrites.remove(session.getId(), session);
+                continue;
+            }
+            try {
+                storedSessions.add(this.toStoredSession(session));
+                written.add(session);
+            } catch (RuntimeException e) {
+                // 序列化期间会话属性被并发修改, 留在队列中等待下一个周期.
+                LOGGER.debug("序列化会话 [{}] 失败, 将在下一个周期重试.", session.getId(), e);
+            }
+        }
+        try {
+            this.sessionStore.writeAll(storedSessions);
+        } catch (RuntimeException e) {
+            LOGGER.warn("批量写入 [{}] 个会话失败, 将在下一个周期重试.", storedSessions.size(), e);
+            return;
+        } finally {
+            this.deleteWrittenTombstones(written);
+        }
+        for (Session session : written) {
+            // 写入期间再次发生实质性变更的会话保留在队列中.
+            this.pendingWrites.computeIfPresent(session.getId(), (sessionId, pending) ->
+                    pending == session && !(pending instanceof DirtyTrackingSession trackingSession && trackingSession.isChanged()) ? null : pending
+            );
+        }
+    }
+
+    /**
+     * <p>
+     *     再次删除写入期间被删除的会话, 然后清除本次观察到的墓碑. <br />
+     *     在此之后才留下墓碑的删除, 其远端删除必然发生在本次写入完成之后, 不会被覆盖.
+     * </p>
+     *
+     * @param written 本次批量写入的会话.
+     */
+    private void deleteWrittenTombstones(@NonNull List<Session> written) {
+        if (this.deletedSessionIds.isEmpty()) {
+            return;
+        }
+        Set<Serializable> deleted = new HashSet<>(this.deletedSessionIds);
+        for (Session session : written) {
+            Serializable sessionId = session.getId();
+            if (deleted.contains(sessionId)) {
+                try {
+                    this.sessionStore.delete(sessionId.toString());
+                } catch (RuntimeException e) {
+                    // 保留墓碑, 在下一个周期重试.
+                    LOGGER.warn("删除写入期间被删除的会话 [{}] 失败, 将在下一个周期重试.", sessionId, e);
+                    deleted.remove(sessionId);
+                }
+            }
+        }
+        this.deletedSessionIds.removeAll(deleted);
+    }
+
+    @Override
+    public void close() {
+        this.flusher.shutdown();
+        try {
+            this.flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.flush();
+    }
+
+    private @Nullable Session load(@NonNull Serializable sessionId) {
+        byte[] data = this.sessionStore.read(sessionId.toString());
+        if (data == null) {
+            return null;
+        }
+        Session session = this.serializer.deserialize(data);
+        if (session instanceof DirtyTrackingSession trackingSession) {
+            trackingSession.markPersisted();
+        }
+        return session;
+    }
+
+    private @NonNull SessionStore.StoredSession toStoredSession(@NonNull Session session) {
+        if (session instanceof DirtyTrackingSession trackingSession) {
+            trackingSession.markPersisted();
+        }
+        long timeout = session.getTimeout();
+        Duration ttl = timeout < 0 ? null : Duration.ofMillis(timeout + this.touchIntervalMillis);
+        return new SessionStore.StoredSession(session.getId().toString(), this.serializer.serialize(session), ttl);
+    }
+}
@@ -0,0 +1,449 @@
+package indi.ly.crush.session;
+
+import indi.ly.crush.config.AppProperties;
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.UnknownSessionException;
+import org.apache.shiro.session.mgt.eis.AbstractSessionDAO;
+import org.apache.shiro.session.mgt.eis.MemorySessionDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <h2>堆外会话 {@code DAO}</h2>
+ * <p>
+ *     会话经 {@link CompactSessionCodec} 编码后保存在 {@link SlabAllocator} 管理的堆外内存中,
+ *     堆内只保留分段的开放寻址索引(每个槽位 {@code 12} 字节: 哈希值与堆外地址), 会话 {@code ID} 本身也保存在堆外. <br />
+ *     与 {@link MemorySessionDAO} 相比, 数百万会话及其属性不再常驻老年代, {@code GC} 需要扫描和复制的对象数量与会话数量无关; 代价是每次读取都要解码出一个短命的会话对象. <br /> <br />
+ *
+ *     1. 读取: 在段锁内把记录复制到堆内, 在锁外解码; <br />
+ *     2. 更新: 仅刷新最后访问时间的 {@link DirtyTrackingSession} 直接就地改写记录中的时间戳, 其它变更重新编码,
+ *        新记录能放进原槽位时就地覆盖, 否则换到更大的槽位; <br />
+ *     3. 过期: 每 {@code sweep-interval} 逐段扫描一次, 只读取记录头部的最后访问时间、超时时间和状态, 删除已停止或已超时的会话. <br /> <br />
+ *
+ *     由于扫描直接删除过期会话, 会话管理器不需要再通过 {@link #getActiveSessions()} 逐个校验; 该方法返回一个按段惰性解码的视图.
+ * </p>
+ *
+ * @since 1.0
+ * @see SlabAllocator
+ * @see CompactSessionCodec
+ * @author 云上的云
+ * @formatter:off
+ */
+public class OffHeapSessionDAO
+        extends AbstractSessionDAO
+        implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapSessionDAO.class);
+    /**
+     * <p>
+     *     记录头部: 编码结果的字节数.
+     * </p>
+     */
+    private static final int LENGTH_BYTES = Integer.BYTES;
+    private final SlabAllocator allocator;
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final ScheduledExecutorService sweeper;
+
+    public OffHeapSessionDAO(@NonNull AppProperties.SessionConfig config) {
+        this.allocator = new SlabAllocator(config.getOffHeapMaxSize().toBytes());
+        int segmentCount = Integer.highestOneBit(Math.max(1, config.getOffHeapSegments() - 1)) << 1;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new Segment(this.allocator);
+        }
+        this.segmentMask = segmentCount - 1;
+
+        long sweepMillis = config.getSweepInterval().toMillis();
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "off-heap-session-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sweeper.scheduleWithFixedDelay(this :: sweep, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Serializable doCreate(Session session) {
+        Serializable sessionId = super.generateSessionId(session);
+        super.assignSessionId(session, sessionId);
+        this.store(session);
+        return sessionId;
+    }
+
+    @Override
+    protected Session doReadSession(Serializable sessionId) {
+        byte[] idBytes = CompactSessionCodec.idBytes(sessionId);
+        int hash = hashOf(idBytes);
+        byte[] data = this.segmentFor(hash).read(idBytes, hash);
+        return data == null ? null : CompactSessionCodec.decode(data);
+    }
+
+    @Override
+    public void update(Session session) throws UnknownSessionException {
+        if (session instanceof DirtyTrackingSession trackingSession && !trackingSession.isChanged()) {
+            byte[] idBytes = CompactSessionCodec.idBytes(requireId(session));
+            int hash = hashOf(idBytes);
+            long lastAccessTime = session.getLastAccessTime() == null ? 0L : session.getLastAccessTime().getTime();
+            // 仅刷新最后访问时间: 就地改写记录头部, 不重新编码.
+            if (this.segmentFor(hash).touch(idBytes, hash, lastAccessTime)) {
+                return;
+            }
+        }
+        this.store(session);
+    }
+
+    @Override
+    public void delete(Session session) {
+        byte[] idBytes = CompactSessionCodec.idBytes(requireId(session));
+        int hash = hashOf(idBytes);
+        this.segmentFor(hash).remove(idBytes, hash);
+    }
+
+    @Override
+    public Collection<Session> getActiveSessions() {
+        return new ActiveSessions();
+    }
+
+    /**
+     * <p>
+     *     删除所有已停止或已超时的会话.
+     * </p>
+     *
+     * @return 删除的会话数量.
+     */
+    public int sweep() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        try {
+            for (Segment segment : this.segments) {
+                removed += segment.sweep(now);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("清理过期的堆外会话失败.", e);
+        }
+        if (removed > 0) {
+            LOGGER.debug("已清理 [{}] 个过期的堆外会话, 当前占用堆外内存 [{}] 字节.", removed, this.allocator.reservedBytes());
+        }
+        return removed;
+    }
+
+    /**
+     * <p>
+     *     返回当前保存的会话数量.
+     * </p>
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : this.segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void close() {
+        this.sweeper.shutdownNow();
+    }
+
+    private void store(@NonNull Session session) {
+        byte[] data = CompactSessionCodec.encode(session);
+        byte[] idBytes = CompactSessionCodec.idBytes(requireId(session));
+        int hash = hashOf(idBytes);
+        this.segmentFor(hash).put(idBytes, hash, data);
+        if (session instanceof DirtyTrackingSession trackingSession) {
+            trackingSession.markPersisted();
+        }
+    }
+
+    private @NonNull Segment segmentFor(int hash) {
+        return this.segments[(hash >>> 16) & this.segmentMask];
+    }
+
+    private static @NonNull Serializable requireId(@NonNull Session session) {
+        Serializable sessionId = session.getId();
+        if (sessionId == null) {
+            throw new NullPointerException("会话 ID 不能为 null.");
+        }
+        return sessionId;
+    }
+
+    private static int hashOf(@NonNull byte[] idBytes) {
+        int hash = 1;
+        for (byte b : idBytes) {
+            hash = 31 * hash + b;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * <h2>索引段</h2>
+     * <p>
+     *     线性探测的开放寻址哈希表, 槽位中只保存哈希值和堆外地址; 删除时留下墓碑, 墓碑过多时原地重建. <br />
+     *     对本段记录的所有堆外读写都在段锁内进行, 因此同一槽位不会被并发读写.
+     * </p>
+     */
+    private static final class Segment {
+        private static final long EMPTY = 0L;
+        private static final long TOMBSTONE = -1L;
+        private final SlabAllocator allocator;
+        private final ReentrantLock lock = new ReentrantLock();
+        private int[] hashes = new int[16];
+        private long[] addresses = new long[16];
+        private int size;
+        private int tombstones;
+
+        private Segment(@NonNull SlabAllocator allocator) {
+            this.allocator = allocator;
+        }
+
+        private @Nullable byte[] read(@NonNull byte[] idBytes, int hash) {
+            this.lock.lock();
+            try {
+                int index = this.find(idBytes, hash);
+                return index < 0 ? null : this.copy(this.addresses[index]);
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private boolean touch(@NonNull byte[] idBytes, int hash, long lastAccessTime) {
+            this.lock.lock();
+            try {
+                int index = this.find(idBytes, hash);
+                if (index < 0) {
+                    return false;
+                }
+                long address = this.addresses[index];
+                this.allocator.pageOf(address).putLong(
+                        SlabAllocator.offsetOf(address) + LENGTH_BYTES + CompactSessionCodec.LAST_ACCESS_TIME_OFFSET, lastAccessTime
+                );
+                return true;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private void put(@NonNull byte[] idBytes, int hash, @NonNull byte[] data) {
+            int recordSize = LENGTH_BYTES + data.length;
+            this.lock.lock();
+            try {
+                int index = this.find(idBytes, hash);
+                if (index >= 0) {
+                    long address = this.addresses[index];
+                    if (SlabAllocator.capacityOf(address) < recordSize) {
+                        long grown = this.allocator.allocate(recordSize);
+                        this.write(grown, data);
+                        this.addresses[index] = grown;
+                        this.allocator.free(address);
+                    } else {
+                        this.write(address, data);
+                    }
+                    return;
+                }
+
+                if (this.size + this.tombstones + 1 > (this.addresses.length >>> 2) * 3) {
+                    this.rehash(this.size + 1 > this.addresses.length >>> 1 ? this.addresses.length << 1 : this.addresses.length);
+                }
+                long address = this.allocator.allocate(recordSize);
+                this.write(address, data);
+                int slot = this.insertionSlot(hash);
+                if (this.addresses[slot] == TOMBSTONE) {
+                    this.tombstones--;
+                }
+                this.hashes[slot] = hash;
+                this.addresses[slot] = address;
+                this.size++;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private void remove(@NonNull byte[] idBytes, int hash) {
+            this.lock.lock();
+            try {
+                int index = this.find(idBytes, hash);
+                if (index >= 0) {
+                    this.removeAt(index);
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private int sweep(long now) {
+            int removed = 0;
+            this.lock.lock();
+            try {
+                for (int i = 0; i < this.addresses.length; i++) {
+                    long address = this.addresses[i];
+                    if (address == EMPTY || address == TOMBSTONE) {
+                        continue;
+                    }
+                    ByteBuffer page = this.allocator.pageOf(address);
+                    int header = SlabAllocator.offsetOf(address) + LENGTH_BYTES;
+                    long lastAccessTime = page.getLong(header + CompactSessionCodec.LAST_ACCESS_TIME_OFFSET);
+                    long timeout = page.getLong(header + CompactSessionCodec.TIMEOUT_OFFSET);
+                    byte state = page.get(header + CompactSessionCodec.STATE_OFFSET);
+                    if (state != 0 || (timeout >= 0 && lastAccessTime + timeout <= now)) {
+                        this.removeAt(i);
+                        removed++;
+                    }
+                }
+            } finally {
+                this.lock.unlock();
+            }
+            return removed;
+        }
+
+        private int size() {
+            this.lock.lock();
+            try {
+                return this.size;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private @NonNull List<byte[]> snapshot() {
+            this.lock.lock();
+            try {
+                List<byte[]> records = new ArrayList<>(this.size);
+                for (long address : this.addresses) {
+                    if (address != EMPTY && address != TOMBSTONE) {
+                        records.add(this.copy(address));
+                    }
+                }
+                return records;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private int find(@NonNull byte[] idBytes, int hash) {
+            int mask = this.addresses.length - 1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                long address = this.addresses[i];
+                if (address == EMPTY) {
+                    return -1;
+                }
+                if (address != TOMBSTONE && this.hashes[i] == hash && this.idEquals(address, idBytes)) {
+                    return i;
+                }
+            }
+        }
+
+        private int insertionSlot(int hash) {
+            int mask = this.addresses.length - 1;
+            int i = hash & mask;
+            while (this.addresses[i] != EMPTY && this.addresses[i] != TOMBSTONE) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        private void removeAt(int index) {
+            this.allocator.free(this.addresses[index]);
+            this.addresses[index] = TOMBSTONE;
+            this.size--;
+            this.tombstones++;
+        }
+
+        private void rehash(int capacity) {
+            int[] oldHashes = this.hashes;
+            long[] oldAddresses = this.addresses;
+            this.hashes = new int[capacity];
+            this.addresses = new long[capacity];
+            this.tombstones = 0;
+            for (int i = 0; i < oldAddresses.length; i++) {
+                if (oldAddresses[i] != EMPTY && oldAddresses[i] != TOMBSTONE) {
+                    int slot = this.insertionSlot(oldHashes[i]);
+                    this.hashes[slot] = oldHashes[i];
+                    this.addresses[slot] = oldAddresses[i];
+                }
+            }
+        }
+
+        private boolean idEquals(long address, @NonNull byte[] idBytes) {
+            ByteBuffer page = this.allocator.pageOf(address);
+            int header = SlabAllocator.offsetOf(address) + LENGTH_BYTES;
+            if (page.getShort(header + CompactSessionCodec.ID_LENGTH_OFFSET) != idBytes.length) {
+                return false;
+            }
+            int idOffset = header + CompactSessionCodec.ID_OFFSET;
+            for (int i = 0; i < idBytes.length; i++) {
+                if (page.get(idOffset + i) != idBytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void write(long address, @NonNull byte[] data) {
+            ByteBuffer page = this.allocator.pageOf(address);
+            int offset = SlabAllocator.offsetOf(address);
+            page.putInt(offset, data.length);
+            page.put(offset + LENGTH_BYTES, data, 0, data.length);
+        }
+
+        private @NonNull byte[] copy(long address) {
+            ByteBuffer page = this.allocator.pageOf(address);
+            int offset = SlabAllocator.offsetOf(address);
+            byte[] data = new byte[page.getInt(offset)];
+            page.get(offset + LENGTH_BYTES, data, 0, data.length);
+            return data;
+        }
+    }
+
+    /**
+     * <h2>活跃会话视图</h2>
+     * <p>
+     *     逐段复制记录并逐个解码, 任意时刻只有一个段的记录被复制到堆内.
+     * </p>
+     */
+    private final class ActiveSessions
+            extends AbstractCollection<Session> {
+        @Override
+        public @NonNull Iterator<Session> iterator() {
+            return new Iterator<>() {
+                private int segmentIndex;
+                private Iterator<byte[]> records = List.<byte[]>of().iterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!this.records.hasNext() && this.segmentIndex < OffHeapSessionDAO.this.segments.length) {
+                        this.records = OffHeapSessionDAO.this.segments[this.segmentIndex++].snapshot().iterator();
+                    }
+                    return this.records.hasNext();
+                }
+
+                @Override
+                public Session next() {
+                    if (!this.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return CompactSessionCodec.decode(this.records.next());
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return OffHeapSessionDAO.this.size();
+        }
+    }
+}
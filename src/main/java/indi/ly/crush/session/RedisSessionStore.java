@@ -0,0 +1,67 @@
+package indi.ly.crush.session;
+
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * <h2>{@code Redis} 会话存储</h2>
+ * <p>
+ *     每个会话保存为 {@code 1} 个字符串键({@code 前缀 + 会话 ID}), 由 {@code Redis} 的键过期机制负责清理. <br />
+ *     批量写入通过管道({@code pipeline})在 {@code 1} 次往返中完成. <br /> <br />
+ *
+ *     只依赖 {@code GET}、{@code SET}({@code PX} 选项)和 {@code DEL} 命令, 因此也可以连接任何兼容 {@code Redis} 协议的服务(包括本地的替身服务).
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public class RedisSessionStore
+        implements SessionStore {
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+
+    public RedisSessionStore(@NonNull StringRedisTemplate redisTemplate, @NonNull String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public @Nullable byte[] read(@NonNull String sessionId) {
+        byte[] key = this.keyOf(sessionId);
+        return this.redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(key));
+    }
+
+    @Override
+    public void writeAll(@NonNull Collection<StoredSession> sessions) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        this.redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (StoredSession session : sessions) {
+                Expiration expiration = session.ttl() == null ? Expiration.persistent() : Expiration.milliseconds(session.ttl().toMillis());
+                connection.stringCommands().set(
+                        this.keyOf(session.sessionId()), session.data(), expiration, RedisStringCommands.SetOption.upsert()
+                );
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(@NonNull String sessionId) {
+        byte[] key = this.keyOf(sessionId);
+        this.redisTemplate.execute((RedisCallback<Long>) connection -> connection.keyCommands().del(key));
+    }
+
+    private @NonNull byte[] keyOf(@NonNull String sessionId) {
+        return (this.keyPrefix + sessionId).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,58 @@
+package indi.ly.crush.session;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * <h2>远端会话存储</h2>
+ * <p>
+ *     以不透明的字节数组保存序列化后的会话, 由 {@link NearCacheSessionDAO} 负责序列化、近端缓存以及写入合并. <br />
+ *     实现类必须是线程安全的.
+ * </p>
+ *
+ * @since 1.0
+ * @see RedisSessionStore
+ * @author 云上的云
+ * @formatter:off
+ */
+public interface SessionStore {
+    /**
+     * <p>
+     *     读取会话.
+     * </p>
+     *
+     * @param sessionId 会话 {@code ID}.
+     * @return 序列化后的会话; 如果会话不存在或已过期则返回 {@code null}.
+     */
+    @Nullable byte[] read(@NonNull String sessionId);
+
+    /**
+     * <p>
+     *     批量写入会话, 实现类应尽量在 {@code 1} 次往返中完成.
+     * </p>
+     *
+     * @param sessions 待写入的会话.
+     */
+    void writeAll(@NonNull Collection<StoredSession> sessions);
+
+    /**
+     * <p>
+     *     删除会话.
+     * </p>
+     *
+     * @param sessionId 会话 {@code ID}.
+     */
+    void delete(@NonNull String sessionId);
+
+    /**
+     * <h2>待写入的会话</h2>
+     *
+     * @param sessionId 会话 {@code ID}.
+     * @param data      序列化后的会话.
+     * @param ttl       会话在远端存储中的存活时间, 为 {@code null} 时永不过期.
+     */
+    record StoredSession(@NonNull String sessionId, @NonNull byte[] data, @Nullable Duration ttl) {}
+}
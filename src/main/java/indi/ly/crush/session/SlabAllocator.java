@@ -0,0 +1,171 @@
+package indi.ly.crush.session;
+
+import indi.ly.crush.ex.ServiceOverloadedException;
+import org.springframework.lang.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <h2>堆外内存块分配器</h2>
+ * <p>
+ *     以 {@code 1 MiB} 的直接内存页为单位向操作系统申请内存, 每页只服务于一个大小等级, 并被切分为等长的槽位. <br />
+ *     大小等级为 {@code 64} 字节到 {@code 64 KiB} 之间的 {@code 2} 的幂, 每个等级用一个空闲槽位栈管理回收的槽位. <br /> <br />
+ *
+ *     槽位地址是一个正的 {@code long}: 第 {@code 56~62} 位是大小等级(加 {@code 1}, 保证地址不为 {@code 0}),
+ *     第 {@code 24~55} 位是页号, 低 {@code 24} 位是页内偏移. <br />
+ *     已申请的内存页不会归还给操作系统, 只会在同一大小等级内复用; 已申请的总字节数受 {@code maxBytes} 限制. <br /> <br />
+ *
+ *     分配与释放是线程安全的; 对槽位内容的读写使用 {@link ByteBuffer} 的绝对位置方法, 由调用方保证同一槽位不会被并发读写.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+final class SlabAllocator {
+    static final int MIN_SLOT_SHIFT = 6;
+    static final int MAX_SLOT_SHIFT = 16;
+    static final int MAX_SLOT_SIZE = 1 << MAX_SLOT_SHIFT;
+    private static final int PAGE_SHIFT = 20;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int OFFSET_BITS = 24;
+    private static final int CLASS_SHIFT = 56;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+    private static final long PAGE_MASK = (1L << (CLASS_SHIFT - OFFSET_BITS)) - 1;
+    private final long maxPages;
+    private final SizeClass[] sizeClasses = new SizeClass[MAX_SLOT_SHIFT - MIN_SLOT_SHIFT + 1];
+    private final ReentrantLock pagesLock = new ReentrantLock();
+    /**
+     * <p>
+     *     所有已申请的内存页, 扩容时整体替换(写时复制), 读取时无需加锁.
+     * </p>
+     */
+    private volatile ByteBuffer[] pages = new ByteBuffer[0];
+
+    SlabAllocator(long maxBytes) {
+        if (maxBytes < PAGE_SIZE) {
+            throw new IllegalArgumentException("堆外内存上限不能小于 %d 字节: %d.".formatted(PAGE_SIZE, maxBytes));
+        }
+        this.maxPages = maxBytes >>> PAGE_SHIFT;
+        for (int i = 0; i < this.sizeClasses.length; i++) {
+            this.sizeClasses[i] = new SizeClass(i);
+        }
+    }
+
+    /**
+     * <p>
+     *     分配一个至少能容纳 {@code size} 字节的槽位.
+     * </p>
+     *
+     * @param size 需要的字节数.
+     * @return 槽位地址.
+     * @throws IllegalArgumentException 如果 {@code size} 超过 {@link #MAX_SLOT_SIZE}.
+     * @throws ServiceOverloadedException 如果堆外内存已达上限.
+     */
+    long allocate(int size) {
+        if (size > MAX_SLOT_SIZE) {
+            throw new IllegalArgumentException("单个槽位不能超过 %d 字节: %d.".formatted(MAX_SLOT_SIZE, size));
+        }
+        SizeClass sizeClass = this.sizeClasses[classIndexOf(size)];
+        sizeClass.lock.lock();
+        try {
+            if (sizeClass.freeCount == 0) {
+                this.carvePage(sizeClass);
+            }
+            return sizeClass.freeSlots[--sizeClass.freeCount];
+        } finally {
+            sizeClass.lock.unlock();
+        }
+    }
+
+    /**
+     * <p>
+     *     释放槽位, 槽位随后可被同一大小等级的分配复用.
+     * </p>
+     *
+     * @param address 槽位地址.
+     */
+    void free(long address) {
+        SizeClass sizeClass = this.sizeClasses[(int) (address >>> CLASS_SHIFT) - 1];
+        sizeClass.lock.lock();
+        try {
+            sizeClass.push(address);
+        } finally {
+            sizeClass.lock.unlock();
+        }
+    }
+
+    /**
+     * <p>
+     *     返回槽位的容量(字节).
+     * </p>
+     */
+    static int capacityOf(long address) {
+        return 1 << ((int) (address >>> CLASS_SHIFT) - 1 + MIN_SLOT_SHIFT);
+    }
+
+    @NonNull ByteBuffer pageOf(long address) {
+        return this.pages[(int) ((address >>> OFFSET_BITS) & PAGE_MASK)];
+    }
+
+    static int offsetOf(long address) {
+        return (int) (address & OFFSET_MASK);
+    }
+
+    /**
+     * <p>
+     *     返回已申请的堆外内存字节数.
+     * </p>
+     */
+    long reservedBytes() {
+        return (long) this.pages.length << PAGE_SHIFT;
+    }
+
+    private void carvePage(@NonNull SizeClass sizeClass) {
+        int pageIndex;
+        this.pagesLock.lock();
+        try {
+            ByteBuffer[] current = this.pages;
+            if (current.length >= this.maxPages) {
+                throw new ServiceOverloadedException("会话存储的堆外内存已达上限, 请稍后重试.", 60);
+            }
+            ByteBuffer[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = ByteBuffer.allocateDirect(PAGE_SIZE);
+            pageIndex = current.length;
+            this.pages = grown;
+        } finally {
+            this.pagesLock.unlock();
+        }
+        int slotSize = 1 << (sizeClass.index + MIN_SLOT_SHIFT);
+        long base = ((long) (sizeClass.index + 1) << CLASS_SHIFT) | ((long) pageIndex << OFFSET_BITS);
+        // 倒序入栈, 使同一页中的槽位按地址顺序被分配.
+        for (int offset = PAGE_SIZE - slotSize; offset >= 0; offset -= slotSize) {
+            sizeClass.push(base | offset);
+        }
+    }
+
+    private static int classIndexOf(int size) {
+        int shift = 32 - Integer.numberOfLeadingZeros(Math.max(size, 1 << MIN_SLOT_SHIFT) - 1);
+        return shift - MIN_SLOT_SHIFT;
+    }
+
+    private static final class SizeClass {
+        private final int index;
+        private final ReentrantLock lock = new ReentrantLock();
+        private long[] freeSlots = new long[64];
+        private int freeCount;
+
+        private SizeClass(int index) {
+            this.index = index;
+        }
+
+        private void push(long address) {
+            if (this.freeCount == this.freeSlots.length) {
+                this.freeSlots = Arrays.copyOf(this.freeSlots, this.freeCount << 1);
+            }
+            this.freeSlots[this.freeCount++] = address;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package indi.ly.crush.session;
+
+import indi.ly.crush.timer.HierarchicalTimingWheel;
+import org.apache.shiro.session.InvalidSessionException;
+import org.apache.shiro.session.Session;
+import org.apache.shiro.session.SessionListener;
+import org.apache.shiro.session.mgt.DefaultSessionKey;
+import org.apache.shiro.session.mgt.ExecutorServiceSessionValidationScheduler;
+import org.apache.shiro.session.mgt.NativeSessionManager;
+import org.apache.shiro.session.mgt.SessionKey;
+import org.apache.shiro.session.mgt.SessionValidationScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <h2>基于时间轮的增量会话校验调度器</h2>
+ * <p>
+ *     {@link ExecutorServiceSessionValidationScheduler} 每个周期在单个线程上逐个校验全部活跃会话, 会话越多, 一轮校验越久, 瞬时分配也越多. <br />
+ *     本调度器按会话 {@code ID} 将会话分片, 每个分片用一个 {@link HierarchicalTimingWheel} 按预计的过期时间(最后访问时间 + 超时时间)登记会话: <br />
+ *     1. 每个刻度只处理到期的槽位, 未到期的会话不会被访问; <br />
+ *     2. 各分片的到期会话在有界的 {@link ForkJoinPool} 上并行校验; <br />
+ *     3. 到期会话期间被访问过的, 按新的过期时间重新登记; 确实过期的, 由会话管理器按正常流程使其过期(通知监听器并删除). <br /> <br />
+ *
+ *     本调度器同时是 {@link SessionListener}, 通过会话的创建、停止和过期事件维护时间轮; 因此只负责本节点创建的会话. <br />
+ *     每一轮校验的耗时以及到期、过期的会话数量会记录到日志中, 并可以通过 {@link #getLastPass()} 获取.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public class TimingWheelSessionValidationScheduler
+        implements SessionValidationScheduler, SessionListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimingWheelSessionValidationScheduler.class);
+    private final NativeSessionManager sessionManager;
+    private final long tickMillis;
+    private final int parallelism;
+    private final Shard[] shards;
+    private final int shardMask;
+    private volatile ScheduledExecutorService ticker;
+    private volatile ForkJoinPool workers;
+    private volatile ValidationPass lastPass;
+
+    public TimingWheelSessionValidationScheduler(@NonNull NativeSessionManager sessionManager, long tickMillis, int parallelism) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("会话校验的刻度必须是一个正数: %d.".formatted(tickMillis));
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("会话校验的并行度必须是一个正整数: %d.".formatted(parallelism));
+        }
+        this.sessionManager = sessionManager;
+        this.tickMillis = tickMillis;
+        this.parallelism = parallelism;
+
+        // 分片数量为并行度的 4 倍, 减少各分片到期会话数量不均导致的等待.
+        int shardCount = Integer.highestOneBit(parallelism * 4 - 1) << 1;
+        long now = System.currentTimeMillis();
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            this.shards[i] = new Shard(new HierarchicalTimingWheel<>(tickMillis, now));
+        }
+        this.shardMask = shardCount - 1;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return this.ticker != null;
+    }
+
+    @Override
+    public synchronized void enableSessionValidation() {
+        if (this.ticker != null) {
+            return;
+        }
+        this.workers = new ForkJoinPool(this.parallelism);
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-validation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ticker.scheduleWithFixedDelay(this :: validateDueSessions, this.tickMillis, this.tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void disableSessionValidation() {
+        if (this.ticker == null) {
+            return;
+        }
+        this.ticker.shutdownNow();
+        this.workers.shutdownNow();
+        this.ticker = null;
+        this.workers = null;
+    }
+
+    @Override
+    public void onStart(Session session) {
+        this.schedule(session.getId(), session.getLastAccessTime() == null ? System.currentTimeMillis() : session.getLastAccessTime().getTime(), session.getTimeout());
+    }
+
+    @Override
+    public void onStop(Session session) {
+        this.cancel(session.getId());
+    }
+
+    @Override
+    public void onExpiration(Session session) {
+        this.cancel(session.getId());
+    }
+
+    /**
+     * <p>
+     *     返回最近一轮校验的统计信息, 尚未进行过校验时返回 {@code null}.
+     * </p>
+     */
+    public @Nullable ValidationPass getLastPass() {
+        return this.lastPass;
+    }
+
+    /**
+     * <p>
+     *     校验所有到期的会话.
+     * </p>
+     */
+    public void validateDueSessions() {
+        ForkJoinPool pool = this.workers;
+        if (pool == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        List<Callable<int[]>> tasks = new ArrayList<>(this.shards.length);
+        for (Shard shard : this.shards) {
+            tasks.add(() -> this.validateShard(shard, now));
+        }
+
+        int due = 0;
+        int expired = 0;
+        try {
+            for (Future<int[]> future : pool.invokeAll(tasks)) {
+                int[] counts = future.get();
+                due += counts[0];
+                expired += counts[1];
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            LOGGER.error("会话校验失败.", e.getCause());
+        }
+
+        ValidationPass pass = new ValidationPass(due, expired, System.nanoTime() - start);
+        this.lastPass = pass;
+        if (pass.durationNanos() > TimeUnit.MILLISECONDS.toNanos(this.tickMillis)) {
+            LOGGER.warn("本轮会话校验耗时超过一个刻度: {}.", pass);
+        } else if (due > 0) {
+            LOGGER.debug("本轮会话校验完成: {}.", pass);
+        }
+    }
+
+    /**
+     * <p>
+     *     推进分片的时间轮, 并在锁外逐个校验到期的会话.
+     * </p>
+     *
+     * @return 到期的会话数量与确实过期的会话数量.
+     */
+    private int[] validateShard(@NonNull Shard shard, long now) {
+        List<Serializable> dueSessionIds = new ArrayList<>();
+        shard.lock.lock();
+        try {
+            shard.wheel.advance(now, sessionId -> {
+                shard.timeouts.remove(sessionId);
+                dueSessionIds.add(sessionId);
+            });
+        } finally {
+            shard.lock.unlock();
+        }
+
+        int expired = 0;
+        for (Serializable sessionId : dueSessionIds) {
+            SessionKey key = new DefaultSessionKey(sessionId);
+            try {
+                // 查找会话时会话管理器会先校验它, 已过期的会话会在此处被过期处理并抛出异常.
+                long lastAccessTime = this.sessionManager.getLastAccessTime(key).getTime();
+                this.schedule(sessionId, lastAccessTime, this.sessionManager.getTimeout(key));
+            } catch (InvalidSessionException e) {
+                expired++;
+            } catch (RuntimeException e) {
+                LOGGER.warn("校验会话 [{}] 失败.", sessionId, e);
+            }
+        }
+        return new int[] {dueSessionIds.size(), expired};
+    }
+
+    private void schedule(@Nullable Serializable sessionId, long lastAccessTime, long timeout) {
+        // 负数超时时间表示永不过期.
+        if (sessionId == null || timeout < 0) {
+            return;
+        }
+        Shard shard = this.shardFor(sessionId);
+        shard.lock.lock();
+        try {
+            HierarchicalTimingWheel.Timeout<Serializable> previous = shard.timeouts.remove(sessionId);
+            if (previous != null) {
+                shard.wheel.cancel(previous);
+            }
+            // 多等待一个刻度, 保证到期时会话已经超时.
+            shard.timeouts.put(sessionId, shard.wheel.schedule(sessionId, lastAccessTime + timeout + this.tickMillis));
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    private void cancel(@Nullable Serializable sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        Shard shard = this.shardFor(sessionId);
+        shard.lock.lock();
+        try {
+            HierarchicalTimingWheel.Timeout<Serializable> timeout = shard.timeouts.remove(sessionId);
+            if (timeout != null) {
+                shard.wheel.cancel(timeout);
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    private @NonNull Shard shardFor(@NonNull Serializable sessionId) {
+        int hash = sessionId.hashCode();
+        return this.shards[(hash ^ (hash >>> 16)) & this.shardMask];
+    }
+
+    private static final class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final HierarchicalTimingWheel<Serializable> wheel;
+        private final Map<Serializable, HierarchicalTimingWheel.Timeout<Serializable>> timeouts = new HashMap<>();
+
+        private Shard(@NonNull HierarchicalTimingWheel<Serializable> wheel) {
+            this.wheel = wheel;
+        }
+    }
+
+    /**
+     * <h2>一轮校验的统计信息</h2>
+     *
+     * @param dueSessions     到期(被校验)的会话数量.
+     * @param expiredSessions 确实过期的会话数量.
+     * @param durationNanos   耗时(纳秒).
+     */
+    public record ValidationPass(int dueSessions, int expiredSessions, long durationNanos) {
+        @Override
+        public String toString() {
+            return "到期 %d 个, 过期 %d 个, 耗时 %.3f ms".formatted(this.dueSessions, this.expiredSessions, this.durationNanos / 1_000_000.0);
+        }
+    }
+}
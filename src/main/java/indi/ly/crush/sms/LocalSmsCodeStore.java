@@ -0,0 +1,227 @@
+package indi.ly.crush.sms;
+
+import indi.ly.crush.config.AppProperties;
+import indi.ly.crush.ex.ServiceOverloadedException;
+import indi.ly.crush.timer.HierarchicalTimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <h2>本地短信验证码存储</h2>
+ * <p>
+ *     进程内的高吞吐实现, 适用于单节点部署或开发环境:
+ *     <ul>
+ *         <li>
+ *             分段存储: <br />
+ *             按手机号码的散列值将验证码分散到多个段({@code stripe})中, 每个段有独立的锁、散列表和时间轮, 不同段之间互不竞争.
+ *         </li>
+ *         <li>
+ *             时间轮过期: <br />
+ *             每个验证码在保存时被放入所在段的 {@link HierarchicalTimingWheel}, 后台线程按刻度推进时间轮, 只处理到期的槽位,
+ *             因此过期的代价为 {@code O(1)}, 与未过期的验证码数量无关.
+ *         </li>
+ *         <li>
+ *             有界内存: <br />
+ *             所有段合计最多保存 {@code maxEntries} 个验证码, 超出时拒绝下发新的验证码, 而不是无限制地占用内存.
+ *             下发的频率还受冷却时间以及调用方的限流约束, 因此任意手机号码的请求无法迅速占满容量.
+ *         </li>
+ *     </ul>
+ * </p>
+ *
+ * @since 1.0
+ * @see AppProperties.SmsCodeConfig
+ * @author 云上的云
+ * @formatter:off
+ */
+public class LocalSmsCodeStore
+        implements SmsCodeStore, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalSmsCodeStore.class);
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int maxEntries;
+    private final AtomicInteger size = new AtomicInteger();
+    private final int maxAttempts;
+    private final long resendCooldownMillis;
+    private final long retryAfterSeconds;
+    private final ScheduledExecutorService ticker;
+
+    public LocalSmsCodeStore(@NonNull AppProperties.SmsCodeConfig config) {
+        int stripeCount = Integer.highestOneBit(Math.max(1, config.getStripes() - 1)) << 1;
+        long tickMillis = config.getTick().toMillis();
+        long now = System.currentTimeMillis();
+
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe(new HierarchicalTimingWheel<>(tickMillis, now));
+        }
+        this.stripeMask = stripeCount - 1;
+        this.maxEntries = config.getMaxEntries();
+        this.maxAttempts = config.getMaxAttempts();
+        this.resendCooldownMillis = config.getResendCooldown().toMillis();
+        this.retryAfterSeconds = Math.max(1, config.getTick().toSeconds());
+
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sms-code-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ticker.scheduleAtFixedRate(this :: expire, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long save(@NonNull String phoneNumber, @NonNull String code, @NonNull Duration ttl) {
+        long now = System.currentTimeMillis();
+        long deadline = now + ttl.toMillis();
+        Stripe stripe = this.stripeFor(phoneNumber);
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.get(phoneNumber);
+            if (entry != null && entry.deadline <= now) {
+                // 时间轮按刻度推进, 已经过期但尚未清理的验证码视为不存在.
+                this.remove(stripe, entry);
+                entry = null;
+            }
+
+            if (entry != null) {
+                long cooldownEndsAt = entry.sentAt + this.resendCooldownMillis;
+                if (cooldownEndsAt > now) {
+                    return cooldownEndsAt - now;
+                }
+                if (entry.attempts >= this.maxAttempts) {
+                    return entry.deadline - now;
+                }
+                // 只替换验证码并延长有效期, 尝试次数保持不变.
+                stripe.wheel.cancel(entry.timeout);
+                entry.code = code;
+                entry.sentAt = now;
+                entry.deadline = deadline;
+                entry.timeout = stripe.wheel.schedule(entry, deadline);
+                return 0;
+            }
+
+            if (this.size.incrementAndGet() > this.maxEntries) {
+                this.size.decrementAndGet();
+                throw new ServiceOverloadedException("短信验证码数量已达上限, 请稍后重试.", this.retryAfterSeconds);
+            }
+            entry = new Entry(phoneNumber, code, now, deadline);
+            entry.timeout = stripe.wheel.schedule(entry, deadline);
+            stripe.entries.put(phoneNumber, entry);
+            return 0;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public @NonNull SmsCodeVerification verifyAndConsume(@NonNull String phoneNumber, @NonNull String code) {
+        Stripe stripe = this.stripeFor(phoneNumber);
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.get(phoneNumber);
+            if (entry == null) {
+                return SmsCodeVerification.EXPIRED;
+            }
+            // 时间轮按刻度推进, 因此在读取时再次检查是否已经过期.
+            if (entry.deadline <= System.currentTimeMillis()) {
+                this.remove(stripe, entry);
+                return SmsCodeVerification.EXPIRED;
+            }
+            // 被锁定的手机号码保留到有效期结束, 以免重新下发验证码就能获得新的尝试次数.
+            if (entry.attempts >= this.maxAttempts) {
+                return SmsCodeVerification.TOO_MANY_ATTEMPTS;
+            }
+            if (MessageDigest.isEqual(entry.code.getBytes(StandardCharsets.UTF_8), code.getBytes(StandardCharsets.UTF_8))) {
+                this.remove(stripe, entry);
+                return SmsCodeVerification.MATCHED;
+            }
+            if (++entry.attempts >= this.maxAttempts) {
+                return SmsCodeVerification.TOO_MANY_ATTEMPTS;
+            }
+            return SmsCodeVerification.MISMATCHED;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * <p>
+     *     获取当前保存的验证码数量.
+     * </p>
+     *
+     * @return 验证码数量.
+     */
+    public int size() {
+        return this.size.get();
+    }
+
+    @Override
+    public void close() {
+        this.ticker.shutdownNow();
+    }
+
+    private void expire() {
+        long now = System.currentTimeMillis();
+        int expired = 0;
+        for (Stripe stripe : this.stripes) {
+            stripe.lock.lock();
+            try {
+                expired += stripe.wheel.advance(now, entry -> stripe.entries.remove(entry.phoneNumber, entry));
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        this.size.addAndGet(-expired);
+        if (expired > 0) {
+            LOGGER.trace("清理过期的短信验证码 [{}] 个.", expired);
+        }
+    }
+
+    private void remove(@NonNull Stripe stripe, @NonNull Entry entry) {
+        stripe.entries.remove(entry.phoneNumber, entry);
+        stripe.wheel.cancel(entry.timeout);
+        this.size.decrementAndGet();
+    }
+
+    private @NonNull Stripe stripeFor(@NonNull String phoneNumber) {
+        int h = phoneNumber.hashCode();
+        return this.stripes[(h ^ (h >>> 16)) & this.stripeMask];
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Entry> entries = new HashMap<>();
+        private final HierarchicalTimingWheel<Entry> wheel;
+
+        private Stripe(HierarchicalTimingWheel<Entry> wheel) {
+            this.wheel = wheel;
+        }
+    }
+
+    private static final class Entry {
+        private final String phoneNumber;
+        private String code;
+        private long sentAt;
+        private long deadline;
+        private int attempts;
+        private HierarchicalTimingWheel.Timeout<Entry> timeout;
+
+        private Entry(String phoneNumber, String code, long sentAt, long deadline) {
+            this.phoneNumber = phoneNumber;
+            this.code = code;
+            this.sentAt = sentAt;
+            this.deadline = deadline;
+        }
+    }
+}
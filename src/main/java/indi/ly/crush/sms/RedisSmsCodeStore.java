@@ -0,0 +1,114 @@
+package indi.ly.crush.sms;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * <h2>{@code Redis} 短信验证码存储</h2>
+ * <p>
+ *     适用于多节点部署, 验证码保存在 {@code Redis} 的散列({@code sms:code:手机号码})中, 由 {@code Redis} 的键过期机制负责过期. <br />
+ *     保存和校验都通过 {@code Lua} 脚本原子地执行, 保证一次性消费、冷却时间以及尝试次数的计数在并发下和多个节点之间依然正确. <br />
+ *     冷却时间以调用方节点的时钟判断, 节点之间的时钟偏差会相应地缩短或延长冷却时间. <br /> <br />
+ *
+ *     只依赖 {@code HSET}、{@code HSETNX}、{@code HMGET}、{@code HINCRBY}、{@code PEXPIRE}、{@code PTTL}、{@code DEL} 和 {@code EVAL} 命令,
+ *     因此也可以连接任何兼容 {@code Redis} 协议的服务(包括本地的替身服务).
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public class RedisSmsCodeStore
+        implements SmsCodeStore {
+    private static final String KEY_PREFIX = "sms:code:";
+    /**
+     * <p>
+     *     参数: 验证码、有效期(毫秒)、当前时间(毫秒)、冷却时间(毫秒)、最大尝试次数. <br />
+     *     返回值: {@code 0}-已保存 正数-距离可以重新下发的毫秒数. 重新下发时尝试次数保持不变.
+     * </p>
+     */
+    private static final RedisScript<Long> SAVE_SCRIPT = new DefaultRedisScript<>(
+            """
+            local stored = redis.call('HMGET', KEYS[1], 'sentAt', 'attempts')
+            if stored[1] then
+                local wait = tonumber(stored[1]) + tonumber(ARGV[4]) - tonumber(ARGV[3])
+                if wait > 0 then
+                    return wait
+                end
+                if tonumber(stored[2]) >= tonumber(ARGV[5]) then
+                    return math.max(redis.call('PTTL', KEYS[1]), 1)
+                end
+            end
+            redis.call('HSET', KEYS[1], 'code', ARGV[1], 'sentAt', ARGV[3])
+            redis.call('HSETNX', KEYS[1], 'attempts', 0)
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return 0
+            """,
+            Long.class
+    );
+    /**
+     * <p>
+     *     返回值: {@code 0}-不存在或已过期 {@code 1}-匹配 {@code 2}-不匹配 {@code 3}-错误次数已达上限. <br />
+     *     错误次数达到上限后保留该键直到过期, 作为锁定标记.
+     * </p>
+     */
+    private static final RedisScript<Long> VERIFY_SCRIPT = new DefaultRedisScript<>(
+            """
+            local stored = redis.call('HMGET', KEYS[1], 'code', 'attempts')
+            if not stored[1] then
+                return 0
+            end
+            if tonumber(stored[2]) >= tonumber(ARGV[2]) then
+                return 3
+            end
+            if stored[1] == ARGV[1] then
+                redis.call('DEL', KEYS[1])
+                return 1
+            end
+            local attempts = redis.call('HINCRBY', KEYS[1], 'attempts', 1)
+            if attempts >= tonumber(ARGV[2]) then
+                return 3
+            end
+            return 2
+            """,
+            Long.class
+    );
+    private final StringRedisTemplate redisTemplate;
+    private final int maxAttempts;
+    private final long resendCooldownMillis;
+
+    public RedisSmsCodeStore(@NonNull StringRedisTemplate redisTemplate, int maxAttempts, @NonNull Duration resendCooldown) {
+        this.redisTemplate = redisTemplate;
+        this.maxAttempts = maxAttempts;
+        this.resendCooldownMillis = resendCooldown.toMillis();
+    }
+
+    @Override
+    public long save(@NonNull String phoneNumber, @NonNull String code, @NonNull Duration ttl) {
+        Long wait = this.redisTemplate.execute(
+                SAVE_SCRIPT, List.of(KEY_PREFIX + phoneNumber),
+                code, String.valueOf(ttl.toMillis()), String.valueOf(System.currentTimeMillis()),
+                String.valueOf(this.resendCooldownMillis), String.valueOf(this.maxAttempts)
+        );
+        return wait == null ? 0L : wait;
+    }
+
+    @Override
+    public @NonNull SmsCodeVerification verifyAndConsume(@NonNull String phoneNumber, @NonNull String code) {
+        Long result = this.redisTemplate.execute(VERIFY_SCRIPT, List.of(KEY_PREFIX + phoneNumber), code, String.valueOf(this.maxAttempts));
+        if (result == null) {
+            return SmsCodeVerification.EXPIRED;
+        }
+        return switch (result.intValue()) {
+            case 1 -> SmsCodeVerification.MATCHED;
+            case 2 -> SmsCodeVerification.MISMATCHED;
+            case 3 -> SmsCodeVerification.TOO_MANY_ATTEMPTS;
+            default -> SmsCodeVerification.EXPIRED;
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package indi.ly.crush.sms;
+
+import indi.ly.crush.realm.SMSCodeRealm;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+
+/**
+ * <h2>短信验证码存储</h2>
+ * <p>
+ *     保存已下发的短信验证码, 每个手机号码同一时刻最多只有 {@code 1} 个有效的验证码, 重新下发会覆盖旧的验证码. <br />
+ *     验证码在过期后自动失效, 校验成功后立即被消费(一次性使用). <br /> <br />
+ *
+ *     尝试次数属于手机号码而不是某一个验证码: 在有效期内重新下发只替换验证码, 不重置尝试次数;
+ *     达到上限后该手机号码被锁定, 直到有效期结束, 期间既不能校验也不能重新下发. <br />
+ *     同一手机号码两次下发之间至少间隔冷却时间, 冷却时间与锁定都由存储原子地判断, 因此在多节点部署下同样有效.
+ * </p>
+ *
+ * @since 1.0
+ * @see LocalSmsCodeStore
+ * @see RedisSmsCodeStore
+ * @see SMSCodeRealm
+ * @author 云上的云
+ * @formatter:off
+ */
+public interface SmsCodeStore {
+    /**
+     * <p>
+     *     保存验证码, 覆盖该手机号码之前的验证码并保留其尝试次数.
+     * </p>
+     *
+     * @param phoneNumber 手机号码.
+     * @param code        验证码.
+     * @param ttl         验证码的有效期.
+     * @return 保存成功时返回 {@code 0}; 如果仍在冷却时间内或已被锁定, 则不保存并返回距离可以重新下发的毫秒数(总是大于 {@code 0}).
+     */
+    long save(@NonNull String phoneNumber, @NonNull String code, @NonNull Duration ttl);
+    /**
+     * <p>
+     *     校验验证码, 校验成功时消费该验证码, 校验失败时增加尝试次数.
+     * </p>
+     *
+     * @param phoneNumber 手机号码.
+     * @param code        用户提交的验证码.
+     * @return 校验结果.
+     */
+    @NonNull SmsCodeVerification verifyAndConsume(@NonNull String phoneNumber, @NonNull String code);
+}
@@ -0,0 +1,36 @@
+package indi.ly.crush.sms;
+
+/**
+ * <h2>短信验证码校验结果</h2>
+ *
+ * @since 1.0
+ * @see SmsCodeStore#verifyAndConsume(String, String)
+ * @author 云上的云
+ * @formatter:off
+ */
+public enum SmsCodeVerification {
+    /**
+     * <p>
+     *     验证码正确, 且已被消费(不能再次使用).
+     * </p>
+     */
+    MATCHED,
+    /**
+     * <p>
+     *     验证码错误, 尝试次数加 {@code 1}.
+     * </p>
+     */
+    MISMATCHED,
+    /**
+     * <p>
+     *     验证码不存在或已过期.
+     * </p>
+     */
+    EXPIRED,
+    /**
+     * <p>
+     *     错误次数已达上限, 手机号码在验证码的有效期结束之前被锁定.
+     * </p>
+     */
+    TOO_MANY_ATTEMPTS
+}
@@ -0,0 +1,201 @@
+package indi.ly.crush.timer;
+
+import org.springframework.lang.NonNull;
+
+import java.util.function.Consumer;
+
+/**
+ * <h2>分层时间轮</h2>
+ * <p>
+ *     用于大量定时条目的过期管理, 添加和取消都是 {@code O(1)} 的操作, 推进时间时只处理到期的槽位, 而不需要扫描全部条目. <br /> <br />
+ *
+ *     时间轮共有 {@value #LEVELS} 层, 每层 {@value #WHEEL_SIZE} 个槽位:
+ *     <ul>
+ *         <li>第 {@code 0} 层的每个槽位代表 {@code 1} 个刻度({@code tick}).</li>
+ *         <li>第 {@code n} 层的每个槽位代表 {@code 64ⁿ} 个刻度, 当低层转完一圈时, 高层对应槽位中的条目被重新分配(级联)到低层.</li>
+ *     </ul>
+ *     超出最大范围的条目会先放在最高层, 在级联时根据其真实的到期刻度重新分配. <br /> <br />
+ *
+ *     本类不是线程安全的, 调用方需要自行同步.
+ * </p>
+ *
+ * @param <T> 条目的类型.
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public final class HierarchicalTimingWheel<T> {
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = (1L << (WHEEL_BITS * LEVELS)) - 1;
+    private final long tickMillis;
+    private final Timeout<T>[][] buckets;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("时间轮的刻度必须是一个正数: %d.".formatted(tickMillis));
+        }
+        this.tickMillis = tickMillis;
+        this.buckets = new Timeout[LEVELS][WHEEL_SIZE];
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * <p>
+     *     添加一个在指定时间到期的条目.
+     * </p>
+     *
+     * @param value          条目.
+     * @param deadlineMillis 到期时间(毫秒时间戳).
+     * @return 可用于{@link #cancel(Timeout) 取消}的句柄.
+     */
+    public @NonNull Timeout<T> schedule(@NonNull T value, long deadlineMillis) {
+        Timeout<T> timeout = new Timeout<>(value, (deadlineMillis + this.tickMillis - 1) / this.tickMillis);
+        // 当前刻度的槽位已经处理过, 因此最早只能在下一个刻度到期.
+        this.place(timeout, this.currentTick + 1);
+        this.size++;
+        return timeout;
+    }
+
+    /**
+     * <p>
+     *     取消一个尚未到期的条目.
+     * </p>
+     *
+     * @param timeout 条目的句柄.
+     * @return 如果条目仍在时间轮中并被成功取消则返回 {@code true}.
+     */
+    public boolean cancel(@NonNull Timeout<T> timeout) {
+        if (timeout.level < 0) {
+            return false;
+        }
+        this.unlink(timeout);
+        this.size--;
+        return true;
+    }
+
+    /**
+     * <p>
+     *     将时间轮推进到指定时间, 并对所有到期的条目调用回调.
+     * </p>
+     *
+     * @param nowMillis 当前时间(毫秒时间戳).
+     * @param onExpire  到期回调.
+     * @return 本次到期的条目数量.
+     */
+    public int advance(long nowMillis, @NonNull Consumer<T> onExpire) {
+        long targetTick = nowMillis / this.tickMillis;
+        int expired = 0;
+        while (this.currentTick < targetTick) {
+            this.currentTick++;
+            this.cascade();
+            expired += this.expire(onExpire);
+        }
+        return expired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void cascade() {
+        // 低层每转完一圈, 就将高一层当前槽位中的条目重新分配到低层.
+        for (int level = 1; level < LEVELS; level++) {
+            if ((this.currentTick & ((1L << (WHEEL_BITS * level)) - 1)) != 0) {
+                return;
+            }
+            int slot = (int) ((this.currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+            Timeout<T> head = this.buckets[level][slot];
+            this.buckets[level][slot] = null;
+            while (head != null) {
+                Timeout<T> next = head.next;
+                head.prev = head.next = null;
+                this.place(head, this.currentTick);
+                head = next;
+            }
+        }
+    }
+
+    private int expire(Consumer<T> onExpire) {
+        int slot = (int) (this.currentTick & WHEEL_MASK);
+        Timeout<T> head = this.buckets[0][slot];
+        this.buckets[0][slot] = null;
+        int expired = 0;
+        while (head != null) {
+            Timeout<T> next = head.next;
+            head.prev = head.next = null;
+            if (head.deadlineTick <= this.currentTick) {
+                head.level = -1;
+                this.size--;
+                expired++;
+                onExpire.accept(head.value);
+            } else {
+                this.place(head, this.currentTick + 1);
+            }
+            head = next;
+        }
+        return expired;
+    }
+
+    private void place(Timeout<T> timeout, long minimumTick) {
+        long target = Math.max(timeout.deadlineTick, minimumTick);
+        long delta = Math.min(target - this.currentTick, MAX_DELTA);
+        target = this.currentTick + delta;
+
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (WHEEL_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) ((target >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+
+        timeout.level = level;
+        timeout.slot = slot;
+        timeout.prev = null;
+        timeout.next = this.buckets[level][slot];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        this.buckets[level][slot] = timeout;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            this.buckets[timeout.level][timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = timeout.next = null;
+        timeout.level = -1;
+    }
+
+    /**
+     * <h2>时间轮条目句柄</h2>
+     *
+     * @param <T> 条目的类型.
+     */
+    public static final class Timeout<T> {
+        private final T value;
+        private final long deadlineTick;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private int level = -1;
+        private int slot;
+
+        private Timeout(T value, long deadlineTick) {
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T getValue() {
+            return value;
+        }
+    }
+}
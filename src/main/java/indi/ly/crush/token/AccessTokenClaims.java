@@ -0,0 +1,71 @@
+package indi.ly.crush.token;
+
+import indi.ly.crush.provider.ShiroBasedUsernameProvider;
+import indi.ly.crush.realm.AccessTokenRealm;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * <h2>访问令牌声明</h2>
+ * <p>
+ *     无状态认证模式下, 由 {@link AccessTokenCodec} 从访问令牌中解析得到, 并作为当前请求的主体({@code principal}). <br />
+ *     {@link #toString()} 返回用户名, 因此 {@link ShiroBasedUsernameProvider} 等依赖主体字符串形式的代码无需区分认证模式. <br /> <br />
+ *
+ *     令牌只携带 {@code t_role.id} 和 {@code t_permission.id} 这样在所有节点上含义相同的标识符, 而不携带各个节点启动时自行分配的角色位编号,
+ *     角色名称和权限资源标识符由 {@link AccessTokenRealm} 在校验时展开. <br />
+ *     两个 {@code ID} 数组在构造时被复制并排序, 因此授予相同的两个声明的数组相等.
+ * </p>
+ *
+ * @param userId        用户 {@code ID}.
+ * @param username      用户名.
+ * @param roleIds       签发时用户所拥有的角色的 {@code ID}.
+ * @param permissionIds 签发时用户的直接权限的 {@code ID}.
+ * @param expiresAt     过期时间(自 {@code 1970-01-01T00:00:00Z} 起的秒数).
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public record AccessTokenClaims(long userId, String username, long[] roleIds, long[] permissionIds, long expiresAt)
+        implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 3318095642174029417L;
+
+    public AccessTokenClaims {
+        roleIds = roleIds.clone();
+        permissionIds = permissionIds.clone();
+        Arrays.sort(roleIds);
+        Arrays.sort(permissionIds);
+    }
+
+    @Override
+    public long[] roleIds() {
+        return this.roleIds.clone();
+    }
+
+    @Override
+    public long[] permissionIds() {
+        return this.permissionIds.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof AccessTokenClaims other
+                && this.userId == other.userId
+                && this.expiresAt == other.expiresAt
+                && this.username.equals(other.username)
+                && Arrays.equals(this.roleIds, other.roleIds)
+                && Arrays.equals(this.permissionIds, other.permissionIds));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(this.userId) + Arrays.hashCode(this.roleIds);
+    }
+
+    @Override
+    public String toString() {
+        return this.username;
+    }
+}
@@ -0,0 +1,161 @@
+package indi.ly.crush.token;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * <h2>访问令牌编解码器</h2>
+ * <p>
+ *     签发和校验无状态认证模式下使用的紧凑访问令牌, 格式为 {@code base64url(载荷).base64url(签名)}:
+ *     <ul>
+ *         <li>
+ *             载荷: <br />
+ *             {@code 1} 字节版本号、{@code 8} 字节用户 {@code ID}、{@code 8} 字节过期时间(秒)、各 {@code 2} 字节的角色 {@code ID} 数量和直接权限 {@code ID} 数量、
+ *             每个 {@code ID} 各 {@code 8} 字节, 以及 {@code UTF-8} 编码的用户名.
+ *         </li>
+ *         <li>
+ *             签名: <br />
+ *             载荷的 {@code HmacSHA256}.
+ *         </li>
+ *     </ul>
+ *     校验只需 {@code 1} 次 {@code HMAC} 计算, 不需要访问数据库或会话; {@link Mac} 实例按线程复用, 以避免每次校验都重新初始化密钥. <br />
+ *     版本号不匹配的令牌一律视为无效.
+ * </p>
+ *
+ * @since 1.0
+ * @author 云上的云
+ * @formatter:off
+ */
+public class AccessTokenCodec {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte VERSION = 1;
+    private static final int FIXED_PAYLOAD_LENGTH = 1 + Long.BYTES * 2 + Short.BYTES * 2;
+    /**
+     * <p>
+     *     每种 {@code ID} 的最大数量, 受载荷中 {@code 2} 字节的无符号数量字段限制.
+     * </p>
+     */
+    private static final int MAX_IDS = 0xFFFF;
+    private static final int SIGNATURE_LENGTH = 32;
+    private static final char SEPARATOR = '.';
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private final ThreadLocal<Mac> macs;
+
+    public AccessTokenCodec(@NonNull byte[] secret) {
+        if (secret.length < SIGNATURE_LENGTH) {
+            throw new IllegalArgumentException("访问令牌的签名密钥至少需要 %d 字节: %d.".formatted(SIGNATURE_LENGTH, secret.length));
+        }
+        SecretKeySpec key = new SecretKeySpec(secret, ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("无法初始化访问令牌的签名算法 [%s].".formatted(ALGORITHM), e);
+            }
+        });
+        // 提前初始化一次, 以便在启动时就暴露密钥或算法的问题.
+        this.macs.get();
+    }
+
+    /**
+     * <p>
+     *     签发访问令牌.
+     * </p>
+     *
+     * @param claims 访问令牌声明.
+     * @return 访问令牌.
+     */
+    public @NonNull String issue(@NonNull AccessTokenClaims claims) {
+        byte[] username = claims.username().getBytes(StandardCharsets.UTF_8);
+        long[] roleIds = claims.roleIds();
+        long[] permissionIds = claims.permissionIds();
+        if (roleIds.length > MAX_IDS || permissionIds.length > MAX_IDS) {
+            throw new IllegalArgumentException("访问令牌最多携带 %d 个角色 ID 和 %d 个权限 ID: %d, %d.".formatted(MAX_IDS, MAX_IDS, roleIds.length, permissionIds.length));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(FIXED_PAYLOAD_LENGTH + Long.BYTES * (roleIds.length + permissionIds.length) + username.length)
+                                        .put(VERSION)
+                                        .putLong(claims.userId())
+                                        .putLong(claims.expiresAt())
+                                        .putShort((short) roleIds.length)
+                                        .putShort((short) permissionIds.length);
+        for (long roleId : roleIds) {
+            buffer.putLong(roleId);
+        }
+        for (long permissionId : permissionIds) {
+            buffer.putLong(permissionId);
+        }
+        byte[] payload = buffer.put(username).array();
+        return ENCODER.encodeToString(payload) + SEPARATOR + ENCODER.encodeToString(this.sign(payload));
+    }
+
+    /**
+     * <p>
+     *     校验访问令牌的签名和有效期, 并解析其中的声明.
+     * </p>
+     *
+     * @param token            访问令牌.
+     * @param nowEpochSecond   当前时间(自 {@code 1970-01-01T00:00:00Z} 起的秒数).
+     * @return 访问令牌声明; 如果令牌格式错误、签名不匹配或已经过期则返回 {@code null}.
+     */
+    public @Nullable AccessTokenClaims verify(@NonNull String token, long nowEpochSecond) {
+        int separator = token.indexOf(SEPARATOR);
+        if (separator <= 0 || separator == token.length() - 1) {
+            return null;
+        }
+
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, separator));
+            signature = DECODER.decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        if (payload.length < FIXED_PAYLOAD_LENGTH || signature.length != SIGNATURE_LENGTH
+                || !MessageDigest.isEqual(this.sign(payload), signature)) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        if (buffer.get() != VERSION) {
+            return null;
+        }
+        long userId = buffer.getLong();
+        long expiresAt = buffer.getLong();
+        if (expiresAt <= nowEpochSecond) {
+            return null;
+        }
+        int roleCount = Short.toUnsignedInt(buffer.getShort());
+        int permissionCount = Short.toUnsignedInt(buffer.getShort());
+        if (buffer.remaining() < Long.BYTES * (roleCount + permissionCount)) {
+            return null;
+        }
+        long[] roleIds = new long[roleCount];
+        for (int i = 0; i < roleCount; i++) {
+            roleIds[i] = buffer.getLong();
+        }
+        long[] permissionIds = new long[permissionCount];
+        for (int i = 0; i < permissionCount; i++) {
+            permissionIds[i] = buffer.getLong();
+        }
+        String username = new String(payload, buffer.position(), buffer.remaining(), StandardCharsets.UTF_8);
+        return new AccessTokenClaims(userId, username, roleIds, permissionIds, expiresAt);
+    }
+
+    private @NonNull byte[] sign(@NonNull byte[] payload) {
+        // doFinal 会重置 Mac 的状态, 因此同一线程可以连续复用.
+        return this.macs.get().doFinal(payload);
+    }
+}
@@ -2,6 +2,7 @@ package indi.ly.crush.token;
 
 import indi.ly.crush.model.entity.User;
 import org.apache.shiro.authc.AuthenticationToken;
+import org.apache.shiro.authc.HostAuthenticationToken;
 import org.apache.shiro.authc.RememberMeAuthenticationToken;
 import org.apache.shiro.authc.UsernamePasswordToken;
 
@@ -17,7 +18,7 @@ import org.apache.shiro.authc.UsernamePasswordToken;
  * @formatter:off
  */
 public class SMSCodeToken
-        implements RememberMeAuthenticationToken {
+        implements RememberMeAuthenticationToken, HostAuthenticationToken {
     /**
      * <p>
      *     手机号码, 作为用户的身份标识.
@@ -38,11 +39,22 @@ public class SMSCodeToken
      * </p>
      */
     private final boolean rememberMe;
+    /**
+     * <p>
+     *     发起认证的客户端主机名或 {@code IP} 地址, 可能为 {@code null}.
+     * </p>
+     */
+    private final String host;
 
     public SMSCodeToken(String phoneNumber, String code, boolean rememberMe) {
+        this(phoneNumber, code, rememberMe, null);
+    }
+
+    public SMSCodeToken(String phoneNumber, String code, boolean rememberMe, String host) {
         this.phoneNumber = phoneNumber;
         this.code = code;
         this.rememberMe = rememberMe;
+        this.host = host;
     }
 
     @Override
@@ -60,6 +72,11 @@ public class SMSCodeToken
         return rememberMe;
     }
 
+    @Override
+    public String getHost() {
+        return host;
+    }
+
     public String phoneNumber() {
         return phoneNumber;
     }
@@ -74,6 +91,7 @@ public class SMSCodeToken
                "phoneNumber='" + phoneNumber + '\'' +
                ", code='" + code + '\'' +
                ", rememberMe=" + rememberMe +
+               ", host='" + host + '\'' +
                '}';
     }
 }